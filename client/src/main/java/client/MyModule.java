@@ -27,6 +27,7 @@ import com.google.inject.Scopes;
 import client.services.IngredientService;
 import client.services.RecipeService;
 import client.config.ConfigManager;
+import client.utils.ConditionalGetCache;
 import client.utils.FavoritesPollingService;
 
 import jakarta.ws.rs.client.Client;
@@ -60,6 +61,8 @@ public class MyModule implements Module {
         binder.bind(ShoppingListService.class).in(Scopes.SINGLETON);
         binder.bind(WebsocketService.class).in(Scopes.SINGLETON);
         binder.bind(NutrientsCalc.class).in(Scopes.SINGLETON);
-        binder.bind(Client.class).toInstance(ClientBuilder.newClient(new ClientConfig()));
+        // shared by all ServerUtils instances, so they also share the response cache
+        binder.bind(Client.class).toInstance(ClientBuilder.newClient(
+                new ClientConfig().register(new ConditionalGetCache())));
     }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import client.MyFXML;
 import client.services.RecipeService;
 import com.google.inject.Inject;
 import client.utils.ServerUtils;
+import commons.BatchOperation;
 import commons.Language;
 import commons.Recipe;
 import commons.RecipeIngredient;
@@ -18,6 +19,9 @@ import java.util.Arrays;
 import java.util.List;
 
 public class AddRecipeCtrl {
+    /** Name of the new recipe within the batch that creates it with its ingredients. */
+    private static final String NEW_RECIPE_REF = "recipe";
+
     @FXML
     private Label nameLabel;
     @FXML
@@ -122,7 +126,8 @@ public class AddRecipeCtrl {
      * @return true if valid.
      */
     private boolean validateRecipe(String name) {
-        if (recipeService.recipeNameChecker(recipeService.getAllRecipes(), name, this.recipe)) {
+        if (recipeService.recipeNameChecker(
+                recipeService.getAllRecipeSummaries(), name, this.recipe)) {
             mainCtrl.showError("Name Used.", "This name is already in use.");
             return false;
         }
@@ -234,10 +239,13 @@ public class AddRecipeCtrl {
             Language language = getValidLanguage();
             if (language == null) return;
 
-            saveOrUpdateRecipe(name, servings, preparationSteps, language);
+            boolean created = saveOrUpdateRecipe(name, servings, preparationSteps, language);
 
-            // Now save all ingredients to the server.
-            saveAllIngredientsToServer(recipe);
+            // New recipes are stored together with their ingredients,
+            // for existing ones the ingredients are saved now.
+            if (!created) {
+                saveAllIngredientsToServer(recipe);
+            }
 
             appViewCtrl.loadRecipes();
             mainCtrl.showRecipe(recipe);
@@ -260,7 +268,8 @@ public class AddRecipeCtrl {
             mainCtrl.showError("Input Error", "Recipe name cannot be empty.");
             return false;
         }
-        if (recipeService.recipeNameChecker(recipeService.getAllRecipes(), name, this.recipe)) {
+        if (recipeService.recipeNameChecker(
+                recipeService.getAllRecipeSummaries(), name, this.recipe)) {
             mainCtrl.showError("Used Name",
                     "This recipe name is already in use, please choose another.");
             return false;
@@ -316,43 +325,60 @@ public class AddRecipeCtrl {
 
     /**
      * Handles the logic for creating or updating the recipe on the server.
+     * A new recipe is created together with its ingredients in a single batch request.
+     * @return true if a new recipe was created, false if an existing one was updated
      */
-    private void saveOrUpdateRecipe(String name, int servings,
-                                    List<String> steps, Language lang) {
+    private boolean saveOrUpdateRecipe(String name, int servings,
+                                       List<String> steps, Language lang) {
         boolean isCheap = cheapCheckBox.isSelected();
         boolean isFast = fastCheckBox.isSelected();
         boolean isVegan = veganCheckBox.isSelected();
         isSaved = true;
 
         if (recipe == null || recipe.getId() == 0) {
-            recipe = server.add(new Recipe(name, servings, steps, lang,
-                    isCheap, isFast, isVegan));
+            Recipe draft = new Recipe(name, servings, steps, lang, isCheap, isFast, isVegan);
+            List<BatchOperation> operations = new ArrayList<>();
+            operations.add(BatchOperation.create(NEW_RECIPE_REF, draft));
+            for (RecipeIngredient ri : collectIngredientsFromUI(draft)) {
+                BatchOperation link = BatchOperation.create(null, ri);
+                link.setRecipeRef(NEW_RECIPE_REF);
+                operations.add(link);
+            }
+            recipe = server.executeBatch(operations).getResults().get(0).getRecipe();
             if (isCloneMode) {
                 isCloneMode = false;
             }
+            return true;
         } else {
-            recipe.setCheap(isCheap);
-            recipe.setFast(isFast);
-            recipe.setVegan(isVegan);
-            recipe.setName(name);
-            recipe.setServings(servings);
-            recipe.setPreparationSteps(steps);
-            recipe.setLanguage(lang);
-            recipe = server.updateRecipe(recipe);
+            // applied to the latest copy on the server, so a concurrent edit does not fail it
+            Recipe updated = server.updateRecipe(recipe.getId(), current -> {
+                current.setCheap(isCheap);
+                current.setFast(isFast);
+                current.setVegan(isVegan);
+                current.setName(name);
+                current.setServings(servings);
+                current.setPreparationSteps(steps);
+                current.setLanguage(lang);
+                return current;
+            });
+            if (updated != null) {
+                recipe = updated;
+            }
+            return false;
         }
     }
 
     /**
      * Save all ingredients to the server.
+     * The whole list is sent in one request, which the server applies in one transaction.
      */
     private void saveAllIngredientsToServer(Recipe targetRecipe) {
         try {
             List<RecipeIngredient> ingredientsToSave = collectIngredientsFromUI(targetRecipe);
 
-            // Only delete old ingredients if we have new ones to save
+            // Only replace the old ingredients if we have new ones to save
             if (!ingredientsToSave.isEmpty()) {
-                deleteOldIngredients(targetRecipe);
-                saveNewIngredients(targetRecipe, ingredientsToSave);
+                server.replaceRecipeIngredients(targetRecipe.getId(), ingredientsToSave);
             }
         } catch (Exception e) {
             System.out.println("There was an error in the saving of the ingredients.");
@@ -384,41 +410,6 @@ public class AddRecipeCtrl {
         return ingredientsToSave;
     }
 
-    /**
-     * Deletes existing ingredients for the recipe from the server.
-     * @param targetRecipe The recipe to clean up ingredients for.
-     */
-    private void deleteOldIngredients(Recipe targetRecipe) {
-        if (targetRecipe.getId() > 0) {
-            // Delete all existing ingredients to prevent duplicates
-            List<RecipeIngredient> existing
-                    = server.getRecipeIngredients(targetRecipe.getId());
-            if (existing != null) {
-                for (RecipeIngredient old : existing) {
-                    server.deleteRecipeIngredient(old.getId());
-                }
-            }
-        }
-    }
-
-    /**
-     * Uploads the new list of ingredients to the server.
-     * @param targetRecipe The recipe the ingredients belong to.
-     * @param ingredientsToSave The list of ingredients to save.
-     */
-    private void saveNewIngredients(Recipe targetRecipe, List<RecipeIngredient> ingredientsToSave) {
-        for (RecipeIngredient ingredient : ingredientsToSave) {
-            RecipeIngredient fresh = new RecipeIngredient(
-                    targetRecipe,
-                    ingredient.getIngredient(),
-                    ingredient.getInformalUnit(),
-                    ingredient.getAmount(),
-                    ingredient.getUnit()
-            );
-            server.addRecipeIngredient(fresh);
-        }
-    }
-
     /**
      * the function to clone the recipe.
      * @param originalRecipe the recipe information that needs be inputted for the clone.
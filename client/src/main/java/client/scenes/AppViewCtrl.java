@@ -5,14 +5,19 @@ import client.services.RecipeService;
 import client.utils.FavoritesManager;
 import client.utils.LanguageManager;
 import com.google.inject.Inject;
+import commons.CursorPage;
 import commons.Ingredient;
 import commons.Language;
-import commons.Recipe;
+import commons.RecipeDetail;
+import commons.RecipeSummary;
 import commons.Showable;
+import commons.Suggestion;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.geometry.Side;
 import javafx.scene.Parent;
 import javafx.scene.control.*;
 
@@ -21,13 +26,16 @@ import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
+import javafx.util.Duration;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Controller for the main application view.
@@ -85,6 +93,16 @@ public class AppViewCtrl implements Initializable {
     private boolean polLanguage;
     private boolean dutLanguage;
 
+    // Incremented on every refresh so that pages still loading for an older refresh are dropped
+    private final AtomicLong loadGeneration = new AtomicLong();
+
+    /** Time the user has to stop typing before the full search runs. */
+    private static final int SEARCH_DELAY_MS = 250;
+    private PauseTransition searchDelay;
+    private ContextMenu suggestionMenu;
+    // Incremented on every keystroke and when the menu is hidden, so late suggestions are dropped
+    private final AtomicLong suggestGeneration = new AtomicLong();
+
     /**
      * Constructs a new AppViewCtrl with the necessary dependencies.
      *
@@ -191,38 +209,69 @@ public class AppViewCtrl implements Initializable {
                 } else {
                     String name = item.getName();
                     // Add visual indicator for favorites
-                    if (item instanceof Recipe
-                            && favoritesManager.isFavorite(((Recipe) item).getId())) {
+                    if (item instanceof RecipeSummary
+                            && favoritesManager.isFavorite(((RecipeSummary) item).getId())) {
                         name += " ★";
                     }
+                    if (item instanceof RecipeSummary summary
+                            && summary.getNutrition() != null
+                            && summary.getNutrition().getKcalPer100g() > 0) {
+                        name += String.format(Locale.US, "  (%.0f kcal/100g)",
+                                summary.getNutrition().getKcalPer100g());
+                    }
                     setText(name);
                 }
             }
         });
 
         itemsList.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
-            if (newVal instanceof Recipe) {
-                mainCtrl.showRecipe((Recipe) newVal);
+            if (newVal instanceof RecipeSummary) {
+                openRecipe((RecipeSummary) newVal);
             } else if (newVal instanceof Ingredient) {
                 mainCtrl.showIngredient((Ingredient) newVal);
             }
         });
     }
 
+    /**
+     * Loads the full recipe behind a list entry and shows it.
+     * The list only holds summaries, so the preparation steps and ingredients
+     * are fetched on demand, in one request.
+     *
+     * @param summary the selected list entry
+     */
+    private void openRecipe(RecipeSummary summary) {
+        RecipeDetail detail = recipeService.getRecipeDetail(summary.getId());
+        if (detail == null) {
+            showError("Recipe not found",
+                    "The recipe could not be loaded, it may have been deleted.");
+            return;
+        }
+        mainCtrl.showRecipe(detail);
+    }
+
     /**
      * Sets up the listeners for the search text field.
      * <p>
-     * Updates the data list whenever the text changes and adds a key listener
-     * to clear the search and remove focus when the ESC key is pressed.
+     * Shows name completions below the field on every keystroke and only runs the full
+     * search once the user stops typing for {@value #SEARCH_DELAY_MS} ms.
+     * Also adds a key listener to clear the search and remove focus when the ESC key is pressed.
      */
     private void setupSearch() {
         if (searchField != null) {
-            // Use the new refreshData() method which handles Services and ViewModes
-            searchField.textProperty().addListener((obs, oldVal, newVal) -> refreshData());
+            suggestionMenu = new ContextMenu();
+            searchDelay = new PauseTransition(Duration.millis(SEARCH_DELAY_MS));
+            searchDelay.setOnFinished(e -> refreshData());
+
+            searchField.textProperty().addListener((obs, oldVal, newVal) -> {
+                showSuggestions(newVal);
+                searchDelay.playFromStart();
+            });
 
             searchField.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
                 if (event.getCode() == KeyCode.ESCAPE) {
                     searchField.clear();
+                    hideSuggestions();
                     contentRoot.requestFocus(); // Remove focus
                     event.consume();
                 }
@@ -230,6 +279,88 @@ public class AppViewCtrl implements Initializable {
         }
     }
 
+    /**
+     * Shows the completions of the typed text below the search field.
+     * Recipes are suggested in the recipe and favorite views, ingredients in the ingredient view.
+     * <p>
+     * The completions are fetched from a background thread, so typing never waits for the
+     * server, and are only shown if no key was pressed since.
+     *
+     * @param text the current content of the search field
+     */
+    private void showSuggestions(String text) {
+        if (text == null || text.isBlank() || !searchField.isFocused()) {
+            hideSuggestions();
+            return;
+        }
+
+        long generation = suggestGeneration.incrementAndGet();
+        boolean ingredients = currentMode == ViewMode.INGREDIENTS;
+        Thread fetcher = new Thread(() -> {
+            List<Suggestion> suggestions;
+            try {
+                suggestions = ingredients
+                        ? ingredientService.suggestIngredients(text)
+                        : recipeService.suggestRecipes(text);
+            } catch (Exception e) {
+                // typeahead is optional, the debounced search still reports connection errors
+                suggestions = List.of();
+            }
+            List<Suggestion> fetched = suggestions;
+            Platform.runLater(() -> {
+                if (generation == suggestGeneration.get()) {
+                    applySuggestions(fetched);
+                }
+            });
+        });
+        fetcher.setDaemon(true);
+        fetcher.start();
+    }
+
+    /**
+     * Replaces the items of the suggestion menu, showing it if there are any.
+     *
+     * @param suggestions the completions of the current search text
+     */
+    private void applySuggestions(List<Suggestion> suggestions) {
+        if (suggestions.isEmpty() || !searchField.isFocused()) {
+            suggestionMenu.hide();
+            return;
+        }
+
+        List<MenuItem> items = new ArrayList<>();
+        for (Suggestion suggestion : suggestions) {
+            MenuItem item = new MenuItem(suggestion.getName());
+            item.setOnAction(e -> applySuggestion(suggestion));
+            items.add(item);
+        }
+        suggestionMenu.getItems().setAll(items);
+        if (!suggestionMenu.isShowing()) {
+            suggestionMenu.show(searchField, Side.BOTTOM, 0, 0);
+        }
+    }
+
+    /**
+     * Hides the suggestion menu and drops the suggestions still being fetched.
+     */
+    private void hideSuggestions() {
+        suggestGeneration.incrementAndGet();
+        suggestionMenu.hide();
+    }
+
+    /**
+     * Fills the search field with a picked completion and searches for it right away.
+     *
+     * @param suggestion the completion picked by the user
+     */
+    private void applySuggestion(Suggestion suggestion) {
+        searchField.setText(suggestion.getName());
+        searchField.positionCaret(suggestion.getName().length());
+        hideSuggestions();
+        searchDelay.stop();
+        refreshData();
+    }
+
     /**
      * Switches the current view mode and updates the UI accordingly.
      * Sets the content displayed in the content root area.
@@ -256,6 +387,7 @@ public class AppViewCtrl implements Initializable {
      */
     public void refreshData() {
         itemsList.getSelectionModel().clearSelection();
+        long generation = loadGeneration.incrementAndGet();
         String query = (searchField != null) ? searchField.getText() : "";
         boolean isSearch = (query != null && !query.isBlank());
 
@@ -275,11 +407,13 @@ public class AppViewCtrl implements Initializable {
                     break;
                 case RECIPES:
                 default:
-                    items = isSearch ? recipeService.
-                            searchRecipes(query, engLanguage, polLanguage, dutLanguage)
-                            : recipeService.
-                            getAllRecipesWithLanguage(engLanguage, polLanguage, dutLanguage);
                     additionButton.setOnAction(e -> mainCtrl.showAddRecipe());
+                    if (!isSearch) {
+                        loadRecipePages(generation);
+                        return;
+                    }
+                    items = recipeService.
+                            searchRecipes(query, engLanguage, polLanguage, dutLanguage);
                     break;
             }
 
@@ -291,6 +425,48 @@ public class AppViewCtrl implements Initializable {
         }
     }
 
+    /**
+     * Shows the first page of recipes right away and appends the remaining pages
+     * from a background thread, so the list does not wait for the whole catalog.
+     *
+     * @param generation the refresh this load belongs to
+     */
+    private void loadRecipePages(long generation) {
+        boolean english = engLanguage;
+        boolean polish = polLanguage;
+        boolean dutch = dutLanguage;
+
+        CursorPage<RecipeSummary> first =
+                recipeService.getRecipePageWithLanguage(null, english, polish, dutch);
+        Platform.runLater(() ->
+                itemsList.setItems(FXCollections.observableArrayList(first.getItems())));
+        if (!first.hasNext()) {
+            return;
+        }
+
+        Thread loader = new Thread(() -> {
+            String cursor = first.getNextCursor();
+            try {
+                while (cursor != null && generation == loadGeneration.get()) {
+                    CursorPage<RecipeSummary> page =
+                            recipeService.getRecipePageWithLanguage(cursor, english, polish, dutch);
+                    Platform.runLater(() -> {
+                        if (generation == loadGeneration.get()) {
+                            itemsList.getItems().addAll(page.getItems());
+                        }
+                    });
+                    cursor = page.getNextCursor();
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                showError("Connection Error",
+                        "Could not load all recipes. Check if server is running.");
+            }
+        });
+        loader.setDaemon(true);
+        loader.start();
+    }
+
     // --- Public Adapter Methods (Required by MainCtrl or other scenes) ---
 
     /**
@@ -213,12 +213,15 @@ public class  IngredientViewCtrl {
             nameLabel.setText(newName.trim());
             // update new title to the server.
             if (ingredient != null) {
-                ingredient.setName(newName);
-                if (categoryComboBox.getValue() != null) {
-                    ingredient.setCategory(categoryComboBox.getValue());
-                }
-                // --- FIX: Use the returned object from the server ---
-                Ingredient updated = server.updateIngredient(ingredient);
+                IngredientCategory category = categoryComboBox.getValue();
+                // applied to the latest copy on the server, so concurrent edits are kept
+                Ingredient updated = server.updateIngredient(ingredient.getId(), current -> {
+                    current.setName(newName);
+                    if (category != null) {
+                        current.setCategory(category);
+                    }
+                    return current;
+                });
                 if (updated != null) {
                     this.ingredient = updated;
                     nameLabel.setText(updated.getName()); // Display server-side capitalized name
@@ -295,17 +298,20 @@ public class  IngredientViewCtrl {
             double newValue = new BigDecimal(tf.getText())
                     .setScale(2, RoundingMode.HALF_UP)
                     .doubleValue();
-            switch(tf.getId()) {
-                case "proteinTf":
-                    ingredient.setProtein(newValue);
-                    break;
-                case "carbsTf":
-                    ingredient.setCarbs(newValue);
-                    break;
-                case "fatTf":
-                    ingredient.setFat(newValue);
-            }
-            server.updateIngredient(ingredient);
+            String field = tf.getId();
+            saveIngredient(current -> {
+                switch (field) {
+                    case "proteinTf":
+                        current.setProtein(newValue);
+                        break;
+                    case "carbsTf":
+                        current.setCarbs(newValue);
+                        break;
+                    case "fatTf":
+                        current.setFat(newValue);
+                }
+                return current;
+            });
             appViewCtrl.loadIngredients();
         }
     }
@@ -330,8 +336,13 @@ public class  IngredientViewCtrl {
         label.getStyleClass().add("allergen-label");
         label.setStyle("-fx-background-color:" + a.getColor()+";");
         hboxAllergens.getChildren().addFirst(label);
-        ingredient.setAllergens(selectedAllergens);
-        server.updateIngredient(ingredient);
+        saveIngredient(current -> {
+            Set<Allergen> allergens = current.getAllergens() == null
+                    ? new HashSet<>() : current.getAllergens();
+            allergens.add(a);
+            current.setAllergens(allergens);
+            return current;
+        });
     }
 
     /**
@@ -345,8 +356,26 @@ public class  IngredientViewCtrl {
                 node instanceof Label &&
                         a.equals(node.getUserData())
         );
-        ingredient.setAllergens(selectedAllergens);
-        server.updateIngredient(ingredient);
+        saveIngredient(current -> {
+            Set<Allergen> allergens = current.getAllergens() == null
+                    ? new HashSet<>() : current.getAllergens();
+            allergens.remove(a);
+            current.setAllergens(allergens);
+            return current;
+        });
+    }
+
+    /**
+     * Stores a change of the ingredient on the server. It is applied to the latest copy
+     * there, so a concurrent edit of the other fields is kept.
+     *
+     * @param edit applies the change to a copy of the ingredient
+     */
+    private void saveIngredient(UnaryOperator<Ingredient> edit) {
+        Ingredient updated = server.updateIngredient(ingredient.getId(), edit);
+        if (updated != null) {
+            ingredient = updated;
+        }
     }
 
     /**
@@ -16,12 +16,14 @@
 package client.scenes;
 
 import client.MyFXML;
+import client.services.ConnectionState;
 import client.services.WebsocketService;
 import client.utils.FavoritesManager;
 import client.utils.FavoritesPollingService;
 import com.google.inject.Inject;
 import commons.Ingredient;
 import commons.Recipe;
+import commons.RecipeDetail;
 import commons.RecipeIngredient;
 
 import javafx.scene.Parent;
@@ -40,6 +42,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.prefs.Preferences;
 
 /**
@@ -105,6 +108,18 @@ public class MainCtrl {
         pollingService.startPollingService();
 
         websocketService.initialize(appViewCtrl, this);
+        websocketService.connectionStateProperty().addListener(
+                (observable, oldState, state) -> showConnectionState(state));
+    }
+
+    /**
+     * Tells the user in the title of the window when changes of others are not shown.
+     *
+     * @param state the state of the connection to the server
+     */
+    private void showConnectionState(ConnectionState state) {
+        primaryStage.setTitle(state == ConnectionState.CONNECTED
+                ? "FoodPal" : "FoodPal (reconnecting...)");
     }
 
     /**
@@ -128,14 +143,30 @@ public class MainCtrl {
      * @param recipe the recipe to display
      */
     public void showRecipe(Recipe recipe) {
-        // Removed obsolete temp file cleanup code here
+        showRecipeView(ctrl -> ctrl.setRecipe(recipe, fxml));
+    }
 
+    /**
+     * Opens the recipe view for a recipe whose ingredients were loaded with it.
+     *
+     * @param detail the recipe and its ingredients
+     */
+    public void showRecipe(RecipeDetail detail) {
+        showRecipeView(ctrl -> ctrl.setRecipe(detail, fxml));
+    }
+
+    /**
+     * Loads the recipe view into the AppView content area.
+     *
+     * @param setRecipe hands the recipe to show to the new view
+     */
+    private void showRecipeView(Consumer<RecipeViewCtrl> setRecipe) {
         if (fxml == null || appViewCtrl == null) {
             throw new IllegalStateException("FXML or AppViewCtrl are null");
         }
         Pair<RecipeViewCtrl, Parent> recipeView = fxml.load(RecipeViewCtrl.class, bundle(),
                 "client", "scenes", "RecipeView.fxml");
-        recipeView.getKey().setRecipe(recipe, fxml);
+        setRecipe.accept(recipeView.getKey());
         appViewCtrl.setContent(recipeView.getValue());
         if(firstOpen){
             switchFirstOpen();
@@ -241,7 +241,17 @@ public class RecipeIngredientCtrl {
             );
         } else {
             updateData(ingredient, amount, informalAmount, unit);
-            serverUtils.updateRecipeIngredient(recipeIngredient);
+            RecipeIngredient updated = serverUtils.updateRecipeIngredient(recipe.getId(),
+                    recipeIngredient.getId(), current -> {
+                        current.setAmount(amount);
+                        current.setUnit(unit);
+                        current.setInformalUnit(informalAmount);
+                        current.setIngredient(ingredient);
+                        return current;
+                    });
+            if (updated != null) {
+                recipeIngredient = updated;
+            }
         }
     }
 
@@ -9,6 +9,7 @@ import client.utils.Printer;
 import client.utils.ServerUtils;
 import commons.Allergen;
 import commons.Recipe;
+import commons.RecipeDetail;
 import commons.RecipeIngredient;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
@@ -115,6 +116,20 @@ public class RecipeViewCtrl {
         loadRecipe(recipe, true);
     }
 
+    /**
+     * Sets the recipe to display in this view, with the ingredients that came with it,
+     * so they do not have to be requested separately.
+     *
+     * @param detail the recipe and its ingredients
+     * @param fxml   the FXML loader for loading EditableItem components
+     */
+    public void setRecipe(RecipeDetail detail, MyFXML fxml) {
+        this.fxml = fxml;
+        this.recipe = detail.getRecipe();
+        showIngredients(detail.toRecipeIngredients());
+        loadRecipe(detail.getRecipe(), false);
+    }
+
     /**
      * loads a recipe into the RecipeView
      * @param recipe the recipe to load;
@@ -220,7 +235,8 @@ public class RecipeViewCtrl {
      * Shows the label and hides the text field.
      */
     private void finishEditing() {
-        if(recipeService.recipeNameChecker(recipeService.getAllRecipes(), nameTextField.getText(), this.recipe)){
+        if(recipeService.recipeNameChecker(
+                recipeService.getAllRecipeSummaries(), nameTextField.getText(), this.recipe)){
             mainCtrl.showError("Used Name",
                     "This recipe name is already in use, please choose another.");
             return;
@@ -233,32 +249,29 @@ public class RecipeViewCtrl {
         boolean isVegan = veganCheckBox.isSelected();
 
         if (recipe != null) {
-            boolean changed = false;
-
-            // Check Title Change
-            if (newName != null && !newName.isBlank() && !newName.equals(recipe.getName())) {
-                recipe.setName(newName);
-                changed = true;
-            }
-
-            // Check Tags Change
-            if (recipe.isCheap() != isCheap ||
-                    recipe.isFast() != isFast || recipe.isVegan() != isVegan) {
-                recipe.setCheap(isCheap);
-                recipe.setFast(isFast);
-                recipe.setVegan(isVegan);
-                changed = true;
-            }
+            boolean renamed = newName != null && !newName.isBlank()
+                    && !newName.equals(recipe.getName());
+            boolean retagged = recipe.isCheap() != isCheap
+                    || recipe.isFast() != isFast || recipe.isVegan() != isVegan;
 
             // Only send update to server if something changed
-            if (changed) {
-                // --- FIX: Use the returned object from the server ---
-                Recipe updated = server.updateRecipe(recipe);
+            if (renamed || retagged) {
+                // applied to the latest copy on the server, so concurrent edits are kept
+                Recipe updated = server.updateRecipe(recipe.getId(), current -> {
+                    if (renamed) {
+                        current.setName(newName);
+                    }
+                    if (retagged) {
+                        current.setCheap(isCheap);
+                        current.setFast(isFast);
+                        current.setVegan(isVegan);
+                    }
+                    return current;
+                });
                 if (updated != null) {
                     this.recipe = updated; // Update local reference
                     nameLabel.setText(updated.getName()); // Display server-side capitalized name
                 }
-                // ----------------------------------------------------
 
                 appViewCtrl.loadRecipes(); // Refresh the list sidebar
             } else {
@@ -294,9 +307,18 @@ public class RecipeViewCtrl {
      * ingredients container using EditableItem components.
      */
     public void loadIngredients() {
+        showIngredients(server.getRecipeIngredients(recipe.getId()));
+    }
+
+    /**
+     * Shows the given ingredients in the ingredients container.
+     *
+     * @param ingredients the ingredients of the current recipe
+     */
+    private void showIngredients(List<RecipeIngredient> ingredients) {
         ingredientsContainer.getChildren().clear();
         ingredientRowCtrls.clear();
-        this.ingredients = server.getRecipeIngredients(recipe.getId());
+        this.ingredients = ingredients;
         if (ingredients == null || fxml == null) {
             return;
         }
@@ -340,7 +362,7 @@ public class RecipeViewCtrl {
                     steps,
                     i,
                     () -> {
-                        server.updateRecipe(recipe);
+                        saveSteps(steps);
                         loadPreparationSteps(recipe.getPreparationSteps());
                     },
                     false
@@ -349,6 +371,23 @@ public class RecipeViewCtrl {
         }
     }
 
+    /**
+     * Stores the edited preparation steps on the server. They are applied to the latest copy
+     * of the recipe there, so a concurrent edit of its other fields is kept.
+     *
+     * @param steps the edited preparation steps
+     */
+    private void saveSteps(List<String> steps) {
+        List<String> edited = new ArrayList<>(steps);
+        Recipe updated = server.updateRecipe(recipe.getId(), current -> {
+            current.setPreparationSteps(edited);
+            return current;
+        });
+        if (updated != null) {
+            recipe = updated;
+        }
+    }
+
     /**
      * Adds an empty preparation step into the container for the preparation steps, so that
      * the user can input a new preparation step.
@@ -378,7 +417,7 @@ public class RecipeViewCtrl {
                 index,
                 () -> {
                     // Only called for non-blank commit or delete on existing items
-                    server.updateRecipe(recipe);
+                    saveSteps(steps);
                     loadPreparationSteps(recipe.getPreparationSteps());
                 },
                 true // true in this case, because a new item is created
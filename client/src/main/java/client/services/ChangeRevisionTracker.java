@@ -0,0 +1,72 @@
+package client.services;
+
+/**
+ * Keeps the revision of the catalog change log the views are known to be up to date with,
+ * used by {@link WebsocketService} to fetch only the rows changed since then after events
+ * were missed.
+ * <p>
+ * While connected, the latest revision of the server is read regularly. A revision read is
+ * only adopted at the next read: the events of the changes up to it were sent when they
+ * were committed, so by then they have arrived over the connection that stayed open in
+ * the meantime. A read made over an earlier connection is never adopted, as the events
+ * sent while disconnected were not received.
+ */
+class ChangeRevisionTracker {
+
+    private Long revision;
+    /** The revision read last over the current connection, not adopted yet. */
+    private Long pending;
+    /** Counts the connections opened and lost, to recognize reads of an earlier one. */
+    private int connection;
+
+    /**
+     * Returns the revision the views are up to date with.
+     * @return the revision, null if unknown
+     */
+    synchronized Long get() {
+        return revision;
+    }
+
+    /**
+     * Sets the revision after the views caught up with the server as a whole.
+     * @param caughtUp the revision caught up with, ignored if null
+     */
+    synchronized void set(Long caughtUp) {
+        if (caughtUp != null) {
+            revision = caughtUp;
+        }
+    }
+
+    /**
+     * Returns the current connection, to be passed to {@link #read} with a revision read
+     * over it.
+     * @return the current connection
+     */
+    synchronized int connection() {
+        return connection;
+    }
+
+    /**
+     * Forgets the revision read over the previous connection, called when a connection
+     * is opened or lost.
+     */
+    synchronized void connectionChanged() {
+        connection++;
+        pending = null;
+    }
+
+    /**
+     * Adopts the revision read before, and keeps a newly read one for the next call.
+     * @param readOver the connection that was current when the revision was requested
+     * @param latest   the latest revision of the server, null if it could not be read
+     */
+    synchronized void read(int readOver, Long latest) {
+        if (readOver != connection) {
+            return;
+        }
+        if (pending != null && (revision == null || pending > revision)) {
+            revision = pending;
+        }
+        pending = latest;
+    }
+}
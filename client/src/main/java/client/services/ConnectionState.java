@@ -0,0 +1,13 @@
+package client.services;
+
+/**
+ * The state of the websocket connection to the server, as shown to the user.
+ */
+public enum ConnectionState {
+    /** A connection is being opened. */
+    CONNECTING,
+    /** Connected, changes of other clients are shown as they happen. */
+    CONNECTED,
+    /** The connection was lost, a new attempt is scheduled. */
+    DISCONNECTED
+}
@@ -3,6 +3,7 @@ package client.services;
 import client.utils.ServerUtils;
 import com.google.inject.Inject;
 import commons.Ingredient;
+import commons.Suggestion;
 
 import java.util.Comparator;
 import java.util.List;
@@ -46,6 +47,15 @@ public class IngredientService {
                 filter(e -> e.getId() == id).findFirst().orElse(null);
     }
 
+    /**
+     * Completes the typed text to ingredient names, for the typeahead of the search field.
+     */
+    public List<Suggestion> suggestIngredients(String prefix) {
+        List<Suggestion> suggestions = server.getSuggestions(prefix,
+                Suggestion.Kind.INGREDIENT, ServerUtils.SUGGESTION_LIMIT);
+        return suggestions == null ? List.of() : suggestions;
+    }
+
     /**
      * Searches ingredients (client-side filtering), sorted alphabetically.
      */
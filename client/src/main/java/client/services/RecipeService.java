@@ -2,11 +2,17 @@ package client.services;
 
 import client.utils.FavoritesManager;
 import client.utils.ServerUtils;
+import commons.CursorPage;
 import commons.Language;
 import commons.Recipe;
+import commons.RecipeDetail;
+import commons.RecipeSummary;
+import commons.Suggestion;
 import com.google.inject.Inject;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import static java.util.stream.Collectors.toList;
 
 public class RecipeService {
@@ -26,144 +32,126 @@ public class RecipeService {
     }
 
     /**
-     * Gets all recipes, sorted alphabetically by name.
+     * Gets the summaries of all recipes, sorted alphabetically by name.
      */
-    public List<Recipe> getAllRecipes() {
-        List<Recipe> recipes = server.getRecipes();
-        if (recipes != null) {
-            recipes.sort(Comparator.comparing(Recipe::getName));
-        }
-        return recipes;
+    public List<RecipeSummary> getAllRecipeSummaries() {
+        return server.getRecipeSummaries();
     }
 
     /**
-     * Gets all recipes related to the language.
+     * Gets the full recipe behind a summary shown in a list, together with its ingredients.
+     * @param id the id of the recipe
+     * @return the recipe and its ingredients, or null if it could not be loaded
      */
-    public List<Recipe> getAllRecipesWithLanguage(boolean english, boolean polish, boolean dutch){
-
-        List<Recipe> recipes =
-                new java.util.
-                        ArrayList<>(server.getRecipes().stream().filter((Recipe recipeItem) -> {
-                            if (english && dutch && polish) {
-                                return true;
-                            }
-                            if (english && dutch) {
-                                return (recipeItem.
-                                        getLanguage().equals(Language.English)
-                                        || recipeItem.getLanguage().equals(Language.Dutch));
-                            }
-                            if (english && polish) {
-                                return (recipeItem.
-                                        getLanguage().equals(Language.English)
-                                        || recipeItem.getLanguage().equals(Language.Polish));
-                            }
-                            if (dutch && polish) {
-                                return (recipeItem.
-                                        getLanguage().equals(Language.Dutch)
-                                        || recipeItem.getLanguage().equals(Language.Polish));
-                            }
-                            if (english) {
-                                return recipeItem.getLanguage().equals(Language.English);
-                            }
-                            if (polish) {
-                                return recipeItem.getLanguage().equals(Language.Polish);
-                            }
-                            if (dutch) {
-                                return recipeItem.getLanguage().equals(Language.Dutch);
-                            }
-                            return false;
-                        })
-                .toList());
-
-        recipes.sort(Comparator.comparing(Recipe::getName));
-
-        return recipes;
+    public RecipeDetail getRecipeDetail(long id) {
+        return server.getRecipeDetail(id);
     }
 
     /**
-     * Searches for recipes, sorted alphabetically by name.
+     * Gets one page of recipes in the selected languages, sorted alphabetically by name.
+     * The languages are filtered by the server, so recipes in other languages are never sent.
+     *
+     * @param after the cursor of the previous page, or null for the first page
+     * @param english whether to include English recipes
+     * @param polish whether to include Polish recipes
+     * @param dutch whether to include Dutch recipes
+     * @return the page together with the cursor of the next page
      */
-    public List<Recipe> searchRecipes(String query,
-                                      boolean english, boolean polish, boolean dutch) {
-        List<Recipe> results = server.searchRecipes(query);
-        if (results == null) {
-            return null;
+    public CursorPage<RecipeSummary> getRecipePageWithLanguage(String after, boolean english,
+                                                              boolean polish, boolean dutch) {
+        Set<Language> languages = selectedLanguages(english, polish, dutch);
+        if (languages.isEmpty()) {
+            return new CursorPage<>(List.of(), null);
         }
-
-        results.sort(Comparator.comparing(Recipe::getName));
-        return filterByLanguage(results, english, polish, dutch);
+        return server.getRecipeSummaryPage(after, ServerUtils.RECIPE_PAGE_SIZE, languages);
     }
 
     /**
-     * Filters the list of recipes based on the selected languages.
-     * @param results The list of recipes to filter.
-     * @param english Whether to include English recipes.
-     * @param polish Whether to include Polish recipes.
-     * @param dutch Whether to include Dutch recipes.
-     * @return A list of filtered recipes.
+     * Searches for the best matching recipes in the selected languages, most relevant first.
      */
-    private List<Recipe> filterByLanguage(List<Recipe> results,
-                                          boolean english, boolean polish, boolean dutch) {
+    public List<RecipeSummary> searchRecipes(String query,
+                                             boolean english, boolean polish, boolean dutch) {
+        Set<Language> languages = selectedLanguages(english, polish, dutch);
+        if (languages.isEmpty()) {
+            return List.of();
+        }
+        List<Recipe> results =
+                server.searchRecipes(query, ServerUtils.SEARCH_RESULT_LIMIT, languages);
+        if (results == null) {
+            return null;
+        }
+
         return results.stream()
-                .filter(recipe -> isLanguageAllowed(recipe, english, polish, dutch))
+                .map(RecipeSummary::of)
                 .toList();
     }
 
     /**
-     * Checks if a specific recipe is allowed based on the language flags.
-     * @param recipe The recipe to check.
-     * @param english Whether English is allowed.
-     * @param polish Whether Polish is allowed.
-     * @param dutch Whether Dutch is allowed.
-     * @return true if the recipe's language matches a selected flag.
+     * Collects the languages selected with the language flags.
+     * @param english Whether to include English recipes.
+     * @param polish Whether to include Polish recipes.
+     * @param dutch Whether to include Dutch recipes.
+     * @return the selected languages, empty if no flag is set
      */
-    private boolean isLanguageAllowed(Recipe recipe,
-                                      boolean english, boolean polish, boolean dutch) {
-        Language lang = recipe.getLanguage();
-        if (lang == null) {
-            return false;
+    private static Set<Language> selectedLanguages(boolean english, boolean polish,
+                                                   boolean dutch) {
+        Set<Language> languages = EnumSet.noneOf(Language.class);
+        if (english) {
+            languages.add(Language.English);
         }
-
-        return (english && lang == Language.English)
-                || (dutch && lang == Language.Dutch)
-                || (polish && lang == Language.Polish);
+        if (polish) {
+            languages.add(Language.Polish);
+        }
+        if (dutch) {
+            languages.add(Language.Dutch);
+        }
+        return languages;
     }
 
     /**
      * Gets only favorite recipes, sorted alphabetically by name.
      */
-    public List<Recipe> getFavoriteRecipes() {
-        List<Recipe> all = server.getRecipes();
+    public List<RecipeSummary> getFavoriteRecipes() {
+        List<RecipeSummary> all = server.getRecipeSummaries();
         if (all == null) return List.of();
 
         return all.stream()
                 .filter(r -> favoritesManager.isFavorite(r.getId()))
-                .sorted(Comparator.comparing(Recipe::getName))
+                .sorted(Comparator.comparing(RecipeSummary::getName))
                 .collect(toList());
     }
 
     /**
-     * Searches within favorite recipes, sorted alphabetically by name.
+     * Completes the typed text to recipe names, for the typeahead of the search field.
+     */
+    public List<Suggestion> suggestRecipes(String prefix) {
+        List<Suggestion> suggestions = server.getSuggestions(prefix,
+                Suggestion.Kind.RECIPE, ServerUtils.SUGGESTION_LIMIT);
+        return suggestions == null ? List.of() : suggestions;
+    }
+
+    /**
+     * Searches within favorite recipes, most relevant first.
      */
-    public List<Recipe> searchFavoriteRecipes(String query) {
+    public List<RecipeSummary> searchFavoriteRecipes(String query) {
         List<Recipe> results = server.searchRecipes(query);
         if (results == null) return List.of();
 
         return results.stream()
                 .filter(r -> favoritesManager.isFavorite(r.getId()))
-                .sorted(Comparator.comparing(Recipe::getName))
+                .map(RecipeSummary::of)
                 .collect(toList());
     }
 
     /**
      * function for checking if the name from the recipe is already in the list of all the recipes
-     * @param recipeList the list of all the recipes where the names need to be checked
+     * @param recipeList the summaries of all the recipes where the names need to be checked
      * @param s the name of the recipe
      * @return true or false depending on if the list contains the recipe name
      */
-    public boolean recipeNameChecker(List<Recipe> recipeList, String s, Recipe recipeOne){
+    public boolean recipeNameChecker(List<RecipeSummary> recipeList, String s, Recipe recipeOne){
         if(recipeOne != null){
-            for(Recipe recipeName : recipeList){
+            for(RecipeSummary recipeName : recipeList){
                 if (recipeName.getName().trim().equalsIgnoreCase(s.trim()) &&
                         (recipeOne.getId() != recipeName.getId())) {
                     return true;
@@ -171,7 +159,7 @@ public class RecipeService {
 
             }
         } else{
-            for(Recipe recipeName : recipeList){
+            for(RecipeSummary recipeName : recipeList){
                 if (recipeName.getName().trim().equalsIgnoreCase(s.trim())) {
                     return true;
                 }
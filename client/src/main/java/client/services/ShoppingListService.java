@@ -24,7 +24,8 @@ public class ShoppingListService {
      * @param configManager the manager for saving configuration
      */
     @Inject
-    public ShoppingListService(Config config, IngredientService ingredientService, ConfigManager configManager) {
+    public ShoppingListService(Config config, IngredientService ingredientService,
+                               ConfigManager configManager) {
         this.config = config;
         this.ingredientService = ingredientService;
         this.configManager = configManager;
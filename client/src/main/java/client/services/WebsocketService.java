@@ -4,19 +4,90 @@ import client.config.Config;
 import client.scenes.AppViewCtrl;
 import client.scenes.MainCtrl;
 import client.scenes.RecipeViewCtrl;
+import client.utils.ServerUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
+import commons.ChangeSet;
+import commons.Recipe;
+import commons.RecipeIngredient;
+import commons.Subscription;
 import commons.SyncEvent;
 import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Receives the {@link SyncEvent}s of the server and updates the views.
+ * <p>
+ * The server only sends the events of the topics subscribed to: the recipe list, and the
+ * recipe currently shown in the recipe view.
+ * <p>
+ * The service remembers the sequence number of the last event received. When the
+ * connection drops it reconnects and resumes from that number, so the server sends the
+ * events missed in the meantime. If it no longer knows them, only the rows changed since
+ * the last known revision of the catalog change log are fetched; the data is loaded again
+ * as a whole only if that fails too. That revision is advanced regularly while connected,
+ * see {@link ChangeRevisionTracker}.
+ * <p>
+ * Attempts to reconnect are spread out with a jittered exponential backoff, so a restarted
+ * server is not hit by every client at once. An open connection is pinged regularly and
+ * dropped when the server stops answering, as a half-open connection never closes itself.
+ */
 public class WebsocketService implements WebSocket.Listener {
+    /** Time to wait before the first attempt to connect again. */
+    public static final long RECONNECT_BASE_DELAY_MS = 500;
+    /** The longest time to wait between two attempts to connect. */
+    public static final long RECONNECT_MAX_DELAY_MS = 30_000;
+    /** Time between two pings of an open connection. */
+    public static final long PING_INTERVAL_MS = 15_000;
+    /** Time after a ping within which the server has to answer. */
+    public static final long PONG_TIMEOUT_MS = 10_000;
+    /** Time between two reads of the latest change log revision while connected. */
+    public static final long REVISION_REFRESH_MS = 30_000;
+
     private final ObjectMapper mapper = new ObjectMapper();
+    private final ServerUtils server;
+    private final URI uri;
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ScheduledExecutorService reconnector =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().factory());
+    // the requests to catch up run here, so a slow server does not hold up pings and reconnects
+    private final ScheduledExecutorService syncer =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().factory());
+
+    private final ReadOnlyObjectWrapper<ConnectionState> connectionState =
+            new ReadOnlyObjectWrapper<>(ConnectionState.CONNECTING);
+
+    private final StringBuilder partial = new StringBuilder();
+    private WebSocket socket;
+    private ScheduledFuture<?> pinger;
+    private ScheduledFuture<?> revisionRefresher;
+    /** When anything was last received from the server, in {@link System#nanoTime()}. */
+    private volatile long lastHeard;
+    /** The number of failed attempts to connect since the last connection. */
+    private int attempts;
+    private CompletableFuture<?> sending = CompletableFuture.completedFuture(null);
+    private Long viewedRecipeId;
+    /** The epoch of the events received, null before the first connection. */
+    private Long epoch;
+    private long lastSeq;
+    /** The revision of the catalog change log the views are up to date with. */
+    private final ChangeRevisionTracker changeRevision = new ChangeRevisionTracker();
 
     private RecipeViewCtrl recipeViewCtrl;
     private AppViewCtrl appViewCtrl;
@@ -25,10 +96,15 @@ public class WebsocketService implements WebSocket.Listener {
     /**
      * injected constructor
      * @param config the config file, used for the server parameters
+     * @param server used to load the data again when missed events are no longer known
      */
     @Inject
-    public WebsocketService(Config config) {
-        connect(config.getServerUrl());
+    public WebsocketService(Config config, ServerUtils server) {
+        this.server = server;
+        URI serverURI = URI.create(config.getServerUrl());
+        String fullhost = serverURI.getHost() + ":" + serverURI.getPort();
+        this.uri = URI.create("ws://" + fullhost + "/ws");
+        connect();
     }
 
     /**
@@ -41,92 +117,325 @@ public class WebsocketService implements WebSocket.Listener {
         this.mainCtrl = mainCtrl;
     }
 
+    /**
+     * Returns the state of the connection, updated on the JavaFX Application Thread.
+     * @return the property
+     */
+    public ReadOnlyObjectProperty<ConnectionState> connectionStateProperty() {
+        return connectionState.getReadOnlyProperty();
+    }
+
+    /**
+     * Returns the time to wait before an attempt to connect: it doubles with every failed
+     * attempt up to {@link #RECONNECT_MAX_DELAY_MS}, of which a random half is dropped.
+     * @param attempt the number of failed attempts before this one
+     * @param random  a random number between 0 and 1
+     * @return the delay in milliseconds
+     */
+    static long backoffDelay(int attempt, double random) {
+        long delay = RECONNECT_BASE_DELAY_MS << Math.min(attempt, 16);
+        long capped = Math.min(delay, RECONNECT_MAX_DELAY_MS);
+        return capped / 2 + (long) (random * (capped / 2));
+    }
+
+    /**
+     * Sets the recipe view shown, and subscribes to the changes of its recipe instead of
+     * the previously shown one.
+     * @param recipeViewCtrl the recipe view
+     */
     public void setRecipeViewCtrl(RecipeViewCtrl recipeViewCtrl) {
         this.recipeViewCtrl = recipeViewCtrl;
+        Recipe recipe = recipeViewCtrl == null ? null : recipeViewCtrl.getRecipe();
+        viewRecipe(recipe == null ? null : recipe.getId());
+    }
+
+    /**
+     * Moves the subscription for recipe changes to another recipe.
+     * @param recipeId the recipe now shown, null if none
+     */
+    private synchronized void viewRecipe(Long recipeId) {
+        if (Objects.equals(recipeId, viewedRecipeId)) {
+            return;
+        }
+        if (viewedRecipeId != null) {
+            send(Subscription.unsubscribe(Subscription.recipe(viewedRecipeId)));
+        }
+        viewedRecipeId = recipeId;
+        if (recipeId != null) {
+            send(Subscription.subscribe(Subscription.recipe(recipeId)));
+        }
+    }
+
+    /**
+     * Sends a subscription frame, after the frames sent before it.
+     * Frames are not sent before the connection is open, {@link #onOpen} sends the current
+     * subscriptions then.
+     * @param frame the frame to send
+     */
+    private synchronized void send(Subscription frame) {
+        WebSocket ws = socket;
+        if (ws == null) {
+            return;
+        }
+        String json;
+        try {
+            json = mapper.writeValueAsString(frame);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        // the websocket allows only one outstanding send at a time
+        sending = sending.exceptionally(e -> null).thenCompose(x -> ws.sendText(json, true));
+    }
+
+    /**
+     * Subscribes to the current topics and resumes from the last event received.
+     * @param websocket the opened websocket
+     */
+    @Override
+    public void onOpen(WebSocket websocket) {
+        synchronized (this) {
+            socket = websocket;
+            attempts = 0;
+            lastHeard = System.nanoTime();
+            pinger = reconnector.scheduleAtFixedRate(() -> ping(websocket),
+                    PING_INTERVAL_MS, PING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            changeRevision.connectionChanged();
+            revisionRefresher = syncer.scheduleWithFixedDelay(this::refreshChangeRevision,
+                    REVISION_REFRESH_MS, REVISION_REFRESH_MS, TimeUnit.MILLISECONDS);
+            sending = CompletableFuture.completedFuture(null);
+            partial.setLength(0);
+            send(Subscription.subscribe(Subscription.RECIPES));
+            if (viewedRecipeId != null) {
+                send(Subscription.subscribe(Subscription.recipe(viewedRecipeId)));
+            }
+            send(Subscription.resume(epoch, lastSeq));
+        }
+        setConnectionState(ConnectionState.CONNECTED);
+        websocket.request(1);
+    }
+
+    /**
+     * Pings the server, or drops the connection if the last ping was not answered.
+     * @param websocket the open websocket
+     */
+    private void ping(WebSocket websocket) {
+        long silentMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastHeard);
+        if (silentMs > PING_INTERVAL_MS + PONG_TIMEOUT_MS) {
+            System.out.println("No answer from " + uri + " for " + silentMs + " ms");
+            websocket.abort();
+            connectionLost(websocket);
+            return;
+        }
+        websocket.sendPing(ByteBuffer.allocate(0));
+    }
+
+    @Override
+    public CompletionStage<?> onPong(WebSocket websocket, ByteBuffer message) {
+        lastHeard = System.nanoTime();
+        websocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket websocket, int statusCode, String reason) {
+        System.out.println("Connection to " + uri + " closed: " + statusCode + " " + reason);
+        connectionLost(websocket);
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket websocket, Throwable error) {
+        System.out.println("Connection to " + uri + " failed: " + error);
+        connectionLost(websocket);
+    }
+
+    /**
+     * Forgets a lost connection and schedules an attempt to connect again. Only the first
+     * report of the loss of the current connection counts, later ones are ignored.
+     * @param websocket the lost websocket
+     */
+    private synchronized void connectionLost(WebSocket websocket) {
+        if (socket != websocket) {
+            return;
+        }
+        socket = null;
+        if (pinger != null) {
+            pinger.cancel(false);
+            pinger = null;
+        }
+        if (revisionRefresher != null) {
+            revisionRefresher.cancel(false);
+            revisionRefresher = null;
+        }
+        changeRevision.connectionChanged();
+        scheduleReconnect();
+    }
+
+    /**
+     * Schedules the next attempt to connect after the backoff delay.
+     */
+    private synchronized void scheduleReconnect() {
+        long delay = backoffDelay(attempts++, ThreadLocalRandom.current().nextDouble());
+        System.out.println("Connecting to " + uri + " again in " + delay + " ms");
+        setConnectionState(ConnectionState.DISCONNECTED);
+        reconnector.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
     }
 
     /**
      * connects to the server
-     * @param serverURL the url of the server to connect to.
      */
-    private void connect(String serverURL){
-        URI serverURI = URI.create(serverURL);
-        String fullhost = serverURI.getHost() + ":" + serverURI.getPort();
-        URI uri = URI.create("ws://" + fullhost + "/ws");
+    private void connect(){
         System.out.println("connecting to " + uri);
-        HttpClient client = HttpClient.newHttpClient();
+        setConnectionState(ConnectionState.CONNECTING);
 
         client.newWebSocketBuilder()
                 .buildAsync(uri, this)
                 .exceptionally(exception -> {
-                    System.out.println("Error connecting to " + uri);
-                    exception.printStackTrace();
+                    System.out.println("Error connecting to " + uri + ": " + exception);
+                    scheduleReconnect();
                     return null;
                 });
     }
 
+    /**
+     * Updates the connection state on the JavaFX Application Thread.
+     * @param state the new state
+     */
+    private void setConnectionState(ConnectionState state) {
+        Platform.runLater(() -> connectionState.set(state));
+    }
+
+    /**
+     * Remembers the position of a received event in the event log of the server.
+     * @param event the received event
+     */
+    private synchronized void received(SyncEvent event) {
+        switch (event) {
+            case SyncEvent.Resumed resumed -> {
+                epoch = resumed.getEpoch();
+                lastSeq = resumed.getSeq();
+            }
+            case SyncEvent.ResyncRequired resync -> {
+                epoch = resync.getEpoch();
+                lastSeq = resync.getSeq();
+            }
+            default -> lastSeq = Math.max(lastSeq, event.getSeq());
+        }
+    }
+
+    /**
+     * Remembers the current revision of the change log, as the views are up to date now.
+     * Called off the websocket thread, so the request does not hold up the events.
+     */
+    private void updateChangeRevision() {
+        changeRevision.set(server.getLatestChangeRevision());
+    }
+
+    /**
+     * Reads the latest revision of the change log, which is adopted at the next read if the
+     * connection stays open until then. Called off the websocket thread.
+     */
+    private void refreshChangeRevision() {
+        int connection = changeRevision.connection();
+        changeRevision.read(connection, server.getLatestChangeRevision());
+    }
+
+    /**
+     * Catches up after events were missed that the server no longer knows, by fetching
+     * the rows changed since the last known revision. Falls back to loading everything
+     * again if the revision is unknown or too old for the server.
+     */
+    private void resync() {
+        Long since = changeRevision.get();
+        ChangeSet changes = since == null ? null : server.getChanges(since);
+        if (changes == null || changes.isResetRequired()) {
+            Platform.runLater(this::reload);
+            updateChangeRevision();
+            return;
+        }
+        changeRevision.set(changes.getRevision());
+        Platform.runLater(() -> apply(changes));
+    }
+
+    /**
+     * Updates the views for the rows changed since the last known revision.
+     * @param changes the changed rows
+     */
+    private void apply(ChangeSet changes) {
+        if (!changes.getRecipes().isEmpty() || !changes.getDeletedRecipeIds().isEmpty()) {
+            appViewCtrl.refreshData();
+        }
+        Recipe viewed = recipeViewCtrl == null ? null : recipeViewCtrl.getRecipe();
+        if (viewed == null) {
+            return;
+        }
+        if (changes.getDeletedRecipeIds().contains(viewed.getId())) {
+            mainCtrl.showDefaultView();
+            return;
+        }
+        changes.getRecipes().stream()
+                .filter(recipe -> recipe.getId() == viewed.getId())
+                .findFirst()
+                .ifPresent(recipe -> recipeViewCtrl.loadRecipe(recipe, false));
+        // a deleted row no longer says which recipe it belonged to
+        boolean ingredientsChanged = !changes.getIngredients().isEmpty()
+                || !changes.getDeletedIngredientIds().isEmpty()
+                || !changes.getDeletedRecipeIngredientIds().isEmpty();
+        for (RecipeIngredient ri : changes.getRecipeIngredients()) {
+            ingredientsChanged |= ri.getRecipe() != null
+                    && ri.getRecipe().getId() == viewed.getId();
+        }
+        if (ingredientsChanged) {
+            recipeViewCtrl.loadIngredients();
+        }
+    }
+
+    /**
+     * Loads the recipe list and the shown recipe again, when the changes since the last
+     * known revision are not available.
+     */
+    private void reload() {
+        appViewCtrl.refreshData();
+        Recipe viewed = recipeViewCtrl == null ? null : recipeViewCtrl.getRecipe();
+        if (viewed == null) {
+            return;
+        }
+        Recipe current = server.getRecipeById(viewed.getId());
+        if (current == null) {
+            mainCtrl.showDefaultView();
+        } else {
+            recipeViewCtrl.loadRecipe(current, true);
+        }
+    }
+
     @Override
     public CompletionStage<?> onText(
         WebSocket websocket,
         CharSequence data,
         boolean last
     ){
-        StringBuilder message = new StringBuilder();
-        message.append(data);
+        // a large batch can arrive in several parts
+        partial.append(data);
         if (!last){
             websocket.request(1);
             return CompletableFuture.completedFuture(null);
         }
+        String message = partial.toString();
+        partial.setLength(0);
 
         try{
-            SyncEvent event = mapper.readValue(message.toString(), SyncEvent.class);
-
-
-            Platform.runLater(() -> {
-                switch (event) {
-                    case SyncEvent.RecipeCreated recipeCreated -> {
-                        appViewCtrl.refreshData();
-                    }
-                    case SyncEvent.RecipeDeleted recipeDeleted -> {
-                        appViewCtrl.refreshData();
-                        if (recipeViewCtrl != null &&
-                                recipeViewCtrl.getRecipe().getId() == recipeDeleted.getRecipeId()) {
-                            mainCtrl.showDefaultView();
-                        }
-                    }
-                    case SyncEvent.RecipeContentUpdated recipeContentUpdated -> {
-                        if (recipeViewCtrl != null &&
-                                recipeViewCtrl.getRecipe().getId() ==
-                                        recipeContentUpdated.getRecipeId()) {
-                            recipeViewCtrl.loadRecipe(recipeContentUpdated.getRecipe(), false);
-                        }
-                        appViewCtrl.refreshData();
-                    }
-                    case SyncEvent.RecipeIngredientCreated ingredientCreated -> {
-                        if (recipeViewCtrl != null &&
-                                recipeViewCtrl.getRecipe().getId() ==
-                                        ingredientCreated.getRecipeId()) {
-                            recipeViewCtrl.loadIngredients();
-                        }
-                    }
-                    case SyncEvent.RecipeIngredientDeleted ingredientDeleted -> {
-                        if (recipeViewCtrl != null &&
-                                recipeViewCtrl.getRecipe().getId() ==
-                                        ingredientDeleted.getRecipeId()) {
-                            recipeViewCtrl.loadIngredients();
-                        }
-                    }
-                    case SyncEvent.RecipeIngredientUpdated ingredientUpdated -> {
-                        if (recipeViewCtrl != null &&
-                                recipeViewCtrl.getRecipe().getId() ==
-                                        ingredientUpdated.getRecipeId()) {
-                            recipeViewCtrl.loadIngredients();
-                        }
-                    }
-                    default -> {
-                    }
-                }
-            });
+            SyncEvent event = mapper.readValue(message, SyncEvent.class);
+            received(event);
+            lastHeard = System.nanoTime();
+            if (event instanceof SyncEvent.ResyncRequired) {
+                syncer.execute(this::resync);
+            } else if (event instanceof SyncEvent.Resumed) {
+                syncer.execute(this::refreshChangeRevision);
+            } else {
+                List<SyncEvent> events = event instanceof SyncEvent.Batch batch
+                        ? batch.getEvents() : List.of(event);
+                Platform.runLater(() -> apply(events));
+            }
         }
         catch (Exception e){
             e.printStackTrace();
@@ -137,5 +446,56 @@ public class WebsocketService implements WebSocket.Listener {
         return CompletableFuture.completedFuture(null);
     }
 
+    /**
+     * Updates the views for events received together. Every view is refreshed at most
+     * once, however many of the events concern it.
+     * @param events the events, oldest first
+     */
+    private void apply(List<SyncEvent> events) {
+        Recipe viewed = recipeViewCtrl == null ? null : recipeViewCtrl.getRecipe();
+        boolean refreshList = false;
+        boolean viewedDeleted = false;
+        boolean reloadIngredients = false;
+        Recipe viewedContent = null;
+        for (SyncEvent event : events) {
+            boolean isViewed = viewed != null && viewed.getId() == event.getRecipeId();
+            switch (event) {
+                case SyncEvent.RecipeCreated recipeCreated -> refreshList = true;
+                case SyncEvent.RecipeDeleted recipeDeleted -> {
+                    refreshList = true;
+                    viewedDeleted |= isViewed;
+                }
+                case SyncEvent.RecipeContentUpdated recipeContentUpdated -> {
+                    refreshList = true;
+                    if (isViewed) {
+                        viewedContent = recipeContentUpdated.getRecipe();
+                    }
+                }
+                case SyncEvent.RecipeIngredientCreated ingredientCreated ->
+                        reloadIngredients |= isViewed;
+                case SyncEvent.RecipeIngredientDeleted ingredientDeleted ->
+                        reloadIngredients |= isViewed;
+                case SyncEvent.RecipeIngredientUpdated ingredientUpdated ->
+                        reloadIngredients |= isViewed;
+                case SyncEvent.RecipeIngredientsReplaced ingredientsReplaced ->
+                        reloadIngredients |= isViewed;
+                default -> {
+                }
+            }
+        }
 
+        if (viewedDeleted) {
+            mainCtrl.showDefaultView();
+        } else {
+            if (viewedContent != null) {
+                recipeViewCtrl.loadRecipe(viewedContent, false);
+            }
+            if (reloadIngredients) {
+                recipeViewCtrl.loadIngredients();
+            }
+        }
+        if (refreshList) {
+            appViewCtrl.refreshData();
+        }
+    }
 }
@@ -0,0 +1,113 @@
+package client.utils;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.client.ClientResponseFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Client-side HTTP cache for the GET requests made by {@link ServerUtils}.
+ * <p>
+ * Keeps the body and entity tag of the last response per URL and sends the tag along
+ * with the next request to the same URL. When the server answers {@code 304 Not Modified},
+ * the stored body is handed to the caller as if it had been downloaded again, so an
+ * unchanged list only costs one round trip without a body.
+ * Bodies are stored as bytes, every caller gets freshly deserialized objects.
+ */
+public class ConditionalGetCache implements ClientRequestFilter, ClientResponseFilter {
+
+    /** Maximum number of URLs kept, the least recently used one is dropped first. */
+    static final int MAX_ENTRIES = 256;
+
+    private final Map<URI, Entry> entries = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<URI, Entry> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            });
+
+    /**
+     * Adds the tag of the stored response to a GET request.
+     *
+     * @param request the outgoing request
+     */
+    @Override
+    public void filter(ClientRequestContext request) {
+        if (!HttpMethod.GET.equals(request.getMethod())) {
+            return;
+        }
+        Entry entry = entries.get(request.getUri());
+        if (entry != null) {
+            request.getHeaders().putSingle(HttpHeaders.IF_NONE_MATCH, entry.etag());
+        }
+    }
+
+    /**
+     * Stores tagged responses and replays the stored body on {@code 304 Not Modified}.
+     *
+     * @param request  the request that was sent
+     * @param response the response received from the server
+     * @throws IOException if the body cannot be read
+     */
+    @Override
+    public void filter(ClientRequestContext request, ClientResponseContext response)
+            throws IOException {
+        if (!HttpMethod.GET.equals(request.getMethod())) {
+            return;
+        }
+        URI uri = request.getUri();
+
+        if (response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode()) {
+            Entry entry = entries.get(uri);
+            if (entry != null) {
+                response.setStatus(Response.Status.OK.getStatusCode());
+                response.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                if (entry.contentType() != null) {
+                    response.getHeaders().putSingle(HttpHeaders.CONTENT_TYPE, entry.contentType());
+                }
+                response.setEntityStream(new ByteArrayInputStream(entry.body()));
+            }
+            return;
+        }
+
+        String etag = response.getHeaderString(HttpHeaders.ETAG);
+        if (response.getStatus() != Response.Status.OK.getStatusCode()
+                || etag == null || !response.hasEntity()) {
+            entries.remove(uri);
+            return;
+        }
+        byte[] body = response.getEntityStream().readAllBytes();
+        response.setEntityStream(new ByteArrayInputStream(body));
+        entries.put(uri, new Entry(etag, body, response.getHeaderString(HttpHeaders.CONTENT_TYPE)));
+    }
+
+    /**
+     * Returns the number of URLs with a stored response.
+     *
+     * @return the number of stored responses
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * A stored response.
+     *
+     * @param etag        the entity tag sent by the server
+     * @param body        the raw response body
+     * @param contentType the media type of the body
+     */
+    private record Entry(String etag, byte[] body, String contentType) {
+    }
+}
@@ -18,17 +18,32 @@ package client.utils;
 import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
 
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
 
 import client.config.Config;
 import com.google.inject.Inject;
+import commons.BatchOperation;
+import commons.BatchResult;
+import commons.ChangeSet;
+import commons.CursorPage;
 import commons.Ingredient;
+import commons.Language;
 import commons.Recipe;
+import commons.RecipeDetail;
 import commons.RecipeIngredient;
+import commons.RecipeSummary;
+import commons.Suggestion;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.Entity;
+import jakarta.ws.rs.client.WebTarget;
 
 import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.WebApplicationException;
 
 import jakarta.ws.rs.core.GenericType;
 import jakarta.ws.rs.core.Response;
@@ -38,6 +53,17 @@ import jakarta.ws.rs.core.Response;
  */
 public class ServerUtils {
 
+    /** Number of recipes requested per page when walking the recipe listing. */
+    public static final int RECIPE_PAGE_SIZE = 50;
+    /** Maximum number of ranked search results shown in the recipe list. */
+    public static final int SEARCH_RESULT_LIMIT = 50;
+    /** Maximum number of completions shown below the search field. */
+    public static final int SUGGESTION_LIMIT = 8;
+    /** Number of times an edit is applied to a freshly fetched copy before giving up. */
+    public static final int UPDATE_ATTEMPTS = 3;
+    /** Header telling the server which version of a row an update is based on. */
+    static final String EXPECTED_VERSION = "X-Expected-Version";
+
     private final String serverURL;
     private final Client client;
 
@@ -53,15 +79,40 @@ public class ServerUtils {
     }
 
     /**
-     * Retrieves a list of all recipes from the server.
+     * Retrieves the summaries of all recipes, sorted by name.
+     * Summaries only hold the fields needed by list views and are much cheaper to load
+     * than full recipes.
      *
-     * @return a list of Recipe objects
+     * @return a list of RecipeSummary objects
      */
-    public List<Recipe> getRecipes() {
+    public List<RecipeSummary> getRecipeSummaries() {
         return this.client
-                .target(serverURL).path("api/recipes/")
+                .target(serverURL).path("api/recipes/summaries")
+                .request(APPLICATION_JSON)
+                .get(new GenericType<List<RecipeSummary>>() {
+                });
+    }
+
+    /**
+     * Retrieves a single page of recipe summaries, sorted by name.
+     * The language filter is applied by the server, so every page is full until the last one.
+     *
+     * @param after     the cursor returned with the previous page, or null for the first page
+     * @param limit     the maximum number of summaries on the page
+     * @param languages the languages to include, all languages if null or empty
+     * @return the page together with the cursor of the next page
+     */
+    public CursorPage<RecipeSummary> getRecipeSummaryPage(String after, int limit,
+                                                          Collection<Language> languages) {
+        WebTarget target = withLanguages(this.client
+                .target(serverURL).path("api/recipes/summaries")
+                .queryParam("limit", limit), languages);
+        if (after != null) {
+            target = target.queryParam("after", after);
+        }
+        return target
                 .request(APPLICATION_JSON)
-                .get(new GenericType<List<Recipe>>() {
+                .get(new GenericType<CursorPage<RecipeSummary>>() {
                 });
     }
 
@@ -95,6 +146,58 @@ public class ServerUtils {
                 .get(new GenericType<List<Recipe>>() {});
     }
 
+    /**
+     * Searches for the best matching recipes, most relevant first.
+     *
+     * @param query     the search string (name, ingredient, or step)
+     * @param limit     the maximum number of recipes to return
+     * @param languages the languages to include, all languages if null or empty
+     * @return at most {@code limit} matching recipes, ranked by the server
+     */
+    public List<Recipe> searchRecipes(String query, int limit, Collection<Language> languages) {
+        return withLanguages(this.client
+                .target(serverURL).path("api/recipes/search")
+                .queryParam("name", query)
+                .queryParam("limit", limit), languages)
+                .request(APPLICATION_JSON)
+                .get(new GenericType<List<Recipe>>() {});
+    }
+
+    /**
+     * Adds the {@code languages} filter to a recipe listing or search request.
+     *
+     * @param target    the request target
+     * @param languages the languages to include, no filter is added if null or empty
+     * @return the target with one {@code languages} parameter per language
+     */
+    private static WebTarget withLanguages(WebTarget target, Collection<Language> languages) {
+        if (languages == null || languages.isEmpty()) {
+            return target;
+        }
+        return target.queryParam("languages", languages.stream().map(Language::name).toArray());
+    }
+
+    /**
+     * Completes the typed text to recipe or ingredient names, for typeahead.
+     *
+     * @param prefix the typed text
+     * @param kind   only suggest recipes or only ingredients, both if null
+     * @param limit  the maximum number of suggestions
+     * @return the suggestions, names starting with the prefix first
+     */
+    public List<Suggestion> getSuggestions(String prefix, Suggestion.Kind kind, int limit) {
+        WebTarget target = this.client
+                .target(serverURL).path("api/suggest")
+                .queryParam("prefix", prefix)
+                .queryParam("limit", limit);
+        if (kind != null) {
+            target = target.queryParam("kind", kind);
+        }
+        return target
+                .request(APPLICATION_JSON)
+                .get(new GenericType<List<Suggestion>>() {});
+    }
+
     /**
      * Retrieves a recipe by its ID from the server.
      *
@@ -117,6 +220,28 @@ public class ServerUtils {
         }
     }
 
+    /**
+     * Retrieves a recipe together with its ingredients in one request.
+     *
+     * @param id the ID of the recipe to retrieve
+     * @return the recipe and its ingredients if it was found, otherwise null
+     */
+    public RecipeDetail getRecipeDetail(long id) {
+        try {
+            Response response = this.client
+                    .target(serverURL).path("api/recipes/" + id + "/full")
+                    .request(APPLICATION_JSON)
+                    .get();
+
+            if (response.getStatus() == Response.Status.OK.getStatusCode()) {
+                return response.readEntity(RecipeDetail.class);
+            }
+            return null;
+        } catch (ProcessingException e) {
+            return null;
+        }
+    }
+
     /**
      * Retrieves all recipe ingredients for a specific recipe from the server.
      *
@@ -149,9 +274,11 @@ public class ServerUtils {
     }
 
     /**
-     * Updates the specified recipe
+     * Updates the specified recipe, unless it was changed on the server since this copy
+     * was fetched.
      * @param recipe the recipe to update
-     * @return the updated recipe as returned by the server
+     * @return the updated recipe as returned by the server, or null if the update failed or
+     *         the copy was outdated
      * @throws IllegalArgumentException if {@code recipe} is null or has invalid ID
      */
     public Recipe updateRecipe(Recipe recipe) {
@@ -161,16 +288,22 @@ public class ServerUtils {
         if (recipe.getId() < 0) {
             throw new IllegalArgumentException("Recipe to update must have a valid ID");
         }
+        return readUpdated(putExpectingVersion("api/recipes/" + recipe.getId(), recipe,
+                recipe.getVersion()), Recipe.class);
+    }
 
-        try {
-            return this.client
-                    .target(serverURL)
-                    .path("api/recipes/" + recipe.getId())
-                    .request(APPLICATION_JSON)
-                    .put(Entity.entity(recipe, APPLICATION_JSON), Recipe.class);
-        } catch (ProcessingException e) {
-            return null;
-        }
+    /**
+     * Applies an edit to the current state of a recipe on the server.
+     * If someone else changes the recipe in the meantime, the recipe is fetched again and
+     * the edit applied to the new state, so neither change is lost.
+     * @param id   the ID of the recipe to update
+     * @param edit changes a freshly fetched copy of the recipe and returns it
+     * @return the updated recipe as returned by the server, or null if it does not exist,
+     *         the update failed or it kept conflicting {@link #UPDATE_ATTEMPTS} times
+     */
+    public Recipe updateRecipe(long id, UnaryOperator<Recipe> edit) {
+        return updateWithRetry("api/recipes/" + id, Recipe.class,
+                () -> getRecipeById(id), Recipe::getVersion, edit);
     }
 
     /**
@@ -186,6 +319,57 @@ public class ServerUtils {
                 .post(Entity.entity(recipe, APPLICATION_JSON), Recipe.class);
     }
 
+    /**
+     * Applies several creates, updates and deletes in one request and one transaction.
+     * Operations can refer to rows created earlier in the list by their ref.
+     *
+     * @param operations the operations, in the order to apply them
+     * @return the result of every operation and the ids of the created refs
+     */
+    public BatchResult executeBatch(List<BatchOperation> operations) {
+        return this.client
+                .target(serverURL).path("api/batch")
+                .request(APPLICATION_JSON)
+                .post(Entity.entity(operations, APPLICATION_JSON), BatchResult.class);
+    }
+
+    /**
+     * Retrieves the latest revision of the catalog change log.
+     *
+     * @return the revision, or null if the server is unreachable
+     */
+    public Long getLatestChangeRevision() {
+        try {
+            return this.client
+                    .target(serverURL).path("api/changes/latest")
+                    .request(APPLICATION_JSON)
+                    .get(Long.class);
+        }
+        catch (ProcessingException | WebApplicationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Retrieves the rows of the catalog changed after a revision, to catch up without
+     * downloading the whole catalog.
+     *
+     * @param since the last revision seen
+     * @return the changes, or null if the server is unreachable
+     */
+    public ChangeSet getChanges(long since) {
+        try {
+            return this.client
+                    .target(serverURL).path("api/changes")
+                    .queryParam("since", since)
+                    .request(APPLICATION_JSON)
+                    .get(ChangeSet.class);
+        }
+        catch (ProcessingException | WebApplicationException e) {
+            return null;
+        }
+    }
+
 
     /**
      * gets all ingredients in the database
@@ -245,9 +429,11 @@ public class ServerUtils {
     }
 
     /**
-     * Updates the specified recipe ingredient
+     * Updates the specified recipe ingredient, unless it was changed on the server since this
+     * copy was fetched.
      * @param recipeIngredient the recipe ingredient to update
-     * @return the updated recipe ingredient as returned by the server
+     * @return the updated recipe ingredient as returned by the server, or null if the update
+     *         failed or the copy was outdated
      * @throws IllegalArgumentException if {@code recipe ingredient} is null or has invalid ID
      */
     public RecipeIngredient updateRecipeIngredient(RecipeIngredient recipeIngredient) {
@@ -258,21 +444,35 @@ public class ServerUtils {
             throw new IllegalArgumentException("Recipe Ingredient to update must have a valid ID");
         }
 
-        try {
-            return this.client
-                    .target(serverURL)
-                    .path("api/recipeingredients/" + recipeIngredient.getId())
-                    .request(APPLICATION_JSON)
-                    .put(Entity.entity(recipeIngredient, APPLICATION_JSON), RecipeIngredient.class);
-        } catch (ProcessingException e) {
-            return null;
-        }
+        return readUpdated(putExpectingVersion(
+                "api/recipeingredients/" + recipeIngredient.getId(),
+                recipeIngredient, recipeIngredient.getVersion()), RecipeIngredient.class);
     }
 
     /**
-     * Updates the specified ingredient
+     * Applies an edit to the current state of a recipe ingredient on the server,
+     * fetching it again and retrying if someone else changes it in the meantime.
+     * @param recipeId the ID of the recipe the ingredient belongs to
+     * @param id       the ID of the recipe ingredient to update
+     * @param edit     changes a freshly fetched copy of the recipe ingredient and returns it
+     * @return the updated recipe ingredient as returned by the server, or null if it does not
+     *         exist, the update failed or it kept conflicting {@link #UPDATE_ATTEMPTS} times
+     */
+    public RecipeIngredient updateRecipeIngredient(long recipeId, long id,
+                                                   UnaryOperator<RecipeIngredient> edit) {
+        return updateWithRetry("api/recipeingredients/" + id, RecipeIngredient.class,
+                () -> getRecipeIngredients(recipeId).stream()
+                        .filter(ri -> ri.getId() == id)
+                        .findFirst().orElse(null),
+                RecipeIngredient::getVersion, edit);
+    }
+
+    /**
+     * Updates the specified ingredient, unless it was changed on the server since this copy
+     * was fetched.
      * @param ingredient the ingredient to update
-     * @return the updated ingredient as returned by the server
+     * @return the updated ingredient as returned by the server, or null if the update failed
+     *         or the copy was outdated
      * @throws IllegalArgumentException if {@code ingredient} is null or has invalid ID
      */
     public Ingredient updateIngredient(Ingredient ingredient) {
@@ -283,17 +483,97 @@ public class ServerUtils {
             throw new IllegalArgumentException("Ingredient to update must have a valid ID");
         }
 
+        return readUpdated(putExpectingVersion("api/ingredients/" + ingredient.getId(),
+                ingredient, ingredient.getVersion()), Ingredient.class);
+    }
+
+    /**
+     * Applies an edit to the current state of an ingredient on the server,
+     * fetching it again and retrying if someone else changes it in the meantime.
+     * @param id   the ID of the ingredient to update
+     * @param edit changes a freshly fetched copy of the ingredient and returns it
+     * @return the updated ingredient as returned by the server, or null if it does not exist,
+     *         the update failed or it kept conflicting {@link #UPDATE_ATTEMPTS} times
+     */
+    public Ingredient updateIngredient(long id, UnaryOperator<Ingredient> edit) {
+        return updateWithRetry("api/ingredients/" + id, Ingredient.class,
+                () -> getIngredientById(id), Ingredient::getVersion, edit);
+    }
+
+    /**
+     * Fetches a row, applies an edit and stores it only if nobody changed the row in between,
+     * starting over with a fresh copy when somebody did.
+     * @param path    the path to PUT the edited row to
+     * @param type    the type of the row
+     * @param fetch   fetches the current row, null if it does not exist
+     * @param version reads the version of a row
+     * @param edit    applies the change to a fetched row
+     * @param <T>     the type of the row
+     * @return the row as stored by the server, or null if the row does not exist, the update
+     *         failed or it kept conflicting
+     */
+    private <T> T updateWithRetry(String path, Class<T> type, Supplier<T> fetch,
+                                  ToLongFunction<T> version, UnaryOperator<T> edit) {
+        for (int attempt = 0; attempt < UPDATE_ATTEMPTS; attempt++) {
+            T current = fetch.get();
+            if (current == null) {
+                return null;
+            }
+            long basedOn = version.applyAsLong(current);
+            Response response = putExpectingVersion(path, edit.apply(current), basedOn);
+            int conflict = Response.Status.PRECONDITION_FAILED.getStatusCode();
+            if (response == null || response.getStatus() != conflict) {
+                return readUpdated(response, type);
+            }
+            // give the connection back before trying again
+            response.close();
+        }
+        return null;
+    }
+
+    /**
+     * Sends an update that the server only applies to the given version of the row.
+     * The version goes in its own header, as the entity tags of GET responses name the
+     * revision of the whole catalog rather than the version of one row.
+     * @param path    the path of the row
+     * @param entity  the new state of the row
+     * @param version the version the new state is based on
+     * @return the response, or null if the server is unreachable
+     */
+    private Response putExpectingVersion(String path, Object entity, long version) {
         try {
             return this.client
                     .target(serverURL)
-                    .path("api/ingredients/" + ingredient.getId())
+                    .path(path)
                     .request(APPLICATION_JSON)
-                    .put(Entity.entity(ingredient, APPLICATION_JSON), Ingredient.class);
+                    .header(EXPECTED_VERSION, Long.toString(version))
+                    .put(Entity.entity(entity, APPLICATION_JSON));
         } catch (ProcessingException e) {
             return null;
         }
     }
 
+    /**
+     * Reads the stored row from the response to an update.
+     * @param response the response, may be null
+     * @param type     the type of the row
+     * @param <T>      the type of the row
+     * @return the stored row, or null if the update was not applied
+     */
+    private static <T> T readUpdated(Response response, Class<T> type) {
+        if (response == null) {
+            return null;
+        }
+        try {
+            if (response.getStatus() != Response.Status.OK.getStatusCode()) {
+                return null;
+            }
+            return response.readEntity(type);
+        } finally {
+            response.close();
+        }
+    }
+
     /**
      * Deletes the specified recipe ingredient
      * @param id the id of the recipe ingredient to delete
@@ -341,6 +621,35 @@ public class ServerUtils {
         }
     }
 
+    /**
+     * Replaces the complete ingredient list of a recipe in a single request.
+     * Entries keeping the id of an existing row update it, the others are added,
+     * and rows missing from the list are removed by the server.
+     *
+     * @param recipeId    the ID of the recipe
+     * @param ingredients the new ingredient list of the recipe
+     * @return the stored ingredient list, or null if the server could not be reached
+     */
+    public List<RecipeIngredient> replaceRecipeIngredients(long recipeId,
+                                                           List<RecipeIngredient> ingredients) {
+        if (recipeId < 0) {
+            throw new IllegalArgumentException("Recipe must have a valid ID, currently "
+                    + recipeId);
+        }
+        try {
+            return this.client
+                    .target(serverURL)
+                    .path("api/recipes/" + recipeId + "/ingredients")
+                    .request(APPLICATION_JSON)
+                    .put(Entity.entity(ingredients, APPLICATION_JSON),
+                            new GenericType<List<RecipeIngredient>>() {
+                            });
+        }
+        catch (ProcessingException e) {
+            return null;
+        }
+    }
+
     /**
      * Adds an Ingredient to the server database and returns one with a valid ID
      */
@@ -373,12 +682,29 @@ public class ServerUtils {
         if (ingredientId < 0) {
             throw new IllegalArgumentException("Ingredient ID must not be negative");
         }
+        Map<Long, Long> usage = getIngredientUsage(List.of(ingredientId));
+        return usage == null ? null : usage.getOrDefault(ingredientId, 0L);
+    }
+
+    /**
+     * Counts how many recipes each of the given ingredients is used in, with one request.
+     *
+     * @param ingredientIds the ingredients to count, or null for every ingredient in use
+     * @return ingredient id to the number of recipes using it, or null if server is unreachable
+     */
+    public Map<Long, Long> getIngredientUsage(Collection<Long> ingredientIds) {
+        WebTarget target = this.client
+                .target(serverURL).path("api/ingredients/usage");
+        if (ingredientIds != null) {
+            if (ingredientIds.isEmpty()) {
+                return Map.of();
+            }
+            target = target.queryParam("ids", ingredientIds.toArray());
+        }
         try {
-            return this.client
-                    .target(serverURL)
-                    .path("api/recipeingredients/recipeCount/"+ingredientId)
+            return target
                     .request(APPLICATION_JSON)
-                    .get(new GenericType<Long>() {});
+                    .get(new GenericType<Map<Long, Long>>() {});
         }
         catch (ProcessingException e) {
             return null;
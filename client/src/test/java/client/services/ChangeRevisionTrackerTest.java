@@ -0,0 +1,63 @@
+package client.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeRevisionTrackerTest {
+
+    private ChangeRevisionTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new ChangeRevisionTracker();
+        tracker.connectionChanged();
+    }
+
+    @Test
+    void read_adoptsARevisionOnlyAtTheNextRead() {
+        tracker.read(tracker.connection(), 5L);
+        assertNull(tracker.get());
+
+        tracker.read(tracker.connection(), 9L);
+        assertEquals(5L, tracker.get());
+
+        tracker.read(tracker.connection(), null);
+        assertEquals(9L, tracker.get());
+    }
+
+    @Test
+    void read_neverMovesBack() {
+        tracker.set(10L);
+        tracker.read(tracker.connection(), 7L);
+        tracker.read(tracker.connection(), 12L);
+        assertEquals(10L, tracker.get());
+    }
+
+    @Test
+    void connectionChanged_dropsTheRevisionReadBefore() {
+        tracker.read(tracker.connection(), 5L);
+        tracker.connectionChanged();
+        tracker.read(tracker.connection(), 9L);
+        assertNull(tracker.get());
+    }
+
+    @Test
+    void read_ignoresReadsOverAnEarlierConnection() {
+        int earlier = tracker.connection();
+        tracker.connectionChanged();
+        tracker.read(tracker.connection(), 5L);
+        tracker.read(earlier, 9L);
+        tracker.read(tracker.connection(), 11L);
+        assertEquals(5L, tracker.get());
+    }
+
+    @Test
+    void set_replacesTheRevisionAfterCatchingUp() {
+        tracker.set(3L);
+        assertEquals(3L, tracker.get());
+        tracker.set(null);
+        assertEquals(3L, tracker.get());
+    }
+}
@@ -0,0 +1,30 @@
+package client.services;
+
+import org.junit.jupiter.api.Test;
+
+import static client.services.WebsocketService.RECONNECT_BASE_DELAY_MS;
+import static client.services.WebsocketService.RECONNECT_MAX_DELAY_MS;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebsocketServiceTest {
+
+    @Test
+    void backoffDelay_doublesWithEveryAttempt() {
+        assertEquals(RECONNECT_BASE_DELAY_MS, WebsocketService.backoffDelay(0, 1));
+        assertEquals(2 * RECONNECT_BASE_DELAY_MS, WebsocketService.backoffDelay(1, 1));
+        assertEquals(4 * RECONNECT_BASE_DELAY_MS, WebsocketService.backoffDelay(2, 1));
+    }
+
+    @Test
+    void backoffDelay_dropsUpToHalfAtRandom() {
+        assertEquals(RECONNECT_BASE_DELAY_MS / 2, WebsocketService.backoffDelay(0, 0));
+        assertEquals(3 * RECONNECT_BASE_DELAY_MS / 4, WebsocketService.backoffDelay(0, 0.5));
+    }
+
+    @Test
+    void backoffDelay_isCapped() {
+        assertEquals(RECONNECT_MAX_DELAY_MS, WebsocketService.backoffDelay(10, 1));
+        assertEquals(RECONNECT_MAX_DELAY_MS, WebsocketService.backoffDelay(1000, 1));
+        assertEquals(RECONNECT_MAX_DELAY_MS / 2, WebsocketService.backoffDelay(1000, 0));
+    }
+}
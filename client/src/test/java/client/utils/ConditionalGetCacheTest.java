@@ -0,0 +1,106 @@
+package client.utils;
+
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ConditionalGetCacheTest {
+
+    private static final URI LIST = URI.create("http://localhost:8080/api/ingredients/");
+
+    @Mock private ClientRequestContext request;
+    @Mock private ClientResponseContext response;
+
+    private final MultivaluedMap<String, Object> requestHeaders = new MultivaluedHashMap<>();
+    private final MultivaluedMap<String, String> responseHeaders = new MultivaluedHashMap<>();
+    private ConditionalGetCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ConditionalGetCache();
+        lenient().when(request.getMethod()).thenReturn("GET");
+        lenient().when(request.getUri()).thenReturn(LIST);
+        lenient().when(request.getHeaders()).thenReturn(requestHeaders);
+        lenient().when(response.getHeaders()).thenReturn(responseHeaders);
+    }
+
+    @Test
+    void taggedResponse_isStoredAndRevalidated() throws IOException {
+        storeResponse("\"1-0\"", "[]");
+
+        cache.filter(request);
+
+        assertEquals("\"1-0\"", requestHeaders.getFirst("If-None-Match"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void notModified_replaysStoredBody() throws IOException {
+        storeResponse("\"1-0\"", "[{\"id\":1}]");
+
+        when(response.getStatus()).thenReturn(304);
+        cache.filter(request, response);
+
+        verify(response).setStatus(200);
+        ArgumentCaptor<InputStream> body = ArgumentCaptor.forClass(InputStream.class);
+        verify(response, times(2)).setEntityStream(body.capture());
+        assertEquals("[{\"id\":1}]",
+                new String(body.getValue().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void errorResponse_dropsStoredBody() throws IOException {
+        storeResponse("\"1-0\"", "[]");
+
+        when(response.getStatus()).thenReturn(404);
+        cache.filter(request, response);
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void otherMethods_areIgnored() throws IOException {
+        when(request.getMethod()).thenReturn("PUT");
+
+        cache.filter(request);
+        cache.filter(request, response);
+
+        assertTrue(requestHeaders.isEmpty());
+        verify(response, never()).setEntityStream(any());
+    }
+
+    /**
+     * Passes a {@code 200 OK} response with the given tag and body through the cache.
+     */
+    private void storeResponse(String etag, String json) throws IOException {
+        when(response.getStatus()).thenReturn(200);
+        when(response.getHeaderString("ETag")).thenReturn(etag);
+        when(response.getHeaderString("Content-Type")).thenReturn("application/json");
+        when(response.hasEntity()).thenReturn(true);
+        when(response.getEntityStream())
+                .thenReturn(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        cache.filter(request, response);
+    }
+}
@@ -1,8 +1,17 @@
 package client.utils;
 
 import client.config.Config;
+import commons.BatchOperation;
+import commons.BatchResult;
+import commons.ChangeSet;
+import commons.Ingredient;
 import commons.Language;
 import commons.Recipe;
+import commons.RecipeDetail;
+import commons.RecipeIngredient;
+import commons.RecipeSummary;
+import commons.Suggestion;
+import commons.Unit;
 import jakarta.ws.rs.ProcessingException;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.Entity;
@@ -19,12 +28,16 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -54,22 +67,40 @@ class ServerUtilsTest {
         lenient().when(client.target(anyString())).thenReturn(target);
         lenient().when(target.path(anyString())).thenReturn(target);
         lenient().when(target.request(anyString())).thenReturn(builder);
+        lenient().when(builder.header(anyString(), any())).thenReturn(builder);
 
         sut = new ServerUtils(config, client);
     }
 
     @Test
-    void getRecipes_success() {
-        Recipe recipe = new Recipe("Pancakes", 1, List.of("Mix", "Fry"), Language.English,false,false,false);
-        List<Recipe> expected = List.of(recipe);
+    void getChanges_requestsTheChangesSinceARevision() {
+        ChangeSet expected = new ChangeSet(3, 7);
+        when(target.queryParam(anyString(), any())).thenReturn(target);
+        when(builder.get(ChangeSet.class)).thenReturn(expected);
 
-        when(builder.get(ArgumentMatchers.<GenericType<List<Recipe>>>any()))
-                .thenReturn(expected);
+        assertEquals(expected, sut.getChanges(3));
+        verify(target).path("api/changes");
+        verify(target).queryParam("since", 3L);
+    }
+
+    @Test
+    void getChanges_returnsNullWhenServerIsDown() {
+        when(target.queryParam(anyString(), any())).thenReturn(target);
+        when(builder.get(ChangeSet.class)).thenThrow(new ProcessingException("Down"));
+
+        assertNull(sut.getChanges(3));
+    }
+
+    @Test
+    void getRecipeSummaries_success() {
+        List<RecipeSummary> expected =
+                List.of(new RecipeSummary(1L, "Pancakes", Language.English, false, true, false));
 
-        List<Recipe> result = sut.getRecipes();
+        when(builder.get(ArgumentMatchers.<GenericType<List<RecipeSummary>>>any()))
+                .thenReturn(expected);
 
-        assertEquals(expected, result);
-        verify(target).path("api/recipes/");
+        assertEquals(expected, sut.getRecipeSummaries());
+        verify(target).path("api/recipes/summaries");
     }
 
     @Test
@@ -101,6 +132,28 @@ class ServerUtilsTest {
         assertNull(result);
     }
 
+    @Test
+    void getRecipeDetail_success() {
+        Recipe recipe = new Recipe("Test Recipe", 2, List.of(), Language.English,
+                false, false, false);
+        RecipeDetail expected = new RecipeDetail(recipe, List.of());
+
+        when(builder.get()).thenReturn(response);
+        when(response.getStatus()).thenReturn(200);
+        when(response.readEntity(RecipeDetail.class)).thenReturn(expected);
+
+        assertSame(expected, sut.getRecipeDetail(123L));
+        verify(target).path("api/recipes/123/full");
+    }
+
+    @Test
+    void getRecipeDetail_notFound() {
+        when(builder.get()).thenReturn(response);
+        when(response.getStatus()).thenReturn(404);
+
+        assertNull(sut.getRecipeDetail(999L));
+    }
+
     @Test
     void searchRecipes_withQuery() {
         when(target.queryParam(anyString(), any())).thenReturn(target);
@@ -113,6 +166,58 @@ class ServerUtilsTest {
         verify(target).path("api/recipes/search");
     }
 
+    @Test
+    void searchRecipes_withLimit() {
+        when(target.queryParam(anyString(), any())).thenReturn(target);
+        when(builder.get(ArgumentMatchers.<GenericType<List<Recipe>>>any()))
+                .thenReturn(Collections.emptyList());
+
+        sut.searchRecipes("soup", 10, null);
+
+        verify(target).queryParam("name", "soup");
+        verify(target).queryParam("limit", 10);
+        verify(target).path("api/recipes/search");
+        verify(target, never()).queryParam(eq("languages"), any());
+    }
+
+    @Test
+    void searchRecipes_withLanguages() {
+        when(target.queryParam(anyString(), any())).thenReturn(target);
+        when(builder.get(ArgumentMatchers.<GenericType<List<Recipe>>>any()))
+                .thenReturn(Collections.emptyList());
+
+        sut.searchRecipes("zupa", 10, Set.of(Language.Polish));
+
+        verify(target).queryParam("languages", "Polish");
+    }
+
+    @Test
+    void getSuggestions_passesPrefixKindAndLimit() {
+        when(target.queryParam(anyString(), any())).thenReturn(target);
+        when(builder.get(ArgumentMatchers.<GenericType<List<Suggestion>>>any()))
+                .thenReturn(Collections.emptyList());
+
+        sut.getSuggestions("to", Suggestion.Kind.RECIPE, 8);
+
+        verify(target).path("api/suggest");
+        verify(target).queryParam("prefix", "to");
+        verify(target).queryParam("kind", Suggestion.Kind.RECIPE);
+        verify(target).queryParam("limit", 8);
+    }
+
+    @Test
+    void recipeCount_usesTheUsageEndpoint() {
+        when(target.queryParam(anyString(), any())).thenReturn(target);
+        when(builder.get(ArgumentMatchers.<GenericType<Map<Long, Long>>>any()))
+                .thenReturn(Map.of(7L, 3L));
+
+        assertEquals(3L, sut.recipeCount(7L));
+        assertEquals(Map.of(), sut.getIngredientUsage(List.of()));
+
+        verify(target).path("api/ingredients/usage");
+        verify(target).queryParam("ids", 7L);
+    }
+
     @Test
     void addRecipe_success() {
         Recipe input = new Recipe("New", 0, List.of(), Language.English,false,false,false);
@@ -135,12 +240,59 @@ class ServerUtilsTest {
         // FIX: Explicitly set the ID so the URL path is correct ("api/recipes/10")
         update.setId(10L);
 
-        when(builder.put(any(Entity.class), eq(Recipe.class))).thenReturn(update);
+        when(builder.put(any(Entity.class))).thenReturn(response);
+        when(response.getStatus()).thenReturn(200);
+        when(response.readEntity(Recipe.class)).thenReturn(update);
 
         Recipe result = sut.updateRecipe(update);
 
         assertNotNull(result);
         verify(target).path("api/recipes/10");
+        verify(builder).header("X-Expected-Version", "0");
+    }
+
+    @Test
+    void updateRecipe_outdatedCopy_returnsNull() {
+        Recipe update = new Recipe("Updated", 10, List.of(), Language.English,false,false,false);
+        update.setId(10L);
+
+        when(builder.put(any(Entity.class))).thenReturn(response);
+        when(response.getStatus()).thenReturn(412);
+
+        assertNull(sut.updateRecipe(update));
+        verify(response).close();
+    }
+
+    @Test
+    void updateRecipe_withEdit_retriesOnConflict() {
+        Recipe first = new Recipe("Old", 2, List.of(), Language.English,false,false,false);
+        first.setId(10L);
+        first.setVersion(1);
+        Recipe second = new Recipe("Old", 4, List.of(), Language.English,false,false,false);
+        second.setId(10L);
+        second.setVersion(2);
+        Response fetched = mock(Response.class);
+        Response conflict = mock(Response.class);
+        when(builder.get()).thenReturn(fetched);
+        when(fetched.getStatus()).thenReturn(200);
+        when(fetched.readEntity(Recipe.class)).thenReturn(first, second);
+        when(builder.put(any(Entity.class))).thenReturn(conflict, response);
+        when(conflict.getStatus()).thenReturn(412);
+        when(response.getStatus()).thenReturn(200);
+        when(response.readEntity(Recipe.class)).thenReturn(second);
+
+        Recipe result = sut.updateRecipe(10L, current -> {
+            current.setName("New");
+            return current;
+        });
+
+        assertSame(second, result);
+        assertEquals("New", second.getName());
+        assertEquals(4, second.getServings());
+        verify(builder).header("X-Expected-Version", "1");
+        verify(builder).header("X-Expected-Version", "2");
+        verify(conflict).close();
+        verify(response).close();
     }
 
     @Test
@@ -180,4 +332,35 @@ class ServerUtilsTest {
     void deleteRecipeIngredient_invalidId() {
         assertThrows(IllegalArgumentException.class, () -> sut.deleteRecipeIngredient(-1));
     }
-}
\ No newline at end of file
+
+    @Test
+    void replaceRecipeIngredients_sendsWholeListInOneRequest() {
+        Recipe recipe = new Recipe("Soup", 2, List.of("Boil"), Language.English,
+                false, false, false);
+        List<RecipeIngredient> ingredients = List.of(new RecipeIngredient(recipe,
+                new Ingredient("Salt", 0, 0, 0, Set.of()), null, 5, Unit.GRAM));
+        when(builder.put(any(Entity.class),
+                ArgumentMatchers.<GenericType<List<RecipeIngredient>>>any()))
+                .thenReturn(ingredients);
+
+        assertEquals(ingredients, sut.replaceRecipeIngredients(7, ingredients));
+        verify(target).path("api/recipes/7/ingredients");
+    }
+
+    @Test
+    void replaceRecipeIngredients_invalidId() {
+        assertThrows(IllegalArgumentException.class,
+                () -> sut.replaceRecipeIngredients(-1, List.of()));
+    }
+
+    @Test
+    void executeBatch_postsAllOperationsAtOnce() {
+        List<BatchOperation> ops = List.of(BatchOperation.create("r", new Recipe("Soup", 2,
+                List.of("Boil"), Language.English, false, false, false)));
+        BatchResult expected = new BatchResult();
+        when(builder.post(any(Entity.class), eq(BatchResult.class))).thenReturn(expected);
+
+        assertSame(expected, sut.executeBatch(ops));
+        verify(target).path("api/batch");
+    }
+}
@@ -1,5 +1,15 @@
 package commons;
 
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The allergens an ingredient can contain.
+ * <p>
+ * Recipes store the allergens of all their ingredients as a bitmask of {@link #bit()}s,
+ * which depends on the declaration order: new allergens must be added at the end.
+ */
 public enum Allergen {
     GLUTEN("Gluten", "#ECC112"),
     MILK("Milk / Dairy", "#4A97FC"),
@@ -32,4 +42,45 @@ public enum Allergen {
     public String getColor() {
         return color;
     }
+
+    /**
+     * Returns the bit of this allergen in an allergen bitmask.
+     *
+     * @return a mask with only the bit of this allergen set
+     */
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Combines allergens into a bitmask.
+     *
+     * @param allergens the allergens, may be {@code null}
+     * @return the bitwise OR of their bits, 0 if there are none
+     */
+    public static int maskOf(Collection<Allergen> allergens) {
+        int mask = 0;
+        if (allergens != null) {
+            for (Allergen allergen : allergens) {
+                mask |= allergen.bit();
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Turns a bitmask back into the allergens it contains.
+     *
+     * @param mask a bitmask built by {@link #maskOf(Collection)}
+     * @return the allergens whose bit is set
+     */
+    public static Set<Allergen> fromMask(int mask) {
+        Set<Allergen> allergens = EnumSet.noneOf(Allergen.class);
+        for (Allergen allergen : values()) {
+            if ((mask & allergen.bit()) != 0) {
+                allergens.add(allergen);
+            }
+        }
+        return allergens;
+    }
 }
@@ -0,0 +1,266 @@
+package commons;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
+
+/**
+ * One create, update or delete of a {@link Recipe}, {@link Ingredient} or
+ * {@link RecipeIngredient}, sent to the server as part of a batch.
+ * <p>
+ * A create can be given a {@code ref}, a name that later operations of the same batch use
+ * instead of the id that is not known yet: as {@code idRef} to update or delete the row,
+ * or as {@code recipeRef}/{@code ingredientRef} to link a recipe ingredient to it.
+ * <p>
+ * An update or delete with an {@code expectedVersion} is only applied if the row still has
+ * that version, like a single-row update with {@code X-Expected-Version}; otherwise the
+ * whole batch fails. The update factories take it from the version of the given row.
+ */
+public class BatchOperation {
+
+    /**
+     * What to do with the row.
+     */
+    public enum Action {
+        CREATE, UPDATE, DELETE
+    }
+
+    /**
+     * The kind of row to change.
+     */
+    public enum Kind {
+        RECIPE, INGREDIENT, RECIPE_INGREDIENT
+    }
+
+    private Action action;
+    private Kind kind;
+    private long id;
+    private Long expectedVersion;
+    private String ref;
+    private String idRef;
+    private String recipeRef;
+    private String ingredientRef;
+    private Recipe recipe;
+    private Ingredient ingredient;
+    private RecipeIngredient recipeIngredient;
+
+    /**
+     * Empty constructor for object mapper
+     */
+    public BatchOperation() {
+        // for object mapper
+    }
+
+    /**
+     * Creates an operation without a payload.
+     *
+     * @param action what to do with the row
+     * @param kind   the kind of row
+     * @param id     the id of the row, 0 if not known yet
+     */
+    public BatchOperation(Action action, Kind kind, long id) {
+        this.action = action;
+        this.kind = kind;
+        this.id = id;
+    }
+
+    /**
+     * Creates a recipe.
+     *
+     * @param ref    name for the new recipe within the batch, may be null
+     * @param recipe the recipe to create
+     * @return the operation
+     */
+    public static BatchOperation create(String ref, Recipe recipe) {
+        BatchOperation op = new BatchOperation(Action.CREATE, Kind.RECIPE, 0);
+        op.ref = ref;
+        op.recipe = recipe;
+        return op;
+    }
+
+    /**
+     * Creates an ingredient.
+     *
+     * @param ref        name for the new ingredient within the batch, may be null
+     * @param ingredient the ingredient to create
+     * @return the operation
+     */
+    public static BatchOperation create(String ref, Ingredient ingredient) {
+        BatchOperation op = new BatchOperation(Action.CREATE, Kind.INGREDIENT, 0);
+        op.ref = ref;
+        op.ingredient = ingredient;
+        return op;
+    }
+
+    /**
+     * Creates a recipe ingredient.
+     * Set {@code recipeRef} or {@code ingredientRef} to link it to rows created earlier.
+     *
+     * @param ref              name for the new row within the batch, may be null
+     * @param recipeIngredient the recipe ingredient to create
+     * @return the operation
+     */
+    public static BatchOperation create(String ref, RecipeIngredient recipeIngredient) {
+        BatchOperation op = new BatchOperation(Action.CREATE, Kind.RECIPE_INGREDIENT, 0);
+        op.ref = ref;
+        op.recipeIngredient = recipeIngredient;
+        return op;
+    }
+
+    /**
+     * Updates a recipe.
+     *
+     * @param recipe the new state of the recipe, identified by its id
+     * @return the operation
+     */
+    public static BatchOperation update(Recipe recipe) {
+        BatchOperation op = new BatchOperation(Action.UPDATE, Kind.RECIPE, recipe.getId());
+        op.expectedVersion = recipe.getVersion();
+        op.recipe = recipe;
+        return op;
+    }
+
+    /**
+     * Updates an ingredient.
+     *
+     * @param ingredient the new state of the ingredient, identified by its id
+     * @return the operation
+     */
+    public static BatchOperation update(Ingredient ingredient) {
+        BatchOperation op =
+                new BatchOperation(Action.UPDATE, Kind.INGREDIENT, ingredient.getId());
+        op.expectedVersion = ingredient.getVersion();
+        op.ingredient = ingredient;
+        return op;
+    }
+
+    /**
+     * Updates a recipe ingredient.
+     *
+     * @param recipeIngredient the new state of the recipe ingredient, identified by its id
+     * @return the operation
+     */
+    public static BatchOperation update(RecipeIngredient recipeIngredient) {
+        BatchOperation op = new BatchOperation(Action.UPDATE, Kind.RECIPE_INGREDIENT,
+                recipeIngredient.getId());
+        op.expectedVersion = recipeIngredient.getVersion();
+        op.recipeIngredient = recipeIngredient;
+        return op;
+    }
+
+    /**
+     * Deletes a row.
+     *
+     * @param kind the kind of row
+     * @param id   the id of the row
+     * @return the operation
+     */
+    public static BatchOperation delete(Kind kind, long id) {
+        return new BatchOperation(Action.DELETE, kind, id);
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public void setAction(Action action) {
+        this.action = action;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public void setKind(Kind kind) {
+        this.kind = kind;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public Long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public void setExpectedVersion(Long expectedVersion) {
+        this.expectedVersion = expectedVersion;
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    public void setRef(String ref) {
+        this.ref = ref;
+    }
+
+    public String getIdRef() {
+        return idRef;
+    }
+
+    public void setIdRef(String idRef) {
+        this.idRef = idRef;
+    }
+
+    public String getRecipeRef() {
+        return recipeRef;
+    }
+
+    public void setRecipeRef(String recipeRef) {
+        this.recipeRef = recipeRef;
+    }
+
+    public String getIngredientRef() {
+        return ingredientRef;
+    }
+
+    public void setIngredientRef(String ingredientRef) {
+        this.ingredientRef = ingredientRef;
+    }
+
+    public Recipe getRecipe() {
+        return recipe;
+    }
+
+    public void setRecipe(Recipe recipe) {
+        this.recipe = recipe;
+    }
+
+    public Ingredient getIngredient() {
+        return ingredient;
+    }
+
+    public void setIngredient(Ingredient ingredient) {
+        this.ingredient = ingredient;
+    }
+
+    public RecipeIngredient getRecipeIngredient() {
+        return recipeIngredient;
+    }
+
+    public void setRecipeIngredient(RecipeIngredient recipeIngredient) {
+        this.recipeIngredient = recipeIngredient;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return EqualsBuilder.reflectionEquals(this, obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, MULTI_LINE_STYLE);
+    }
+}
@@ -0,0 +1,106 @@
+package commons;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
+
+/**
+ * The answer to a batch of {@link BatchOperation}s.
+ * <p>
+ * If the batch succeeded, {@code results} holds one entry per operation, in the same order,
+ * with the id and the stored state of the row; deletes carry no payload. {@code refs} maps
+ * every {@code ref} of the batch to the id of the created row.
+ * If an operation failed, nothing was applied: {@code failedIndex} is its position and
+ * {@code error} tells what was wrong with it.
+ */
+public class BatchResult {
+
+    private List<BatchOperation> results = new ArrayList<>();
+    private Map<String, Long> refs = new LinkedHashMap<>();
+    private int failedIndex = -1;
+    private String error;
+
+    /**
+     * Empty constructor for object mapper
+     */
+    public BatchResult() {
+        // for object mapper
+    }
+
+    /**
+     * Creates the result of a failed batch.
+     *
+     * @param failedIndex the position of the operation that failed
+     * @param error       what was wrong with it
+     * @return the result
+     */
+    public static BatchResult failed(int failedIndex, String error) {
+        BatchResult result = new BatchResult();
+        result.failedIndex = failedIndex;
+        result.error = error;
+        return result;
+    }
+
+    /**
+     * Returns whether the whole batch was applied.
+     *
+     * @return true if no operation failed
+     */
+    public boolean succeeded() {
+        return failedIndex < 0;
+    }
+
+    public List<BatchOperation> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchOperation> results) {
+        this.results = results;
+    }
+
+    public Map<String, Long> getRefs() {
+        return refs;
+    }
+
+    public void setRefs(Map<String, Long> refs) {
+        this.refs = refs;
+    }
+
+    public int getFailedIndex() {
+        return failedIndex;
+    }
+
+    public void setFailedIndex(int failedIndex) {
+        this.failedIndex = failedIndex;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return EqualsBuilder.reflectionEquals(this, obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, MULTI_LINE_STYLE);
+    }
+}
@@ -0,0 +1,151 @@
+package commons;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
+
+/**
+ * The changes of the catalog between two revisions, used by clients to catch up
+ * without downloading the whole catalog again.
+ * <p>
+ * Every row appears at most once: created and updated rows with their current state,
+ * deleted rows only by id. Deleting a recipe or an ingredient also deletes its recipe
+ * ingredients, which may not be listed separately.
+ * If {@link #isResetRequired()} is set, the requested revision is unknown to the server
+ * and the client has to download the whole catalog instead.
+ */
+public class ChangeSet {
+
+    private long since;
+    private long revision;
+    private boolean resetRequired;
+    private List<Recipe> recipes = new ArrayList<>();
+    private List<Ingredient> ingredients = new ArrayList<>();
+    private List<RecipeIngredient> recipeIngredients = new ArrayList<>();
+    private List<Long> deletedRecipeIds = new ArrayList<>();
+    private List<Long> deletedIngredientIds = new ArrayList<>();
+    private List<Long> deletedRecipeIngredientIds = new ArrayList<>();
+
+    /**
+     * Empty constructor for object mapper
+     */
+    public ChangeSet() {
+        // for object mapper
+    }
+
+    /**
+     * Creates an empty change set.
+     *
+     * @param since    the revision the client asked for
+     * @param revision the latest revision covered by this change set
+     */
+    public ChangeSet(long since, long revision) {
+        this.since = since;
+        this.revision = revision;
+    }
+
+    /**
+     * Creates a change set telling the client to download the whole catalog.
+     *
+     * @param since    the revision the client asked for
+     * @param revision the latest revision of the server, to continue from after the download
+     * @return a change set without changes and with {@code resetRequired} set
+     */
+    public static ChangeSet reset(long since, long revision) {
+        ChangeSet changes = new ChangeSet(since, revision);
+        changes.setResetRequired(true);
+        return changes;
+    }
+
+    public long getSince() {
+        return since;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public boolean isResetRequired() {
+        return resetRequired;
+    }
+
+    public List<Recipe> getRecipes() {
+        return recipes;
+    }
+
+    public List<Ingredient> getIngredients() {
+        return ingredients;
+    }
+
+    public List<RecipeIngredient> getRecipeIngredients() {
+        return recipeIngredients;
+    }
+
+    public List<Long> getDeletedRecipeIds() {
+        return deletedRecipeIds;
+    }
+
+    public List<Long> getDeletedIngredientIds() {
+        return deletedIngredientIds;
+    }
+
+    public List<Long> getDeletedRecipeIngredientIds() {
+        return deletedRecipeIngredientIds;
+    }
+
+    public void setSince(long since) {
+        this.since = since;
+    }
+
+    public void setRevision(long revision) {
+        this.revision = revision;
+    }
+
+    public void setResetRequired(boolean resetRequired) {
+        this.resetRequired = resetRequired;
+    }
+
+    public void setRecipes(List<Recipe> recipes) {
+        this.recipes = recipes;
+    }
+
+    public void setIngredients(List<Ingredient> ingredients) {
+        this.ingredients = ingredients;
+    }
+
+    public void setRecipeIngredients(List<RecipeIngredient> recipeIngredients) {
+        this.recipeIngredients = recipeIngredients;
+    }
+
+    public void setDeletedRecipeIds(List<Long> deletedRecipeIds) {
+        this.deletedRecipeIds = deletedRecipeIds;
+    }
+
+    public void setDeletedIngredientIds(List<Long> deletedIngredientIds) {
+        this.deletedIngredientIds = deletedIngredientIds;
+    }
+
+    public void setDeletedRecipeIngredientIds(List<Long> deletedRecipeIngredientIds) {
+        this.deletedRecipeIngredientIds = deletedRecipeIngredientIds;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return EqualsBuilder.reflectionEquals(this, obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, MULTI_LINE_STYLE);
+    }
+}
@@ -0,0 +1,81 @@
+package commons;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
+
+/**
+ * One page of a keyset-paginated listing.
+ * The {@code nextCursor} is an opaque value that has to be passed back as the
+ * {@code after} parameter to fetch the following page. It is {@code null} on the last page.
+ *
+ * @param <T> the type of the listed items
+ */
+public class CursorPage<T> {
+
+    private List<T> items;
+    private String nextCursor;
+
+    /**
+     * Empty constructor for object mapper
+     */
+    public CursorPage() {
+        this.items = new ArrayList<>();
+    }
+
+    /**
+     * Creates a new page.
+     *
+     * @param items      the items on this page
+     * @param nextCursor the cursor of the next page, or {@code null} if this is the last page
+     */
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items == null ? new ArrayList<>() : new ArrayList<>(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items == null ? new ArrayList<>() : new ArrayList<>(items);
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Checks whether there is another page after this one.
+     *
+     * @return true if {@code nextCursor} is set
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return EqualsBuilder.reflectionEquals(this, obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, MULTI_LINE_STYLE);
+    }
+}
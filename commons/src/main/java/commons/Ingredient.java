@@ -14,12 +14,20 @@ import java.util.Set;
 import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
 
 @Entity
+@Cacheable
 public class Ingredient implements Showable{
 
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private long id;
 
+    /**
+     * Increased by every update, checked against the {@code X-Expected-Version} header.
+     */
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private long version;
+
     @JsonIgnore
     @OneToMany(mappedBy = "ingredient",
             cascade = CascadeType.ALL,
@@ -124,6 +132,14 @@ public class Ingredient implements Showable{
 
     public void setId(long id) { this.id = id;}
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public void setName(String name){
         this.name = name;
     }
@@ -0,0 +1,156 @@
+package commons;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.List;
+
+import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
+
+/**
+ * Nutritional values of a whole recipe, per 100 grams and per serving.
+ * <p>
+ * Ingredients measured in a {@link Unit#CUSTOM} unit have no known mass and are left out,
+ * liters are counted as 1000 grams.
+ */
+public class Nutrition {
+
+    private double kcalPer100g;
+    private double carbsPer100g;
+    private double proteinPer100g;
+    private double fatPer100g;
+    private double gramsPerServing;
+
+    /**
+     * Empty constructor for object mapper
+     */
+    public Nutrition() {
+        // for object mapper
+    }
+
+    /**
+     * Creates a new nutrition vector.
+     *
+     * @param kcalPer100g     the energy in kcal per 100 grams
+     * @param carbsPer100g    the carbohydrates in grams per 100 grams
+     * @param proteinPer100g  the protein in grams per 100 grams
+     * @param fatPer100g      the fat in grams per 100 grams
+     * @param gramsPerServing the weighed mass of one serving in grams
+     */
+    public Nutrition(double kcalPer100g, double carbsPer100g, double proteinPer100g,
+                     double fatPer100g, double gramsPerServing) {
+        this.kcalPer100g = kcalPer100g;
+        this.carbsPer100g = carbsPer100g;
+        this.proteinPer100g = proteinPer100g;
+        this.fatPer100g = fatPer100g;
+        this.gramsPerServing = gramsPerServing;
+    }
+
+    /**
+     * Computes the nutrition of a recipe from its ingredients.
+     *
+     * @param ingredients the ingredients of the recipe, with their ingredient
+     * @param servings    the number of servings the recipe makes, treated as 1 if lower
+     * @return the nutrition of the recipe, all zero if nothing in it has a known mass
+     */
+    public static Nutrition of(List<RecipeIngredient> ingredients, int servings) {
+        double totalCalories = 0;
+        double totalCarbs = 0;
+        double totalProtein = 0;
+        double totalFat = 0;
+        double totalMass = 0;
+        for (RecipeIngredient ri : ingredients) {
+            if (ri == null || ri.getIngredient() == null || ri.getUnit() == Unit.CUSTOM) {
+                continue;
+            }
+            Ingredient ingredient = ri.getIngredient();
+            double mass = gramsOf(ri);
+            totalCalories += ingredient.calculateCalories() * mass;
+            totalCarbs += ingredient.getCarbs() * mass;
+            totalProtein += ingredient.getProtein() * mass;
+            totalFat += ingredient.getFat() * mass;
+            totalMass += mass;
+        }
+        if (totalMass <= 0.0) {
+            return new Nutrition(0, 0, 0, 0, 0);
+        }
+        return new Nutrition(100 * totalCalories / totalMass, totalCarbs / totalMass,
+                totalProtein / totalMass, totalFat / totalMass,
+                totalMass / Math.max(1, servings));
+    }
+
+    /**
+     * Returns the mass of a weighed recipe ingredient, assuming 1 gram per milliliter.
+     *
+     * @param ri a recipe ingredient in grams or liters
+     * @return its mass in grams
+     */
+    private static double gramsOf(RecipeIngredient ri) {
+        return ri.getUnit() == Unit.GRAM ? ri.getAmount() : ri.getAmount() * 1000;
+    }
+
+    /**
+     * Returns the energy of one serving.
+     *
+     * @return kcal per serving
+     */
+    public double kcalPerServing() {
+        return kcalPer100g * gramsPerServing / 100;
+    }
+
+    public double getKcalPer100g() {
+        return kcalPer100g;
+    }
+
+    public void setKcalPer100g(double kcalPer100g) {
+        this.kcalPer100g = kcalPer100g;
+    }
+
+    public double getCarbsPer100g() {
+        return carbsPer100g;
+    }
+
+    public void setCarbsPer100g(double carbsPer100g) {
+        this.carbsPer100g = carbsPer100g;
+    }
+
+    public double getProteinPer100g() {
+        return proteinPer100g;
+    }
+
+    public void setProteinPer100g(double proteinPer100g) {
+        this.proteinPer100g = proteinPer100g;
+    }
+
+    public double getFatPer100g() {
+        return fatPer100g;
+    }
+
+    public void setFatPer100g(double fatPer100g) {
+        this.fatPer100g = fatPer100g;
+    }
+
+    public double getGramsPerServing() {
+        return gramsPerServing;
+    }
+
+    public void setGramsPerServing(double gramsPerServing) {
+        this.gramsPerServing = gramsPerServing;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return EqualsBuilder.reflectionEquals(this, obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, MULTI_LINE_STYLE);
+    }
+}
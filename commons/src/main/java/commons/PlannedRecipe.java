@@ -0,0 +1,66 @@
+package commons;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
+
+/**
+ * A recipe to shop for and the number of servings to make of it,
+ * sent to the shopping list aggregation endpoint.
+ */
+public class PlannedRecipe {
+
+    private long recipeId;
+    private int servings;
+
+    /**
+     * Empty constructor for object mapper
+     */
+    public PlannedRecipe() {
+        // for object mapper
+    }
+
+    /**
+     * Creates a new planned recipe.
+     *
+     * @param recipeId the id of the recipe
+     * @param servings the number of servings to make
+     */
+    public PlannedRecipe(long recipeId, int servings) {
+        this.recipeId = recipeId;
+        this.servings = servings;
+    }
+
+    public long getRecipeId() {
+        return recipeId;
+    }
+
+    public void setRecipeId(long recipeId) {
+        this.recipeId = recipeId;
+    }
+
+    public int getServings() {
+        return servings;
+    }
+
+    public void setServings(int servings) {
+        this.servings = servings;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return EqualsBuilder.reflectionEquals(this, obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, MULTI_LINE_STYLE);
+    }
+}
@@ -8,18 +8,31 @@ import org.apache.commons.lang3.builder.ToStringBuilder;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 
 import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
 
 
 @Entity
+@Cacheable
+@Table(indexes = {
+    @Index(name = "idx_recipe_name_id", columnList = "name, id"),
+    @Index(name = "idx_recipe_language_name_id", columnList = "language, name, id")
+})
 public class Recipe implements Showable{
 
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private long id;
 
+    /**
+     * Increased by every update, checked against the {@code X-Expected-Version} header.
+     */
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private long version;
+
     @JsonIgnore
     @OneToMany(mappedBy = "recipe",
             cascade = CascadeType.ALL,
@@ -27,6 +40,25 @@ public class Recipe implements Showable{
     private List<RecipeIngredient> recipeIngredients;
 
     private String name;
+
+    /**
+     * Trimmed, lower-cased copy of {@code name}, kept in sync by {@link #setName(String)}.
+     * The unique index on it enforces unique recipe names on the database level.
+     */
+    @JsonIgnore
+    @Column(unique = true)
+    private String normalizedName;
+
+    /**
+     * Bitmask of the {@link Allergen}s of all ingredients of this recipe, see
+     * {@link Allergen#maskOf}. Maintained by the server whenever the ingredients change,
+     * so recipes can be filtered by allergens without loading their ingredients.
+     * The default lets the column be added to databases that already hold recipes.
+     */
+    @JsonIgnore
+    @Column(columnDefinition = "integer default 0 not null")
+    private int allergenMask;
+
     private int servings;
     private Language language;
     private boolean cheap;
@@ -59,6 +91,7 @@ public class Recipe implements Showable{
     public Recipe(String name, int servings, List<String> preparationSteps, Language language,
                   boolean cheap, boolean fast, boolean vegan) {
         this.name = name;
+        this.normalizedName = normalizeName(name);
         this.servings = servings;
         this.preparationSteps = preparationSteps;
         this.language = language;
@@ -83,6 +116,10 @@ public class Recipe implements Showable{
         return name;
     }
 
+    public String getNormalizedName() {
+        return normalizedName;
+    }
+
     public int getServings() {
         return servings;
     }
@@ -94,14 +131,33 @@ public class Recipe implements Showable{
     public List<RecipeIngredient> getRecipeIngredients() {
         return recipeIngredients;}
 
+    public int getAllergenMask() {
+        return allergenMask;
+    }
+
+    public void setAllergenMask(int allergenMask) {
+        this.allergenMask = allergenMask;
+    }
+
     public Language getLanguage(){
         return this.language;
     }
 
-    public void setName(String name){ this.name = name;}
+    public void setName(String name){
+        this.name = name;
+        this.normalizedName = normalizeName(name);
+    }
 
     public void setId(Long id){ this.id = id;}
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public void setServings(int servings){ this.servings = servings; }
 
     public void setPreparationSteps(List<String> preparationSteps) {
@@ -133,6 +189,26 @@ public class Recipe implements Showable{
         preparationSteps.add(preparationStep);
     }
 
+    /**
+     * Normalizes a recipe name for the duplicate check,
+     * names that only differ in case or surrounding whitespace are considered equal.
+     * @param name the name to normalize
+     * @return the trimmed, lower-cased name, or {@code null} if {@code name} is null
+     */
+    public static String normalizeName(String name) {
+        return name == null ? null : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Makes sure the normalized name matches the name before the recipe is written,
+     * also for instances that were created without going through {@link #setName(String)}.
+     */
+    @PrePersist
+    @PreUpdate
+    protected void syncNormalizedName() {
+        this.normalizedName = normalizeName(name);
+    }
+
     @Override
     public boolean equals(Object obj) {
         return EqualsBuilder.reflectionEquals(this, obj);
@@ -0,0 +1,255 @@
+package commons;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
+
+/**
+ * Everything needed to show a recipe: the recipe with its preparation steps and
+ * one compact line per ingredient.
+ * <p>
+ * Unlike a list of {@link RecipeIngredient}s, the lines do not repeat the recipe for every
+ * ingredient, which keeps the response small. {@link #toRecipeIngredients()} turns them
+ * back into recipe ingredients for code that works with those.
+ */
+public class RecipeDetail {
+
+    /**
+     * One ingredient of the recipe, with the amount used and its nutrition per 100 grams.
+     */
+    public static class IngredientLine {
+
+        private long id;
+        private long ingredientId;
+        private String name;
+        private double fat;
+        private double protein;
+        private double carbs;
+        private IngredientCategory category;
+        private Set<Allergen> allergens = new HashSet<>();
+        private String informalUnit;
+        private double amount;
+        private Unit unit;
+
+        /**
+         * Empty constructor for object mapper
+         */
+        public IngredientLine() {
+            // for object mapper
+        }
+
+        /**
+         * Creates the line of a recipe ingredient.
+         *
+         * @param ri the recipe ingredient, with its ingredient
+         */
+        public IngredientLine(RecipeIngredient ri) {
+            Ingredient ingredient = ri.getIngredient();
+            this.id = ri.getId();
+            this.ingredientId = ingredient.getId();
+            this.name = ingredient.getName();
+            this.fat = ingredient.getFat();
+            this.protein = ingredient.getProtein();
+            this.carbs = ingredient.getCarbs();
+            this.category = ingredient.getCategory();
+            if (ingredient.getAllergens() != null) {
+                this.allergens = ingredient.getAllergens();
+            }
+            this.informalUnit = ri.getInformalUnit();
+            this.amount = ri.getAmount();
+            this.unit = ri.getUnit();
+        }
+
+        /**
+         * Turns the line back into a recipe ingredient of the given recipe.
+         *
+         * @param recipe the recipe the line belongs to
+         * @return the recipe ingredient
+         */
+        public RecipeIngredient toRecipeIngredient(Recipe recipe) {
+            Ingredient ingredient = new Ingredient(name, fat, protein, carbs, category, allergens);
+            ingredient.setId(ingredientId);
+            RecipeIngredient ri = new RecipeIngredient(recipe, ingredient, informalUnit,
+                    amount, unit);
+            ri.setId(id);
+            return ri;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public long getIngredientId() {
+            return ingredientId;
+        }
+
+        public void setIngredientId(long ingredientId) {
+            this.ingredientId = ingredientId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public double getFat() {
+            return fat;
+        }
+
+        public void setFat(double fat) {
+            this.fat = fat;
+        }
+
+        public double getProtein() {
+            return protein;
+        }
+
+        public void setProtein(double protein) {
+            this.protein = protein;
+        }
+
+        public double getCarbs() {
+            return carbs;
+        }
+
+        public void setCarbs(double carbs) {
+            this.carbs = carbs;
+        }
+
+        public IngredientCategory getCategory() {
+            return category;
+        }
+
+        public void setCategory(IngredientCategory category) {
+            this.category = category;
+        }
+
+        public Set<Allergen> getAllergens() {
+            return allergens;
+        }
+
+        public void setAllergens(Set<Allergen> allergens) {
+            this.allergens = allergens;
+        }
+
+        public String getInformalUnit() {
+            return informalUnit;
+        }
+
+        public void setInformalUnit(String informalUnit) {
+            this.informalUnit = informalUnit;
+        }
+
+        public double getAmount() {
+            return amount;
+        }
+
+        public void setAmount(double amount) {
+            this.amount = amount;
+        }
+
+        public Unit getUnit() {
+            return unit;
+        }
+
+        public void setUnit(Unit unit) {
+            this.unit = unit;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return EqualsBuilder.reflectionEquals(this, obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return HashCodeBuilder.reflectionHashCode(this);
+        }
+
+        @Override
+        public String toString() {
+            return ToStringBuilder.reflectionToString(this, MULTI_LINE_STYLE);
+        }
+    }
+
+    private Recipe recipe;
+    private List<IngredientLine> ingredients = new ArrayList<>();
+
+    /**
+     * Empty constructor for object mapper
+     */
+    public RecipeDetail() {
+        // for object mapper
+    }
+
+    /**
+     * Creates the detail of a recipe.
+     *
+     * @param recipe            the recipe, with its preparation steps
+     * @param recipeIngredients the ingredients of the recipe, with their ingredient
+     */
+    public RecipeDetail(Recipe recipe, List<RecipeIngredient> recipeIngredients) {
+        this.recipe = recipe;
+        for (RecipeIngredient ri : recipeIngredients) {
+            ingredients.add(new IngredientLine(ri));
+        }
+    }
+
+    /**
+     * Turns the ingredient lines into recipe ingredients of {@link #getRecipe()}.
+     *
+     * @return one recipe ingredient per line, in the same order
+     */
+    public List<RecipeIngredient> toRecipeIngredients() {
+        List<RecipeIngredient> result = new ArrayList<>(ingredients.size());
+        for (IngredientLine line : ingredients) {
+            result.add(line.toRecipeIngredient(recipe));
+        }
+        return result;
+    }
+
+    public Recipe getRecipe() {
+        return recipe;
+    }
+
+    public void setRecipe(Recipe recipe) {
+        this.recipe = recipe;
+    }
+
+    public List<IngredientLine> getIngredients() {
+        return ingredients;
+    }
+
+    public void setIngredients(List<IngredientLine> ingredients) {
+        this.ingredients = ingredients;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return EqualsBuilder.reflectionEquals(this, obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, MULTI_LINE_STYLE);
+    }
+}
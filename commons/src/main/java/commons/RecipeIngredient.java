@@ -12,12 +12,20 @@ import java.util.Locale;
 import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
 
 @Entity
+@Cacheable
 public class RecipeIngredient {
 
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private long id;
 
+    /**
+     * Increased by every update, checked against the {@code X-Expected-Version} header.
+     */
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private long version;
+
     @ManyToOne(optional = false)
     private Recipe recipe;
 
@@ -87,6 +95,14 @@ public class RecipeIngredient {
 
     public void setId(long id) {this.id = id;}
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public void setRecipe(Recipe recipe) {
         this.recipe = recipe;
     }
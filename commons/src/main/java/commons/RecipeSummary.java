@@ -0,0 +1,141 @@
+package commons;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
+
+/**
+ * Compact, read-only view of a {@link Recipe} used by list views.
+ * It only carries the columns of the recipe table itself, so it can be built
+ * by the server without loading preparation steps or ingredients.
+ * The server adds the {@link Nutrition} of the recipe from a cache, so lists can show
+ * and sort by calories.
+ */
+public class RecipeSummary implements Showable {
+
+    private long id;
+    private String name;
+    private Language language;
+    private boolean cheap;
+    private boolean fast;
+    private boolean vegan;
+    private Nutrition nutrition;
+
+    /**
+     * Empty constructor for object mapper
+     */
+    public RecipeSummary() {
+        // for object mapper
+    }
+
+    /**
+     * Creates a new summary.
+     * This constructor is also used by the JPQL constructor projection on the server.
+     *
+     * @param id       the id of the recipe
+     * @param name     the name of the recipe
+     * @param language the language of the recipe
+     * @param cheap    whether the recipe is cheap
+     * @param fast     whether the recipe is fast
+     * @param vegan    whether the recipe is vegan
+     */
+    public RecipeSummary(long id, String name, Language language,
+                         boolean cheap, boolean fast, boolean vegan) {
+        this.id = id;
+        this.name = name;
+        this.language = language;
+        this.cheap = cheap;
+        this.fast = fast;
+        this.vegan = vegan;
+    }
+
+    /**
+     * Creates the summary of a full recipe.
+     *
+     * @param recipe the recipe to summarize
+     * @return the summary of {@code recipe}
+     */
+    public static RecipeSummary of(Recipe recipe) {
+        return new RecipeSummary(recipe.getId(), recipe.getName(), recipe.getLanguage(),
+                recipe.isCheap(), recipe.isFast(), recipe.isVegan());
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public Language getLanguage() {
+        return language;
+    }
+
+    public boolean isCheap() {
+        return cheap;
+    }
+
+    public boolean isFast() {
+        return fast;
+    }
+
+    public boolean isVegan() {
+        return vegan;
+    }
+
+    /**
+     * Returns the nutrition of the recipe.
+     *
+     * @return the nutrition, or {@code null} if the summary was not built by the server
+     */
+    public Nutrition getNutrition() {
+        return nutrition;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public void setLanguage(Language language) {
+        this.language = language;
+    }
+
+    public void setCheap(boolean cheap) {
+        this.cheap = cheap;
+    }
+
+    public void setFast(boolean fast) {
+        this.fast = fast;
+    }
+
+    public void setVegan(boolean vegan) {
+        this.vegan = vegan;
+    }
+
+    public void setNutrition(Nutrition nutrition) {
+        this.nutrition = nutrition;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return EqualsBuilder.reflectionEquals(this, obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, MULTI_LINE_STYLE);
+    }
+}
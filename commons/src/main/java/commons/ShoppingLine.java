@@ -0,0 +1,113 @@
+package commons;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.List;
+
+import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
+
+/**
+ * One merged line of an aggregated shopping list: the total amount of an ingredient
+ * needed by all planned recipes that use it in the same kind of unit.
+ */
+public class ShoppingLine {
+
+    private long ingredientId;
+    private String ingredientName;
+    private String informalUnit;
+    private double amount;
+    private Unit unit;
+    private List<String> recipeNames;
+
+    /**
+     * Empty constructor for object mapper
+     */
+    public ShoppingLine() {
+        // for object mapper
+    }
+
+    /**
+     * Creates a new shopping line.
+     *
+     * @param ingredientId   the id of the ingredient
+     * @param ingredientName the name of the ingredient
+     * @param informalUnit   the informal unit of a {@link Unit#CUSTOM} amount, may be null
+     * @param amount         the total amount, in grams, liters or the custom unit
+     * @param unit           the unit of the amount
+     * @param recipeNames    the names of the recipes needing the ingredient, sorted
+     */
+    public ShoppingLine(long ingredientId, String ingredientName, String informalUnit,
+                        double amount, Unit unit, List<String> recipeNames) {
+        this.ingredientId = ingredientId;
+        this.ingredientName = ingredientName;
+        this.informalUnit = informalUnit;
+        this.amount = amount;
+        this.unit = unit;
+        this.recipeNames = recipeNames;
+    }
+
+    public long getIngredientId() {
+        return ingredientId;
+    }
+
+    public void setIngredientId(long ingredientId) {
+        this.ingredientId = ingredientId;
+    }
+
+    public String getIngredientName() {
+        return ingredientName;
+    }
+
+    public void setIngredientName(String ingredientName) {
+        this.ingredientName = ingredientName;
+    }
+
+    public String getInformalUnit() {
+        return informalUnit;
+    }
+
+    public void setInformalUnit(String informalUnit) {
+        this.informalUnit = informalUnit;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+
+    public Unit getUnit() {
+        return unit;
+    }
+
+    public void setUnit(Unit unit) {
+        this.unit = unit;
+    }
+
+    public List<String> getRecipeNames() {
+        return recipeNames;
+    }
+
+    public void setRecipeNames(List<String> recipeNames) {
+        this.recipeNames = recipeNames;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return EqualsBuilder.reflectionEquals(this, obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, MULTI_LINE_STYLE);
+    }
+}
@@ -0,0 +1,174 @@
+package commons;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
+
+/**
+ * A frame sent by a client over the websocket to choose which {@link SyncEvent}s it
+ * receives. A client only receives the events of the topics it subscribed to, and only
+ * after it sent a {@link Action#RESUME} frame:
+ * <ul>
+ *     <li>{@link #RECIPES}: recipes being created, renamed or deleted, for the recipe list</li>
+ *     <li>{@link #recipe(long) recipe:&lt;id&gt;}: every change to one recipe and its
+ *     ingredients, for the recipe being viewed</li>
+ * </ul>
+ */
+public class Subscription {
+
+    /** The topic of changes to the list of recipes. */
+    public static final String RECIPES = "recipes";
+
+    private static final String RECIPE_PREFIX = "recipe:";
+
+    /**
+     * Whether a frame adds or removes a topic, or starts the delivery of events.
+     */
+    public enum Action {
+        SUBSCRIBE,
+        UNSUBSCRIBE,
+        /**
+         * Starts receiving events, after sending again the events missed since
+         * {@link #getLastSeq()} of {@link #getEpoch()}, or right away if the epoch is null.
+         */
+        RESUME
+    }
+
+    private Action action;
+    private String topic;
+    private Long epoch;
+    private long lastSeq;
+
+    /**
+     * Empty constructor for object mapper
+     */
+    public Subscription() {
+        // for object mapper
+    }
+
+    /**
+     * Creates a new subscription frame.
+     *
+     * @param action whether to subscribe to or unsubscribe from the topic
+     * @param topic  the topic
+     */
+    public Subscription(Action action, String topic) {
+        this.action = action;
+        this.topic = topic;
+    }
+
+    /**
+     * Creates a frame subscribing to a topic.
+     *
+     * @param topic the topic
+     * @return the frame
+     */
+    public static Subscription subscribe(String topic) {
+        return new Subscription(Action.SUBSCRIBE, topic);
+    }
+
+    /**
+     * Creates a frame unsubscribing from a topic.
+     *
+     * @param topic the topic
+     * @return the frame
+     */
+    public static Subscription unsubscribe(String topic) {
+        return new Subscription(Action.UNSUBSCRIBE, topic);
+    }
+
+    /**
+     * Creates a frame starting the delivery of events.
+     *
+     * @param epoch   the epoch of the events seen before, null if none were seen
+     * @param lastSeq the sequence number of the last event seen
+     * @return the frame
+     */
+    public static Subscription resume(Long epoch, long lastSeq) {
+        Subscription frame = new Subscription(Action.RESUME, null);
+        frame.setEpoch(epoch);
+        frame.setLastSeq(lastSeq);
+        return frame;
+    }
+
+    /**
+     * Returns the topic of one recipe.
+     *
+     * @param recipeId the id of the recipe
+     * @return the topic, e.g. {@code recipe:12}
+     */
+    public static String recipe(long recipeId) {
+        return RECIPE_PREFIX + recipeId;
+    }
+
+    /**
+     * Checks whether a topic exists.
+     *
+     * @param topic the topic, may be null
+     * @return true if it is {@link #RECIPES} or the topic of a recipe id
+     */
+    public static boolean isValidTopic(String topic) {
+        if (RECIPES.equals(topic)) {
+            return true;
+        }
+        if (topic == null || !topic.startsWith(RECIPE_PREFIX)) {
+            return false;
+        }
+        try {
+            long recipeId = Long.parseLong(topic.substring(RECIPE_PREFIX.length()));
+            // only the canonical form, so every recipe has exactly one topic
+            return recipeId >= 0 && recipe(recipeId).equals(topic);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public void setAction(Action action) {
+        this.action = action;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public Long getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(Long epoch) {
+        this.epoch = epoch;
+    }
+
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    public void setLastSeq(long lastSeq) {
+        this.lastSeq = lastSeq;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return EqualsBuilder.reflectionEquals(this, obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, MULTI_LINE_STYLE);
+    }
+}
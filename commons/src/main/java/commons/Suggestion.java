@@ -0,0 +1,88 @@
+package commons;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
+
+/**
+ * A name completion returned by the autocomplete endpoint,
+ * pointing at either a recipe or an ingredient.
+ */
+public class Suggestion implements Showable {
+
+    /**
+     * The kind of item a suggestion points at.
+     */
+    public enum Kind {
+        /** A recipe name. */
+        RECIPE,
+        /** An ingredient name. */
+        INGREDIENT
+    }
+
+    private Kind kind;
+    private long id;
+    private String name;
+
+    /**
+     * Empty constructor for object mapper
+     */
+    public Suggestion() {
+        // for object mapper
+    }
+
+    /**
+     * Creates a new suggestion.
+     *
+     * @param kind the kind of the suggested item
+     * @param id   the id of the recipe or ingredient
+     * @param name the full name to complete to
+     */
+    public Suggestion(Kind kind, long id, String name) {
+        this.kind = kind;
+        this.id = id;
+        this.name = name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public void setKind(Kind kind) {
+        this.kind = kind;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return EqualsBuilder.reflectionEquals(this, obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, MULTI_LINE_STYLE);
+    }
+}
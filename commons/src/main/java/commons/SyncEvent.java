@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import commons.RecipeIngredient;
 
+import java.util.List;
+
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
 @JsonSubTypes({
     @JsonSubTypes.Type(value = SyncEvent.RecipeCreated.class, name = "RecipeCreated"),
@@ -14,13 +16,20 @@ import commons.RecipeIngredient;
     @JsonSubTypes.Type(value =
             SyncEvent.RecipeIngredientDeleted.class, name = "RecipeIngredientDeleted"),
     @JsonSubTypes.Type(value =
-            SyncEvent.RecipeIngredientUpdated.class, name = "RecipeIngredientUpdated")
+            SyncEvent.RecipeIngredientUpdated.class, name = "RecipeIngredientUpdated"),
+    @JsonSubTypes.Type(value =
+            SyncEvent.RecipeIngredientsReplaced.class, name = "RecipeIngredientsReplaced"),
+    @JsonSubTypes.Type(value = SyncEvent.Batch.class, name = "Batch"),
+    @JsonSubTypes.Type(value = SyncEvent.Resumed.class, name = "Resumed"),
+    @JsonSubTypes.Type(value = SyncEvent.ResyncRequired.class, name = "ResyncRequired")
 })
 sealed public class SyncEvent permits SyncEvent.RecipeCreated, SyncEvent.RecipeDeleted,
         SyncEvent.RecipeContentUpdated,
         SyncEvent.RecipeIngredientCreated, SyncEvent.RecipeIngredientDeleted,
-        SyncEvent.RecipeIngredientUpdated{
+        SyncEvent.RecipeIngredientUpdated, SyncEvent.RecipeIngredientsReplaced,
+        SyncEvent.Batch, SyncEvent.Resumed, SyncEvent.ResyncRequired {
     private long recipeId;
+    private long seq;
 
     /**
      * constructor
@@ -43,6 +52,20 @@ sealed public class SyncEvent permits SyncEvent.RecipeCreated, SyncEvent.RecipeD
         this.recipeId = recipeId;
     }
 
+    /**
+     * Returns the position of the event in the event log of the server. Events are
+     * numbered 1, 2, ... in the order they are sent, a client that reconnects sends the
+     * highest number it has seen to receive the events it missed.
+     * @return the sequence number, of the last contained event for a batch
+     */
+    public long getSeq(){
+        return seq;
+    }
+
+    public void setSeq(long seq){
+        this.seq = seq;
+    }
+
     public static final class RecipeCreated extends SyncEvent {
         private Recipe createdRecipe;
 
@@ -184,4 +207,121 @@ sealed public class SyncEvent permits SyncEvent.RecipeCreated, SyncEvent.RecipeD
             this.ingredient = ingredient;
         }
     }
+
+    public static final class RecipeIngredientsReplaced extends SyncEvent {
+
+        private List<RecipeIngredient> ingredients;
+
+        /**
+         * Empty constructor for object mapper
+         */
+        public RecipeIngredientsReplaced(){}
+
+        /**
+         * constructor
+         * @param recipeId the recipe whose ingredient list was replaced
+         * @param ingredients the complete new ingredient list of the recipe
+         */
+        public RecipeIngredientsReplaced(long recipeId, List<RecipeIngredient> ingredients){
+            super(recipeId);
+            this.ingredients = ingredients;
+        }
+        public List<RecipeIngredient> getIngredients(){
+            return ingredients;
+        }
+        public void setIngredients(List<RecipeIngredient> ingredients){
+            this.ingredients = ingredients;
+        }
+    }
+
+    /**
+     * Several events of one recipe, sent together after the server collected them for a
+     * short time. Duplicates have been collapsed, the remaining events are in the order
+     * they happened and are meant to be applied in one update.
+     */
+    public static final class Batch extends SyncEvent {
+
+        private List<SyncEvent> events;
+
+        /**
+         * Empty constructor for object mapper
+         */
+        public Batch(){}
+
+        /**
+         * constructor
+         * @param recipeId the recipe all events concern
+         * @param events the events, oldest first
+         */
+        public Batch(long recipeId, List<SyncEvent> events){
+            super(recipeId);
+            this.events = events;
+        }
+        public List<SyncEvent> getEvents(){
+            return events;
+        }
+        public void setEvents(List<SyncEvent> events){
+            this.events = events;
+        }
+    }
+
+    /**
+     * The answer to a resume request after all missed events have been sent again.
+     * Its sequence number is the position of the client from now on.
+     */
+    public static final class Resumed extends SyncEvent {
+
+        private long epoch;
+
+        /**
+         * Empty constructor for object mapper
+         */
+        public Resumed(){}
+
+        /**
+         * constructor
+         * @param epoch identifies the event log, it changes when the server restarts
+         * @param seq the sequence number of the last event sent
+         */
+        public Resumed(long epoch, long seq){
+            this.epoch = epoch;
+            setSeq(seq);
+        }
+        public long getEpoch(){
+            return epoch;
+        }
+        public void setEpoch(long epoch){
+            this.epoch = epoch;
+        }
+    }
+
+    /**
+     * The answer to a resume request when the missed events are no longer known, because
+     * too many happened or the server restarted. The client has to load its data again.
+     */
+    public static final class ResyncRequired extends SyncEvent {
+
+        private long epoch;
+
+        /**
+         * Empty constructor for object mapper
+         */
+        public ResyncRequired(){}
+
+        /**
+         * constructor
+         * @param epoch identifies the event log, it changes when the server restarts
+         * @param seq the sequence number of the last event, to resume from after loading
+         */
+        public ResyncRequired(long epoch, long seq){
+            this.epoch = epoch;
+            setSeq(seq);
+        }
+        public long getEpoch(){
+            return epoch;
+        }
+        public void setEpoch(long epoch){
+            this.epoch = epoch;
+        }
+    }
 }
@@ -0,0 +1,26 @@
+package commons;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AllergenTest {
+
+    @Test
+    void maskOf_combinesTheBits() {
+        assertEquals(0, Allergen.maskOf(null));
+        assertEquals(0, Allergen.maskOf(Set.of()));
+        assertEquals(0b1001, Allergen.maskOf(Set.of(Allergen.GLUTEN, Allergen.PEANUTS)));
+    }
+
+    @Test
+    void fromMask_restoresTheAllergens() {
+        Set<Allergen> all = EnumSet.allOf(Allergen.class);
+        assertEquals(all, Allergen.fromMask(Allergen.maskOf(all)));
+        assertEquals(Set.of(Allergen.MUSTARD), Allergen.fromMask(Allergen.MUSTARD.bit()));
+        assertTrue(Allergen.fromMask(0).isEmpty());
+    }
+}
@@ -0,0 +1,46 @@
+package commons;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NutritionTest {
+
+    private final Ingredient flour = new Ingredient("Flour", 1.0, 10.0, 76.0, Set.of());
+    private final Ingredient oil = new Ingredient("Oil", 100.0, 0.0, 0.0, Set.of());
+
+    @Test
+    void of_weighsIngredientsByMass() {
+        Nutrition nutrition = Nutrition.of(List.of(
+                new RecipeIngredient(null, flour, null, 500, Unit.GRAM),
+                new RecipeIngredient(null, oil, null, 0.5, Unit.LITER)), 4);
+
+        assertEquals((353 + 900) / 2.0, nutrition.getKcalPer100g(), 1e-9);
+        assertEquals(38, nutrition.getCarbsPer100g(), 1e-9);
+        assertEquals(5, nutrition.getProteinPer100g(), 1e-9);
+        assertEquals(50.5, nutrition.getFatPer100g(), 1e-9);
+        assertEquals(250, nutrition.getGramsPerServing(), 1e-9);
+        assertEquals(626.5 * 2.5, nutrition.kcalPerServing(), 1e-9);
+    }
+
+    @Test
+    void of_skipsUnweighedIngredients() {
+        Nutrition nutrition = Nutrition.of(Arrays.asList(null,
+                new RecipeIngredient(null, null, null, 100, Unit.GRAM),
+                new RecipeIngredient(null, oil, "a splash", 0, Unit.CUSTOM)), 2);
+
+        assertEquals(new Nutrition(0, 0, 0, 0, 0), nutrition);
+    }
+
+    @Test
+    void of_treatsMissingServingsAsOne() {
+        Nutrition nutrition = Nutrition.of(List.of(
+                new RecipeIngredient(null, flour, null, 300, Unit.GRAM)), 0);
+
+        assertEquals(300, nutrition.getGramsPerServing(), 1e-9);
+    }
+}
@@ -0,0 +1,65 @@
+package commons;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeDetailTest {
+    Recipe recipe;
+    RecipeIngredient flour;
+    RecipeIngredient salt;
+
+    @BeforeEach
+    void setUp() {
+        recipe = new Recipe("Bread", 2, List.of("Knead", "Bake"), Language.English,
+                true, false, true);
+        recipe.setId(4L);
+        Ingredient flourIngredient = new Ingredient("Flour", 1.0, 10.0, 70.0,
+                IngredientCategory.UNCATEGORIZED, Set.of(Allergen.GLUTEN));
+        flourIngredient.setId(7);
+        Ingredient saltIngredient = new Ingredient("Salt", 0.0, 0.0, 0.0, Set.of());
+        saltIngredient.setId(8);
+        flour = new RecipeIngredient(recipe, flourIngredient, null, 500.0, Unit.GRAM);
+        flour.setId(11);
+        salt = new RecipeIngredient(recipe, saltIngredient, "a pinch", 0.0, Unit.CUSTOM);
+        salt.setId(12);
+    }
+
+    @Test
+    void constructor_createsOneLinePerIngredient() {
+        RecipeDetail detail = new RecipeDetail(recipe, List.of(flour, salt));
+
+        assertEquals(recipe, detail.getRecipe());
+        assertEquals(2, detail.getIngredients().size());
+        RecipeDetail.IngredientLine line = detail.getIngredients().get(0);
+        assertEquals(11, line.getId());
+        assertEquals(7, line.getIngredientId());
+        assertEquals("Flour", line.getName());
+        assertEquals(70.0, line.getCarbs());
+        assertEquals(Set.of(Allergen.GLUTEN), line.getAllergens());
+        assertEquals(500.0, line.getAmount());
+        assertEquals(Unit.GRAM, line.getUnit());
+    }
+
+    @Test
+    void toRecipeIngredients_restoresTheRecipeIngredients() {
+        RecipeDetail detail = new RecipeDetail(recipe, List.of(flour, salt));
+
+        assertEquals(List.of(flour, salt), detail.toRecipeIngredients());
+        assertSame(recipe, detail.toRecipeIngredients().get(1).getRecipe());
+    }
+
+    @Test
+    void equalsAndHashCode() {
+        RecipeDetail a = new RecipeDetail(recipe, List.of(flour));
+        RecipeDetail b = new RecipeDetail(recipe, List.of(flour));
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, new RecipeDetail(recipe, List.of(salt)));
+    }
+}
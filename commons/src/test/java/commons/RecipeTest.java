@@ -121,4 +121,12 @@ class RecipeTest {
     void getLanguage(){
         assertEquals(Language.English, recipe.getLanguage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void normalizedNameFollowsName() {
+        assertEquals("cake", recipe.getNormalizedName());
+        recipe.setName("  Apple PIE ");
+        assertEquals("apple pie", recipe.getNormalizedName());
+        assertNull(Recipe.normalizeName(null));
+    }
+}
@@ -0,0 +1,25 @@
+package commons;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubscriptionTest {
+
+    @Test
+    void isValidTopic_acceptsTheListAndCanonicalRecipeTopics() {
+        assertTrue(Subscription.isValidTopic(Subscription.RECIPES));
+        assertTrue(Subscription.isValidTopic(Subscription.recipe(12)));
+        assertEquals("recipe:12", Subscription.recipe(12));
+    }
+
+    @Test
+    void isValidTopic_rejectsEverythingElse() {
+        assertFalse(Subscription.isValidTopic(null));
+        assertFalse(Subscription.isValidTopic("ingredients"));
+        assertFalse(Subscription.isValidTopic("recipe:"));
+        assertFalse(Subscription.isValidTopic("recipe:abc"));
+        assertFalse(Subscription.isValidTopic("recipe:-1"));
+        assertFalse(Subscription.isValidTopic("recipe:012"));
+    }
+}
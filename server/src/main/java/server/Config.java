@@ -23,6 +23,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import server.catalog.AllergenRollup;
 import server.database.IngredientRepository;
 import server.database.RecipeIngredientRepository;
 import server.database.RecipeRepository;
@@ -42,21 +43,33 @@ public class Config {
      * Seeds the database based on the configured mode.
      * Can be controlled via --db.mode=large|small|empty command line argument.
      * Defaults to 'large' if not specified.
+     * The seeded recipes and recipes stored before allergen masks existed get their
+     * allergen mask computed here, since seeding bypasses the controllers.
      */
     @Bean
     public CommandLineRunner demoData(RecipeRepository recipeRepo,
                                       IngredientRepository ingredientRepo,
-                                      RecipeIngredientRepository recipeIngredientRepo) {
+                                      RecipeIngredientRepository recipeIngredientRepo,
+                                      AllergenRollup allergenRollup) {
         return args -> {
             System.out.println();
             System.out.println("Database seeding mode: " + dbMode);
             System.out.println();
 
+            backfillNormalizedNames(recipeRepo);
+            allergenRollup.recompute(recipeRepo.findAllIds());
+
             if (dbMode.equals("empty")) {
                 System.out.println("Empty mode: no data loaded in the server.");
                 return;
             }
 
+            // recipe names are unique, seeding a second time would collide with the stored data
+            if (recipeRepo.count() > 0) {
+                System.out.println("Database already contains recipes, skipping seeding.");
+                return;
+            }
+
             if (dbMode.equals("small")) {
                 seedSmallDataset(recipeRepo, ingredientRepo, recipeIngredientRepo);
             } else if (dbMode.equals("large")) {
@@ -65,11 +78,29 @@ public class Config {
                 System.out.println("Seeding variant does not exist. Defaulting to large.");
                 seedLargeDataset(recipeRepo, ingredientRepo, recipeIngredientRepo);
             }
+            allergenRollup.recompute(recipeRepo.findAllIds());
 
             System.out.println("Database startup was successful.");
         };
     }
 
+    /**
+     * Fills in the normalized name of recipes that were stored before the column existed.
+     * Recipes whose name collides with an already normalized one are left without it,
+     * so that the unique index can still be kept.
+     */
+    private void backfillNormalizedNames(RecipeRepository recipeRepo) {
+        for (Recipe recipe : recipeRepo.findByNormalizedNameIsNull()) {
+            recipe.setName(recipe.getName());
+            if (recipe.getNormalizedName() == null
+                    || recipeRepo.existsByNormalizedName(recipe.getNormalizedName())) {
+                System.out.println("Duplicate recipe name left without index: " + recipe.getName());
+                continue;
+            }
+            recipeRepo.save(recipe);
+        }
+    }
+
     /**
      * Generated by chatgpt
      * Seeds a small dataset (3 recipes, 6 ingredients).
@@ -0,0 +1,133 @@
+package server.api;
+
+import commons.BatchOperation;
+import commons.BatchResult;
+import commons.SyncEvent;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import server.catalog.BatchExecutor;
+import server.database.RecipeIngredientRepository;
+import server.websocket.WebSocketHandler;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Controller for applying many changes in one request.
+ * Provides endpoints for:
+ *     Creating, updating and deleting recipes, ingredients and recipe ingredients at once
+ * This controller is mapped to the base path /api/batch.
+ */
+@RestController
+@RequestMapping("/api/batch")
+public class BatchController {
+
+    /** The largest number of operations accepted in one batch. */
+    static final int MAX_OPERATIONS = 1000;
+
+    private final BatchExecutor executor;
+    private final WebSocketHandler wsHandler;
+    private final RecipeIngredientRepository recipeIngredientRepo;
+
+    /**
+     * Constructs a new {@code BatchController}.
+     *
+     * @param executor             applies the batches
+     * @param wsHandler            the handler used to notify connected clients
+     * @param recipeIngredientRepo used to send the new ingredient lists of changed recipes
+     */
+    public BatchController(BatchExecutor executor, WebSocketHandler wsHandler,
+                           RecipeIngredientRepository recipeIngredientRepo) {
+        this.executor = executor;
+        this.wsHandler = wsHandler;
+        this.recipeIngredientRepo = recipeIngredientRepo;
+    }
+
+    /**
+     * Applies an ordered list of operations in one transaction.
+     * Operations can refer to rows created earlier in the batch by their {@code ref}.
+     * Connected clients are notified once the whole batch has been committed.
+     *
+     * @param operations the operations to apply
+     * @return {@code 400 Bad Request} if the list is missing, too long or an operation is invalid,
+     *         {@code 404 Not Found} if an operation refers to a missing row,
+     *         {@code 412 Precondition Failed} if a row no longer has the expected version,
+     *         without a body if that was only detected when the batch was committed,
+     *         {@code 409 Conflict} without a body if a concurrent request stored the same
+     *         recipe name after it was checked,
+     *         otherwise {@code 200 OK} with the result of every operation
+     */
+    @PostMapping
+    public ResponseEntity<BatchResult> execute(@RequestBody List<BatchOperation> operations) {
+        if (operations == null || operations.size() > MAX_OPERATIONS) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        BatchResult result;
+        try {
+            result = executor.execute(operations);
+        } catch (BatchExecutor.BatchFailure e) {
+            HttpStatus status = switch (e.getReason()) {
+                case INVALID -> HttpStatus.BAD_REQUEST;
+                case NOT_FOUND -> HttpStatus.NOT_FOUND;
+                case STALE_VERSION -> HttpStatus.PRECONDITION_FAILED;
+            };
+            return ResponseEntity.status(status)
+                    .body(BatchResult.failed(e.getIndex(), e.getMessage()));
+        } catch (OptimisticLockingFailureException e) {
+            // a concurrent update was committed after the versions were checked
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent request stored the same name after our check
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
+        broadcast(result.getResults());
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Notifies connected clients of the committed changes.
+     * Recipe changes are sent one by one, changes to the ingredients of a recipe
+     * are sent as one new ingredient list per recipe.
+     *
+     * @param applied the applied operations
+     */
+    private void broadcast(List<BatchOperation> applied) {
+        Set<Long> skipped = new HashSet<>();
+        Set<Long> ingredientListsChanged = new LinkedHashSet<>();
+        for (BatchOperation op : applied) {
+            switch (op.getKind()) {
+                case RECIPE -> {
+                    wsHandler.broadcast(switch (op.getAction()) {
+                        case CREATE -> new SyncEvent.RecipeCreated(op.getRecipe());
+                        case UPDATE -> new SyncEvent.RecipeContentUpdated(op.getRecipe());
+                        case DELETE -> new SyncEvent.RecipeDeleted(op.getId());
+                    });
+                    // new and deleted recipes are not open anywhere yet or anymore
+                    if (op.getAction() != BatchOperation.Action.UPDATE) {
+                        skipped.add(op.getId());
+                    }
+                }
+                case RECIPE_INGREDIENT ->
+                        ingredientListsChanged.add(op.getRecipeIngredient().getRecipe().getId());
+                case INGREDIENT -> {
+                    // clients load ingredients on demand
+                }
+            }
+        }
+        ingredientListsChanged.removeAll(skipped);
+        for (long recipeId : ingredientListsChanged) {
+            wsHandler.broadcast(new SyncEvent.RecipeIngredientsReplaced(recipeId,
+                    recipeIngredientRepo.findByRecipeId(recipeId)));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package server.api;
+
+import commons.ChangeSet;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import server.catalog.ChangeLog;
+
+/**
+ * Controller for catching up on catalog changes.
+ * Provides endpoints for:
+ *     Retrieving the latest revision of the catalog
+ *     Retrieving the rows changed since a revision
+ * This controller is mapped to the base path /api/changes.
+ */
+@RestController
+@RequestMapping("/api/changes")
+public class ChangeController {
+
+    private final ChangeLog changeLog;
+
+    /**
+     * Constructs a new {@code ChangeController}.
+     *
+     * @param changeLog the log to answer from
+     */
+    public ChangeController(ChangeLog changeLog) {
+        this.changeLog = changeLog;
+    }
+
+    /**
+     * Returns the latest revision of the catalog.
+     * A client should ask for it before downloading the whole catalog,
+     * and then ask for the changes since this revision from then on.
+     *
+     * @return {@code 200 OK} with the latest revision
+     */
+    @GetMapping("latest")
+    public ResponseEntity<Long> getLatestRevision() {
+        return ResponseEntity.ok(changeLog.latestRevision());
+    }
+
+    /**
+     * Returns the rows created, updated or deleted after the given revision.
+     *
+     * @param since the last revision the client has seen
+     * @return {@code 400 Bad Request} if the revision is negative,
+     *         otherwise {@code 200 OK} with the changes and the revision to continue from
+     */
+    @GetMapping
+    public ResponseEntity<ChangeSet> getChanges(@RequestParam long since) {
+        if (since < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(changeLog.changesSince(since));
+    }
+}
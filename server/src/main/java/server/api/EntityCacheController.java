@@ -0,0 +1,56 @@
+package server.api;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import server.cache.EntityCacheMonitor;
+import server.cache.EntityCacheStats;
+
+import java.util.List;
+
+/**
+ * Controller for monitoring the second-level cache of catalog entities.
+ * Provides endpoints for:
+ *     Retrieving the hit, miss, put and eviction counters of every cache region
+ *     Emptying the cache
+ * This controller is mapped to the base path /api/entity-cache/.
+ */
+@RestController
+@RequestMapping("/api/entity-cache/")
+public class EntityCacheController {
+
+    private final EntityCacheMonitor monitor;
+
+    /**
+     * Constructs a new {@code EntityCacheController}.
+     *
+     * @param monitor reads and resets the cache regions
+     */
+    public EntityCacheController(EntityCacheMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    /**
+     * Returns the counters of every cache region.
+     *
+     * @return {@code 200 OK} with one entry per region
+     */
+    @GetMapping("stats")
+    public ResponseEntity<List<EntityCacheStats>> getStats() {
+        return ResponseEntity.ok(monitor.stats());
+    }
+
+    /**
+     * Empties the cache and resets its counters,
+     * e.g. after the database was modified outside of the server.
+     *
+     * @return {@code 200 OK} with the reset counters
+     */
+    @PostMapping("clear")
+    public ResponseEntity<List<EntityCacheStats>> clear() {
+        monitor.clear();
+        return ResponseEntity.ok(monitor.stats());
+    }
+}
@@ -0,0 +1,54 @@
+package server.api;
+
+/**
+ * The contract of conditional updates.
+ * <p>
+ * Every recipe, ingredient and recipe ingredient is sent with its {@code version}. A PUT
+ * carrying that number in the {@value #HEADER} header, e.g. {@code X-Expected-Version: 3},
+ * is only applied if the stored row still has that version, and is otherwise answered
+ * with {@code 412 Precondition Failed}. A header that is not a number is answered with
+ * {@code 400 Bad Request}. Updates without the header are applied unconditionally, as
+ * before versions existed. Batch operations carry the same number as their
+ * {@code expectedVersion}.
+ * <p>
+ * {@code If-Match} is not used for this on purpose: the entity tags of GET responses name
+ * the revision of the whole catalog, so they say nothing about the version of one row.
+ */
+final class ExpectedVersion {
+
+    /** The request header holding the version an update is based on. */
+    static final String HEADER = "X-Expected-Version";
+
+    private ExpectedVersion() {
+    }
+
+    /**
+     * Checks whether a header value can be compared with a version, to answer
+     * {@code 400 Bad Request} before anything else is looked up if it cannot.
+     *
+     * @param expected the header value, may be null
+     * @return true if the header is absent or holds a number
+     */
+    static boolean isWellFormed(String expected) {
+        if (expected == null) {
+            return true;
+        }
+        try {
+            Long.parseLong(expected.trim());
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether an update may be applied to a row.
+     *
+     * @param expected the header value, may be null, otherwise {@link #isWellFormed}
+     * @param version  the current version of the stored row
+     * @return true if the header is absent or holds the current version
+     */
+    static boolean matches(String expected, long version) {
+        return expected == null || Long.parseLong(expected.trim()) == version;
+    }
+}
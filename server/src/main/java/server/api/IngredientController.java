@@ -2,12 +2,19 @@ package server.api;
 
 import commons.Ingredient;
 import commons.IngredientCategory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.web.bind.annotation.*;
+import server.catalog.CatalogChange;
+import server.catalog.IngredientUsageCounter;
 import server.database.IngredientRepository;
 import server.database.RecipeRepository;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controller responsible for handling HTTP requests related to Ingredient entities.
@@ -17,6 +24,7 @@ import java.util.List;
  *     Adding a new ingredient
  *     Updating an existing ingredient
  *     Deleting an ingredient
+ *     Counting the recipes ingredients are used in
  * This controller is mapped to the base path /api/ingredients/.
  */
 @RestController
@@ -24,14 +32,25 @@ import java.util.List;
 public class IngredientController {
 
     private final IngredientRepository repo;
+    private final ApplicationEventPublisher events;
+    private final IngredientUsageCounter usageCounter;
+    private final TransactionOperations transactions;
 
     /**
      * Constructs a new {@code RecipeController} with the given repository.
      *
      * @param repo the {@link RecipeRepository} used for database operations
+     * @param events the publisher used to announce {@link CatalogChange}s
+     * @param usageCounter the cached number of recipes every ingredient is used in
+     * @param transactions runs every change in one transaction with its {@link CatalogChange}
      */
-    public IngredientController(IngredientRepository repo){
+    public IngredientController(IngredientRepository repo, ApplicationEventPublisher events,
+                                IngredientUsageCounter usageCounter,
+                                TransactionOperations transactions){
         this.repo = repo;
+        this.events = events;
+        this.usageCounter = usageCounter;
+        this.transactions = transactions;
     }
 
     /**
@@ -89,7 +108,11 @@ public class IngredientController {
 
         ing.setId(0L);
 
-        Ingredient saved = repo.save(ing);
+        Ingredient saved = transactions.execute(status -> {
+            Ingredient stored = repo.save(ing);
+            events.publishEvent(new CatalogChange.IngredientSaved(stored));
+            return stored;
+        });
         return ResponseEntity.ok(saved);
     }
 
@@ -97,17 +120,25 @@ public class IngredientController {
      * Updates an existing ingredient identified by its id.
      * The ingredient must already exist and the provided data must be valid.
      * Required fields include a non-empty name and non-negative nutritional values.
+     * If an {@link ExpectedVersion} header is sent, it must hold the current version
+     * of the ingredient.
      *
-     * @param id  the id of the ingredient to update
-     * @param ing the updated ingredient data
-     * @return 400 Bad Request if the id is invalid or the ingredient data is invalid,
+     * @param id      the id of the ingredient to update
+     * @param ing     the updated ingredient data
+     * @param expectedVersion the version the edit is based on, or null to overwrite
+     * @return 400 Bad Request if the id, the ingredient data or the expected version
+     *         is invalid,
      *         404 Not Found if the ingredient does not exist,
+     *         412 Precondition Failed if the ingredient was changed since that version,
      *         otherwise 200 OK with the updated ingredient
      */
     @PutMapping("{id}")
-    public ResponseEntity<Ingredient> update(@PathVariable long id, @RequestBody Ingredient ing){
+    public ResponseEntity<Ingredient> update(
+            @PathVariable long id, @RequestBody Ingredient ing,
+            @RequestHeader(value = ExpectedVersion.HEADER, required = false)
+            String expectedVersion) {
 
-        if (id < 0) {
+        if (id < 0 || !ExpectedVersion.isWellFormed(expectedVersion)) {
             return ResponseEntity.badRequest().build();
         }
 
@@ -127,10 +158,25 @@ public class IngredientController {
             ing.setCategory(IngredientCategory.UNCATEGORIZED);
         }
 
-        ing.setRecipeIngredients(repo.findById(id).get().getRecipeIngredients());
+        Ingredient old = repo.findById(id).get();
+        if (!ExpectedVersion.matches(expectedVersion, old.getVersion())) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        ing.setRecipeIngredients(old.getRecipeIngredients());
+        ing.setVersion(old.getVersion());
         ing.setId(id);
         ing.setName(capitalize(ing.getName()));
-        Ingredient saved = repo.save(ing);
+        Ingredient saved;
+        try {
+            saved = transactions.execute(status -> {
+                Ingredient stored = repo.saveAndFlush(ing);
+                events.publishEvent(new CatalogChange.IngredientSaved(stored));
+                return stored;
+            });
+        } catch (OptimisticLockingFailureException e) {
+            // a concurrent update was committed after the version was checked
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
         return ResponseEntity.ok(saved);
     }
 
@@ -162,7 +208,14 @@ public class IngredientController {
             return ResponseEntity.notFound().build();
         }
 
-        repo.deleteById(id);
+        transactions.executeWithoutResult(status -> {
+            // the recipes using it are only known before its recipe ingredients are gone
+            CatalogChange.IngredientRemoved removed = repo.findById(id)
+                    .map(CatalogChange.IngredientRemoved::of)
+                    .orElseGet(() -> new CatalogChange.IngredientRemoved(id));
+            repo.deleteById(id);
+            events.publishEvent(removed);
+        });
         return ResponseEntity.noContent().build();
     }
 
@@ -175,6 +228,26 @@ public class IngredientController {
         return repo.findAllByOrderByNameAsc();
     }
 
+    /**
+     * Returns the number of distinct recipes each ingredient is used in, so a list of
+     * ingredients needs one request instead of one per ingredient.
+     *
+     * @param ids the ingredients to count, or {@code null} for every ingredient in use
+     * @return 400 Bad Request if an id is negative,
+     *         otherwise 200 OK with ingredient id to recipe count, 0 for unused ingredients
+     */
+    @GetMapping("usage")
+    public ResponseEntity<Map<Long, Long>> getUsage(
+            @RequestParam(required = false) List<Long> ids) {
+        if (ids == null) {
+            return ResponseEntity.ok(usageCounter.counts());
+        }
+        if (ids.stream().anyMatch(id -> id == null || id < 0)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(usageCounter.countsFor(ids));
+    }
+
     /**
      * Checks whether a string is null or empty.
      *
@@ -1,50 +1,218 @@
 package server.api;
 
+import commons.Allergen;
+import commons.CursorPage;
+import commons.Language;
+import commons.Nutrition;
 import commons.Recipe;
+import commons.RecipeDetail;
+import commons.RecipeIngredient;
+import commons.RecipeSummary;
 import commons.SyncEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.web.bind.annotation.*;
+import server.catalog.CatalogChange;
+import server.catalog.NutritionCache;
+import server.catalog.RecipeIngredientReplacer;
+import server.database.RecipeIngredientRepository;
 import server.database.RecipeRepository;
+import server.search.RecipeSearchIndex;
 import server.websocket.WebSocketHandler;
 
 
-import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 /**
  * Controller responsible for handling all HTTP requests related to {@link Recipe} entities.
  * Provides endpoints for:
  * Retrieving all recipes
  * Retrieving a recipe by its ID
+ * Retrieving a recipe together with its ingredients
  * Adding a new recipe
  * Updating an existing recipe
  * Deleting a recipe
+ * Replacing the ingredient list of a recipe
  * This controller maps to the base path /api/recipes/.
  */
 @RestController
 @RequestMapping("/api/recipes/")
 public class RecipeController {
+    static final String SORT_RELEVANCE = "relevance";
+    static final String SORT_KCAL = "kcal";
+
     private final RecipeRepository repo;
     private final WebSocketHandler wsHandler;
+    private final RecipeSearchIndex searchIndex;
+    private final ApplicationEventPublisher events;
+    private final RecipeIngredientReplacer ingredientReplacer;
+    private final RecipeIngredientRepository recipeIngredientRepo;
+    private final NutritionCache nutritionCache;
+    private final TransactionOperations transactions;
 
     /**
      * Constructs a new {@code RecipeController} with the given repository.
      *
      * @param repo the {@link RecipeRepository} used for database operations
+     * @param webSocketHandler the handler used to notify connected clients
+     * @param searchIndex the index used to answer search queries
+     * @param events the publisher used to announce {@link CatalogChange}s
+     * @param ingredientReplacer replaces the ingredient list of a recipe in one transaction
+     * @param recipeIngredientRepo used to load the ingredients shown with a recipe
+     * @param nutritionCache the cached nutrition added to recipe summaries
+     * @param transactions runs every change in one transaction with its {@link CatalogChange}
      */
-    public RecipeController(RecipeRepository repo, WebSocketHandler webSocketHandler) {
+    public RecipeController(RecipeRepository repo, WebSocketHandler webSocketHandler,
+                            RecipeSearchIndex searchIndex, ApplicationEventPublisher events,
+                            RecipeIngredientReplacer ingredientReplacer,
+                            RecipeIngredientRepository recipeIngredientRepo,
+                            NutritionCache nutritionCache, TransactionOperations transactions) {
         this.repo = repo;
         this.wsHandler = webSocketHandler;
+        this.searchIndex = searchIndex;
+        this.events = events;
+        this.ingredientReplacer = ingredientReplacer;
+        this.recipeIngredientRepo = recipeIngredientRepo;
+        this.nutritionCache = nutritionCache;
+        this.transactions = transactions;
     }
 
     /**
      * Retrieves all recipes stored on the server.
      *
-     * @return a list of all {@link Recipe} objects available in the system
+     * @param languages only return recipes in these languages, all languages if absent
+     * @param sort      the ordering, either {@code name} (default) or {@code id}
+     * @return {@code 400 Bad Request} if the sort option is invalid,
+     * otherwise {@code 200 OK} with the matching {@link Recipe} objects
      */
     @GetMapping("")
-    public List<Recipe> getAll() {
-        return repo.findAll();
+    public ResponseEntity<List<Recipe>> getAll(
+            @RequestParam(required = false) Set<Language> languages,
+            @RequestParam(defaultValue = RecipeCursor.SORT_NAME) String sort) {
+        if (!RecipeCursor.isValidSort(sort)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(repo.findByLanguageIn(languagesOrAll(languages), orderBy(sort)));
+    }
+
+    /**
+     * Retrieves one page of recipes using keyset pagination.
+     * Only used when the {@code limit} parameter is present, so plain
+     * {@code GET /api/recipes/} keeps returning the full list.
+     *
+     * @param limit     the maximum number of recipes on the page, capped at 200
+     * @param after     the cursor returned with the previous page, absent for the first page
+     * @param sort      the ordering, either {@code name} (default) or {@code id}
+     * @param languages only return recipes in these languages, all languages if absent
+     * @return {@code 400 Bad Request} if the limit, cursor or sort option is invalid,
+     * otherwise {@code 200 OK} with the page and the cursor of the next one
+     */
+    @GetMapping(value = "", params = "limit")
+    public ResponseEntity<CursorPage<Recipe>> getPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = RecipeCursor.SORT_NAME) String sort,
+            @RequestParam(required = false) Set<Language> languages) {
+        Set<Language> included = languagesOrAll(languages);
+        return keysetPage(limit, after, sort,
+                (cursor, window) -> repo.findPageByNameAfter(included,
+                        cursor.getName(), cursor.getId(), window),
+                (cursor, window) -> repo.findPageByIdAfter(included, cursor.getId(), window),
+                Recipe::getId, Recipe::getName);
+    }
+
+    /**
+     * Retrieves the summaries of all recipes.
+     * Meant for list views that only need the name, tags and nutrition of each recipe,
+     * the full recipe can be fetched with {@link #getById(long)} when it is opened.
+     *
+     * @param languages only return recipes in these languages, all languages if absent
+     * @param sort      the ordering, either {@code name} (default), {@code id} or
+     *                  {@code kcal} (lowest kcal per 100 grams first)
+     * @param excludeAllergens only return recipes without any of these allergens
+     * @return {@code 400 Bad Request} if the sort option is invalid,
+     * otherwise {@code 200 OK} with the matching {@link RecipeSummary} objects
+     */
+    @GetMapping("summaries")
+    public ResponseEntity<List<RecipeSummary>> getSummaries(
+            @RequestParam(required = false) Set<Language> languages,
+            @RequestParam(defaultValue = RecipeCursor.SORT_NAME) String sort,
+            @RequestParam(required = false) Set<Allergen> excludeAllergens) {
+        boolean byKcal = SORT_KCAL.equals(sort);
+        if (!byKcal && !RecipeCursor.isValidSort(sort)) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<RecipeSummary> summaries = withNutrition(repo.findSummariesByLanguageIn(
+                languagesOrAll(languages), Allergen.maskOf(excludeAllergens),
+                orderBy(byKcal ? RecipeCursor.SORT_ID : sort)));
+        if (byKcal) {
+            summaries = new ArrayList<>(summaries);
+            summaries.sort(Comparator.comparingDouble(
+                    (RecipeSummary summary) -> summary.getNutrition().getKcalPer100g()));
+        }
+        return ResponseEntity.ok(summaries);
+    }
+
+    /**
+     * Retrieves one page of recipe summaries using keyset pagination.
+     * Accepts the same parameters as {@link #getPage(int, String, String, Set)}.
+     *
+     * @param limit     the maximum number of summaries on the page, capped at 200
+     * @param after     the cursor returned with the previous page, absent for the first page
+     * @param sort      the ordering, either {@code name} (default) or {@code id}
+     * @param languages only return recipes in these languages, all languages if absent
+     * @param excludeAllergens only return recipes without any of these allergens
+     * @return {@code 400 Bad Request} if the limit, cursor or sort option is invalid,
+     * otherwise {@code 200 OK} with the page and the cursor of the next one
+     */
+    @GetMapping(value = "summaries", params = "limit")
+    public ResponseEntity<CursorPage<RecipeSummary>> getSummaryPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = RecipeCursor.SORT_NAME) String sort,
+            @RequestParam(required = false) Set<Language> languages,
+            @RequestParam(required = false) Set<Allergen> excludeAllergens) {
+        Set<Language> included = languagesOrAll(languages);
+        int excluded = Allergen.maskOf(excludeAllergens);
+        return keysetPage(limit, after, sort,
+                (cursor, window) -> withNutrition(repo.findSummaryPageByNameAfter(included,
+                        excluded, cursor.getName(), cursor.getId(), window)),
+                (cursor, window) -> withNutrition(repo.findSummaryPageByIdAfter(included,
+                        excluded, cursor.getId(), window)),
+                RecipeSummary::getId, RecipeSummary::getName);
+    }
+
+    /**
+     * Adds the cached nutrition of each recipe to its summary.
+     *
+     * @param summaries the summaries, as loaded from the recipe table
+     * @return the same summaries
+     */
+    private List<RecipeSummary> withNutrition(List<RecipeSummary> summaries) {
+        Map<Long, Nutrition> nutrition = nutritionCache.getAll(
+                summaries.stream().map(RecipeSummary::getId).toList());
+        for (RecipeSummary summary : summaries) {
+            summary.setNutrition(nutrition.get(summary.getId()));
+        }
+        return summaries;
     }
 
     /**
@@ -77,6 +245,31 @@ public class RecipeController {
         return ResponseEntity.ok(repo.findById(id).get());
     }
 
+    /**
+     * Retrieves a recipe with its preparation steps and ingredients, everything a detail
+     * view shows, in one response.
+     * The recipe and its steps are loaded with one query, the ingredients with their
+     * nutrition and allergens with a second one. Both are fetch joins, so no further
+     * queries run while the response is written.
+     *
+     * @param id the ID of the recipe
+     * @return {@code 400 Bad Request} if the ID is negative,
+     * {@code 404 Not Found} if no recipe with the given ID exists,
+     * otherwise {@code 200 OK} with the recipe and one line per ingredient
+     */
+    @GetMapping("{id}/full")
+    public ResponseEntity<RecipeDetail> getDetail(@PathVariable long id) {
+        if (id < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        Recipe recipe = repo.findWithStepsById(id).orElse(null);
+        if (recipe == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(
+                new RecipeDetail(recipe, recipeIngredientRepo.findDetailsByRecipeId(id)));
+    }
+
     /**
      * Adds a new recipe to the system.
      * The following conditions must be met, otherwise a
@@ -86,7 +279,8 @@ public class RecipeController {
      * The preparation steps must not be {@code null}
      *
      * @param recipe the recipe object to be added
-     * @return {@code 400 Bad Request} if validation fails,
+     * @return {@code 400 Bad Request} if validation fails or the name is already used,
+     * {@code 409 Conflict} if another request stored the same name concurrently,
      * otherwise {@code 200 OK} containing the saved recipe
      */
     @PostMapping("")
@@ -101,14 +295,22 @@ public class RecipeController {
         recipe.setName(capitalize(recipe.getName()));
 
         //check for the database when the name is the same
-        for(Recipe recipeName : getAll()){
-            if((recipe.getName().trim().equalsIgnoreCase(recipeName.getName().trim()))){
-                return ResponseEntity.badRequest().build();
-            }
+        if (repo.existsByNormalizedName(Recipe.normalizeName(recipe.getName()))) {
+            return ResponseEntity.badRequest().build();
         }
 
         recipe.setId(0L);
-        Recipe saved = repo.save(recipe);
+        Recipe saved;
+        try {
+            saved = transactions.execute(status -> {
+                Recipe stored = repo.saveAndFlush(recipe);
+                events.publishEvent(new CatalogChange.RecipeSaved(stored));
+                return stored;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent request stored the same name after our check
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
 
         wsHandler.broadcast(new SyncEvent.RecipeCreated(saved));
         return ResponseEntity.ok(saved);
@@ -122,16 +324,25 @@ public class RecipeController {
      * The recipe must have a valid name and serving size
      * The preparation steps must not be {@code null}
      * A recipe with the given ID must already exist
+     * If an {@link ExpectedVersion} header is sent, it must hold the current version
+     * of the recipe
      *
      * @param id the ID of the recipe to update
      * @param recipe the new state of the recipe
-     * @return {@code 400 Bad Request} if input is invalid,
+     * @param expectedVersion the version the edit is based on, or null to overwrite
+     * @return {@code 400 Bad Request} if input is invalid or the name is already used,
+     * or the expected version is not a number,
      * {@code 404 Not Found} if the recipe does not exist,
+     * {@code 409 Conflict} if another request stored the same name concurrently,
+     * {@code 412 Precondition Failed} if the recipe was changed since that version,
      * otherwise {@code 200 OK} with the updated recipe
      */
     @PutMapping("{id}")
-    public ResponseEntity<Recipe> update(@PathVariable long id, @RequestBody Recipe recipe) {
-        if (id < 0) {
+    public ResponseEntity<Recipe> update(
+            @PathVariable long id, @RequestBody Recipe recipe,
+            @RequestHeader(value = ExpectedVersion.HEADER, required = false)
+            String expectedVersion) {
+        if (id < 0 || !ExpectedVersion.isWellFormed(expectedVersion)) {
             return ResponseEntity.badRequest().build();
         }
 
@@ -143,28 +354,86 @@ public class RecipeController {
             return ResponseEntity.badRequest().build();
         }
 
-        for(Recipe recipeName : getAll()){
-            if((recipe.getName().trim().equalsIgnoreCase(recipeName.getName().trim())) &&
-                    (recipeName.getId() != id)){
-                return ResponseEntity.badRequest().build();
-            }
+        if (repo.existsByNormalizedNameAndIdNot(Recipe.normalizeName(recipe.getName()), id)) {
+            return ResponseEntity.badRequest().build();
         }
 
         if (!repo.existsById(id)) {
             return ResponseEntity.notFound().build();
         }
 
-        recipe.setRecipeIngredients(repo.findById(id).get().getRecipeIngredients());
+        Recipe old = repo.findById(id).get();
+        if (!ExpectedVersion.matches(expectedVersion, old.getVersion())) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        recipe.setRecipeIngredients(old.getRecipeIngredients());
+        recipe.setAllergenMask(old.getAllergenMask());
+        recipe.setVersion(old.getVersion());
         recipe.setId(id);
         recipe.setName(capitalize(recipe.getName()));
         recipe.setLanguage(recipe.getLanguage());
-        Recipe saved = repo.save(recipe);
+        Recipe saved;
+        try {
+            saved = transactions.execute(status -> {
+                Recipe stored = repo.saveAndFlush(recipe);
+                events.publishEvent(new CatalogChange.RecipeSaved(stored));
+                return stored;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent request stored the same name after our check
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (OptimisticLockingFailureException e) {
+            // a concurrent update was committed after the version was checked
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
 
-        wsHandler.broadcast(new SyncEvent.RecipeContentUpdated(recipe));
+        wsHandler.broadcast(new SyncEvent.RecipeContentUpdated(saved));
 
         return ResponseEntity.ok(saved);
     }
 
+    /**
+     * Replaces the complete ingredient list of a recipe.
+     * Entries carrying the id of one of the recipe's current ingredients update it,
+     * other entries are added, and current ingredients missing from the list are removed.
+     * All of it happens in one transaction and is announced with a single event.
+     *
+     * @param id the ID of the recipe
+     * @param ingredients the new ingredient list, may be empty
+     * @return {@code 400 Bad Request} if the ID or an entry is invalid,
+     * {@code 404 Not Found} if the recipe or one of the ingredients does not exist,
+     * otherwise {@code 200 OK} with the stored ingredient list
+     */
+    @PutMapping("{id}/ingredients")
+    public ResponseEntity<List<RecipeIngredient>> replaceIngredients(
+            @PathVariable long id, @RequestBody List<RecipeIngredient> ingredients) {
+        if (id < 0 || ingredients == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        for (RecipeIngredient ri : ingredients) {
+            if (ri == null || ri.getIngredient() == null
+                    || ri.getAmount() < 0 || ri.getUnit() == null) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        Recipe recipe = repo.findById(id).orElse(null);
+        if (recipe == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        RecipeIngredientReplacer.Replacement replacement;
+        try {
+            replacement = ingredientReplacer.replace(recipe, ingredients);
+        } catch (RecipeIngredientReplacer.UnknownIngredientException e) {
+            return ResponseEntity.notFound().build();
+        }
+        wsHandler.broadcast(
+                new SyncEvent.RecipeIngredientsReplaced(id, replacement.ingredients()));
+
+        return ResponseEntity.ok(replacement.ingredients());
+    }
+
     /**
      * Helper to convert "cake" -> "Cake" and "CAKE" -> "Cake".
      */
@@ -194,8 +463,10 @@ public class RecipeController {
             return ResponseEntity.notFound().build();
         }
 
-        repo.deleteById(id);
-
+        transactions.executeWithoutResult(status -> {
+            repo.deleteById(id);
+            events.publishEvent(new CatalogChange.RecipeRemoved(id));
+        });
         wsHandler.broadcast(new SyncEvent.RecipeDeleted(id));
 
         return ResponseEntity.noContent().build();
@@ -215,34 +486,116 @@ public class RecipeController {
     /**
      * Searches for recipes based on a flexible query string.
      * Supports multiple keywords (e.g., "bread cheese" finds recipes with both).
+     * Results are ranked by relevance, recipes with the keywords in their name come
+     * before recipes with them in a step, which come before ingredient matches.
      *
-     * @param name the search query string
-     * @return 400 if blank, otherwise list of matching recipes
+     * @param name      the search query string
+     * @param limit     the maximum number of results, all matches are returned if absent
+     * @param languages only return recipes in these languages, all languages if absent
+     * @param sort      the ordering of the best results, {@code relevance} (default),
+     *                  {@code name} or {@code id}
+     * @param excludeAllergens only return recipes without any of these allergens
+     * @return 400 if blank, the limit is not positive or the sort option is invalid,
+     * otherwise the list of matching recipes
      */
     @GetMapping("search")
-    public ResponseEntity<List<Recipe>> searchRecipes(@RequestParam String name) {
-        if (name == null || name.isBlank()) {
+    public ResponseEntity<List<Recipe>> searchRecipes(
+            @RequestParam String name,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Set<Language> languages,
+            @RequestParam(defaultValue = SORT_RELEVANCE) String sort,
+            @RequestParam(required = false) Set<Allergen> excludeAllergens) {
+        if (name == null || name.isBlank() || (limit != null && limit < 1)
+                || !(SORT_RELEVANCE.equals(sort) || RecipeCursor.isValidSort(sort))) {
             return ResponseEntity.badRequest().build();
         }
+        int excluded = Allergen.maskOf(excludeAllergens);
+        int maxResults = limit == null ? Integer.MAX_VALUE : limit;
 
-        // 1. Split query into separate keywords by whitespace
+        // Split query into separate keywords by whitespace,
+        // the index returns the best recipes matching all of them without the allergens.
         String[] terms = name.trim().split("\\s+");
+        List<Long> ids = searchIndex.search(Arrays.asList(terms), maxResults,
+                languagesOrAll(languages), excluded);
 
-        // 2. Initial search with the first term
-        // Wrap in ArrayList to ensure the list is mutable (modifiable)
-        List<Recipe> results = new ArrayList<>(repo.search(terms[0]));
+        // findAllById does not keep the order of the ids
+        Map<Long, Recipe> byId = new HashMap<>();
+        for (Recipe recipe : repo.findAllById(ids)) {
+            byId.put(recipe.getId(), recipe);
+        }
+        List<Recipe> results = new ArrayList<>(ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList());
+        if (RecipeCursor.SORT_NAME.equals(sort)) {
+            results.sort(Comparator.comparing(Recipe::getName).thenComparingLong(Recipe::getId));
+        } else if (RecipeCursor.SORT_ID.equals(sort)) {
+            results.sort(Comparator.comparingLong(Recipe::getId));
+        }
 
-        // 3. Filter results: Keep only recipes that match ALL subsequent terms
-        for (int i = 1; i < terms.length; i++) {
-            List<Recipe> matches = repo.search(terms[i]);
-            results.retainAll(matches); // Intersection: keeps only items present in both lists
+        return ResponseEntity.ok(results);
+    }
 
-            // Optimization: If results become empty, no need to check further
-            if (results.isEmpty()) {
-                break;
-            }
+    /**
+     * Resolves the optional {@code languages} parameter.
+     *
+     * @param languages the requested languages, may be {@code null} or empty
+     * @return the requested languages, or all languages if none were given
+     */
+    private static Set<Language> languagesOrAll(Set<Language> languages) {
+        return languages == null || languages.isEmpty()
+                ? EnumSet.allOf(Language.class)
+                : languages;
+    }
+
+    /**
+     * Translates a listing sort option into the ordering used by the repository.
+     *
+     * @param sort a sort option accepted by {@link RecipeCursor#isValidSort(String)}
+     * @return the ordering by (name, id) or by id
+     */
+    private static Sort orderBy(String sort) {
+        return RecipeCursor.SORT_ID.equals(sort)
+                ? Sort.by(RecipeCursor.SORT_ID)
+                : Sort.by(RecipeCursor.SORT_NAME, RecipeCursor.SORT_ID);
+    }
+
+    /**
+     * Validates the paging parameters and runs the keyset query matching the sort option.
+     *
+     * @param limit  the requested page size
+     * @param after  the cursor of the previous page, may be {@code null}
+     * @param sort   the requested sort option
+     * @param byName the query used for the {@code name} ordering
+     * @param byId   the query used for the {@code id} ordering
+     * @param idOf   extracts the id of a row
+     * @param nameOf extracts the name of a row
+     * @param <T>    the row type
+     * @return {@code 400 Bad Request} if a parameter is invalid,
+     * otherwise {@code 200 OK} with the page
+     */
+    private <T> ResponseEntity<CursorPage<T>> keysetPage(
+            int limit, String after, String sort,
+            BiFunction<RecipeCursor, Pageable, List<T>> byName,
+            BiFunction<RecipeCursor, Pageable, List<T>> byId,
+            ToLongFunction<T> idOf, Function<T, String> nameOf) {
+        if (limit < 1 || !RecipeCursor.isValidSort(sort)) {
+            return ResponseEntity.badRequest().build();
+        }
+        RecipeCursor cursor;
+        try {
+            cursor = RecipeCursor.parse(after);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
 
-        return ResponseEntity.ok(results);
+        int size = Math.min(limit, RecipeCursor.MAX_PAGE_SIZE);
+        // one extra row tells us whether there is a next page
+        Pageable window = PageRequest.of(0, size + 1);
+        List<T> rows = RecipeCursor.SORT_ID.equals(sort)
+                ? byId.apply(cursor, window)
+                : byName.apply(cursor, window);
+
+        return ResponseEntity.ok(RecipeCursor.toPage(rows, size, idOf, nameOf));
     }
 }
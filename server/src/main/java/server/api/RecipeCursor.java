@@ -0,0 +1,107 @@
+package server.api;
+
+import commons.CursorPage;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keyset position inside a recipe listing.
+ * A cursor is encoded as {@code "<id>:<name>"} so that it can be used for both the
+ * name and the id ordering without another lookup on the server.
+ */
+final class RecipeCursor {
+
+    static final String SORT_NAME = "name";
+    static final String SORT_ID = "id";
+    static final int MAX_PAGE_SIZE = 200;
+
+    private static final RecipeCursor START = new RecipeCursor(-1L, "");
+
+    private final long id;
+    private final String name;
+
+    /**
+     * Creates a new cursor.
+     *
+     * @param id   id of the last row of the previous page
+     * @param name name of the last row of the previous page
+     */
+    private RecipeCursor(long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Checks whether the given sort option is supported by the keyset listings.
+     *
+     * @param sort the requested sort option
+     * @return true if it is {@code name} or {@code id}
+     */
+    static boolean isValidSort(String sort) {
+        return SORT_NAME.equals(sort) || SORT_ID.equals(sort);
+    }
+
+    /**
+     * Parses a cursor received from a client.
+     *
+     * @param after the cursor, or {@code null} for the first page
+     * @return the decoded position
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    static RecipeCursor parse(String after) {
+        if (after == null || after.isEmpty()) {
+            return START;
+        }
+        int separator = after.indexOf(':');
+        String idPart = separator < 0 ? after : after.substring(0, separator);
+        String namePart = separator < 0 ? "" : after.substring(separator + 1);
+        try {
+            return new RecipeCursor(Long.parseLong(idPart), namePart);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + after, e);
+        }
+    }
+
+    /**
+     * Encodes the position of a row.
+     *
+     * @param id   the id of the row
+     * @param name the name of the row
+     * @return the cursor pointing right after this row
+     */
+    static String encode(long id, String name) {
+        return id + ":" + (name == null ? "" : name);
+    }
+
+    /**
+     * Turns the rows of a keyset query into a page.
+     * The query is expected to fetch one row more than the page size,
+     * the presence of that extra row tells whether there is a next page.
+     *
+     * @param rows     the fetched rows, at most {@code size + 1}
+     * @param size     the page size requested by the client
+     * @param idOf     extracts the id of a row
+     * @param nameOf   extracts the name of a row
+     * @param <T>      the row type
+     * @return the page with a cursor to the next one if there is more data
+     */
+    static <T> CursorPage<T> toPage(List<T> rows, int size,
+                                    ToLongFunction<T> idOf, Function<T, String> nameOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        T last = items.get(size - 1);
+        return new CursorPage<>(items, encode(idOf.applyAsLong(last), nameOf.apply(last)));
+    }
+}
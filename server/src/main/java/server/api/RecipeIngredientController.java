@@ -3,8 +3,14 @@ package server.api;
 import commons.Recipe;
 import commons.RecipeIngredient;
 import commons.SyncEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.web.bind.annotation.*;
+import server.catalog.CatalogChange;
+import server.catalog.IngredientUsageCounter;
 import server.database.RecipeIngredientRepository;
 import server.websocket.WebSocketHandler;
 
@@ -25,15 +31,28 @@ public class RecipeIngredientController {
 
     private final RecipeIngredientRepository repo;
     private final WebSocketHandler wsHandler;
+    private final ApplicationEventPublisher events;
+    private final IngredientUsageCounter usageCounter;
+    private final TransactionOperations transactions;
 
     /**
      * Constructs a new {@code RecipeIngredientController} with the given repository.
      *
      * @param repo the {@link RecipeIngredientRepository} used for database operations
+     * @param wsHandler the handler used to notify connected clients
+     * @param events the publisher used to announce {@link CatalogChange}s
+     * @param usageCounter the cached number of recipes every ingredient is used in
+     * @param transactions runs every change in one transaction with its {@link CatalogChange}
      */
-    public RecipeIngredientController(RecipeIngredientRepository repo, WebSocketHandler wsHandler) {
+    public RecipeIngredientController(RecipeIngredientRepository repo, WebSocketHandler wsHandler,
+                                      ApplicationEventPublisher events,
+                                      IngredientUsageCounter usageCounter,
+                                      TransactionOperations transactions) {
         this.repo = repo;
         this.wsHandler = wsHandler;
+        this.events = events;
+        this.usageCounter = usageCounter;
+        this.transactions = transactions;
     }
 
     /**
@@ -47,11 +66,7 @@ public class RecipeIngredientController {
         if (ingredientId < 0) {
             return ResponseEntity.badRequest().build();
         }
-        List<RecipeIngredient> allRecipeIngredients = repo.findByIngredientId(ingredientId);
-        Long recipeCount = allRecipeIngredients.stream()
-                .map(x -> x.getRecipe().getId())
-                .distinct().count();
-        return ResponseEntity.ok(recipeCount);
+        return ResponseEntity.ok(usageCounter.countFor(ingredientId));
     }
 
     /**
@@ -88,8 +103,11 @@ public class RecipeIngredientController {
 
         ri.setId(0L);
 
-        RecipeIngredient saved = repo.save(ri);
-
+        RecipeIngredient saved = transactions.execute(status -> {
+            RecipeIngredient stored = repo.save(ri);
+            events.publishEvent(new CatalogChange.RecipeIngredientSaved(stored));
+            return stored;
+        });
         wsHandler.broadcast(new SyncEvent.RecipeIngredientCreated(saved));
 
         return ResponseEntity.ok(saved);
@@ -100,16 +118,23 @@ public class RecipeIngredientController {
      * The provided object must reference both a recipe and an ingredient,
      * and must contain valid, non-negative amount data.
      *
-     * @param id the ID of the recipe-ingredient entry to update
-     * @param ri the updated recipe-ingredient data
-     * @return {@code 400 Bad Request} if input is invalid,
+     * If an {@link ExpectedVersion} header is sent, it must hold the current version
+     * of the entry.
+     *
+     * @param id      the ID of the recipe-ingredient entry to update
+     * @param ri      the updated recipe-ingredient data
+     * @param expectedVersion the version the edit is based on, or null to overwrite
+     * @return {@code 400 Bad Request} if input or the expected version is invalid,
      *         {@code 404 Not Found} if no entry with the given ID exists,
+     *         {@code 412 Precondition Failed} if the entry was changed since that version,
      *         otherwise {@code 200 OK} with the updated entry
      */
     @PutMapping("{id}")
-    public ResponseEntity<RecipeIngredient> update(@PathVariable long id,
-                                                   @RequestBody RecipeIngredient ri) {
-        if (id < 0) {
+    public ResponseEntity<RecipeIngredient> update(
+            @PathVariable long id, @RequestBody RecipeIngredient ri,
+            @RequestHeader(value = ExpectedVersion.HEADER, required = false)
+            String expectedVersion) {
+        if (id < 0 || !ExpectedVersion.isWellFormed(expectedVersion)) {
             return ResponseEntity.badRequest().build();
         }
 
@@ -117,11 +142,26 @@ public class RecipeIngredientController {
             return ResponseEntity.badRequest().build();
         }
 
-        if (!repo.existsById(id)) {
+        RecipeIngredient old = repo.findById(id).orElse(null);
+        if (old == null) {
             return ResponseEntity.notFound().build();
         }
+        if (!ExpectedVersion.matches(expectedVersion, old.getVersion())) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        ri.setVersion(old.getVersion());
         ri.setId(id);
-        RecipeIngredient saved = repo.save(ri);
+        RecipeIngredient saved;
+        try {
+            saved = transactions.execute(status -> {
+                RecipeIngredient stored = repo.saveAndFlush(ri);
+                events.publishEvent(new CatalogChange.RecipeIngredientSaved(stored));
+                return stored;
+            });
+        } catch (OptimisticLockingFailureException e) {
+            // a concurrent update was committed after the version was checked
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
 
         wsHandler.broadcast(new SyncEvent.RecipeIngredientUpdated(saved));
 
@@ -152,7 +192,13 @@ public class RecipeIngredientController {
             recipe = ri.getRecipe();
         }
 
-        repo.deleteById(id);
+        Long recipeId = recipe == null ? null : recipe.getId();
+        transactions.executeWithoutResult(status -> {
+            repo.deleteById(id);
+            if (recipeId != null) {
+                events.publishEvent(new CatalogChange.RecipeIngredientRemoved(id, recipeId));
+            }
+        });
 
         if (recipe != null) {
             wsHandler.broadcast(new SyncEvent.RecipeIngredientDeleted(id, recipe.getId()));
@@ -0,0 +1,54 @@
+package server.api;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import server.search.RecipeSearchIndex;
+import server.search.SearchIndexStats;
+
+/**
+ * Controller for maintaining the in-memory recipe search index.
+ * Provides endpoints for:
+ *     Retrieving the size of the index
+ *     Rebuilding the index from the database
+ * This controller is mapped to the base path /api/search-index/.
+ */
+@RestController
+@RequestMapping("/api/search-index/")
+public class SearchIndexController {
+
+    private final RecipeSearchIndex index;
+
+    /**
+     * Constructs a new {@code SearchIndexController}.
+     *
+     * @param index the search index to expose
+     */
+    public SearchIndexController(RecipeSearchIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Returns the current size of the search index.
+     *
+     * @return {@code 200 OK} with the index statistics
+     */
+    @GetMapping("stats")
+    public ResponseEntity<SearchIndexStats> getStats() {
+        return ResponseEntity.ok(index.stats());
+    }
+
+    /**
+     * Rebuilds the search index from the database,
+     * e.g. after the database was modified outside of the server.
+     *
+     * @return {@code 200 OK} with the statistics of the rebuilt index
+     */
+    @PostMapping("rebuild")
+    public ResponseEntity<SearchIndexStats> rebuild() {
+        index.rebuild();
+        return ResponseEntity.ok(index.stats());
+    }
+}
@@ -0,0 +1,195 @@
+package server.api;
+
+import commons.IngredientCategory;
+import commons.PlannedRecipe;
+import commons.RecipeIngredient;
+import commons.ShoppingLine;
+import commons.Unit;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import server.database.RecipeIngredientRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Controller for building shopping lists on the server.
+ * Provides endpoints for:
+ *     Merging the ingredients of many recipes into one list grouped by category
+ * This controller is mapped to the base path /api/shopping.
+ */
+@RestController
+@RequestMapping("/api/shopping")
+public class ShoppingController {
+
+    /** The largest number of planned recipes accepted in one request. */
+    static final int MAX_RECIPES = 1000;
+
+    private static final Comparator<ShoppingLine> LINE_ORDER = Comparator
+            .comparing(ShoppingLine::getIngredientName,
+                    Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(ShoppingLine::getUnit)
+            .thenComparing(ShoppingLine::getInformalUnit,
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    /**
+     * What recipe ingredients are merged by: the ingredient, and for custom amounts with an
+     * informal unit also that unit.
+     *
+     * @param ingredientId the ingredient
+     * @param informalUnit the informal unit of a custom amount, null for weighed amounts
+     */
+    private record LineKey(long ingredientId, String informalUnit) {
+    }
+
+    /**
+     * Mutable totals for one {@link LineKey}. Grams and liters are kept apart so a line only
+     * falls back to grams when the recipes disagree on the unit.
+     */
+    private static final class Total {
+        private final RecipeIngredient first;
+        private final TreeSet<String> recipeNames = new TreeSet<>();
+        private double grams;
+        private double liters;
+        private double custom;
+
+        /**
+         * Starts a total.
+         *
+         * @param first the first recipe ingredient added, used for the ingredient details
+         */
+        private Total(RecipeIngredient first) {
+            this.first = first;
+        }
+    }
+
+    private final RecipeIngredientRepository recipeIngredientRepo;
+
+    /**
+     * Constructs a new {@code ShoppingController}.
+     *
+     * @param recipeIngredientRepo the repository the ingredients of recipes are read from
+     */
+    public ShoppingController(RecipeIngredientRepository recipeIngredientRepo) {
+        this.recipeIngredientRepo = recipeIngredientRepo;
+    }
+
+    /**
+     * Merges the ingredients of the planned recipes into one shopping list.
+     * Amounts are scaled from the servings of each recipe to the planned servings and
+     * summed per ingredient. Grams and liters are summed separately, and only combined
+     * into grams, at 1 gram per milliliter, when one ingredient is used in both.
+     * Custom amounts are summed per informal unit; ones with an informal unit such as
+     * "a pinch" are not scaled. A recipe planned twice counts with its summed servings,
+     * unknown recipes and recipes without ingredients add nothing.
+     *
+     * @param planned the recipes and the number of servings to make of each
+     * @return {@code 400 Bad Request} if the list is missing or too long, or contains a
+     *         non-positive number of servings,
+     *         otherwise {@code 200 OK} with the merged lines by category in category order,
+     *         each sorted by ingredient name
+     */
+    @PostMapping("aggregate")
+    public ResponseEntity<Map<IngredientCategory, List<ShoppingLine>>> aggregate(
+            @RequestBody List<PlannedRecipe> planned) {
+        if (planned == null || planned.size() > MAX_RECIPES
+                || planned.stream().anyMatch(p -> p == null || p.getServings() < 1)) {
+            return ResponseEntity.badRequest().build();
+        }
+        Map<Long, Integer> servings = new HashMap<>();
+        for (PlannedRecipe p : planned) {
+            servings.merge(p.getRecipeId(), p.getServings(), Integer::sum);
+        }
+        if (servings.isEmpty()) {
+            return ResponseEntity.ok(new EnumMap<>(IngredientCategory.class));
+        }
+
+        Map<LineKey, Total> totals = new HashMap<>();
+        for (RecipeIngredient ri
+                : recipeIngredientRepo.findWithIngredientByRecipeIdIn(servings.keySet())) {
+            add(totals, ri, servings.get(ri.getRecipe().getId()));
+        }
+        return ResponseEntity.ok(group(totals));
+    }
+
+    /**
+     * Adds one recipe ingredient, scaled to the planned servings, to its total.
+     *
+     * @param totals   the totals so far
+     * @param ri       the recipe ingredient, with its recipe and ingredient
+     * @param servings the planned servings of its recipe
+     */
+    private static void add(Map<LineKey, Total> totals, RecipeIngredient ri, int servings) {
+        String informalUnit = ri.getUnit() == Unit.CUSTOM ? ri.getInformalUnit() : null;
+        LineKey key = new LineKey(ri.getIngredient().getId(), informalUnit);
+        Total total = totals.computeIfAbsent(key, k -> new Total(ri));
+        if (ri.getRecipe().getName() != null) {
+            total.recipeNames.add(ri.getRecipe().getName());
+        }
+
+        double scale = (double) servings / Math.max(1, ri.getRecipe().getServings());
+        switch (Objects.requireNonNullElse(ri.getUnit(), Unit.CUSTOM)) {
+            case GRAM -> total.grams += ri.getAmount() * scale;
+            case LITER -> total.liters += ri.getAmount() * scale;
+            case CUSTOM -> total.custom += informalUnit == null
+                    ? ri.getAmount() * scale
+                    : ri.getAmount();
+        }
+    }
+
+    /**
+     * Turns the totals into lines grouped by ingredient category.
+     *
+     * @param totals the totals of every ingredient
+     * @return the sorted lines of every category that has any
+     */
+    private static Map<IngredientCategory, List<ShoppingLine>> group(
+            Map<LineKey, Total> totals) {
+        Map<IngredientCategory, List<ShoppingLine>> lines =
+                new EnumMap<>(IngredientCategory.class);
+        totals.forEach((key, total) -> {
+            IngredientCategory category = Objects.requireNonNullElse(
+                    total.first.getIngredient().getCategory(), IngredientCategory.UNCATEGORIZED);
+            List<ShoppingLine> categoryLines =
+                    lines.computeIfAbsent(category, k -> new ArrayList<>());
+            if (total.liters <= 0) {
+                if (total.grams > 0) {
+                    categoryLines.add(line(key, total, total.grams, Unit.GRAM));
+                }
+            } else if (total.grams <= 0) {
+                categoryLines.add(line(key, total, total.liters, Unit.LITER));
+            } else {
+                categoryLines.add(line(key, total, total.grams + total.liters * 1000, Unit.GRAM));
+            }
+            if (total.custom > 0 || key.informalUnit() != null) {
+                categoryLines.add(line(key, total, total.custom, Unit.CUSTOM));
+            }
+        });
+        lines.values().removeIf(List::isEmpty);
+        lines.values().forEach(l -> l.sort(LINE_ORDER));
+        return lines;
+    }
+
+    /**
+     * Creates one line of the shopping list.
+     *
+     * @param key    the ingredient and informal unit of the line
+     * @param total  the totals of the line
+     * @param amount the amount to show
+     * @param unit   the unit of the amount
+     * @return the line
+     */
+    private static ShoppingLine line(LineKey key, Total total, double amount, Unit unit) {
+        return new ShoppingLine(key.ingredientId(), total.first.getIngredient().getName(),
+                key.informalUnit(), amount, unit, List.copyOf(total.recipeNames));
+    }
+}
@@ -0,0 +1,56 @@
+package server.api;
+
+import commons.Suggestion;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import server.search.SuggestIndex;
+
+import java.util.List;
+
+/**
+ * Controller for name completion while the user is typing.
+ * Answers from the in-memory {@link SuggestIndex}, so it never touches the database.
+ * This controller is mapped to the base path /api/suggest.
+ */
+@RestController
+@RequestMapping("/api/suggest")
+public class SuggestController {
+
+    static final int DEFAULT_LIMIT = 10;
+    static final int MAX_LIMIT = 50;
+
+    private final SuggestIndex index;
+
+    /**
+     * Constructs a new {@code SuggestController}.
+     *
+     * @param index the prefix index to answer from
+     */
+    public SuggestController(SuggestIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Completes a prefix to recipe and ingredient names.
+     *
+     * @param prefix the typed text
+     * @param kind   only suggest recipes or only ingredients, both if absent
+     * @param limit  the maximum number of suggestions, 10 if absent and capped at 50
+     * @return {@code 400 Bad Request} if the limit is not positive,
+     *         otherwise {@code 200 OK} with the best completions, an empty list for a blank prefix
+     */
+    @GetMapping
+    public ResponseEntity<List<Suggestion>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(required = false) Suggestion.Kind kind,
+            @RequestParam(required = false) Integer limit) {
+        if (limit != null && limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        int size = limit == null ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        return ResponseEntity.ok(index.suggest(prefix, kind, size));
+    }
+}
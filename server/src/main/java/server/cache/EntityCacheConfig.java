@@ -0,0 +1,150 @@
+package server.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+
+/**
+ * Configures the Hibernate second-level cache for the catalog entities.
+ * <p>
+ * {@code Ingredient}, {@code Recipe} and {@code RecipeIngredient} rows, and the collections
+ * listed in {@link #COLLECTION_REGIONS}, are kept in bounded in-process Caffeine caches
+ * behind JCache. Every write goes through Hibernate, which updates or evicts the cached
+ * rows itself; bulk deletes evict the regions of the tables they touch, and saving or
+ * removing a recipe ingredient evicts the cached ingredient list of its recipe.
+ * Rows changed outside the server, e.g. in the H2 console, stay stale until they expire.
+ */
+@Configuration
+public class EntityCacheConfig {
+
+    /** The regions of the cached entities, named after the entity classes. */
+    static final List<String> ENTITY_REGIONS = List.of(
+            "commons.Ingredient", "commons.Recipe", "commons.RecipeIngredient");
+
+    /** The regions of the cached collections, named after their roles. */
+    static final List<String> COLLECTION_REGIONS = List.of(
+            "commons.Ingredient.allergens",
+            "commons.Recipe.preparationSteps",
+            "commons.Recipe.recipeIngredients");
+
+    /** The URI of the cache manager, used to find the statistics of its caches. */
+    static final URI CACHE_MANAGER_URI = URI.create("server-entity-cache");
+
+    /**
+     * When cached rows expire.
+     */
+    public enum Expiry {
+        /** A fixed time after they were loaded or last written. */
+        WRITE,
+        /** A fixed time after they were last read or written. */
+        ACCESS
+    }
+
+    /**
+     * Creates the cache manager holding one cache per region.
+     *
+     * @param maximumSize the largest number of entries kept per region
+     * @param timeToLive  how long entries are kept, zero to keep them until evicted by size
+     * @param expiry      what the time to live counts from
+     * @return the cache manager, closed when the application shuts down
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(
+            @Value("${entity-cache.maximum-size:10000}") long maximumSize,
+            @Value("${entity-cache.time-to-live:30m}") Duration timeToLive,
+            @Value("${entity-cache.expiry:WRITE}") Expiry expiry) {
+        return createCacheManager(maximumSize, timeToLive, expiry);
+    }
+
+    /**
+     * Hands the cache manager and the cached collections to Hibernate.
+     *
+     * @param entityCacheManager the cache manager holding the regions
+     * @return the customizer adding the cache settings to the Hibernate properties
+     */
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheProperties(CacheManager entityCacheManager) {
+        return properties -> {
+            properties.put("hibernate.cache.use_second_level_cache", true);
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+            properties.put("hibernate.javax.cache.cache_manager", entityCacheManager);
+            // every region is created up front with a bound, never fall back to an unbounded one
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+            properties.put("jakarta.persistence.sharedCache.mode", "ENABLE_SELECTIVE");
+            properties.put("hibernate.cache.default_cache_concurrency_strategy", "read-write");
+            properties.put("hibernate.cache.auto_evict_collection_cache", true);
+            for (String region : COLLECTION_REGIONS) {
+                properties.put("hibernate.collectioncache." + region, "read-write");
+            }
+        };
+    }
+
+    /**
+     * Creates a cache manager with a bounded cache for every entity and collection region.
+     *
+     * @param maximumSize the largest number of entries kept per region
+     * @param timeToLive  how long entries are kept, zero to keep them until evicted by size
+     * @param expiry      what the time to live counts from
+     * @return the new cache manager
+     */
+    static CacheManager createCacheManager(long maximumSize, Duration timeToLive,
+                                           Expiry expiry) {
+        if (maximumSize < 1 || timeToLive.isNegative()) {
+            throw new IllegalArgumentException(
+                    "entity-cache.maximum-size must be positive and time-to-live not negative");
+        }
+        CacheManager manager = Caching
+                .getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(CACHE_MANAGER_URI, EntityCacheConfig.class.getClassLoader());
+        for (String region : regions()) {
+            if (manager.getCache(region) != null) {
+                manager.destroyCache(region);
+            }
+            manager.createCache(region, configuration(maximumSize, timeToLive, expiry));
+        }
+        return manager;
+    }
+
+    /**
+     * Returns the names of all cache regions.
+     *
+     * @return the entity regions followed by the collection regions
+     */
+    static List<String> regions() {
+        return Stream.concat(ENTITY_REGIONS.stream(), COLLECTION_REGIONS.stream()).toList();
+    }
+
+    /**
+     * Builds the configuration of one region.
+     *
+     * @param maximumSize the largest number of entries kept
+     * @param timeToLive  how long entries are kept, zero for no expiry
+     * @param expiry      what the time to live counts from
+     * @return the configuration, with statistics enabled
+     */
+    private static CaffeineConfiguration<Object, Object> configuration(
+            long maximumSize, Duration timeToLive, Expiry expiry) {
+        CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+        config.setMaximumSize(OptionalLong.of(maximumSize));
+        if (!timeToLive.isZero()) {
+            OptionalLong nanos = OptionalLong.of(timeToLive.toNanos());
+            switch (expiry) {
+                case WRITE -> config.setExpireAfterWrite(nanos);
+                case ACCESS -> config.setExpireAfterAccess(nanos);
+            }
+        }
+        config.setStatisticsEnabled(true);
+        return config;
+    }
+}
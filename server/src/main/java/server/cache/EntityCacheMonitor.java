@@ -0,0 +1,117 @@
+package server.cache;
+
+import org.springframework.stereotype.Component;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the hit, miss, put and eviction counters of the second-level cache regions.
+ * <p>
+ * The counters are the standard JCache statistics, which the cache provider publishes as
+ * {@code CacheStatistics} MBeans on the platform MBean server.
+ */
+@Component
+public class EntityCacheMonitor {
+
+    private final CacheManager cacheManager;
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    /**
+     * Creates the monitor.
+     *
+     * @param cacheManager the cache manager holding the regions
+     */
+    public EntityCacheMonitor(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Returns the counters of every region since startup or the last {@link #clear()}.
+     *
+     * @return one snapshot per region, entity regions first
+     */
+    public List<EntityCacheStats> stats() {
+        List<EntityCacheStats> stats = new ArrayList<>();
+        for (String region : EntityCacheConfig.regions()) {
+            ObjectName name = statisticsName(region);
+            stats.add(new EntityCacheStats(region,
+                    counter(name, "CacheHits"),
+                    counter(name, "CacheMisses"),
+                    counter(name, "CachePuts"),
+                    counter(name, "CacheEvictions")));
+        }
+        return stats;
+    }
+
+    /**
+     * Empties every region and resets the counters, e.g. after the database was modified
+     * outside of the server.
+     */
+    public void clear() {
+        for (String region : EntityCacheConfig.regions()) {
+            Cache<Object, Object> cache = cacheManager.getCache(region);
+            if (cache != null) {
+                cache.clear();
+            }
+            ObjectName name = statisticsName(region);
+            try {
+                if (mBeanServer.isRegistered(name)) {
+                    mBeanServer.invoke(name, "clear", null, null);
+                }
+            } catch (JMException e) {
+                throw new IllegalStateException("Could not reset the statistics of " + region, e);
+            }
+        }
+    }
+
+    /**
+     * Builds the name the statistics MBean of a region is registered under.
+     *
+     * @param region the region
+     * @return the object name of its statistics
+     */
+    private ObjectName statisticsName(String region) {
+        try {
+            return new ObjectName("javax.cache:type=CacheStatistics"
+                    + ",CacheManager=" + sanitize(cacheManager.getURI().toString())
+                    + ",Cache=" + sanitize(region));
+        } catch (JMException e) {
+            throw new IllegalStateException("Invalid cache name " + region, e);
+        }
+    }
+
+    /**
+     * Replaces the characters that are not allowed in an unquoted object name value.
+     *
+     * @param value the cache or cache manager name
+     * @return the value as it appears in the object name
+     */
+    private static String sanitize(String value) {
+        return value.replaceAll("[,:=\n]", ".");
+    }
+
+    /**
+     * Reads one counter of a region.
+     *
+     * @param name      the object name of the statistics of the region
+     * @param attribute the counter to read
+     * @return its value, 0 if the region publishes no statistics
+     */
+    private long counter(ObjectName name, String attribute) {
+        try {
+            if (!mBeanServer.isRegistered(name)) {
+                return 0;
+            }
+            return ((Number) mBeanServer.getAttribute(name, attribute)).longValue();
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not read " + attribute + " of " + name, e);
+        }
+    }
+}
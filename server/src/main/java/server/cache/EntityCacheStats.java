@@ -0,0 +1,50 @@
+package server.cache;
+
+/**
+ * Snapshot of the counters of one second-level cache region, exposed for monitoring.
+ */
+public class EntityCacheStats {
+
+    private final String region;
+    private final long hits;
+    private final long misses;
+    private final long puts;
+    private final long evictions;
+
+    /**
+     * Creates a new snapshot.
+     *
+     * @param region    the name of the region
+     * @param hits      number of lookups answered from the cache
+     * @param misses    number of lookups that had to go to the database
+     * @param puts      number of entries stored
+     * @param evictions number of entries dropped because the region was full or they expired
+     */
+    public EntityCacheStats(String region, long hits, long misses, long puts, long evictions) {
+        this.region = region;
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+        this.evictions = evictions;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getPuts() {
+        return puts;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+}
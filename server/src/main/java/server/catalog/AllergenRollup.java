@@ -0,0 +1,97 @@
+package server.catalog;
+
+import commons.Recipe;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import server.database.RecipeAllergen;
+import server.database.RecipeIngredientRepository;
+import server.database.RecipeRepository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the {@link Recipe#getAllergenMask() allergen mask} of every recipe equal to the
+ * allergens of its ingredients.
+ * <p>
+ * The masks are recomputed in the same transaction as the change that affects them, right
+ * before it commits, so a filtered listing never sees a recipe ingredient without its
+ * allergens; every writer publishes its changes inside its transaction. Only recipes whose
+ * mask actually changes are written, with a bulk update that keeps their version, so a
+ * client editing the recipe does not get a conflict for a change it cannot see.
+ */
+@Component
+public class AllergenRollup {
+
+    private final RecipeRepository recipeRepo;
+    private final RecipeIngredientRepository recipeIngredientRepo;
+
+    /**
+     * Creates the roll-up.
+     *
+     * @param recipeRepo           repository the masks are stored in
+     * @param recipeIngredientRepo repository the allergens of recipes are read from
+     */
+    public AllergenRollup(RecipeRepository recipeRepo,
+                          RecipeIngredientRepository recipeIngredientRepo) {
+        this.recipeRepo = recipeRepo;
+        this.recipeIngredientRepo = recipeIngredientRepo;
+    }
+
+    /**
+     * Recomputes the masks of the recipes a change can affect.
+     * Runs right before the transaction of the change commits, or right away without one.
+     *
+     * @param change the change published by a controller
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCatalogChange(CatalogChange change) {
+        switch (change) {
+            case CatalogChange.RecipeSaved c -> {
+                // recipe updates keep the stored mask
+            }
+            case CatalogChange.RecipeRemoved c -> {
+                // the mask is removed with the recipe
+            }
+            case CatalogChange.IngredientSaved c -> recompute(
+                    recipeIngredientRepo.findRecipeIdsByIngredientId(c.getIngredient().getId()));
+            // its recipe ingredients are already gone, the change names their recipes
+            case CatalogChange.IngredientRemoved c -> recompute(c.getRecipeIds());
+            case CatalogChange.RecipeIngredientSaved c ->
+                    recompute(List.of(c.getRecipeIngredient().getRecipe().getId()));
+            case CatalogChange.RecipeIngredientRemoved c -> recompute(List.of(c.getRecipeId()));
+        }
+    }
+
+    /**
+     * Recomputes and stores the allergen masks of the given recipes.
+     *
+     * @param recipeIds the recipes to update
+     */
+    public void recompute(Collection<Long> recipeIds) {
+        if (recipeIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> masks = new HashMap<>();
+        for (RecipeAllergen ra : recipeIngredientRepo.findAllergensByRecipeIdIn(recipeIds)) {
+            masks.merge(ra.getRecipeId(), ra.getAllergen().bit(), (a, b) -> a | b);
+        }
+        Map<Long, Integer> changed = new HashMap<>();
+        for (Recipe recipe : recipeRepo.findAllById(recipeIds)) {
+            int mask = masks.getOrDefault(recipe.getId(), 0);
+            if (recipe.getAllergenMask() != mask) {
+                changed.put(recipe.getId(), mask);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        // pending changes of the transaction go first, so flushing them at commit cannot
+        // write an outdated mask back
+        recipeRepo.flush();
+        changed.forEach(recipeRepo::updateAllergenMask);
+    }
+}
@@ -0,0 +1,360 @@
+package server.catalog;
+
+import commons.BatchOperation;
+import commons.BatchOperation.Kind;
+import commons.BatchResult;
+import commons.Ingredient;
+import commons.IngredientCategory;
+import commons.Recipe;
+import commons.RecipeIngredient;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import server.database.IngredientRepository;
+import server.database.RecipeIngredientRepository;
+import server.database.RecipeRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies a batch of {@link BatchOperation}s in a single transaction.
+ * <p>
+ * Operations run in order and follow the same rules as the single-row endpoints.
+ * Rows created by the batch are not written right away: Hibernate sends the inserts
+ * and updates in JDBC batches when the transaction commits. If any operation fails,
+ * a {@link BatchFailure} is thrown and the whole batch is rolled back. Updates and deletes
+ * with an expected version fail if the row was changed since, instead of overwriting it.
+ */
+@Component
+public class BatchExecutor {
+
+    /**
+     * Thrown when an operation of a batch cannot be applied.
+     */
+    public static class BatchFailure extends RuntimeException {
+
+        /**
+         * Why an operation could not be applied.
+         */
+        public enum Reason {
+            /** The operation itself is invalid. */
+            INVALID,
+            /** The row the operation refers to does not exist. */
+            NOT_FOUND,
+            /** The row no longer has the version the operation expects. */
+            STALE_VERSION
+        }
+
+        private final int index;
+        private final Reason reason;
+
+        /**
+         * Creates the failure.
+         *
+         * @param index   the position of the failed operation
+         * @param reason  why the operation could not be applied
+         * @param message what was wrong with the operation
+         */
+        public BatchFailure(int index, Reason reason, String message) {
+            super(message);
+            this.index = index;
+            this.reason = reason;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Reason getReason() {
+            return reason;
+        }
+    }
+
+    private final RecipeRepository recipeRepo;
+    private final IngredientRepository ingredientRepo;
+    private final RecipeIngredientRepository recipeIngredientRepo;
+    private final ApplicationEventPublisher events;
+
+    /**
+     * Creates the executor.
+     *
+     * @param recipeRepo           repository storing the recipes
+     * @param ingredientRepo       repository storing the ingredients
+     * @param recipeIngredientRepo repository storing the recipe ingredients
+     * @param events               the publisher used to announce {@link CatalogChange}s
+     */
+    public BatchExecutor(RecipeRepository recipeRepo, IngredientRepository ingredientRepo,
+                         RecipeIngredientRepository recipeIngredientRepo,
+                         ApplicationEventPublisher events) {
+        this.recipeRepo = recipeRepo;
+        this.ingredientRepo = ingredientRepo;
+        this.recipeIngredientRepo = recipeIngredientRepo;
+        this.events = events;
+    }
+
+    /**
+     * Applies all operations, or none of them.
+     *
+     * @param operations the operations in the order to apply them
+     * @return one applied operation per operation, and the ids of all refs
+     * @throws BatchFailure if an operation is invalid or refers to a missing row
+     */
+    @Transactional
+    public BatchResult execute(List<BatchOperation> operations) {
+        BatchResult result = new BatchResult();
+        Map<String, Kind> refKinds = new HashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation op = operations.get(i);
+            if (op == null || op.getAction() == null || op.getKind() == null) {
+                throw new BatchFailure(i, BatchFailure.Reason.INVALID,
+                        "an operation needs an action and a kind");
+            }
+            Batch batch = new Batch(i, result.getRefs(), refKinds);
+            BatchOperation applied = switch (op.getKind()) {
+                case RECIPE -> applyRecipe(batch, op);
+                case INGREDIENT -> applyIngredient(batch, op);
+                case RECIPE_INGREDIENT -> applyRecipeIngredient(batch, op);
+            };
+            if (op.getAction() == BatchOperation.Action.CREATE && op.getRef() != null) {
+                if (refKinds.putIfAbsent(op.getRef(), op.getKind()) != null) {
+                    throw new BatchFailure(i, BatchFailure.Reason.INVALID,
+                            "ref " + op.getRef() + " is used twice");
+                }
+                result.getRefs().put(op.getRef(), applied.getId());
+                applied.setRef(op.getRef());
+            }
+            result.getResults().add(applied);
+        }
+        return result;
+    }
+
+    /**
+     * Applies an operation on a recipe.
+     */
+    private BatchOperation applyRecipe(Batch batch, BatchOperation op) {
+        if (op.getAction() == BatchOperation.Action.DELETE) {
+            long id = batch.targetId(op);
+            Recipe old = recipeRepo.findById(id).orElseThrow(() -> batch.notFound(op));
+            batch.checkVersion(op, old.getVersion());
+            recipeRepo.deleteById(id);
+            events.publishEvent(new CatalogChange.RecipeRemoved(id));
+            return deleted(op, id, BatchOperation.create(null, old));
+        }
+
+        Recipe recipe = op.getRecipe();
+        if (recipe == null
+                || isNullOrEmpty(recipe.getName())
+                || recipe.getServings() < 1
+                || recipe.getPreparationSteps() == null
+                || recipe.getLanguage() == null) {
+            throw batch.invalid("the recipe needs a name, servings, steps and a language");
+        }
+        recipe.setName(capitalize(recipe.getName()));
+        String normalizedName = Recipe.normalizeName(recipe.getName());
+
+        if (op.getAction() == BatchOperation.Action.CREATE) {
+            if (recipeRepo.existsByNormalizedName(normalizedName)) {
+                throw batch.invalid("the recipe name is already used");
+            }
+            recipe.setId(0L);
+        } else {
+            long id = batch.targetId(op);
+            Recipe old = recipeRepo.findById(id).orElseThrow(() -> batch.notFound(op));
+            batch.checkVersion(op, old.getVersion());
+            if (recipeRepo.existsByNormalizedNameAndIdNot(normalizedName, id)) {
+                throw batch.invalid("the recipe name is already used");
+            }
+            recipe.setRecipeIngredients(old.getRecipeIngredients());
+            recipe.setAllergenMask(old.getAllergenMask());
+            recipe.setVersion(old.getVersion());
+            recipe.setId(id);
+        }
+        Recipe saved = recipeRepo.save(recipe);
+        events.publishEvent(new CatalogChange.RecipeSaved(saved));
+        BatchOperation applied = BatchOperation.create(null, saved);
+        applied.setAction(op.getAction());
+        applied.setId(saved.getId());
+        return applied;
+    }
+
+    /**
+     * Applies an operation on an ingredient.
+     */
+    private BatchOperation applyIngredient(Batch batch, BatchOperation op) {
+        if (op.getAction() == BatchOperation.Action.DELETE) {
+            long id = batch.targetId(op);
+            Ingredient old = ingredientRepo.findById(id).orElseThrow(() -> batch.notFound(op));
+            batch.checkVersion(op, old.getVersion());
+            CatalogChange.IngredientRemoved removed = CatalogChange.IngredientRemoved.of(old);
+            ingredientRepo.deleteById(id);
+            events.publishEvent(removed);
+            return deleted(op, id, BatchOperation.create(null, old));
+        }
+
+        Ingredient ingredient = op.getIngredient();
+        if (ingredient == null
+                || isNullOrEmpty(ingredient.getName())
+                || ingredient.getFat() < 0
+                || ingredient.getProtein() < 0
+                || ingredient.getCarbs() < 0) {
+            throw batch.invalid("the ingredient needs a name and non-negative nutrients");
+        }
+        ingredient.setName(capitalize(ingredient.getName()));
+        if (ingredient.getCategory() == null) {
+            ingredient.setCategory(IngredientCategory.UNCATEGORIZED);
+        }
+
+        if (op.getAction() == BatchOperation.Action.CREATE) {
+            ingredient.setId(0L);
+        } else {
+            long id = batch.targetId(op);
+            Ingredient old = ingredientRepo.findById(id).orElseThrow(() -> batch.notFound(op));
+            batch.checkVersion(op, old.getVersion());
+            ingredient.setRecipeIngredients(old.getRecipeIngredients());
+            ingredient.setVersion(old.getVersion());
+            ingredient.setId(id);
+        }
+        Ingredient saved = ingredientRepo.save(ingredient);
+        events.publishEvent(new CatalogChange.IngredientSaved(saved));
+        BatchOperation applied = BatchOperation.create(null, saved);
+        applied.setAction(op.getAction());
+        applied.setId(saved.getId());
+        return applied;
+    }
+
+    /**
+     * Applies an operation on a recipe ingredient.
+     */
+    private BatchOperation applyRecipeIngredient(Batch batch, BatchOperation op) {
+        if (op.getAction() == BatchOperation.Action.DELETE) {
+            long id = batch.targetId(op);
+            RecipeIngredient old = recipeIngredientRepo.findById(id)
+                    .orElseThrow(() -> batch.notFound(op));
+            batch.checkVersion(op, old.getVersion());
+            recipeIngredientRepo.deleteById(id);
+            events.publishEvent(
+                    new CatalogChange.RecipeIngredientRemoved(id, old.getRecipe().getId()));
+            return deleted(op, id, BatchOperation.create(null, old));
+        }
+
+        RecipeIngredient ri = op.getRecipeIngredient();
+        if (ri == null) {
+            throw batch.invalid("the operation has no recipe ingredient");
+        }
+        if (op.getRecipeRef() != null) {
+            long recipeId = batch.refId(op.getRecipeRef(), Kind.RECIPE);
+            ri.setRecipe(recipeRepo.findById(recipeId).orElseThrow(() -> batch.notFound(op)));
+        }
+        if (op.getIngredientRef() != null) {
+            long ingredientId = batch.refId(op.getIngredientRef(), Kind.INGREDIENT);
+            ri.setIngredient(ingredientRepo.findById(ingredientId)
+                    .orElseThrow(() -> batch.notFound(op)));
+        }
+        if (ri.getRecipe() == null || ri.getIngredient() == null
+                || ri.getAmount() < 0 || ri.getUnit() == null) {
+            throw batch.invalid("the recipe ingredient needs a recipe, an ingredient, "
+                    + "a non-negative amount and a unit");
+        }
+
+        if (op.getAction() == BatchOperation.Action.CREATE) {
+            ri.setId(0L);
+        } else {
+            long id = batch.targetId(op);
+            RecipeIngredient old = recipeIngredientRepo.findById(id)
+                    .orElseThrow(() -> batch.notFound(op));
+            batch.checkVersion(op, old.getVersion());
+            ri.setVersion(old.getVersion());
+            ri.setId(id);
+        }
+        RecipeIngredient saved = recipeIngredientRepo.save(ri);
+        events.publishEvent(new CatalogChange.RecipeIngredientSaved(saved));
+        BatchOperation applied = BatchOperation.create(null, saved);
+        applied.setAction(op.getAction());
+        applied.setId(saved.getId());
+        return applied;
+    }
+
+    /**
+     * Turns the operation holding a deleted row into the result of a delete.
+     */
+    private static BatchOperation deleted(BatchOperation op, long id, BatchOperation withRow) {
+        withRow.setAction(BatchOperation.Action.DELETE);
+        withRow.setKind(op.getKind());
+        withRow.setId(id);
+        return withRow;
+    }
+
+    /**
+     * Helper to convert "cake" -> "Cake" and "CAKE" -> "Cake".
+     */
+    private static String capitalize(String str) {
+        if (str == null || str.isEmpty()) {
+            return str;
+        }
+        return Character.toUpperCase(str.charAt(0)) + str.substring(1).toLowerCase();
+    }
+
+    /**
+     * Checks whether a string is null or empty.
+     *
+     * @param s the string to check
+     * @return true if the string is null or empty, false otherwise
+     */
+    private static boolean isNullOrEmpty(String s) {
+        return s == null || s.isEmpty();
+    }
+
+    /**
+     * The state of the batch while one operation is applied.
+     *
+     * @param index    the position of the operation
+     * @param refs     the ids of the refs created so far
+     * @param refKinds the kinds of the refs created so far
+     */
+    private record Batch(int index, Map<String, Long> refs, Map<String, Kind> refKinds) {
+
+        /**
+         * Returns the id of the row an update or delete targets.
+         */
+        long targetId(BatchOperation op) {
+            long id = op.getIdRef() != null ? refId(op.getIdRef(), op.getKind()) : op.getId();
+            if (id <= 0) {
+                throw invalid("the operation needs an id or an idRef");
+            }
+            return id;
+        }
+
+        /**
+         * Returns the id of a row created earlier in the batch.
+         */
+        long refId(String ref, Kind kind) {
+            if (refKinds.get(ref) != kind) {
+                throw invalid("ref " + ref + " does not name an earlier "
+                        + kind.name().toLowerCase().replace('_', ' '));
+            }
+            return refs.get(ref);
+        }
+
+        /**
+         * Checks that a row still has the version an update or delete is based on.
+         */
+        void checkVersion(BatchOperation op, long version) {
+            if (op.getExpectedVersion() != null && op.getExpectedVersion() != version) {
+                throw new BatchFailure(index, BatchFailure.Reason.STALE_VERSION,
+                        op.getKind().name().toLowerCase().replace('_', ' ')
+                                + " was changed since version " + op.getExpectedVersion());
+            }
+        }
+
+        BatchFailure invalid(String message) {
+            return new BatchFailure(index, BatchFailure.Reason.INVALID, message);
+        }
+
+        BatchFailure notFound(BatchOperation op) {
+            return new BatchFailure(index, BatchFailure.Reason.NOT_FOUND,
+                    op.getKind().name().toLowerCase().replace('_', ' ') + " not found");
+        }
+    }
+}
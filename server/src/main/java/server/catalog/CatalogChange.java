@@ -0,0 +1,153 @@
+package server.catalog;
+
+import commons.Ingredient;
+import commons.Recipe;
+import commons.RecipeIngredient;
+
+import java.util.List;
+
+/**
+ * In-process notification that the recipe catalog was changed by one of the controllers.
+ * Published through Spring's {@link org.springframework.context.ApplicationEventPublisher},
+ * so server-side read models such as the search index can stay in sync with the database
+ * without the controllers knowing about them.
+ */
+public abstract sealed class CatalogChange permits CatalogChange.RecipeSaved,
+        CatalogChange.RecipeRemoved, CatalogChange.IngredientSaved,
+        CatalogChange.IngredientRemoved, CatalogChange.RecipeIngredientSaved,
+        CatalogChange.RecipeIngredientRemoved {
+
+    public static final class RecipeSaved extends CatalogChange {
+        private final Recipe recipe;
+
+        /**
+         * constructor
+         * @param recipe the recipe as it was stored, created or updated
+         */
+        public RecipeSaved(Recipe recipe) {
+            this.recipe = recipe;
+        }
+
+        public Recipe getRecipe() {
+            return recipe;
+        }
+    }
+
+    public static final class RecipeRemoved extends CatalogChange {
+        private final long recipeId;
+
+        /**
+         * constructor
+         * @param recipeId the id of the deleted recipe, its recipe ingredients are deleted with it
+         */
+        public RecipeRemoved(long recipeId) {
+            this.recipeId = recipeId;
+        }
+
+        public long getRecipeId() {
+            return recipeId;
+        }
+    }
+
+    public static final class IngredientSaved extends CatalogChange {
+        private final Ingredient ingredient;
+
+        /**
+         * constructor
+         * @param ingredient the ingredient as it was stored, created or updated
+         */
+        public IngredientSaved(Ingredient ingredient) {
+            this.ingredient = ingredient;
+        }
+
+        public Ingredient getIngredient() {
+            return ingredient;
+        }
+    }
+
+    public static final class IngredientRemoved extends CatalogChange {
+        private final long ingredientId;
+        private final List<Long> recipeIds;
+
+        /**
+         * constructor
+         * @param ingredientId the id of the deleted ingredient, its recipe ingredients
+         *                     are deleted with it
+         * @param recipeIds    the ids of the recipes that used it
+         */
+        public IngredientRemoved(long ingredientId, List<Long> recipeIds) {
+            this.ingredientId = ingredientId;
+            this.recipeIds = recipeIds;
+        }
+
+        /**
+         * constructor for an ingredient that no recipe used
+         * @param ingredientId the id of the deleted ingredient
+         */
+        public IngredientRemoved(long ingredientId) {
+            this(ingredientId, List.of());
+        }
+
+        /**
+         * Describes the removal of an ingredient. Has to be called before it is deleted,
+         * while its recipe ingredients can still be read.
+         * @param ingredient the ingredient about to be deleted
+         * @return the change
+         */
+        public static IngredientRemoved of(Ingredient ingredient) {
+            List<RecipeIngredient> uses = ingredient.getRecipeIngredients();
+            List<Long> recipeIds = uses == null ? List.of() : uses.stream()
+                    .map(ri -> ri.getRecipe().getId())
+                    .distinct()
+                    .toList();
+            return new IngredientRemoved(ingredient.getId(), recipeIds);
+        }
+
+        public long getIngredientId() {
+            return ingredientId;
+        }
+
+        public List<Long> getRecipeIds() {
+            return recipeIds;
+        }
+    }
+
+    public static final class RecipeIngredientSaved extends CatalogChange {
+        private final RecipeIngredient recipeIngredient;
+
+        /**
+         * constructor
+         * @param recipeIngredient the recipe ingredient as it was stored, created or updated
+         */
+        public RecipeIngredientSaved(RecipeIngredient recipeIngredient) {
+            this.recipeIngredient = recipeIngredient;
+        }
+
+        public RecipeIngredient getRecipeIngredient() {
+            return recipeIngredient;
+        }
+    }
+
+    public static final class RecipeIngredientRemoved extends CatalogChange {
+        private final long recipeIngredientId;
+        private final long recipeId;
+
+        /**
+         * constructor
+         * @param recipeIngredientId the id of the deleted recipe ingredient
+         * @param recipeId           the id of the recipe it belonged to
+         */
+        public RecipeIngredientRemoved(long recipeIngredientId, long recipeId) {
+            this.recipeIngredientId = recipeIngredientId;
+            this.recipeId = recipeId;
+        }
+
+        public long getRecipeIngredientId() {
+            return recipeIngredientId;
+        }
+
+        public long getRecipeId() {
+            return recipeId;
+        }
+    }
+}
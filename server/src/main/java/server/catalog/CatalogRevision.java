@@ -0,0 +1,77 @@
+package server.catalog;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counter of the recipe catalog, increased on every {@link CatalogChange}.
+ * <p>
+ * Read endpoints use it as their entity tag: as long as the revision is unchanged,
+ * every response of those endpoints is unchanged as well. The counter lives in memory,
+ * so it is combined with the start time of the server to keep tags from an earlier run
+ * from matching after a restart.
+ * <p>
+ * The in-memory indexes and caches read by those endpoints apply a committed change in
+ * their own listeners. They are ordered by {@link #BEFORE_REVISION}, so the revision only
+ * moves on once all of them are up to date; otherwise a request in between could get
+ * the new tag with a body built from outdated data.
+ */
+@Component
+public class CatalogRevision {
+
+    /** Order of the listeners keeping derived data up to date, ahead of the revision. */
+    public static final int BEFORE_REVISION = Ordered.LOWEST_PRECEDENCE - 1;
+
+    private final long epoch;
+    private final AtomicLong revision = new AtomicLong();
+
+    /**
+     * Creates a revision counter for the current server run.
+     */
+    public CatalogRevision() {
+        this(System.currentTimeMillis());
+    }
+
+    /**
+     * Creates a revision counter with a fixed epoch.
+     *
+     * @param epoch identifies the server run the revisions belong to
+     */
+    public CatalogRevision(long epoch) {
+        this.epoch = epoch;
+    }
+
+    /**
+     * Moves to the next revision once a change has been committed, after the derived
+     * data has been updated.
+     *
+     * @param change the change published by a controller
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChange change) {
+        revision.incrementAndGet();
+    }
+
+    /**
+     * Returns the current revision.
+     *
+     * @return the number of changes since the server started
+     */
+    public long current() {
+        return revision.get();
+    }
+
+    /**
+     * Returns the strong entity tag of the current revision.
+     *
+     * @return the quoted tag, e.g. {@code "1700000000000-42"}
+     */
+    public String etag() {
+        return "\"" + epoch + "-" + revision.get() + "\"";
+    }
+}
@@ -0,0 +1,231 @@
+package server.catalog;
+
+import commons.ChangeSet;
+import commons.Ingredient;
+import commons.Recipe;
+import commons.RecipeIngredient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import server.database.ChangeRecord;
+import server.database.ChangeRecord.EntityType;
+import server.database.ChangeRecordRepository;
+import server.database.IngredientRepository;
+import server.database.RecipeIngredientRepository;
+import server.database.RecipeRepository;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Persistent log of all catalog changes, used to let clients catch up on what they missed.
+ * <p>
+ * Every {@link CatalogChange} is stored as a {@link ChangeRecord} in the same transaction as
+ * the change itself, so the log and the catalog cannot drift apart. Only the latest
+ * {@code changes.retention} records are kept; clients asking for an older revision are told
+ * to download the whole catalog again.
+ * <p>
+ * A transaction can take revision N and commit after another one took and committed N + 1.
+ * Revisions are therefore only handed to clients up to the lowest one whose transaction is
+ * still running, so a client never moves past a change it has not seen yet.
+ */
+@Component
+public class ChangeLog {
+
+    /** The log is trimmed every time the revision reaches a multiple of this. */
+    static final int PRUNE_INTERVAL = 100;
+
+    private final ChangeRecordRepository changeRepo;
+    private final RecipeRepository recipeRepo;
+    private final IngredientRepository ingredientRepo;
+    private final RecipeIngredientRepository recipeIngredientRepo;
+    private final int retention;
+
+    /** Revisions whose transaction has not completed yet, guarded by this. */
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+    /** The highest revision handed out, null until it is first needed; guarded by this. */
+    private Long lastAssigned;
+
+    /**
+     * Creates the change log.
+     *
+     * @param changeRepo           repository storing the change records
+     * @param recipeRepo           repository used to load changed recipes
+     * @param ingredientRepo       repository used to load changed ingredients
+     * @param recipeIngredientRepo repository used to load changed recipe ingredients
+     * @param retention            the number of records to keep, 0 to keep all of them
+     */
+    public ChangeLog(ChangeRecordRepository changeRepo, RecipeRepository recipeRepo,
+                     IngredientRepository ingredientRepo,
+                     RecipeIngredientRepository recipeIngredientRepo,
+                     @Value("${changes.retention:10000}") int retention) {
+        this.changeRepo = changeRepo;
+        this.recipeRepo = recipeRepo;
+        this.ingredientRepo = ingredientRepo;
+        this.recipeIngredientRepo = recipeIngredientRepo;
+        this.retention = retention;
+    }
+
+    /**
+     * Records a change of the catalog.
+     * Runs right before the transaction of the change commits, or right away without one.
+     * The revision stays in flight, and hides all later ones from clients, until the
+     * transaction has completed.
+     *
+     * @param change the change published by a writer
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCatalogChange(CatalogChange change) {
+        ChangeRecord record = switch (change) {
+            case CatalogChange.RecipeSaved c ->
+                    new ChangeRecord(EntityType.RECIPE, c.getRecipe().getId(), false);
+            case CatalogChange.RecipeRemoved c ->
+                    new ChangeRecord(EntityType.RECIPE, c.getRecipeId(), true);
+            case CatalogChange.IngredientSaved c ->
+                    new ChangeRecord(EntityType.INGREDIENT, c.getIngredient().getId(), false);
+            case CatalogChange.IngredientRemoved c ->
+                    new ChangeRecord(EntityType.INGREDIENT, c.getIngredientId(), true);
+            case CatalogChange.RecipeIngredientSaved c -> new ChangeRecord(
+                    EntityType.RECIPE_INGREDIENT, c.getRecipeIngredient().getId(), false);
+            case CatalogChange.RecipeIngredientRemoved c -> new ChangeRecord(
+                    EntityType.RECIPE_INGREDIENT, c.getRecipeIngredientId(), true);
+        };
+        long revision;
+        synchronized (this) {
+            // saved one at a time, so revisions are handed out in increasing order
+            revision = changeRepo.save(record).getId();
+            lastAssigned = revision;
+            inFlight.add(revision);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            completed(revision);
+                        }
+                    });
+        } else {
+            completed(revision);
+        }
+        if (retention > 0 && revision % PRUNE_INTERVAL == 0) {
+            changeRepo.deleteByIdLessThan(revision - retention + 1);
+        }
+    }
+
+    /**
+     * Marks the transaction of a revision as committed or rolled back.
+     *
+     * @param revision the revision
+     */
+    private synchronized void completed(long revision) {
+        inFlight.remove(revision);
+    }
+
+    /**
+     * Returns the highest revision below which every transaction has completed.
+     *
+     * @return the revision, later records may not all be committed yet
+     */
+    private synchronized long completedRevision() {
+        if (lastAssigned == null) {
+            Long latest = changeRepo.findLatestRevision();
+            lastAssigned = latest == null ? 0 : latest;
+        }
+        return inFlight.isEmpty() ? lastAssigned : inFlight.first() - 1;
+    }
+
+    /**
+     * Returns the revision of the latest change whose transaction has completed.
+     *
+     * @return the latest revision, 0 if nothing was changed yet
+     */
+    public long latestRevision() {
+        long completed = completedRevision();
+        Long latest = changeRepo.findLatestRevision();
+        return latest == null ? 0 : Math.min(latest, completed);
+    }
+
+    /**
+     * Collects the rows changed after the given revision.
+     * Rows changed several times are only included once, in their current state.
+     *
+     * @param since the last revision the client has seen
+     * @return the changes, or a change set with {@code resetRequired} set if the revision
+     *         is newer than the log or older than the oldest change still kept
+     */
+    public ChangeSet changesSince(long since) {
+        long latest = latestRevision();
+        Long oldest = changeRepo.findOldestRevision();
+        if (since > latest || (oldest != null && since + 1 < oldest)) {
+            return ChangeSet.reset(since, latest);
+        }
+
+        // the last record of a row decides whether it was deleted
+        Map<EntityType, Map<Long, Boolean>> deletedById = new EnumMap<>(EntityType.class);
+        for (ChangeRecord record : changeRepo.findByIdGreaterThanOrderByIdAsc(since)) {
+            if (record.getId() > latest) {
+                // committed after a change that is still in flight
+                break;
+            }
+            deletedById.computeIfAbsent(record.getEntityType(), k -> new LinkedHashMap<>())
+                    .put(record.getEntityId(), record.isDeleted());
+        }
+
+        ChangeSet changes = new ChangeSet(since, latest);
+        collect(deletedById.get(EntityType.RECIPE), recipeRepo::findAllById, Recipe::getId,
+                changes.getRecipes(), changes.getDeletedRecipeIds());
+        collect(deletedById.get(EntityType.INGREDIENT), ingredientRepo::findAllById,
+                Ingredient::getId, changes.getIngredients(), changes.getDeletedIngredientIds());
+        collect(deletedById.get(EntityType.RECIPE_INGREDIENT),
+                recipeIngredientRepo::findAllById, RecipeIngredient::getId,
+                changes.getRecipeIngredients(), changes.getDeletedRecipeIngredientIds());
+        return changes;
+    }
+
+    /**
+     * Loads the current state of the changed rows of one kind.
+     * Rows that were saved but no longer exist, e.g. because they were deleted together
+     * with their recipe, are reported as deleted.
+     *
+     * @param changed  changed row id to whether its last change was a deletion, may be null
+     * @param loader   loads rows by id
+     * @param idOf     extracts the id of a row
+     * @param current  receives the rows that still exist
+     * @param deleted  receives the ids of the deleted rows
+     * @param <T>      the row type
+     */
+    private static <T> void collect(Map<Long, Boolean> changed,
+                                    Function<List<Long>, List<T>> loader,
+                                    ToLongFunction<T> idOf, List<T> current, List<Long> deleted) {
+        if (changed == null) {
+            return;
+        }
+        List<Long> saved = changed.entrySet().stream()
+                .filter(e -> !e.getValue())
+                .map(Map.Entry::getKey)
+                .toList();
+        Set<Long> found = new HashSet<>();
+        if (!saved.isEmpty()) {
+            for (T row : loader.apply(saved)) {
+                current.add(row);
+                found.add(idOf.applyAsLong(row));
+            }
+        }
+        for (Map.Entry<Long, Boolean> entry : changed.entrySet()) {
+            if (entry.getValue() || !found.contains(entry.getKey())) {
+                deleted.add(entry.getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package server.catalog;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import server.database.IngredientUsage;
+import server.database.RecipeIngredientRepository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cached number of distinct recipes every ingredient is used in.
+ * <p>
+ * The counts are computed by one {@code COUNT(DISTINCT)} query the first time they are
+ * needed and kept until a change could alter them: a recipe ingredient being saved or
+ * removed, or a recipe or ingredient being removed together with its recipe ingredients.
+ * Renaming recipes or ingredients leaves the counts alone.
+ */
+@Component
+public class IngredientUsageCounter {
+
+    private final RecipeIngredientRepository repo;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Map<Long, Long> counts;
+
+    /**
+     * Creates the counter.
+     *
+     * @param repo the repository the counts are computed from
+     */
+    public IngredientUsageCounter(RecipeIngredientRepository repo) {
+        this.repo = repo;
+    }
+
+    /**
+     * Returns the usage counts of all ingredients used in at least one recipe.
+     *
+     * @return ingredient id to the number of distinct recipes using it, read-only
+     */
+    public Map<Long, Long> counts() {
+        Map<Long, Long> current = counts;
+        if (current != null) {
+            return current;
+        }
+        long loadedGeneration = generation.get();
+        Map<Long, Long> loaded = new HashMap<>();
+        for (IngredientUsage usage : repo.countRecipesPerIngredient()) {
+            loaded.put(usage.getIngredientId(), usage.getRecipeCount());
+        }
+        loaded = Map.copyOf(loaded);
+        // a change committed while loading may be missing from the result, so keep it only
+        // if nothing was invalidated in the meantime
+        synchronized (this) {
+            if (generation.get() == loadedGeneration) {
+                counts = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the usage counts of the given ingredients.
+     *
+     * @param ingredientIds the ingredients to count
+     * @return every requested ingredient id to the number of distinct recipes using it,
+     *         0 for unused or unknown ingredients, in the order requested
+     */
+    public Map<Long, Long> countsFor(Collection<Long> ingredientIds) {
+        Map<Long, Long> all = counts();
+        Map<Long, Long> result = new LinkedHashMap<>();
+        for (Long id : ingredientIds) {
+            result.put(id, all.getOrDefault(id, 0L));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of distinct recipes an ingredient is used in.
+     *
+     * @param ingredientId the ingredient to count
+     * @return the number of recipes, 0 if it is unused or unknown
+     */
+    public long countFor(long ingredientId) {
+        return counts().getOrDefault(ingredientId, 0L);
+    }
+
+    /**
+     * Drops the cached counts when a committed change could have altered them.
+     *
+     * @param change the change published by a controller
+     */
+    @Order(CatalogRevision.BEFORE_REVISION)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChange change) {
+        switch (change) {
+            case CatalogChange.RecipeSaved c -> {
+                // names and tags do not change any counts
+            }
+            case CatalogChange.IngredientSaved c -> {
+                // names and nutrition do not change any counts
+            }
+            case CatalogChange.RecipeRemoved c -> invalidate();
+            case CatalogChange.IngredientRemoved c -> invalidate();
+            case CatalogChange.RecipeIngredientSaved c -> invalidate();
+            case CatalogChange.RecipeIngredientRemoved c -> invalidate();
+        }
+    }
+
+    /**
+     * Forgets the cached counts, they are computed again on the next request.
+     */
+    private synchronized void invalidate() {
+        generation.incrementAndGet();
+        counts = null;
+    }
+}
@@ -0,0 +1,159 @@
+package server.catalog;
+
+import commons.Nutrition;
+import commons.RecipeIngredient;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import server.database.RecipeIngredientRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cached {@link Nutrition} of every recipe, so recipe lists can show and sort by calories
+ * without loading the ingredients of each recipe.
+ * <p>
+ * Missing entries are computed for all requested recipes with one query. An entry is
+ * dropped after commit when the recipe, one of its recipe ingredients, or an ingredient
+ * it uses is saved or removed.
+ */
+@Component
+public class NutritionCache {
+
+    /**
+     * The nutrition of one recipe and the ingredients it was computed from.
+     *
+     * @param nutrition     the nutrition of the recipe
+     * @param ingredientIds the ingredients used by the recipe
+     */
+    private record Entry(Nutrition nutrition, Set<Long> ingredientIds) {
+    }
+
+    private final RecipeIngredientRepository repo;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Creates the cache.
+     *
+     * @param repo the repository the ingredients of recipes are loaded from
+     */
+    public NutritionCache(RecipeIngredientRepository repo) {
+        this.repo = repo;
+    }
+
+    /**
+     * Returns the nutrition of a recipe.
+     *
+     * @param recipeId the recipe
+     * @return its nutrition, all zero if it has no weighed ingredients or does not exist
+     */
+    public Nutrition get(long recipeId) {
+        return getAll(List.of(recipeId)).get(recipeId);
+    }
+
+    /**
+     * Returns the nutrition of many recipes, loading the missing ones with one query.
+     *
+     * @param recipeIds the recipes
+     * @return every requested recipe id to its nutrition, in the order requested
+     */
+    public Map<Long, Nutrition> getAll(Collection<Long> recipeIds) {
+        Map<Long, Nutrition> result = new LinkedHashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : recipeIds) {
+            Entry entry = entries.get(id);
+            result.put(id, entry == null ? null : entry.nutrition());
+            if (entry == null) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<Long, Entry> loaded = load(missing);
+            result.replaceAll((id, nutrition) ->
+                    nutrition != null ? nutrition : loaded.get(id).nutrition());
+        }
+        return result;
+    }
+
+    /**
+     * Computes the nutrition of recipes and caches it.
+     *
+     * @param recipeIds the recipes to compute
+     * @return every recipe id to its computed entry
+     */
+    private Map<Long, Entry> load(List<Long> recipeIds) {
+        long loadedGeneration = generation.get();
+        Map<Long, List<RecipeIngredient>> byRecipe = new HashMap<>();
+        for (RecipeIngredient ri : repo.findWithIngredientByRecipeIdIn(recipeIds)) {
+            byRecipe.computeIfAbsent(ri.getRecipe().getId(), k -> new ArrayList<>()).add(ri);
+        }
+        Map<Long, Entry> loaded = new HashMap<>();
+        for (Long id : recipeIds) {
+            List<RecipeIngredient> ingredients = byRecipe.getOrDefault(id, List.of());
+            int servings = ingredients.isEmpty() ? 1 : ingredients.get(0).getRecipe().getServings();
+            Set<Long> ingredientIds = new HashSet<>();
+            for (RecipeIngredient ri : ingredients) {
+                ingredientIds.add(ri.getIngredient().getId());
+            }
+            loaded.put(id, new Entry(Nutrition.of(ingredients, servings), ingredientIds));
+        }
+        // a change committed while loading may be missing from the result, so keep it only
+        // if nothing was evicted in the meantime
+        synchronized (this) {
+            if (generation.get() == loadedGeneration) {
+                entries.putAll(loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the cached nutrition a committed change could have altered.
+     *
+     * @param change the change published by a controller
+     */
+    @Order(CatalogRevision.BEFORE_REVISION)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChange change) {
+        switch (change) {
+            // the number of servings may have changed
+            case CatalogChange.RecipeSaved c -> evictRecipe(c.getRecipe().getId());
+            case CatalogChange.RecipeRemoved c -> evictRecipe(c.getRecipeId());
+            case CatalogChange.IngredientSaved c -> evictIngredient(c.getIngredient().getId());
+            case CatalogChange.IngredientRemoved c -> evictIngredient(c.getIngredientId());
+            case CatalogChange.RecipeIngredientSaved c ->
+                    evictRecipe(c.getRecipeIngredient().getRecipe().getId());
+            case CatalogChange.RecipeIngredientRemoved c -> evictRecipe(c.getRecipeId());
+        }
+    }
+
+    /**
+     * Drops the cached nutrition of one recipe.
+     *
+     * @param recipeId the recipe
+     */
+    private synchronized void evictRecipe(long recipeId) {
+        generation.incrementAndGet();
+        entries.remove(recipeId);
+    }
+
+    /**
+     * Drops the cached nutrition of every recipe using an ingredient.
+     *
+     * @param ingredientId the ingredient
+     */
+    private synchronized void evictIngredient(long ingredientId) {
+        generation.incrementAndGet();
+        entries.values().removeIf(entry -> entry.ingredientIds().contains(ingredientId));
+    }
+}
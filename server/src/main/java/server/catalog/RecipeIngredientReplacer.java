@@ -0,0 +1,187 @@
+package server.catalog;
+
+import commons.Ingredient;
+import commons.Recipe;
+import commons.RecipeIngredient;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import server.database.IngredientRepository;
+import server.database.RecipeIngredientRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Replaces the ingredient list of a recipe in a single transaction.
+ * <p>
+ * The desired list is compared with the stored one: unchanged rows are left alone,
+ * changed rows are updated in place, new rows are inserted and missing rows are deleted.
+ * Inserts and updates are sent with JDBC batching and all deletions in one statement,
+ * so the cost no longer grows with one round trip per row.
+ * <p>
+ * The ingredients the entries refer to are loaded first, so an unknown ingredient is
+ * reported before anything is written, and the returned rows hold the stored ingredients
+ * rather than the copies sent by the client.
+ */
+@Component
+public class RecipeIngredientReplacer {
+
+    /**
+     * The outcome of a replacement.
+     *
+     * @param ingredients the ingredient list of the recipe after the replacement
+     * @param removedIds  the ids of the rows that were deleted
+     */
+    public record Replacement(List<RecipeIngredient> ingredients, List<Long> removedIds) {
+    }
+
+    /**
+     * Thrown when entries of the new list refer to ingredients that do not exist.
+     */
+    public static class UnknownIngredientException extends RuntimeException {
+
+        private final Set<Long> ingredientIds;
+
+        /**
+         * Creates the exception.
+         *
+         * @param ingredientIds the ids of the missing ingredients
+         */
+        public UnknownIngredientException(Set<Long> ingredientIds) {
+            super("unknown ingredients " + ingredientIds);
+            this.ingredientIds = ingredientIds;
+        }
+
+        public Set<Long> getIngredientIds() {
+            return ingredientIds;
+        }
+    }
+
+    private final RecipeIngredientRepository repo;
+    private final IngredientRepository ingredientRepo;
+    private final ApplicationEventPublisher events;
+
+    /**
+     * Creates the replacer.
+     *
+     * @param repo           the repository storing the recipe ingredients
+     * @param ingredientRepo the repository storing the ingredients they refer to
+     * @param events         the publisher used to announce {@link CatalogChange}s
+     */
+    public RecipeIngredientReplacer(RecipeIngredientRepository repo,
+                                    IngredientRepository ingredientRepo,
+                                    ApplicationEventPublisher events) {
+        this.repo = repo;
+        this.ingredientRepo = ingredientRepo;
+        this.events = events;
+    }
+
+    /**
+     * Makes the given list the ingredient list of the recipe.
+     * Entries with the id of an existing row of this recipe update that row,
+     * all other entries are inserted as new rows.
+     *
+     * @param recipe  the recipe, must exist
+     * @param desired the complete new ingredient list
+     * @return the stored list, in the order of {@code desired}, and the deleted row ids
+     * @throws UnknownIngredientException if an entry refers to an ingredient that does not
+     *                                    exist, nothing is changed then
+     */
+    @Transactional
+    public Replacement replace(Recipe recipe, List<RecipeIngredient> desired) {
+        Map<Long, Ingredient> ingredients = loadIngredients(desired);
+        Map<Long, RecipeIngredient> existing = new LinkedHashMap<>();
+        for (RecipeIngredient ri : repo.findByRecipeId(recipe.getId())) {
+            existing.put(ri.getId(), ri);
+        }
+
+        List<RecipeIngredient> result = new ArrayList<>(desired.size());
+        List<RecipeIngredient> toSave = new ArrayList<>();
+        List<Integer> savedAt = new ArrayList<>();
+        for (RecipeIngredient wanted : desired) {
+            wanted.setIngredient(ingredients.get(wanted.getIngredient().getId()));
+            RecipeIngredient current = existing.remove(wanted.getId());
+            if (current == null) {
+                wanted.setId(0L);
+                wanted.setRecipe(recipe);
+                savedAt.add(result.size());
+                toSave.add(wanted);
+                result.add(wanted);
+            } else {
+                if (!sameContent(current, wanted)) {
+                    current.setIngredient(wanted.getIngredient());
+                    current.setInformalUnit(wanted.getInformalUnit());
+                    current.setAmount(wanted.getAmount());
+                    current.setUnit(wanted.getUnit());
+                    savedAt.add(result.size());
+                    toSave.add(current);
+                }
+                result.add(current);
+            }
+        }
+
+        List<Long> removedIds = new ArrayList<>(existing.keySet());
+        if (!existing.isEmpty()) {
+            repo.deleteAllInBatch(existing.values());
+        }
+        // saveAll hands back the stored instances, which replace the ones in the result
+        List<RecipeIngredient> saved = toSave.isEmpty() ? List.of() : repo.saveAll(toSave);
+        for (int i = 0; i < saved.size(); i++) {
+            result.set(savedAt.get(i), saved.get(i));
+        }
+
+        for (long id : removedIds) {
+            events.publishEvent(new CatalogChange.RecipeIngredientRemoved(id, recipe.getId()));
+        }
+        for (RecipeIngredient ri : saved) {
+            events.publishEvent(new CatalogChange.RecipeIngredientSaved(ri));
+        }
+        return new Replacement(result, removedIds);
+    }
+
+    /**
+     * Loads the ingredients the entries refer to.
+     *
+     * @param desired the entries
+     * @return the stored ingredients by id
+     * @throws UnknownIngredientException if one of them does not exist
+     */
+    private Map<Long, Ingredient> loadIngredients(List<RecipeIngredient> desired) {
+        Set<Long> ids = new TreeSet<>();
+        for (RecipeIngredient ri : desired) {
+            ids.add(ri.getIngredient().getId());
+        }
+        Map<Long, Ingredient> found = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Ingredient ingredient : ingredientRepo.findAllById(ids)) {
+                found.put(ingredient.getId(), ingredient);
+            }
+        }
+        ids.removeAll(found.keySet());
+        if (!ids.isEmpty()) {
+            throw new UnknownIngredientException(ids);
+        }
+        return found;
+    }
+
+    /**
+     * Checks whether a stored row already holds the wanted values.
+     *
+     * @param current the stored row
+     * @param wanted  the wanted values
+     * @return true if nothing would change
+     */
+    private static boolean sameContent(RecipeIngredient current, RecipeIngredient wanted) {
+        return current.getIngredient().getId() == wanted.getIngredient().getId()
+                && Objects.equals(current.getInformalUnit(), wanted.getInformalUnit())
+                && current.getAmount() == wanted.getAmount()
+                && current.getUnit() == wanted.getUnit();
+    }
+}
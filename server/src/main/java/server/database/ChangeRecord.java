@@ -0,0 +1,80 @@
+package server.database;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+
+/**
+ * One entry of the catalog change log.
+ * The generated id is the revision of the change, so it only ever increases.
+ * Deletions are kept as tombstones, so clients that missed them still learn about them.
+ */
+@Entity
+public class ChangeRecord {
+
+    /**
+     * The kind of row that was changed.
+     */
+    public enum EntityType {
+        /** A {@link commons.Recipe}. */
+        RECIPE,
+        /** An {@link commons.Ingredient}. */
+        INGREDIENT,
+        /** A {@link commons.RecipeIngredient}. */
+        RECIPE_INGREDIENT
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Enumerated(EnumType.STRING)
+    private EntityType entityType;
+
+    private long entityId;
+
+    private boolean deleted;
+
+    /**
+     * Empty constructor for JPA
+     */
+    protected ChangeRecord() {
+        // for JPA
+    }
+
+    /**
+     * Creates a new entry, its revision is assigned when it is saved.
+     *
+     * @param entityType the kind of row that was changed
+     * @param entityId   the id of the row
+     * @param deleted    whether the row was deleted rather than created or updated
+     */
+    public ChangeRecord(EntityType entityType, long entityId, boolean deleted) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.deleted = deleted;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public long getEntityId() {
+        return entityId;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+}
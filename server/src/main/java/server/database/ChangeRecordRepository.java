@@ -0,0 +1,50 @@
+package server.database;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface ChangeRecordRepository extends JpaRepository<ChangeRecord, Long> {
+
+    /**
+     * Retrieves the changes made after the given revision, oldest first.
+     * Uses the primary key, so the cost only depends on the number of changes.
+     *
+     * @param revision the last revision the client has seen
+     * @return the later changes in revision order
+     */
+    List<ChangeRecord> findByIdGreaterThanOrderByIdAsc(long revision);
+
+    /**
+     * Returns the revision of the latest change.
+     *
+     * @return the highest revision, or null if the log is empty
+     */
+    @Query("SELECT MAX(c.id) FROM ChangeRecord c")
+    Long findLatestRevision();
+
+    /**
+     * Returns the revision of the oldest change still in the log.
+     *
+     * @return the lowest revision, or null if the log is empty
+     */
+    @Query("SELECT MIN(c.id) FROM ChangeRecord c")
+    Long findOldestRevision();
+
+    /**
+     * Drops the changes before the given revision.
+     *
+     * @param revision the first revision to keep
+     * @return the number of dropped changes
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ChangeRecord c WHERE c.id < :revision")
+    int deleteByIdLessThan(@Param("revision") long revision);
+}
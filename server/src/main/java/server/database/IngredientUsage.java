@@ -0,0 +1,31 @@
+package server.database;
+
+/**
+ * The number of distinct recipes an {@link commons.Ingredient} is used in.
+ * Filled by a JPQL constructor projection in
+ * {@link RecipeIngredientRepository#countRecipesPerIngredient()}.
+ */
+public class IngredientUsage {
+
+    private final long ingredientId;
+    private final long recipeCount;
+
+    /**
+     * Creates a new usage count.
+     *
+     * @param ingredientId the id of the ingredient
+     * @param recipeCount  the number of distinct recipes using it
+     */
+    public IngredientUsage(long ingredientId, long recipeCount) {
+        this.ingredientId = ingredientId;
+        this.recipeCount = recipeCount;
+    }
+
+    public long getIngredientId() {
+        return ingredientId;
+    }
+
+    public long getRecipeCount() {
+        return recipeCount;
+    }
+}
@@ -0,0 +1,33 @@
+package server.database;
+
+import commons.Allergen;
+
+/**
+ * An allergen contained in a recipe through one of its ingredients.
+ * Filled by a JPQL constructor projection in
+ * {@link RecipeIngredientRepository#findAllergensByRecipeIdIn(java.util.Collection)}.
+ */
+public class RecipeAllergen {
+
+    private final long recipeId;
+    private final Allergen allergen;
+
+    /**
+     * Creates a new recipe allergen.
+     *
+     * @param recipeId the id of the recipe
+     * @param allergen the allergen it contains
+     */
+    public RecipeAllergen(long recipeId, Allergen allergen) {
+        this.recipeId = recipeId;
+        this.allergen = allergen;
+    }
+
+    public long getRecipeId() {
+        return recipeId;
+    }
+
+    public Allergen getAllergen() {
+        return allergen;
+    }
+}
@@ -0,0 +1,37 @@
+package server.database;
+
+/**
+ * The ids behind a {@link commons.RecipeIngredient}, without loading the recipe or ingredient.
+ * Filled by a JPQL constructor projection in {@link RecipeIngredientRepository#findAllLinks()}.
+ */
+public class RecipeIngredientLink {
+
+    private final long id;
+    private final long recipeId;
+    private final long ingredientId;
+
+    /**
+     * Creates a new link.
+     *
+     * @param id           the id of the recipe ingredient
+     * @param recipeId     the id of the recipe
+     * @param ingredientId the id of the ingredient
+     */
+    public RecipeIngredientLink(long id, long recipeId, long ingredientId) {
+        this.id = id;
+        this.recipeId = recipeId;
+        this.ingredientId = ingredientId;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getRecipeId() {
+        return recipeId;
+    }
+
+    public long getIngredientId() {
+        return ingredientId;
+    }
+}
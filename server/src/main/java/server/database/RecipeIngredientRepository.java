@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -20,6 +21,51 @@ public interface RecipeIngredientRepository extends JpaRepository<RecipeIngredie
     @Query("SELECT DISTINCT ri FROM RecipeIngredient ri " +
             "JOIN FETCH ri.ingredient i WHERE ri.recipe.id = :recipeId")
     List<RecipeIngredient> findByRecipeId(@Param("recipeId") long recipeId);
+
+    /**
+     * Retrieves the recipe ingredients of a recipe with everything shown about them:
+     * the ingredient and its allergens are fetched in the same query.
+     * The recipe itself is not fetched, callers already have it.
+     *
+     * @param recipeId the ID of the recipe
+     * @return the recipe ingredients of the recipe, in the order they were added
+     */
+    @Query("SELECT DISTINCT ri FROM RecipeIngredient ri JOIN FETCH ri.ingredient i " +
+            "LEFT JOIN FETCH i.allergens WHERE ri.recipe.id = :recipeId ORDER BY ri.id")
+    List<RecipeIngredient> findDetailsByRecipeId(@Param("recipeId") long recipeId);
+
+    /**
+     * Retrieves the distinct allergens of the ingredients of the given recipes.
+     *
+     * @param recipeIds the IDs of the recipes
+     * @return one entry per recipe and allergen it contains
+     */
+    @Query("SELECT DISTINCT new server.database.RecipeAllergen(ri.recipe.id, a) " +
+            "FROM RecipeIngredient ri JOIN ri.ingredient.allergens a " +
+            "WHERE ri.recipe.id IN :recipeIds")
+    List<RecipeAllergen> findAllergensByRecipeIdIn(@Param("recipeIds") Collection<Long> recipeIds);
+
+    /**
+     * Retrieves the IDs of the recipes using an ingredient.
+     *
+     * @param ingredientId the ID of the ingredient
+     * @return the IDs of the recipes, each once
+     */
+    @Query("SELECT DISTINCT ri.recipe.id FROM RecipeIngredient ri " +
+            "WHERE ri.ingredient.id = :ingredientId")
+    List<Long> findRecipeIdsByIngredientId(@Param("ingredientId") long ingredientId);
+
+    /**
+     * Retrieves the recipe ingredients of many recipes at once, with the ingredient and
+     * the recipe fetched in the same query, for computing their nutrition or shopping list.
+     *
+     * @param recipeIds the IDs of the recipes
+     * @return the recipe ingredients of those recipes, in no particular order
+     */
+    @Query("SELECT ri FROM RecipeIngredient ri JOIN FETCH ri.ingredient " +
+            "JOIN FETCH ri.recipe WHERE ri.recipe.id IN :recipeIds")
+    List<RecipeIngredient> findWithIngredientByRecipeIdIn(
+            @Param("recipeIds") Collection<Long> recipeIds);
     /**
      *Retrieves all {@link RecipeIngredient} entries that belong to a specific ingredient.
      *
@@ -29,4 +75,25 @@ public interface RecipeIngredientRepository extends JpaRepository<RecipeIngredie
     @Query("SELECT DISTINCT ri FROM RecipeIngredient ri " +
             "JOIN FETCH ri.ingredient i WHERE ri.ingredient.id = :ingredientId")
     List<RecipeIngredient> findByIngredientId(@Param("ingredientId") long ingredientId);
-}
\ No newline at end of file
+
+    /**
+     * Retrieves the recipe and ingredient ids of every recipe ingredient.
+     * Used to build the search index without loading any entities.
+     *
+     * @return one link per {@link RecipeIngredient}
+     */
+    @Query("SELECT new server.database.RecipeIngredientLink(" +
+            "ri.id, ri.recipe.id, ri.ingredient.id) FROM RecipeIngredient ri")
+    List<RecipeIngredientLink> findAllLinks();
+
+    /**
+     * Counts the distinct recipes every used ingredient appears in, in a single query.
+     * Ingredients that are not used in any recipe are not returned.
+     *
+     * @return one usage count per used ingredient
+     */
+    @Query("SELECT new server.database.IngredientUsage(" +
+            "ri.ingredient.id, COUNT(DISTINCT ri.recipe.id)) " +
+            "FROM RecipeIngredient ri GROUP BY ri.ingredient.id")
+    List<IngredientUsage> countRecipesPerIngredient();
+}
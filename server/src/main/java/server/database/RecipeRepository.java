@@ -1,12 +1,20 @@
 package server.database;
 
+import commons.Language;
 import commons.Recipe;
+import commons.RecipeSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface RecipeRepository extends JpaRepository<Recipe, Long> {
@@ -17,24 +25,48 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
     List<Recipe> findByNameContainingIgnoreCase(String name);
 
     /**
-     * Searches for recipes by name, preparation steps, ingredients, OR tags.
-     * Updated to check boolean flags (cheap, fast, vegan) if the query matches those keywords.
+     * Retrieves all recipes together with their preparation steps in a single query.
+     * Used to build the search index on startup.
+     *
+     * @return all recipes with initialized preparation steps
      */
-    @Query("SELECT DISTINCT r FROM Recipe r " +
-            "LEFT JOIN r.preparationSteps s " +
-            "WHERE LOWER(r.name) LIKE LOWER(CONCAT('%', :query, '%')) " +
-            "OR LOWER(s) LIKE LOWER(CONCAT('%', :query, '%')) " +
-            // --- NEW: Check boolean flags if query matches the keyword ---
-            "OR (LOWER(:query) = 'cheap' AND r.cheap = true) " +
-            "OR (LOWER(:query) = 'fast' AND r.fast = true) " +
-            "OR (LOWER(:query) = 'vegan' AND r.vegan = true) " +
-            // -------------------------------------------------------------
-            "OR r.id IN (" +
-            "    SELECT ri.recipe.id FROM RecipeIngredient ri " +
-            "    JOIN ri.ingredient i " +
-            "    WHERE LOWER(i.name) LIKE LOWER(CONCAT('%', :query, '%'))" +
-            ")")
-    List<Recipe> search(@Param("query") String query);
+    @Query("SELECT DISTINCT r FROM Recipe r LEFT JOIN FETCH r.preparationSteps")
+    List<Recipe> findAllWithSteps();
+
+    /**
+     * Retrieves one recipe together with its preparation steps in a single query.
+     *
+     * @param id the ID of the recipe
+     * @return the recipe, or empty if it does not exist
+     */
+    @Query("SELECT r FROM Recipe r LEFT JOIN FETCH r.preparationSteps WHERE r.id = :id")
+    Optional<Recipe> findWithStepsById(@Param("id") long id);
+
+    /**
+     * Checks whether a recipe with the given normalized name exists.
+     * Uses the unique index on the normalized name, so it does not load any recipes.
+     *
+     * @param normalizedName the name as produced by {@link Recipe#normalizeName(String)}
+     * @return true if the name is already taken
+     */
+    boolean existsByNormalizedName(String normalizedName);
+
+    /**
+     * Checks whether a recipe other than the given one uses the normalized name.
+     *
+     * @param normalizedName the name as produced by {@link Recipe#normalizeName(String)}
+     * @param id             the id of the recipe that is being updated
+     * @return true if another recipe already has this name
+     */
+    boolean existsByNormalizedNameAndIdNot(String normalizedName, long id);
+
+    /**
+     * Finds recipes stored before the normalized name column was introduced.
+     * Only used once on startup to fill in the column.
+     *
+     * @return the recipes without a normalized name
+     */
+    List<Recipe> findByNormalizedNameIsNull();
 
     /**
      * Retrieves all recipe IDs from the database.
@@ -42,4 +74,132 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
      */
     @Query("SELECT r.id FROM Recipe r")
     List<Long> findAllIds();
-}
\ No newline at end of file
+
+    /**
+     * Stores the allergen mask of a recipe.
+     * A bulk update, so the version of the recipe stays the same: the mask follows from
+     * its ingredients, it is not an edit that a client update could conflict with.
+     *
+     * @param id   the ID of the recipe
+     * @param mask the new allergen mask
+     * @return the number of updated recipes
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Recipe r SET r.allergenMask = :mask WHERE r.id = :id")
+    int updateAllergenMask(@Param("id") long id, @Param("mask") int mask);
+
+    /**
+     * Retrieves the recipes in the given languages.
+     * Backed by the (language, name, id) index.
+     *
+     * @param languages the languages to include
+     * @param sort      the ordering of the result
+     * @return the matching recipes
+     */
+    List<Recipe> findByLanguageIn(Collection<Language> languages, Sort sort);
+
+    /**
+     * Keyset page of recipes ordered by name, continuing after the given (name, id) position.
+     * Backed by the (language, name, id) and (name, id) indexes,
+     * so the cost does not grow with the page offset.
+     * Use an empty name and id -1 to start at the first page.
+     *
+     * @param languages the languages to include
+     * @param name      name of the last recipe of the previous page
+     * @param id        id of the last recipe of the previous page
+     * @param pageable  the page size, only the first page of it is used
+     * @return the next recipes in (name, id) order
+     */
+    @Query("SELECT r FROM Recipe r " +
+            "WHERE r.language IN :languages " +
+            "AND (r.name > :name OR (r.name = :name AND r.id > :id)) " +
+            "ORDER BY r.name, r.id")
+    List<Recipe> findPageByNameAfter(@Param("languages") Collection<Language> languages,
+                                     @Param("name") String name,
+                                     @Param("id") long id,
+                                     Pageable pageable);
+
+    /**
+     * Keyset page of recipes ordered by id, continuing after the given id.
+     * Use id -1 to start at the first page.
+     *
+     * @param languages the languages to include
+     * @param id        id of the last recipe of the previous page
+     * @param pageable  the page size, only the first page of it is used
+     * @return the next recipes in id order
+     */
+    @Query("SELECT r FROM Recipe r WHERE r.language IN :languages AND r.id > :id ORDER BY r.id")
+    List<Recipe> findPageByIdAfter(@Param("languages") Collection<Language> languages,
+                                   @Param("id") long id,
+                                   Pageable pageable);
+
+    /**
+     * Retrieves the summaries of all recipes ordered by name.
+     * Built with a constructor projection, so no recipe entities or collections are loaded.
+     *
+     * @return all recipe summaries in (name, id) order
+     */
+    @Query("SELECT new commons.RecipeSummary(r.id, r.name, r.language, r.cheap, r.fast, r.vegan) " +
+            "FROM Recipe r ORDER BY r.name, r.id")
+    List<RecipeSummary> findAllSummaries();
+
+    /**
+     * Retrieves the summaries of the recipes in the given languages.
+     * Recipes containing any of the excluded allergens are filtered out by a bitwise
+     * test on their allergen mask, so no ingredients are joined.
+     *
+     * @param languages the languages to include
+     * @param excluded  allergen mask of the allergens to exclude, 0 to keep all recipes
+     * @param sort      the ordering of the result
+     * @return the matching recipe summaries
+     */
+    @Query("SELECT new commons.RecipeSummary(r.id, r.name, r.language, r.cheap, r.fast, r.vegan) " +
+            "FROM Recipe r WHERE r.language IN :languages " +
+            "AND FUNCTION('BITAND', r.allergenMask, :excluded) = 0")
+    List<RecipeSummary> findSummariesByLanguageIn(
+            @Param("languages") Collection<Language> languages,
+            @Param("excluded") int excluded, Sort sort);
+
+    /**
+     * Keyset page of recipe summaries ordered by name, see {@link #findPageByNameAfter}.
+     *
+     * @param languages the languages to include
+     * @param excluded  allergen mask of the allergens to exclude, 0 to keep all recipes
+     * @param name      name of the last recipe of the previous page
+     * @param id        id of the last recipe of the previous page
+     * @param pageable  the page size, only the first page of it is used
+     * @return the next recipe summaries in (name, id) order
+     */
+    @Query("SELECT new commons.RecipeSummary(r.id, r.name, r.language, r.cheap, r.fast, r.vegan) " +
+            "FROM Recipe r " +
+            "WHERE r.language IN :languages " +
+            "AND FUNCTION('BITAND', r.allergenMask, :excluded) = 0 " +
+            "AND (r.name > :name OR (r.name = :name AND r.id > :id)) " +
+            "ORDER BY r.name, r.id")
+    List<RecipeSummary> findSummaryPageByNameAfter(
+            @Param("languages") Collection<Language> languages,
+            @Param("excluded") int excluded,
+            @Param("name") String name,
+            @Param("id") long id,
+            Pageable pageable);
+
+    /**
+     * Keyset page of recipe summaries ordered by id, see {@link #findPageByIdAfter}.
+     *
+     * @param languages the languages to include
+     * @param excluded  allergen mask of the allergens to exclude, 0 to keep all recipes
+     * @param id        id of the last recipe of the previous page
+     * @param pageable  the page size, only the first page of it is used
+     * @return the next recipe summaries in id order
+     */
+    @Query("SELECT new commons.RecipeSummary(r.id, r.name, r.language, r.cheap, r.fast, r.vegan) " +
+            "FROM Recipe r WHERE r.language IN :languages " +
+            "AND FUNCTION('BITAND', r.allergenMask, :excluded) = 0 " +
+            "AND r.id > :id ORDER BY r.id")
+    List<RecipeSummary> findSummaryPageByIdAfter(
+            @Param("languages") Collection<Language> languages,
+            @Param("excluded") int excluded,
+            @Param("id") long id,
+            Pageable pageable);
+}
@@ -0,0 +1,739 @@
+package server.search;
+
+import commons.Ingredient;
+import commons.Language;
+import commons.Recipe;
+import commons.RecipeIngredient;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import server.catalog.CatalogChange;
+import server.catalog.CatalogRevision;
+import server.database.IngredientRepository;
+import server.database.RecipeAllergen;
+import server.database.RecipeIngredientLink;
+import server.database.RecipeIngredientRepository;
+import server.database.RecipeRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over recipe names, preparation steps and the names of
+ * the ingredients linked to a recipe.
+ * <p>
+ * Texts are split into lower-cased, whitespace separated tokens. Every suffix of every token
+ * is kept in a sorted map, so a term is matched by a range lookup on that map, which gives
+ * the same results as the {@code LIKE '%term%'} query the index replaces.
+ * The keywords {@code cheap}, {@code fast} and {@code vegan} also match the recipes with
+ * the corresponding flag set.
+ * <p>
+ * Results are ranked by a weighted-field score: for every term the recipe gets the weight of
+ * the best field the term occurs in, a name hit counting more than a step hit, which counts
+ * more than an ingredient or tag hit.
+ * <p>
+ * The index also keeps the rolled-up allergen mask of every recipe, so recipes with excluded
+ * allergens are skipped before they take a place among the best results.
+ * <p>
+ * The index is built when the application is ready and kept up to date through
+ * {@link CatalogChange} events published by the controllers.
+ */
+@Component
+public class RecipeSearchIndex {
+
+    private static final String CHEAP = "cheap";
+    private static final String FAST = "fast";
+    private static final String VEGAN = "vegan";
+
+    static final int NAME_WEIGHT = 4;
+    static final int STEP_WEIGHT = 2;
+    static final int INGREDIENT_WEIGHT = 1;
+    static final int TAG_WEIGHT = 1;
+
+    // best hit first: highest score, then by name, then by id
+    private static final Comparator<Hit> BY_RANK = Comparator.comparingInt(Hit::score).reversed()
+            .thenComparing(Hit::name, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparingLong(Hit::id);
+
+    private final RecipeRepository recipeRepo;
+    private final IngredientRepository ingredientRepo;
+    private final RecipeIngredientRepository recipeIngredientRepo;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // the maps below are guarded by the lock and replaced as a whole by rebuild()
+
+    // recipe id -> name and tokens per field, used to verify and rank candidates
+    private Map<Long, RecipeDoc> recipeDocs = new HashMap<>();
+    // token -> recipes whose name or steps contain it
+    private Map<String, Set<Long>> recipePostings = new HashMap<>();
+    private Map<Long, Set<String>> ingredientTokens = new HashMap<>();
+    private Map<String, Set<Long>> ingredientPostings = new HashMap<>();
+    // recipe ingredient id -> {recipe id, ingredient id}
+    private Map<Long, long[]> links = new HashMap<>();
+    private Map<Long, Set<Long>> recipeLinks = new HashMap<>();
+    private Map<Long, Set<Long>> ingredientLinks = new HashMap<>();
+    // tag keyword -> recipes with that flag
+    private Map<String, Set<Long>> tags = new HashMap<>();
+    // suffix -> tokens ending with it, and the number of posting maps holding each token
+    private NavigableMap<String, Set<String>> suffixes = new TreeMap<>();
+    private Map<String, Integer> tokenUses = new HashMap<>();
+    // recipe id -> allergen mask, see Recipe#getAllergenMask()
+    private Map<Long, Integer> allergenMasks = new HashMap<>();
+    // held while the allergen masks are reloaded, so refreshes are applied in order
+    private final Object maskRefresh = new Object();
+    // held for the whole rebuild, so two rebuilds do not overlap
+    private final Object rebuildLock = new Object();
+    // changes applied while a rebuild loads the database, null if there is no rebuild
+    private List<CatalogChange> missedChanges;
+
+    private volatile long lastRebuildMillis;
+
+    /**
+     * Creates an empty index, it is filled by {@link #rebuild()}.
+     *
+     * @param recipeRepo           repository used to load the recipes
+     * @param ingredientRepo       repository used to load the ingredients
+     * @param recipeIngredientRepo repository used to load the links between them
+     */
+    public RecipeSearchIndex(RecipeRepository recipeRepo,
+                             IngredientRepository ingredientRepo,
+                             RecipeIngredientRepository recipeIngredientRepo) {
+        this.recipeRepo = recipeRepo;
+        this.ingredientRepo = ingredientRepo;
+        this.recipeIngredientRepo = recipeIngredientRepo;
+    }
+
+    /**
+     * Discards the index and builds it again from the database.
+     * Runs once the application is ready, after the database has been seeded.
+     * <p>
+     * The new index is loaded into a separate instance without holding the lock, so searches
+     * and changes keep using the current index meanwhile. Changes applied during the load are
+     * replayed on the new index before it is swapped in under a short write lock.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            lock.writeLock().lock();
+            try {
+                missedChanges = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            RecipeSearchIndex fresh =
+                    new RecipeSearchIndex(recipeRepo, ingredientRepo, recipeIngredientRepo);
+            try {
+                fresh.load();
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    missedChanges = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            Set<Long> changedAllergens = new HashSet<>();
+            lock.writeLock().lock();
+            try {
+                // a change committed during the load may be missing from what was read
+                for (CatalogChange change : missedChanges) {
+                    fresh.apply(change);
+                    changedAllergens.addAll(fresh.recipesWithChangedAllergens(change));
+                }
+                missedChanges = null;
+                swap(fresh);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            refreshAllergenMasks(changedAllergens);
+            lastRebuildMillis = (System.nanoTime() - start) / 1_000_000;
+        }
+    }
+
+    /**
+     * Applies a change of the catalog to the index.
+     * When the change was made inside a transaction it is only applied after the commit.
+     *
+     * @param change the change published by a controller
+     */
+    @Order(CatalogRevision.BEFORE_REVISION)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChange change) {
+        Collection<Long> changedAllergens;
+        lock.writeLock().lock();
+        try {
+            apply(change);
+            changedAllergens = recipesWithChangedAllergens(change);
+            if (missedChanges != null) {
+                missedChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        refreshAllergenMasks(changedAllergens);
+    }
+
+    /**
+     * Finds the recipes matching all given terms, best match first.
+     * A term matches a recipe if it occurs in its name, in one of its preparation steps
+     * or in the name of one of its ingredients, or if it is a tag keyword the recipe has.
+     * <p>
+     * Only the most selective term is expanded into its posting lists. The remaining terms
+     * are checked against the tokens of its candidates, so every extra term narrows the work
+     * instead of adding another full lookup. The best {@code limit} candidates are kept in
+     * a bounded heap, so the cost of ranking does not depend on the number of matches.
+     * Recipes with an excluded allergen never enter the heap, so they do not use up the limit.
+     *
+     * @param terms             the search terms, matched case-insensitively
+     * @param limit             the maximum number of results
+     * @param languages         only return recipes in these languages, or null for all recipes
+     * @param excludedAllergens mask of the allergens the recipes must not contain, 0 for none
+     * @return the ids of the best matching recipes, ordered by descending relevance
+     */
+    public List<Long> search(Collection<String> terms, int limit, Set<Language> languages,
+                             int excludedAllergens) {
+        if (terms.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<TermMatch> matches = new ArrayList<>();
+            for (String term : terms) {
+                matches.add(resolve(term.toLowerCase(Locale.ROOT)));
+            }
+            matches.sort(Comparator.comparingLong(TermMatch::estimate));
+
+            // the worst of the best hits is on top, so it is the one evicted
+            PriorityQueue<Hit> best = new PriorityQueue<>(Math.min(limit, 1024) + 1,
+                    BY_RANK.reversed());
+            for (long id : expand(matches.get(0))) {
+                RecipeDoc doc = recipeDocs.get(id);
+                if (languages != null && (doc == null || !languages.contains(doc.language()))) {
+                    continue;
+                }
+                if ((allergenMasks.getOrDefault(id, 0) & excludedAllergens) != 0) {
+                    continue;
+                }
+                int score = score(id, matches);
+                if (score == 0) {
+                    continue;
+                }
+                best.offer(new Hit(id, score, doc == null ? null : doc.name()));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+
+            List<Hit> ranked = new ArrayList<>(best);
+            ranked.sort(BY_RANK);
+            return ranked.stream().map(Hit::id).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the best recipes matching the given terms, regardless of their allergens.
+     *
+     * @param terms     the search terms, matched case-insensitively
+     * @param limit     the maximum number of results
+     * @param languages only return recipes in these languages, or null for all recipes
+     * @return the ids of the best matching recipes, ordered by descending relevance
+     */
+    public List<Long> search(Collection<String> terms, int limit, Set<Language> languages) {
+        return search(terms, limit, languages, 0);
+    }
+
+    /**
+     * Finds the best recipes matching the given terms in any language.
+     *
+     * @param terms the search terms, matched case-insensitively
+     * @param limit the maximum number of results
+     * @return the ids of the best matching recipes, ordered by descending relevance
+     */
+    public List<Long> search(Collection<String> terms, int limit) {
+        return search(terms, limit, null, 0);
+    }
+
+    /**
+     * Finds all recipes matching the given terms, best match first.
+     *
+     * @param terms the search terms, matched case-insensitively
+     * @return the ids of all matching recipes, ordered by descending relevance
+     */
+    public List<Long> search(Collection<String> terms) {
+        return search(terms, Integer.MAX_VALUE, null, 0);
+    }
+
+    /**
+     * Returns the current size of the index.
+     *
+     * @return a snapshot of the index size
+     */
+    public SearchIndexStats stats() {
+        lock.readLock().lock();
+        try {
+            long postings = 0;
+            for (Set<Long> ids : recipePostings.values()) {
+                postings += ids.size();
+            }
+            for (Set<Long> ids : ingredientPostings.values()) {
+                postings += ids.size();
+            }
+            return new SearchIndexStats(recipeDocs.size(), ingredientTokens.size(), links.size(),
+                    tokenUses.size(), suffixes.size(), postings, lastRebuildMillis);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits a text into distinct lower-cased tokens.
+     *
+     * @param text the text to split, may be null
+     * @return the tokens of the text
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new HashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Looks up the tokens containing a lower-cased term and estimates how many
+     * recipes the term matches.
+     */
+    private TermMatch resolve(String term) {
+        Set<String> tokens = new HashSet<>();
+        for (Set<String> ending : suffixes.subMap(term, true, term + Character.MAX_VALUE, false)
+                .values()) {
+            tokens.addAll(ending);
+        }
+        long estimate = tags.getOrDefault(term, Set.of()).size();
+        for (String token : tokens) {
+            estimate += recipePostings.getOrDefault(token, Set.of()).size();
+            for (long ingredientId : ingredientPostings.getOrDefault(token, Set.of())) {
+                estimate += ingredientLinks.getOrDefault(ingredientId, Set.of()).size();
+            }
+        }
+        return new TermMatch(term, tokens, estimate);
+    }
+
+    /**
+     * Collects all recipes matching a term from the posting lists.
+     */
+    private Set<Long> expand(TermMatch match) {
+        Set<Long> ids = new HashSet<>(tags.getOrDefault(match.term(), Set.of()));
+        for (String token : match.tokens()) {
+            ids.addAll(recipePostings.getOrDefault(token, Set.of()));
+            for (long ingredientId : ingredientPostings.getOrDefault(token, Set.of())) {
+                for (long linkId : ingredientLinks.getOrDefault(ingredientId, Set.of())) {
+                    ids.add(links.get(linkId)[0]);
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Scores a recipe against all terms.
+     *
+     * @return the summed field weights, or 0 if one of the terms does not match
+     */
+    private int score(long recipeId, List<TermMatch> matches) {
+        int total = 0;
+        for (TermMatch match : matches) {
+            int score = score(recipeId, match);
+            if (score == 0) {
+                return 0;
+            }
+            total += score;
+        }
+        return total;
+    }
+
+    /**
+     * Scores a single recipe against a term using the tokens stored for that recipe.
+     *
+     * @return the weight of the best field containing the term, or 0 if there is none
+     */
+    private int score(long recipeId, TermMatch match) {
+        RecipeDoc doc = recipeDocs.get(recipeId);
+        if (doc != null && sharesToken(doc.nameTokens(), match.tokens())) {
+            return NAME_WEIGHT;
+        }
+        if (doc != null && sharesToken(doc.stepTokens(), match.tokens())) {
+            return STEP_WEIGHT;
+        }
+        for (long linkId : recipeLinks.getOrDefault(recipeId, Set.of())) {
+            Set<String> tokens = ingredientTokens.getOrDefault(links.get(linkId)[1], Set.of());
+            if (sharesToken(tokens, match.tokens())) {
+                return INGREDIENT_WEIGHT;
+            }
+        }
+        if (tags.getOrDefault(match.term(), Set.of()).contains(recipeId)) {
+            return TAG_WEIGHT;
+        }
+        return 0;
+    }
+
+    /**
+     * Checks whether two token sets overlap by walking the smaller one.
+     */
+    private static boolean sharesToken(Set<String> a, Set<String> b) {
+        Set<String> small = a.size() <= b.size() ? a : b;
+        Set<String> large = small == a ? b : a;
+        for (String token : small) {
+            if (large.contains(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fills this empty index from the database.
+     */
+    private void load() {
+        for (Ingredient ingredient : ingredientRepo.findAll()) {
+            indexIngredient(ingredient);
+        }
+        for (Recipe recipe : recipeRepo.findAllWithSteps()) {
+            indexRecipe(recipe);
+        }
+        for (RecipeIngredientLink link : recipeIngredientRepo.findAllLinks()) {
+            putLink(link.getId(), link.getRecipeId(), link.getIngredientId());
+        }
+    }
+
+    /**
+     * Replaces the contents of this index by those of a freshly loaded one.
+     * Must be called with the write lock held.
+     */
+    private void swap(RecipeSearchIndex fresh) {
+        recipeDocs = fresh.recipeDocs;
+        recipePostings = fresh.recipePostings;
+        ingredientTokens = fresh.ingredientTokens;
+        ingredientPostings = fresh.ingredientPostings;
+        links = fresh.links;
+        recipeLinks = fresh.recipeLinks;
+        ingredientLinks = fresh.ingredientLinks;
+        tags = fresh.tags;
+        suffixes = fresh.suffixes;
+        tokenUses = fresh.tokenUses;
+        allergenMasks = fresh.allergenMasks;
+    }
+
+    /**
+     * Applies a single change to the maps of this index.
+     */
+    private void apply(CatalogChange change) {
+        switch (change) {
+            case CatalogChange.RecipeSaved c -> indexRecipe(c.getRecipe());
+            case CatalogChange.RecipeRemoved c -> removeRecipe(c.getRecipeId());
+            case CatalogChange.IngredientSaved c -> indexIngredient(c.getIngredient());
+            case CatalogChange.IngredientRemoved c -> removeIngredient(c.getIngredientId());
+            case CatalogChange.RecipeIngredientSaved c -> indexLink(c.getRecipeIngredient());
+            case CatalogChange.RecipeIngredientRemoved c -> removeLink(c.getRecipeIngredientId());
+        }
+    }
+
+    /**
+     * Adds or replaces the name, steps and tags of a recipe.
+     */
+    private void indexRecipe(Recipe recipe) {
+        long id = recipe.getId();
+        removeRecipeText(id);
+
+        Set<String> nameTokens = tokenize(recipe.getName());
+        Set<String> stepTokens = new HashSet<>();
+        if (recipe.getPreparationSteps() != null) {
+            for (String step : recipe.getPreparationSteps()) {
+                stepTokens.addAll(tokenize(step));
+            }
+        }
+        for (String token : nameTokens) {
+            post(recipePostings, token, id);
+        }
+        for (String token : stepTokens) {
+            post(recipePostings, token, id);
+        }
+        recipeDocs.put(id, new RecipeDoc(recipe.getName(), recipe.getLanguage(),
+                nameTokens, stepTokens));
+        // a saved recipe may carry a mask older than the one refreshed from its ingredients
+        allergenMasks.putIfAbsent(id, recipe.getAllergenMask());
+
+        if (recipe.isCheap()) {
+            tags.computeIfAbsent(CHEAP, k -> new HashSet<>()).add(id);
+        }
+        if (recipe.isFast()) {
+            tags.computeIfAbsent(FAST, k -> new HashSet<>()).add(id);
+        }
+        if (recipe.isVegan()) {
+            tags.computeIfAbsent(VEGAN, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    /**
+     * Removes the name, steps and tags of a recipe, but keeps its links.
+     */
+    private void removeRecipeText(long id) {
+        RecipeDoc doc = recipeDocs.remove(id);
+        if (doc != null) {
+            for (String token : doc.nameTokens()) {
+                unpost(recipePostings, token, id);
+            }
+            for (String token : doc.stepTokens()) {
+                unpost(recipePostings, token, id);
+            }
+        }
+        for (Set<Long> ids : tags.values()) {
+            ids.remove(id);
+        }
+    }
+
+    /**
+     * Removes a recipe together with all of its links.
+     */
+    private void removeRecipe(long id) {
+        removeRecipeText(id);
+        allergenMasks.remove(id);
+        for (long linkId : new ArrayList<>(recipeLinks.getOrDefault(id, Set.of()))) {
+            removeLink(linkId);
+        }
+    }
+
+    /**
+     * Adds or replaces the name of an ingredient.
+     */
+    private void indexIngredient(Ingredient ingredient) {
+        long id = ingredient.getId();
+        removeIngredientText(id);
+        Set<String> tokens = tokenize(ingredient.getName());
+        for (String token : tokens) {
+            post(ingredientPostings, token, id);
+        }
+        ingredientTokens.put(id, tokens);
+    }
+
+    /**
+     * Removes the name of an ingredient, but keeps its links.
+     */
+    private void removeIngredientText(long id) {
+        Set<String> tokens = ingredientTokens.remove(id);
+        if (tokens != null) {
+            for (String token : tokens) {
+                unpost(ingredientPostings, token, id);
+            }
+        }
+    }
+
+    /**
+     * Removes an ingredient together with all of its links.
+     */
+    private void removeIngredient(long id) {
+        removeIngredientText(id);
+        for (long linkId : new ArrayList<>(ingredientLinks.getOrDefault(id, Set.of()))) {
+            removeLink(linkId);
+        }
+    }
+
+    /**
+     * Adds or replaces the link of a recipe ingredient,
+     * indexing the ingredient as well if it is not known yet.
+     */
+    private void indexLink(RecipeIngredient ri) {
+        if (!ingredientTokens.containsKey(ri.getIngredient().getId())) {
+            indexIngredient(ri.getIngredient());
+        }
+        putLink(ri.getId(), ri.getRecipe().getId(), ri.getIngredient().getId());
+    }
+
+    /**
+     * Adds or replaces a link between a recipe and an ingredient.
+     */
+    private void putLink(long linkId, long recipeId, long ingredientId) {
+        removeLink(linkId);
+        links.put(linkId, new long[] {recipeId, ingredientId});
+        recipeLinks.computeIfAbsent(recipeId, k -> new HashSet<>()).add(linkId);
+        ingredientLinks.computeIfAbsent(ingredientId, k -> new HashSet<>()).add(linkId);
+    }
+
+    /**
+     * Removes a link between a recipe and an ingredient, if it exists.
+     */
+    private void removeLink(long linkId) {
+        long[] link = links.remove(linkId);
+        if (link == null) {
+            return;
+        }
+        removeFrom(recipeLinks, link[0], linkId);
+        removeFrom(ingredientLinks, link[1], linkId);
+    }
+
+    /**
+     * Lists the recipes whose allergen mask may be affected by a change of the catalog.
+     * Must be called after the change was applied, with the write lock held.
+     */
+    private Collection<Long> recipesWithChangedAllergens(CatalogChange change) {
+        return switch (change) {
+            case CatalogChange.RecipeSaved c -> List.of();
+            case CatalogChange.RecipeRemoved c -> List.of();
+            case CatalogChange.IngredientSaved c -> {
+                Set<Long> recipeIds = new HashSet<>();
+                for (long linkId : ingredientLinks.getOrDefault(c.getIngredient().getId(),
+                        Set.of())) {
+                    recipeIds.add(links.get(linkId)[0]);
+                }
+                yield recipeIds;
+            }
+            case CatalogChange.IngredientRemoved c -> c.getRecipeIds();
+            case CatalogChange.RecipeIngredientSaved c ->
+                    List.of(c.getRecipeIngredient().getRecipe().getId());
+            case CatalogChange.RecipeIngredientRemoved c -> List.of(c.getRecipeId());
+        };
+    }
+
+    /**
+     * Reloads the allergen masks of some recipes from their committed ingredients.
+     * The query runs without the index lock, so searches are not blocked by it.
+     */
+    private void refreshAllergenMasks(Collection<Long> recipeIds) {
+        if (recipeIds.isEmpty()) {
+            return;
+        }
+        synchronized (maskRefresh) {
+            Map<Long, Integer> masks = new HashMap<>();
+            for (long id : recipeIds) {
+                masks.put(id, 0);
+            }
+            for (RecipeAllergen ra : recipeIngredientRepo.findAllergensByRecipeIdIn(recipeIds)) {
+                masks.merge(ra.getRecipeId(), ra.getAllergen().bit(), (a, b) -> a | b);
+            }
+            lock.writeLock().lock();
+            try {
+                // recipes removed in the meantime stay removed
+                masks.forEach(allergenMasks::replace);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes a value from a multimap, dropping the key once it has no values left.
+     */
+    private static void removeFrom(Map<Long, Set<Long>> map, long key, long value) {
+        Set<Long> values = map.get(key);
+        if (values != null && values.remove(value) && values.isEmpty()) {
+            map.remove(key);
+        }
+    }
+
+    /**
+     * Adds an id to the posting list of a token.
+     */
+    private void post(Map<String, Set<Long>> postings, String token, long id) {
+        postings.computeIfAbsent(token, k -> {
+            retainToken(k);
+            return new HashSet<>();
+        }).add(id);
+    }
+
+    /**
+     * Removes an id from the posting list of a token, dropping the list once it is empty.
+     */
+    private void unpost(Map<String, Set<Long>> postings, String token, long id) {
+        Set<Long> ids = postings.get(token);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            postings.remove(token);
+            releaseToken(token);
+        }
+    }
+
+    /**
+     * Registers a token in the suffix map when it is first used.
+     */
+    private void retainToken(String token) {
+        if (tokenUses.merge(token, 1, Integer::sum) == 1) {
+            for (int i = 0; i < token.length(); i++) {
+                suffixes.computeIfAbsent(token.substring(i), k -> new HashSet<>()).add(token);
+            }
+        }
+    }
+
+    /**
+     * Removes a token from the suffix map once no posting list uses it anymore.
+     */
+    private void releaseToken(String token) {
+        Integer uses = tokenUses.merge(token, -1, Integer::sum);
+        if (uses != null && uses > 0) {
+            return;
+        }
+        tokenUses.remove(token);
+        for (int i = 0; i < token.length(); i++) {
+            String suffix = token.substring(i);
+            Set<String> tokens = suffixes.get(suffix);
+            if (tokens != null && tokens.remove(token) && tokens.isEmpty()) {
+                suffixes.remove(suffix);
+            }
+        }
+    }
+
+    /**
+     * A search term together with the indexed tokens containing it.
+     *
+     * @param term     the lower-cased term
+     * @param tokens   the tokens the term is a substring of
+     * @param estimate upper bound of the number of recipes the term matches
+     */
+    private record TermMatch(String term, Set<String> tokens, long estimate) {
+    }
+
+    /**
+     * Forward index entry of a recipe.
+     *
+     * @param name       the recipe name, used to order results with the same score
+     * @param language   the recipe language, used to filter results
+     * @param nameTokens the tokens of the name
+     * @param stepTokens the tokens of all preparation steps
+     */
+    private record RecipeDoc(String name, Language language,
+                             Set<String> nameTokens, Set<String> stepTokens) {
+    }
+
+    /**
+     * A scored search result.
+     *
+     * @param id    the recipe id
+     * @param score the summed field weights
+     * @param name  the recipe name
+     */
+    private record Hit(long id, int score, String name) {
+    }
+}
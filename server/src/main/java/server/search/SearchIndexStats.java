@@ -0,0 +1,65 @@
+package server.search;
+
+/**
+ * Snapshot of the size of the {@link RecipeSearchIndex}, exposed for monitoring.
+ */
+public class SearchIndexStats {
+
+    private final int recipes;
+    private final int ingredients;
+    private final int links;
+    private final int tokens;
+    private final int suffixes;
+    private final long postings;
+    private final long lastRebuildMillis;
+
+    /**
+     * Creates a new snapshot.
+     *
+     * @param recipes           number of indexed recipes
+     * @param ingredients       number of indexed ingredients
+     * @param links             number of indexed recipe ingredients
+     * @param tokens            number of distinct tokens
+     * @param suffixes          number of distinct token suffixes used for substring lookups
+     * @param postings          total number of entries in all posting lists
+     * @param lastRebuildMillis duration of the last full rebuild in milliseconds
+     */
+    public SearchIndexStats(int recipes, int ingredients, int links, int tokens,
+                            int suffixes, long postings, long lastRebuildMillis) {
+        this.recipes = recipes;
+        this.ingredients = ingredients;
+        this.links = links;
+        this.tokens = tokens;
+        this.suffixes = suffixes;
+        this.postings = postings;
+        this.lastRebuildMillis = lastRebuildMillis;
+    }
+
+    public int getRecipes() {
+        return recipes;
+    }
+
+    public int getIngredients() {
+        return ingredients;
+    }
+
+    public int getLinks() {
+        return links;
+    }
+
+    public int getTokens() {
+        return tokens;
+    }
+
+    public int getSuffixes() {
+        return suffixes;
+    }
+
+    public long getPostings() {
+        return postings;
+    }
+
+    public long getLastRebuildMillis() {
+        return lastRebuildMillis;
+    }
+}
@@ -0,0 +1,266 @@
+package server.search;
+
+import commons.Ingredient;
+import commons.RecipeSummary;
+import commons.Suggestion;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import server.catalog.CatalogChange;
+import server.catalog.CatalogRevision;
+import server.database.IngredientRepository;
+import server.database.RecipeRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory prefix index over recipe and ingredient names, used for typeahead.
+ * <p>
+ * Every name is stored in a sorted map under its lower-cased text starting at each word,
+ * so {@code "so"} completes both {@code "Soup"} and {@code "Tomato soup"}.
+ * A prefix is answered by walking the range of keys starting with it, names starting
+ * with the prefix coming before names that only have a word starting with it.
+ * <p>
+ * Like the {@link RecipeSearchIndex}, it is built when the application is ready and
+ * kept up to date through {@link CatalogChange} events.
+ */
+@Component
+public class SuggestIndex {
+
+    private static final Comparator<Entry> BY_KIND_AND_ID =
+            Comparator.comparing(Entry::kind).thenComparingLong(Entry::id);
+
+    private final RecipeRepository recipeRepo;
+    private final IngredientRepository ingredientRepo;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // lower-cased name from the start of a word -> items with that name
+    private final NavigableMap<String, Set<Entry>> completions = new TreeMap<>();
+    private final Map<Long, String> recipeNames = new HashMap<>();
+    private final Map<Long, String> ingredientNames = new HashMap<>();
+
+    /**
+     * Creates an empty index, it is filled by {@link #rebuild()}.
+     *
+     * @param recipeRepo     repository used to load the recipe names
+     * @param ingredientRepo repository used to load the ingredient names
+     */
+    public SuggestIndex(RecipeRepository recipeRepo, IngredientRepository ingredientRepo) {
+        this.recipeRepo = recipeRepo;
+        this.ingredientRepo = ingredientRepo;
+    }
+
+    /**
+     * Discards the index and builds it again from the database.
+     * Runs once the application is ready, after the database has been seeded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            completions.clear();
+            recipeNames.clear();
+            ingredientNames.clear();
+            for (RecipeSummary recipe : recipeRepo.findAllSummaries()) {
+                put(Suggestion.Kind.RECIPE, recipe.getId(), recipe.getName());
+            }
+            for (Ingredient ingredient : ingredientRepo.findAll()) {
+                put(Suggestion.Kind.INGREDIENT, ingredient.getId(), ingredient.getName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a change of the catalog to the index.
+     * When the change was made inside a transaction it is only applied after the commit.
+     *
+     * @param change the change published by a controller
+     */
+    @Order(CatalogRevision.BEFORE_REVISION)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChange change) {
+        lock.writeLock().lock();
+        try {
+            switch (change) {
+                case CatalogChange.RecipeSaved c -> put(Suggestion.Kind.RECIPE,
+                        c.getRecipe().getId(), c.getRecipe().getName());
+                case CatalogChange.RecipeRemoved c ->
+                        remove(Suggestion.Kind.RECIPE, c.getRecipeId());
+                case CatalogChange.IngredientSaved c -> put(Suggestion.Kind.INGREDIENT,
+                        c.getIngredient().getId(), c.getIngredient().getName());
+                case CatalogChange.IngredientRemoved c ->
+                        remove(Suggestion.Kind.INGREDIENT, c.getIngredientId());
+                case CatalogChange.RecipeIngredientSaved c -> {
+                    // links do not change any names
+                }
+                case CatalogChange.RecipeIngredientRemoved c -> {
+                    // links do not change any names
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Completes a prefix to the names of recipes and ingredients.
+     * Names starting with the prefix come first, in alphabetical order,
+     * followed by names containing a word that starts with it.
+     *
+     * @param prefix the typed text, matched case-insensitively
+     * @param kind   the kind of items to suggest, or null for both
+     * @param limit  the maximum number of suggestions
+     * @return at most {@code limit} suggestions
+     */
+    public List<Suggestion> suggest(String prefix, Suggestion.Kind kind, int limit) {
+        String key = prefix == null ? "" : prefix.strip().toLowerCase(Locale.ROOT);
+        if (key.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Set<Entry> starts = new LinkedHashSet<>();
+            Set<Entry> words = new LinkedHashSet<>();
+            for (Set<Entry> entries : completions
+                    .subMap(key, true, key + Character.MAX_VALUE, false).values()) {
+                for (Entry entry : entries) {
+                    if (kind != null && entry.kind() != kind) {
+                        continue;
+                    }
+                    if (entry.start()) {
+                        starts.add(entry);
+                    } else if (words.size() < limit) {
+                        words.add(entry);
+                    }
+                }
+                // names further on can only add word matches, which come last anyway
+                if (starts.size() >= limit) {
+                    break;
+                }
+            }
+
+            List<Suggestion> result = new ArrayList<>();
+            for (Entry entry : starts) {
+                if (result.size() == limit) {
+                    break;
+                }
+                result.add(toSuggestion(entry));
+            }
+            for (Entry entry : words) {
+                if (result.size() == limit) {
+                    break;
+                }
+                if (!starts.contains(new Entry(entry.kind(), entry.id(), true))) {
+                    result.add(toSuggestion(entry));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of distinct keys in the index.
+     *
+     * @return the number of name and word keys
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return completions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces the name of a recipe or ingredient.
+     */
+    private void put(Suggestion.Kind kind, long id, String name) {
+        remove(kind, id);
+        if (name == null || name.isBlank()) {
+            return;
+        }
+        names(kind).put(id, name);
+        List<String> keys = keys(name);
+        for (int i = 0; i < keys.size(); i++) {
+            completions.computeIfAbsent(keys.get(i), k -> new TreeSet<>(BY_KIND_AND_ID))
+                    .add(new Entry(kind, id, i == 0));
+        }
+    }
+
+    /**
+     * Removes the name of a recipe or ingredient, if it is indexed.
+     */
+    private void remove(Suggestion.Kind kind, long id) {
+        String name = names(kind).remove(id);
+        if (name == null) {
+            return;
+        }
+        List<String> keys = keys(name);
+        for (int i = 0; i < keys.size(); i++) {
+            Set<Entry> entries = completions.get(keys.get(i));
+            if (entries != null && entries.remove(new Entry(kind, id, i == 0))
+                    && entries.isEmpty()) {
+                completions.remove(keys.get(i));
+            }
+        }
+    }
+
+    /**
+     * Lists the lower-cased tails of a name starting at each of its words,
+     * the whole name being the first one.
+     */
+    static List<String> keys(String name) {
+        String text = name.strip().toLowerCase(Locale.ROOT);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < text.length(); i++) {
+            boolean wordStart = i == 0 || Character.isWhitespace(text.charAt(i - 1));
+            if (wordStart && !Character.isWhitespace(text.charAt(i))) {
+                keys.add(text.substring(i));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the map holding the indexed names of one kind of item.
+     */
+    private Map<Long, String> names(Suggestion.Kind kind) {
+        return kind == Suggestion.Kind.RECIPE ? recipeNames : ingredientNames;
+    }
+
+    /**
+     * Turns an index entry into the suggestion sent to the client.
+     */
+    private Suggestion toSuggestion(Entry entry) {
+        return new Suggestion(entry.kind(), entry.id(), names(entry.kind()).get(entry.id()));
+    }
+
+    /**
+     * A recipe or ingredient stored under one of its keys.
+     *
+     * @param kind  the kind of item
+     * @param id    the id of the item
+     * @param start whether the key is the whole name rather than a later word
+     */
+    private record Entry(Suggestion.Kind kind, long id, boolean start) {
+    }
+}
@@ -0,0 +1,78 @@
+package server.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import server.catalog.CatalogRevision;
+
+/**
+ * Answers conditional GET requests on catalog endpoints from the {@link CatalogRevision}.
+ * <p>
+ * The entity tag is taken before the controller runs, so the data it reads is at least
+ * as new as the tag. This includes the in-memory indexes and caches, because the revision
+ * is only increased after their listeners applied a change, see {@link CatalogRevision}.
+ * A concurrent change can then at worst make a client download the same data once more.
+ */
+@Component
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private final CatalogRevision revision;
+
+    /**
+     * Creates the interceptor.
+     *
+     * @param revision the revision counter of the catalog
+     */
+    public ConditionalGetInterceptor(CatalogRevision revision) {
+        this.revision = revision;
+    }
+
+    /**
+     * Tags the response with the current revision, or answers {@code 304 Not Modified}
+     * without calling the controller if the client already has that revision.
+     *
+     * @param request  the current request
+     * @param response the current response
+     * @param handler  the controller method that would handle the request
+     * @return false if the request was answered with 304
+     */
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+                             Object handler) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+        String etag = revision.etag();
+        response.setHeader(HttpHeaders.ETAG, etag);
+        // caches have to ask again every time, which only costs a 304 if nothing changed
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether an {@code If-None-Match} header contains the given tag.
+     *
+     * @param ifNoneMatch the header value, may be null
+     * @param etag        the current tag
+     * @return true if the header lists the tag or is {@code *}
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
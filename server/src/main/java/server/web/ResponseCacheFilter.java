@@ -0,0 +1,266 @@
+package server.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import server.catalog.CatalogChange;
+import server.catalog.CatalogRevision;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the serialized bodies of the full recipe and ingredient lists, so repeated
+ * requests for an unchanged catalog skip the database and Jackson.
+ * <p>
+ * Every body is stored with the {@link CatalogRevision} taken before the controller ran,
+ * so it is at least as new as that revision, and is only served while the revision is
+ * unchanged. After a change the first request for a list renders it again while
+ * concurrent requests for the same list wait for that body instead of rendering their
+ * own, so a burst of refreshes costs one serialization per change. Bodies are also
+ * stored gzip-compressed and sent that way to clients accepting it.
+ */
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    /** The list endpoints whose responses are cached, without trailing slash. */
+    static final Set<String> CACHED_PATHS = Set.of(
+            "/api/recipes", "/api/ingredients", "/api/ingredients/sorted");
+
+    /**
+     * One serialized response.
+     *
+     * @param revision    the catalog revision the body is valid for
+     * @param etag        the entity tag of that revision
+     * @param contentType the content type of the body
+     * @param body        the body as written by the controller
+     * @param gzipped     the compressed body, null if compression is disabled
+     */
+    record Entry(long revision, String etag, String contentType, byte[] body, byte[] gzipped) {
+    }
+
+    /**
+     * The cache slot of one request URL. Requests missing the cache lock their slot, so
+     * only one of them renders the body.
+     */
+    private static final class Slot {
+        private volatile Entry entry;
+    }
+
+    private final CatalogRevision revision;
+    private final boolean gzip;
+    private final Map<String, Slot> slots;
+
+    /**
+     * Creates the filter.
+     *
+     * @param revision   the revision counter of the catalog
+     * @param maxEntries the largest number of distinct URLs kept, least recently used first out
+     * @param gzip       whether to also keep and serve gzip-compressed bodies
+     */
+    public ResponseCacheFilter(CatalogRevision revision,
+                               @Value("${response-cache.max-entries:64}") int maxEntries,
+                               @Value("${response-cache.gzip:true}") boolean gzip) {
+        this.revision = revision;
+        this.gzip = gzip;
+        this.slots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Slot> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Skips everything except GET requests on the cached list endpoints.
+     *
+     * @param request the current request
+     * @return true if the response of the request is not cached
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) || !CACHED_PATHS.contains(path(request));
+    }
+
+    /**
+     * Answers from the cache, or lets the controller render the body and caches it.
+     *
+     * @param request  the current request
+     * @param response the current response
+     * @param chain    the rest of the filter chain
+     * @throws ServletException if the controller fails
+     * @throws IOException      if writing the response fails
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        Slot slot = slot(key(request));
+        Entry entry = slot.entry;
+        if (entry == null || entry.revision() != revision.current()) {
+            synchronized (slot) {
+                entry = slot.entry;
+                if (entry == null || entry.revision() != revision.current()) {
+                    entry = render(request, response, chain);
+                    if (entry == null) {
+                        return;
+                    }
+                    slot.entry = entry;
+                }
+            }
+        }
+        write(entry, request, response);
+    }
+
+    /**
+     * Drops all cached bodies once a change has been committed, they can never be served
+     * again and only take up memory.
+     *
+     * @param change the change published by a controller
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChange change) {
+        synchronized (slots) {
+            slots.values().forEach(slot -> slot.entry = null);
+        }
+    }
+
+    /**
+     * Runs the controller and captures its response.
+     *
+     * @param request  the current request
+     * @param response the current response
+     * @param chain    the rest of the filter chain
+     * @return the captured response, or null if it was not a cacheable 200 and has already
+     *         been sent as it is
+     * @throws ServletException if the controller fails
+     * @throws IOException      if writing the response fails
+     */
+    private Entry render(HttpServletRequest request, HttpServletResponse response,
+                         FilterChain chain) throws ServletException, IOException {
+        // taken first, so the body is at least as new as the revision it is stored under
+        long rendered = revision.current();
+        String etag = revision.etag();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK
+                || !etag.equals(wrapper.getHeader(HttpHeaders.ETAG))) {
+            wrapper.copyBodyToResponse();
+            return null;
+        }
+        byte[] body = wrapper.getContentAsByteArray();
+        return new Entry(rendered, etag, wrapper.getContentType(), body,
+                gzip ? compress(body) : null);
+    }
+
+    /**
+     * Sends a cached response, or {@code 304 Not Modified} if the client already has it.
+     *
+     * @param entry    the cached response
+     * @param request  the current request
+     * @param response the response to write to
+     * @throws IOException if writing the response fails
+     */
+    private static void write(Entry entry, HttpServletRequest request,
+                              HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, entry.etag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (ConditionalGetInterceptor.matches(
+                request.getHeader(HttpHeaders.IF_NONE_MATCH), entry.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        byte[] body = entry.body();
+        if (entry.gzipped() != null && acceptsGzip(request)) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = entry.gzipped();
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(entry.contentType());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * Returns the slot of a URL, creating it if needed.
+     *
+     * @param key the URL
+     * @return its slot
+     */
+    private Slot slot(String key) {
+        synchronized (slots) {
+            return slots.computeIfAbsent(key, k -> new Slot());
+        }
+    }
+
+    /**
+     * Returns the path of a request within the application, without trailing slash.
+     *
+     * @param request the request
+     * @return the path, e.g. {@code /api/recipes}
+     */
+    private static String path(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+
+    /**
+     * Returns the cache key of a request.
+     *
+     * @param request the request
+     * @return its path and query string
+     */
+    private static String key(HttpServletRequest request) {
+        String query = request.getQueryString();
+        return query == null ? path(request) : path(request) + "?" + query;
+    }
+
+    /**
+     * Checks whether a client accepts gzip-compressed responses.
+     *
+     * @param request the request
+     * @return true if its {@code Accept-Encoding} header lists gzip
+     */
+    static boolean acceptsGzip(HttpServletRequest request) {
+        String accepted = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (accepted == null) {
+            return false;
+        }
+        for (String coding : accepted.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")
+                    && !(parts.length > 1 && parts[1].replace(" ", "").equals("q=0"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compresses a body.
+     *
+     * @param body the uncompressed bytes
+     * @return the gzip-compressed bytes
+     */
+    private static byte[] compress(byte[] body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,29 @@
+package server.web;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ConditionalGetInterceptor conditionalGet;
+
+    /**
+     * constructor
+     * @param conditionalGet the interceptor answering conditional requests
+     */
+    public WebConfig(ConditionalGetInterceptor conditionalGet) {
+        this.conditionalGet = conditionalGet;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // only endpoints whose responses depend on nothing but the catalog
+        registry.addInterceptor(conditionalGet).addPathPatterns(
+                "/api/recipes/**",
+                "/api/ingredients/**",
+                "/api/recipeingredients/**",
+                "/api/suggest");
+    }
+}
@@ -0,0 +1,66 @@
+package server.websocket;
+
+import commons.SyncEvent;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collapses the events of one recipe collected during a coalescing window.
+ * <p>
+ * An event is dropped when a later event of the window makes it irrelevant to a client:
+ * nothing before the deletion of a recipe matters, only the last content update of a
+ * recipe and of each of its ingredients counts, and a replaced ingredient list supersedes
+ * all earlier ingredient events. The remaining events keep their order.
+ */
+final class EventCoalescer {
+
+    private EventCoalescer() {
+    }
+
+    /**
+     * Collapses the events of one recipe.
+     *
+     * @param events the events in the order they were broadcast
+     * @return the events still needed, in the same order
+     */
+    static List<SyncEvent> collapse(List<SyncEvent> events) {
+        List<SyncEvent> kept = new ArrayList<>();
+        boolean contentUpdated = false;
+        boolean ingredientsReplaced = false;
+        Set<Long> updatedIngredients = new HashSet<>();
+        Set<Long> deletedIngredients = new HashSet<>();
+        // walk backwards, so every event is checked against the later ones already kept
+        for (int i = events.size() - 1; i >= 0; i--) {
+            SyncEvent event = events.get(i);
+            boolean keep = switch (event) {
+                case SyncEvent.RecipeDeleted e -> true;
+                case SyncEvent.RecipeCreated e -> true;
+                case SyncEvent.RecipeContentUpdated e -> !contentUpdated;
+                case SyncEvent.RecipeIngredientsReplaced e -> !ingredientsReplaced;
+                case SyncEvent.RecipeIngredientCreated e -> !ingredientsReplaced
+                        && !deletedIngredients.contains(e.getCreatedIngredient().getId());
+                case SyncEvent.RecipeIngredientUpdated e -> !ingredientsReplaced
+                        && !deletedIngredients.contains(e.getIngredient().getId())
+                        && updatedIngredients.add(e.getIngredient().getId());
+                case SyncEvent.RecipeIngredientDeleted e -> !ingredientsReplaced
+                        && deletedIngredients.add(e.getIngredientId());
+                case SyncEvent.Batch e -> true;
+                case SyncEvent.Resumed e -> true;
+                case SyncEvent.ResyncRequired e -> true;
+            };
+            if (keep) {
+                kept.add(event);
+            }
+            if (event instanceof SyncEvent.RecipeDeleted) {
+                // nothing before the deletion matters any more
+                break;
+            }
+            contentUpdated |= event instanceof SyncEvent.RecipeContentUpdated;
+            ingredientsReplaced |= event instanceof SyncEvent.RecipeIngredientsReplaced;
+        }
+        return kept.reversed();
+    }
+}
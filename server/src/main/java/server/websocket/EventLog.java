@@ -0,0 +1,79 @@
+package server.websocket;
+
+import commons.SyncEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Numbers the sent {@link SyncEvent}s and keeps the most recent ones in a ring buffer, so
+ * a client that reconnects can be sent the events it missed.
+ * <p>
+ * The log only lives in memory; its epoch changes with every start of the server, so
+ * clients can tell that the numbers they have seen no longer apply. Not thread-safe, the
+ * handler guards it.
+ */
+final class EventLog {
+
+    private final long epoch;
+    private final SyncEvent[] ring;
+    private long lastSeq;
+
+    /**
+     * Creates an empty log.
+     *
+     * @param capacity the number of most recent events kept
+     * @param epoch    identifies this log to clients
+     */
+    EventLog(int capacity, long epoch) {
+        this.ring = new SyncEvent[Math.max(0, capacity)];
+        this.epoch = epoch;
+    }
+
+    long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Returns the sequence number of the newest event.
+     *
+     * @return the number, 0 if no event was appended yet
+     */
+    long getLastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Gives an event the next sequence number and keeps it, dropping the oldest event if
+     * the log is full.
+     *
+     * @param event the event about to be sent
+     */
+    void append(SyncEvent event) {
+        event.setSeq(++lastSeq);
+        if (ring.length > 0) {
+            ring[(int) (lastSeq % ring.length)] = event;
+        }
+    }
+
+    /**
+     * Returns the events after a sequence number.
+     *
+     * @param seq the sequence number of the last event a client has seen
+     * @return the later events, oldest first, or null if some of them are no longer kept or
+     *         the number was never handed out
+     */
+    List<SyncEvent> since(long seq) {
+        if (seq < 0 || seq > lastSeq) {
+            return null;
+        }
+        if (lastSeq - seq > ring.length) {
+            return null;
+        }
+        List<SyncEvent> events = new ArrayList<>((int) (lastSeq - seq));
+        for (long s = seq + 1; s <= lastSeq; s++) {
+            events.add(ring[(int) (s % ring.length)]);
+        }
+        return events;
+    }
+}
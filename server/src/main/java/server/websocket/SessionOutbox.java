@@ -0,0 +1,138 @@
+package server.websocket;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The messages waiting to be sent to one websocket session.
+ * <p>
+ * Messages are queued by the thread broadcasting them and written by a task on the
+ * executor, at most one task per session at a time, so the order is kept and a slow client
+ * only delays its own messages. The queue is bounded; a session that cannot keep up is
+ * detected by a full queue or by a send that takes too long.
+ */
+final class SessionOutbox {
+
+    private final WebSocketSession session;
+    private final Executor executor;
+    private final BlockingQueue<TextMessage> queue;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final Set<String> topics = ConcurrentHashMap.newKeySet();
+    /** {@link System#nanoTime()} when the current send started, 0 while idle. */
+    private volatile long sendingSince;
+    /** Whether the client has resumed and receives events. */
+    private volatile boolean live;
+
+    /**
+     * Creates the outbox of a session.
+     *
+     * @param session  the session the messages are sent to
+     * @param executor runs the tasks writing to the session
+     * @param capacity the largest number of messages waiting to be sent
+     */
+    SessionOutbox(WebSocketSession session, Executor executor, int capacity) {
+        this.session = session;
+        this.executor = executor;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    WebSocketSession getSession() {
+        return session;
+    }
+
+    boolean isLive() {
+        return live;
+    }
+
+    void setLive(boolean live) {
+        this.live = live;
+    }
+
+    /**
+     * Returns the topics the session is subscribed to.
+     *
+     * @return the live, modifiable set of topics
+     */
+    Set<String> getTopics() {
+        return topics;
+    }
+
+    /**
+     * Queues a message and makes sure a task is sending the queue. Never blocks.
+     *
+     * @param message the message to send
+     * @return false if the queue is full and the message was not queued
+     */
+    boolean offer(TextMessage message) {
+        if (!queue.offer(message)) {
+            return false;
+        }
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+        return true;
+    }
+
+    /**
+     * Returns how long the message currently being written has been in progress.
+     *
+     * @return the time in nanoseconds, 0 if nothing is being written
+     */
+    long sendingForNanos() {
+        long since = sendingSince;
+        return since == 0 ? 0 : System.nanoTime() - since;
+    }
+
+    /**
+     * Drops all queued messages and closes the session. Runs on the executor, since closing
+     * a session that is stuck in a send can block as well.
+     *
+     * @param status the reason sent to the client
+     */
+    void close(CloseStatus status) {
+        queue.clear();
+        executor.execute(() -> {
+            try {
+                session.close(status);
+            } catch (IOException e) {
+                // the connection is gone already
+            }
+        });
+    }
+
+    /**
+     * Sends queued messages until the queue is empty.
+     */
+    private void drain() {
+        while (true) {
+            TextMessage message = queue.poll();
+            if (message == null) {
+                draining.set(false);
+                // a message queued after the poll but before the flag was cleared has not
+                // started a task of its own
+                if (queue.isEmpty() || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            sendingSince = System.nanoTime();
+            try {
+                session.sendMessage(message);
+            } catch (IOException | RuntimeException e) {
+                // closing removes the session from the handler
+                close(CloseStatus.SESSION_NOT_RELIABLE);
+            } finally {
+                sendingSince = 0;
+            }
+        }
+    }
+}
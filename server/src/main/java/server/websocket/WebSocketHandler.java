@@ -2,47 +2,327 @@ package server.websocket;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.ObjectWriter;
+import commons.Subscription;
 import commons.SyncEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
-import java.io.IOException;
-import java.util.HashSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Pushes {@link SyncEvent}s to the connected clients.
+ * <p>
+ * Clients choose what they receive by sending {@link Subscription} frames, and every event
+ * is only sent to the sessions subscribed to one of its topics, found through an index from
+ * topic to sessions. A client subscribed to several topics of an event receives it once.
+ * <p>
+ * Events are not sent right away but collected per recipe for a short window, collapsed
+ * by {@link EventCoalescer} and then sent together as one {@link SyncEvent.Batch}, so a
+ * burst of changes to a recipe reaches every client as one frame.
+ * <p>
+ * Sessions receiving the same events share one serialized frame, which is only queued for
+ * them; the messages are written asynchronously, so the request that caused the event does
+ * not wait for any client. A client that falls behind, because its queue is full or a single send
+ * takes longer than the send time limit, is disconnected; it has to reconnect and load the
+ * data again.
+ * <p>
+ * Every event sent is numbered and kept in an {@link EventLog}. A session only receives
+ * events after its client sent a {@link Subscription.Action#RESUME} frame with the last
+ * number it has seen: the events it missed are sent again first, or
+ * {@link SyncEvent.ResyncRequired} if they are no longer kept, so a short outage costs a
+ * few frames instead of reloading the whole catalog.
+ */
 @Component
 public class WebSocketHandler extends TextWebSocketHandler {
-    private final Set<WebSocketSession> sessions = new HashSet<>();
+
+    /** The largest number of topics one session can be subscribed to at the same time. */
+    static final int MAX_TOPICS_PER_SESSION = 1000;
+    /** The number of events kept for resuming by handlers created without a setting. */
+    static final int DEFAULT_REPLAY_CAPACITY = 4096;
+
+    private final Map<WebSocketSession, SessionOutbox> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Set<SessionOutbox>> subscribers = new ConcurrentHashMap<>();
     private final ObjectWriter writer = new ObjectMapper().writer();
+    private final ObjectReader reader = new ObjectMapper().readerFor(Subscription.class);
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final int queueCapacity;
+    private final long sendTimeLimitNanos;
+    private final long coalesceWindowMillis;
+    /** The events collected per recipe whose window has not ended yet. */
+    private final Map<Long, List<SyncEvent>> pending = new ConcurrentHashMap<>();
+    /** Numbers the sent events; held while sending, so sessions get them in order. */
+    private final EventLog log;
+
+    /**
+     * Creates the handler, writing to the sessions on virtual threads.
+     *
+     * @param queueCapacity        the largest number of messages waiting for one session
+     * @param sendTimeLimit        the longest time a single send may take before the session
+     *                             is considered stuck
+     * @param coalesceWindowMillis how long the events of a recipe are collected before they
+     *                             are sent, 0 sends every event right away
+     * @param replayCapacity       the number of recent events kept for resuming clients
+     */
+    @Autowired
+    public WebSocketHandler(
+            @Value("${websocket.send-queue-capacity:256}") int queueCapacity,
+            @Value("${websocket.send-time-limit:10s}") Duration sendTimeLimit,
+            @Value("${websocket.coalesce-window-ms:30}") long coalesceWindowMillis,
+            @Value("${websocket.replay-capacity:4096}") int replayCapacity) {
+        this(Executors.newVirtualThreadPerTaskExecutor(),
+                Executors.newSingleThreadScheduledExecutor(
+                        Thread.ofPlatform().name("websocket-coalesce").daemon().factory()),
+                queueCapacity, sendTimeLimit, coalesceWindowMillis, replayCapacity);
+    }
+
+    /**
+     * Creates a handler that sends every event right away.
+     *
+     * @param executor      runs the tasks writing to the sessions
+     * @param queueCapacity the largest number of messages waiting for one session
+     * @param sendTimeLimit the longest time a single send may take before the session is
+     *                      considered stuck
+     */
+    public WebSocketHandler(Executor executor, int queueCapacity, Duration sendTimeLimit) {
+        this(executor, null, queueCapacity, sendTimeLimit, 0, DEFAULT_REPLAY_CAPACITY);
+    }
+
+    /**
+     * Creates the handler.
+     *
+     * @param executor             runs the tasks writing to the sessions
+     * @param scheduler            ends the coalescing windows, may be null if the window is 0
+     * @param queueCapacity        the largest number of messages waiting for one session
+     * @param sendTimeLimit        the longest time a single send may take before the session
+     *                             is considered stuck
+     * @param coalesceWindowMillis how long the events of a recipe are collected before they
+     *                             are sent, 0 sends every event right away
+     * @param replayCapacity       the number of recent events kept for resuming clients
+     */
+    public WebSocketHandler(Executor executor, ScheduledExecutorService scheduler,
+                            int queueCapacity, Duration sendTimeLimit,
+                            long coalesceWindowMillis, int replayCapacity) {
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.queueCapacity = queueCapacity;
+        this.sendTimeLimitNanos = sendTimeLimit.toNanos();
+        this.coalesceWindowMillis = coalesceWindowMillis;
+        this.log = new EventLog(replayCapacity, System.currentTimeMillis());
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session){
-        sessions.add(session);
+        sessions.put(session, new SessionOutbox(session, executor, queueCapacity));
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status){
-        sessions.remove(session);
+        remove(session);
     }
 
     @Override
-    public void handleTransportError(WebSocketSession session,
-                                     Throwable exception) throws Exception{
-        if (session.isOpen()){
-            sessions.remove(session);
-            session.close();
-        };
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        SessionOutbox outbox = remove(session);
+        if (outbox != null && session.isOpen()) {
+            outbox.close(CloseStatus.SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Handles a {@link Subscription} frame of a client. Frames that cannot be read or name
+     * an unknown topic are ignored.
+     *
+     * @param session the session that sent the frame
+     * @param message the frame
+     */
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        SessionOutbox outbox = sessions.get(session);
+        Subscription frame;
+        try {
+            frame = reader.readValue(message.getPayload());
+        } catch (JsonProcessingException e) {
+            return;
+        }
+        if (outbox == null || frame.getAction() == null) {
+            return;
+        }
+        if (frame.getAction() == Subscription.Action.RESUME) {
+            resume(outbox, frame.getEpoch(), frame.getLastSeq());
+        } else if (Subscription.isValidTopic(frame.getTopic())) {
+            if (frame.getAction() == Subscription.Action.SUBSCRIBE) {
+                subscribe(outbox, frame.getTopic());
+            } else {
+                unsubscribe(outbox, frame.getTopic());
+            }
+        }
+    }
+
+    /**
+     * Starts the delivery of events to a session, sending the events it missed first.
+     * Only the missed events of the topics it is subscribed to now are sent, collapsed per
+     * recipe, followed by {@link SyncEvent.Resumed}.
+     *
+     * @param outbox  the outbox of the session
+     * @param epoch   the epoch of the events the client has seen, null if none
+     * @param lastSeq the sequence number of the last event the client has seen
+     */
+    private void resume(SessionOutbox outbox, Long epoch, long lastSeq) {
+        synchronized (log) {
+            List<SyncEvent> missed = epoch == null ? List.of()
+                    : epoch == log.getEpoch() ? log.since(lastSeq) : null;
+            if (missed == null) {
+                deliver(outbox, serialize(
+                        new SyncEvent.ResyncRequired(log.getEpoch(), log.getLastSeq())));
+            } else {
+                Map<Long, List<SyncEvent>> byRecipe = new LinkedHashMap<>();
+                for (SyncEvent event : missed) {
+                    if (topicsOf(event).stream().anyMatch(outbox.getTopics()::contains)) {
+                        byRecipe.computeIfAbsent(event.getRecipeId(), k -> new ArrayList<>())
+                                .add(event);
+                    }
+                }
+                byRecipe.forEach((recipeId, events) ->
+                        deliver(outbox, serialize(recipeId, EventCoalescer.collapse(events))));
+                deliver(outbox,
+                        serialize(new SyncEvent.Resumed(log.getEpoch(), log.getLastSeq())));
+            }
+            outbox.setLive(true);
+        }
+    }
+
+    /**
+     * Returns the number of connected sessions.
+     *
+     * @return the number of sessions messages are sent to
+     */
+    public int getSessionCount() {
+        return sessions.size();
     }
 
     /**
      * called to send an event to all clients
+     * returns right away, the event is sent with the other events of its recipe once the
+     * coalescing window ends and written to every client asynchronously
      * @param event the event to send
      */
     public void broadcast(SyncEvent event) {
+        if (coalesceWindowMillis <= 0) {
+            send(event.getRecipeId(), List.of(event));
+            return;
+        }
+        long recipeId = event.getRecipeId();
+        boolean[] opened = new boolean[1];
+        pending.compute(recipeId, (id, events) -> {
+            List<SyncEvent> result = events;
+            if (result == null) {
+                result = new ArrayList<>();
+                opened[0] = true;
+            }
+            result.add(event);
+            return result;
+        });
+        if (opened[0]) {
+            scheduler.schedule(() -> flush(recipeId), coalesceWindowMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Ends the coalescing window of a recipe and sends its events.
+     *
+     * @param recipeId the recipe
+     */
+    void flush(long recipeId) {
+        List<SyncEvent> events = pending.remove(recipeId);
+        if (events != null) {
+            send(recipeId, EventCoalescer.collapse(events));
+        }
+    }
+
+    /**
+     * Sends events of one recipe to their subscribers. Every session receives the events of
+     * the topics it is subscribed to, as one frame.
+     *
+     * @param recipeId the recipe
+     * @param events   the events, oldest first
+     */
+    private void send(long recipeId, List<SyncEvent> events) {
+        synchronized (log) {
+            events.forEach(log::append);
+            Map<SessionOutbox, BitSet> selections = new HashMap<>();
+            for (int i = 0; i < events.size(); i++) {
+                for (String topic : topicsOf(events.get(i))) {
+                    for (SessionOutbox outbox : subscribers.getOrDefault(topic, Set.of())) {
+                        if (outbox.isLive()) {
+                            selections.computeIfAbsent(outbox, k -> new BitSet()).set(i);
+                        }
+                    }
+                }
+            }
+            // sessions receiving the same events share one serialized frame
+            Map<BitSet, TextMessage> frames = new HashMap<>();
+            selections.forEach((outbox, selection) -> deliver(outbox, frames.computeIfAbsent(
+                    selection,
+                    s -> serialize(recipeId, s.stream().mapToObj(events::get).toList()))));
+        }
+    }
+
+    /**
+     * Queues a frame for a session, disconnecting it if it cannot keep up.
+     *
+     * @param outbox  the outbox of the session
+     * @param message the frame
+     */
+    private void deliver(SessionOutbox outbox, TextMessage message) {
+        if (!outbox.offer(message) || outbox.sendingForNanos() > sendTimeLimitNanos) {
+            disconnect(outbox);
+        }
+    }
+
+    /**
+     * Serializes events into one frame.
+     *
+     * @param recipeId the recipe of the events
+     * @param events   at least one event
+     * @return the event itself if there is only one, otherwise a {@link SyncEvent.Batch}
+     */
+    private TextMessage serialize(long recipeId, List<SyncEvent> events) {
+        if (events.size() == 1) {
+            return serialize(events.getFirst());
+        }
+        SyncEvent.Batch batch = new SyncEvent.Batch(recipeId, events);
+        batch.setSeq(events.getLast().getSeq());
+        return serialize(batch);
+    }
+
+    /**
+     * Serializes one event into a frame.
+     *
+     * @param event the event
+     * @return the frame
+     */
+    private TextMessage serialize(SyncEvent event) {
         String msg;
         try{
             msg =  writer.writeValueAsString(event);
@@ -51,18 +331,105 @@ public class WebSocketHandler extends TextWebSocketHandler {
             e.printStackTrace();
             msg = "Invalid Event";
         }
+        return new TextMessage(msg);
+    }
 
-        TextMessage message = new TextMessage(msg);
+    /**
+     * Returns the topics whose subscribers receive an event.
+     *
+     * @param event the event
+     * @return its topics
+     */
+    static List<String> topicsOf(SyncEvent event) {
+        String recipe = Subscription.recipe(event.getRecipeId());
+        return switch (event) {
+            case SyncEvent.RecipeCreated e -> List.of(Subscription.RECIPES);
+            case SyncEvent.RecipeDeleted e -> List.of(Subscription.RECIPES, recipe);
+            case SyncEvent.RecipeContentUpdated e -> List.of(Subscription.RECIPES, recipe);
+            case SyncEvent.RecipeIngredientCreated e -> List.of(recipe);
+            case SyncEvent.RecipeIngredientDeleted e -> List.of(recipe);
+            case SyncEvent.RecipeIngredientUpdated e -> List.of(recipe);
+            case SyncEvent.RecipeIngredientsReplaced e -> List.of(recipe);
+            case SyncEvent.Batch e -> e.getEvents().stream()
+                    .flatMap(inner -> topicsOf(inner).stream())
+                    .distinct()
+                    .toList();
+            // only sent to a single session in answer to its resume request
+            case SyncEvent.Resumed e -> List.of();
+            case SyncEvent.ResyncRequired e -> List.of();
+        };
+    }
 
-        System.out.println("Sending: " + msg);
-        System.out.println("To " + sessions.size() + " sessions");
-        for (WebSocketSession session : sessions){
-            try{
-                session.sendMessage(message);
-            }
-            catch (IOException e){
-                e.printStackTrace();
-            }
+    /**
+     * Adds a session to the subscribers of a topic.
+     *
+     * @param outbox the outbox of the session
+     * @param topic  a valid topic
+     */
+    private void subscribe(SessionOutbox outbox, String topic) {
+        if (outbox.getTopics().size() >= MAX_TOPICS_PER_SESSION
+                || !outbox.getTopics().add(topic)) {
+            return;
+        }
+        subscribers.compute(topic, (t, set) -> {
+            Set<SessionOutbox> result = set != null ? set : ConcurrentHashMap.newKeySet();
+            result.add(outbox);
+            return result;
+        });
+        // the session may have been closed meanwhile, then nobody else removes it
+        if (sessions.get(outbox.getSession()) != outbox) {
+            unsubscribe(outbox, topic);
+        }
+    }
+
+    /**
+     * Removes a session from the subscribers of a topic, dropping topics nobody follows.
+     *
+     * @param outbox the outbox of the session
+     * @param topic  the topic
+     */
+    private void unsubscribe(SessionOutbox outbox, String topic) {
+        outbox.getTopics().remove(topic);
+        subscribers.computeIfPresent(topic, (t, set) -> {
+            set.remove(outbox);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Forgets a session and all its subscriptions.
+     *
+     * @param session the session
+     * @return its outbox, null if it was already removed
+     */
+    private SessionOutbox remove(WebSocketSession session) {
+        SessionOutbox outbox = sessions.remove(session);
+        if (outbox != null) {
+            unsubscribeAll(outbox);
+        }
+        return outbox;
+    }
+
+    /**
+     * Removes a session from the subscribers of all its topics.
+     *
+     * @param outbox the outbox of the session
+     */
+    private void unsubscribeAll(SessionOutbox outbox) {
+        List.copyOf(outbox.getTopics()).forEach(topic -> unsubscribe(outbox, topic));
+    }
+
+    /**
+     * Disconnects a session that cannot keep up with the events.
+     *
+     * @param outbox the outbox of the session
+     */
+    private void disconnect(SessionOutbox outbox) {
+        if (sessions.remove(outbox.getSession(), outbox)) {
+            unsubscribeAll(outbox);
+            System.out.println("Disconnecting slow websocket client "
+                    + outbox.getSession().getId());
+            outbox.close(CloseStatus.SESSION_NOT_RELIABLE);
         }
     }
 }
@@ -0,0 +1,201 @@
+package server.api;
+
+import commons.BatchOperation;
+import commons.BatchResult;
+import commons.Ingredient;
+import commons.IngredientCategory;
+import commons.Language;
+import commons.Recipe;
+import commons.RecipeIngredient;
+import commons.Unit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import server.catalog.BatchExecutor;
+import server.database.IngredientRepositoryTest;
+import server.database.RecipeIngredientRepositoryTest;
+import server.database.RecipeRepositoryTest;
+import server.websocket.WebSocketHandler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchControllerTest {
+
+    private RecipeRepositoryTest recipeRepo;
+    private IngredientRepositoryTest ingredientRepo;
+    private RecipeIngredientRepositoryTest riRepo;
+    private List<Object> events;
+    private BatchController controller;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepo = new RecipeRepositoryTest();
+        ingredientRepo = new IngredientRepositoryTest();
+        riRepo = new RecipeIngredientRepositoryTest();
+        events = new ArrayList<>();
+        BatchExecutor executor = new BatchExecutor(recipeRepo, ingredientRepo, riRepo,
+                events::add);
+        controller = new BatchController(executor,
+                new WebSocketHandler(Runnable::run, 16, Duration.ofSeconds(10)), riRepo);
+    }
+
+    private static Recipe recipe(String name) {
+        return new Recipe(name, 2, List.of("Cook"), Language.English, false, false, false);
+    }
+
+    private static BatchOperation link(String recipeRef, String ingredientRef, double amount) {
+        BatchOperation op = BatchOperation.create(null,
+                new RecipeIngredient(null, null, null, amount, Unit.GRAM));
+        op.setRecipeRef(recipeRef);
+        op.setIngredientRef(ingredientRef);
+        return op;
+    }
+
+    @Test
+    void execute_createsRowsReferringToEarlierOperations() {
+        List<BatchOperation> ops = List.of(
+                BatchOperation.create("soup", recipe("tomato soup")),
+                BatchOperation.create("tomato", new Ingredient("tomato", 0, 1, 3, Set.of())),
+                link("soup", "tomato", 500));
+
+        ResponseEntity<BatchResult> response = controller.execute(ops);
+
+        assertEquals(200, response.getStatusCode().value());
+        BatchResult result = response.getBody();
+        assertTrue(result.succeeded());
+        assertEquals(3, result.getResults().size());
+        long recipeId = result.getRefs().get("soup");
+        long ingredientId = result.getRefs().get("tomato");
+        assertEquals("Tomato soup", recipeRepo.findById(recipeId).get().getName());
+        assertEquals(IngredientCategory.UNCATEGORIZED,
+                ingredientRepo.findById(ingredientId).get().getCategory());
+
+        RecipeIngredient linked = result.getResults().get(2).getRecipeIngredient();
+        assertEquals(recipeId, linked.getRecipe().getId());
+        assertEquals(ingredientId, linked.getIngredient().getId());
+        assertEquals(List.of(linked), riRepo.findByRecipeId(recipeId));
+        assertEquals(3, events.size());
+    }
+
+    @Test
+    void execute_updatesAndDeletesByRef() {
+        BatchOperation rename = BatchOperation.update(recipe("Pea soup"));
+        rename.setIdRef("soup");
+        BatchOperation delete = BatchOperation.delete(BatchOperation.Kind.RECIPE, 0);
+        delete.setIdRef("soup");
+
+        BatchResult result = controller.execute(List.of(
+                BatchOperation.create("soup", recipe("Tomato soup")), rename, delete)).getBody();
+
+        assertEquals("Pea soup", result.getResults().get(1).getRecipe().getName());
+        assertEquals(BatchOperation.Action.DELETE, result.getResults().get(2).getAction());
+        assertTrue(recipeRepo.recipes.isEmpty());
+    }
+
+    @Test
+    void execute_invalidOperation_reportsItsIndex() {
+        ResponseEntity<BatchResult> response = controller.execute(List.of(
+                BatchOperation.create("soup", recipe("Soup")),
+                BatchOperation.create(null, recipe(""))));
+
+        assertEquals(400, response.getStatusCode().value());
+        assertFalse(response.getBody().succeeded());
+        assertEquals(1, response.getBody().getFailedIndex());
+    }
+
+    @Test
+    void execute_unknownOrMistypedRef_isRejected() {
+        assertEquals(1, controller.execute(List.of(
+                BatchOperation.create("salt", new Ingredient("Salt", 0, 0, 0, Set.of())),
+                link("salt", "salt", 5))).getBody().getFailedIndex());
+        assertEquals(400, controller.execute(List.of(link("soup", "salt", 5)))
+                .getStatusCode().value());
+    }
+
+    @Test
+    void execute_duplicateRef_isRejected() {
+        ResponseEntity<BatchResult> response = controller.execute(List.of(
+                BatchOperation.create("x", recipe("Soup")),
+                BatchOperation.create("x", recipe("Stew"))));
+
+        assertEquals(400, response.getStatusCode().value());
+        assertEquals(1, response.getBody().getFailedIndex());
+    }
+
+    @Test
+    void execute_missingRow_returnsNotFound() {
+        ResponseEntity<BatchResult> response = controller.execute(
+                List.of(BatchOperation.delete(BatchOperation.Kind.INGREDIENT, 42)));
+
+        assertEquals(404, response.getStatusCode().value());
+        assertEquals(0, response.getBody().getFailedIndex());
+    }
+
+    @Test
+    void execute_staleVersion_failsTheWholeBatch() {
+        Recipe stored = recipeRepo.save(recipe("Soup"));
+        stored.setVersion(3);
+        Recipe edit = recipe("Stew");
+        edit.setId(stored.getId());
+        edit.setVersion(2);
+
+        ResponseEntity<BatchResult> response = controller.execute(List.of(
+                BatchOperation.create(null, new Ingredient("Salt", 0, 0, 0, Set.of())),
+                BatchOperation.update(edit)));
+
+        assertEquals(412, response.getStatusCode().value());
+        assertEquals(1, response.getBody().getFailedIndex());
+        assertEquals("Soup", recipeRepo.findById(stored.getId()).get().getName());
+
+        edit.setVersion(3);
+        assertEquals(200, controller.execute(List.of(BatchOperation.update(edit)))
+                .getStatusCode().value());
+        assertEquals("Stew", recipeRepo.findById(stored.getId()).get().getName());
+    }
+
+    @Test
+    void execute_deleteWithStaleVersion_isRejected() {
+        Recipe stored = recipeRepo.save(recipe("Soup"));
+        stored.setVersion(1);
+        BatchOperation delete = BatchOperation.delete(BatchOperation.Kind.RECIPE, stored.getId());
+        delete.setExpectedVersion(0L);
+
+        assertEquals(412, controller.execute(List.of(delete)).getStatusCode().value());
+        assertFalse(recipeRepo.recipes.isEmpty());
+    }
+
+    @Test
+    void execute_concurrentDuplicateName_returnsConflict() {
+        RecipeRepositoryTest racingRepo = new RecipeRepositoryTest() {
+            @Override
+            public <S extends Recipe> S save(S entity) {
+                throw new DataIntegrityViolationException("unique index violated");
+            }
+        };
+        BatchController racingController = new BatchController(
+                new BatchExecutor(racingRepo, ingredientRepo, riRepo, events::add),
+                new WebSocketHandler(Runnable::run, 16, Duration.ofSeconds(10)), riRepo);
+
+        ResponseEntity<BatchResult> response = racingController.execute(
+                List.of(BatchOperation.create("lasagne", recipe("Lasagne"))));
+
+        assertEquals(409, response.getStatusCode().value());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void execute_tooManyOperations_isRejected() {
+        List<BatchOperation> ops = Collections.nCopies(BatchController.MAX_OPERATIONS + 1,
+                BatchOperation.delete(BatchOperation.Kind.RECIPE, 1));
+
+        assertEquals(400, controller.execute(ops).getStatusCode().value());
+        assertEquals(400, controller.execute(null).getStatusCode().value());
+    }
+}
@@ -0,0 +1,143 @@
+package server.api;
+
+import commons.ChangeSet;
+import commons.Ingredient;
+import commons.Language;
+import commons.Recipe;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import server.catalog.CatalogChange;
+import server.catalog.ChangeLog;
+import server.database.ChangeRecordRepositoryTest;
+import server.database.IngredientRepositoryTest;
+import server.database.RecipeIngredientRepositoryTest;
+import server.database.RecipeRepositoryTest;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeControllerTest {
+
+    private RecipeRepositoryTest recipeRepo;
+    private IngredientRepositoryTest ingredientRepo;
+    private ChangeRecordRepositoryTest changeRepo;
+    private ChangeLog changeLog;
+    private ChangeController controller;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepo = new RecipeRepositoryTest();
+        ingredientRepo = new IngredientRepositoryTest();
+        changeRepo = new ChangeRecordRepositoryTest();
+        changeLog = new ChangeLog(changeRepo, recipeRepo, ingredientRepo,
+                new RecipeIngredientRepositoryTest(), 0);
+        controller = new ChangeController(changeLog);
+    }
+
+    private Recipe saveRecipe(String name) {
+        Recipe recipe = recipeRepo.save(
+                new Recipe(name, 1, List.of(), Language.English, false, false, false));
+        changeLog.onCatalogChange(new CatalogChange.RecipeSaved(recipe));
+        return recipe;
+    }
+
+    @Test
+    void getLatestRevision_emptyLog_returnsZero() {
+        assertEquals(0L, controller.getLatestRevision().getBody());
+    }
+
+    @Test
+    void getChanges_returnsRowsChangedAfterRevision() {
+        saveRecipe("Soup");
+        long since = controller.getLatestRevision().getBody();
+        Recipe pasta = saveRecipe("Pasta");
+        Ingredient salt = ingredientRepo.save(new Ingredient("Salt", 0, 0, 0, Set.of()));
+        changeLog.onCatalogChange(new CatalogChange.IngredientSaved(salt));
+
+        ChangeSet changes = controller.getChanges(since).getBody();
+        assertFalse(changes.isResetRequired());
+        assertEquals(3, changes.getRevision());
+        assertEquals(List.of(pasta), changes.getRecipes());
+        assertEquals(List.of(salt), changes.getIngredients());
+        assertTrue(changes.getDeletedRecipeIds().isEmpty());
+    }
+
+    @Test
+    void getChanges_savedThenDeleted_onlyReportsTombstone() {
+        Recipe soup = saveRecipe("Soup");
+        saveRecipe("Soup again");
+        recipeRepo.deleteById(soup.getId());
+        changeLog.onCatalogChange(new CatalogChange.RecipeRemoved(soup.getId()));
+
+        ChangeSet changes = controller.getChanges(0).getBody();
+        assertEquals(1, changes.getRecipes().size());
+        assertEquals(List.of(soup.getId()), changes.getDeletedRecipeIds());
+    }
+
+    @Test
+    void getChanges_missingRow_isReportedAsDeleted() {
+        Recipe soup = saveRecipe("Soup");
+        recipeRepo.recipes.clear();
+
+        ChangeSet changes = controller.getChanges(0).getBody();
+        assertTrue(changes.getRecipes().isEmpty());
+        assertEquals(List.of(soup.getId()), changes.getDeletedRecipeIds());
+    }
+
+    @Test
+    void getChanges_upToDate_returnsEmptySet() {
+        saveRecipe("Soup");
+        ChangeSet changes = controller.getChanges(1).getBody();
+        assertFalse(changes.isResetRequired());
+        assertEquals(1, changes.getRevision());
+        assertTrue(changes.getRecipes().isEmpty());
+    }
+
+    @Test
+    void getChanges_futureRevision_requiresReset() {
+        saveRecipe("Soup");
+        assertTrue(controller.getChanges(5).getBody().isResetRequired());
+    }
+
+    @Test
+    void getChanges_prunedRevision_requiresReset() {
+        changeLog = new ChangeLog(changeRepo, recipeRepo, ingredientRepo,
+                new RecipeIngredientRepositoryTest(), 10);
+        controller = new ChangeController(changeLog);
+        for (int i = 0; i < 100; i++) {
+            saveRecipe("Recipe " + i);
+        }
+        assertEquals(10, changeRepo.records.size());
+        assertTrue(controller.getChanges(50).getBody().isResetRequired());
+        assertFalse(controller.getChanges(90).getBody().isResetRequired());
+    }
+
+    @Test
+    void getChanges_hidesRevisionsAfterAnUncommittedOne() {
+        List<TransactionSynchronization> running;
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            saveRecipe("Soup");
+            running = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        saveRecipe("Pasta");
+
+        assertEquals(0L, controller.getLatestRevision().getBody());
+        assertTrue(controller.getChanges(0).getBody().getRecipes().isEmpty());
+
+        running.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        assertEquals(2L, controller.getLatestRevision().getBody());
+        assertEquals(2, controller.getChanges(0).getBody().getRecipes().size());
+    }
+
+    @Test
+    void getChanges_negativeRevision_returnsBadRequest() {
+        assertEquals(400, controller.getChanges(-1).getStatusCode().value());
+    }
+}
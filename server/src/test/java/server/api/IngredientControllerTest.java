@@ -2,13 +2,21 @@ package server.api;
 
 import commons.Allergen;
 import commons.Ingredient;
+import commons.Language;
 import commons.Recipe;
+import commons.RecipeIngredient;
+import commons.Unit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionOperations;
+import server.catalog.IngredientUsageCounter;
 import server.database.IngredientRepository;
 import server.database.IngredientRepositoryTest;
+import server.database.RecipeIngredientRepositoryTest;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -16,6 +24,7 @@ import static org.junit.jupiter.api.Assertions.*;
 class IngredientControllerTest {
     private IngredientController controller;
     private IngredientRepository repo;
+    private RecipeIngredientRepositoryTest riRepo;
 
     private Ingredient i1;
     private Ingredient i2;
@@ -24,7 +33,9 @@ class IngredientControllerTest {
     @BeforeEach
     void setUp() {
         repo = new IngredientRepositoryTest();
-        controller = new IngredientController(repo);
+        riRepo = new RecipeIngredientRepositoryTest();
+        controller = new IngredientController(repo, event -> {},
+                new IngredientUsageCounter(riRepo), TransactionOperations.withoutTransaction());
 
         i1 = new Ingredient("Bread", 5.3, 5.4, 1, Set.of());
         i2 = new Ingredient("Cheese", 5.3, 5.4, 2, Set.of());
@@ -74,29 +85,50 @@ class IngredientControllerTest {
     @Test
     void update_validIngredient() {
         Ingredient updated = new Ingredient("Curry", 5.3, 5.4, 10, Set.of());
-        ResponseEntity<Ingredient> response = controller.update(i1.getId(), updated);
+        ResponseEntity<Ingredient> response = controller.update(i1.getId(), updated, null);
         assertEquals(200, response.getStatusCode().value());
         assertEquals(updated, repo.findById(i1.getId()).orElse(null));
     }
 
+    @Test
+    void update_withStaleVersion_returnsPreconditionFailed() {
+        i1.setVersion(2);
+        Ingredient updated = new Ingredient("Curry", 5.3, 5.4, 10, Set.of());
+        assertEquals(412, controller.update(i1.getId(), updated, "1").getStatusCode().value());
+        assertNotEquals(updated, repo.findById(i1.getId()).orElse(null));
+
+        ResponseEntity<Ingredient> response = controller.update(i1.getId(), updated, "2");
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(2, response.getBody().getVersion());
+    }
+
+    @Test
+    void update_withMalformedVersion_returnsBadRequest() {
+        i1.setVersion(2);
+        Ingredient updated = new Ingredient("Curry", 5.3, 5.4, 10, Set.of());
+        assertEquals(400, controller.update(i1.getId(), updated, "\"2\"").getStatusCode().value());
+        assertEquals(400, controller.update(999, updated, "two").getStatusCode().value());
+        assertNotEquals(updated, repo.findById(i1.getId()).orElse(null));
+    }
+
     @Test
     void update_invalidId() {
         Ingredient updated = new Ingredient("Curry", 5.3, 5.4, 10, Set.of());
-        ResponseEntity<Ingredient> response = controller.update(-1, updated);
+        ResponseEntity<Ingredient> response = controller.update(-1, updated, null);
         assertEquals(400, response.getStatusCode().value());
     }
 
     @Test
     void update_notfoundId() {
         Ingredient updated = new Ingredient("Curry", 5.3, 5.4, 10, Set.of());
-        ResponseEntity<Ingredient> response = controller.update(999, updated);
+        ResponseEntity<Ingredient> response = controller.update(999, updated, null);
         assertEquals(404, response.getStatusCode().value());
     }
 
     @Test
     void update_invalidIngredient() {
         Ingredient updated = new Ingredient("", 5.3, 5.4, 10, Set.of());
-        ResponseEntity<Ingredient> response = controller.update(i1.getId(), updated);
+        ResponseEntity<Ingredient> response = controller.update(i1.getId(), updated, null);
         assertEquals(400, response.getStatusCode().value());
     }
 
@@ -129,4 +161,28 @@ class IngredientControllerTest {
         assertEquals(4, repo.findAll().size()); // Check if the ing got added not updated
     }
 
-}
\ No newline at end of file
+    @Test
+    void getUsage_countsDistinctRecipesWithOneQuery() {
+        Recipe toast = new Recipe("Toast", 1, List.of("Toast"), Language.English,
+                false, false, false);
+        toast.setId(1L);
+        Recipe sandwich = new Recipe("Sandwich", 1, List.of("Stack"), Language.English,
+                false, false, false);
+        sandwich.setId(2L);
+        riRepo.save(new RecipeIngredient(toast, i1, null, 50, Unit.GRAM));
+        riRepo.save(new RecipeIngredient(toast, i3, null, 5, Unit.GRAM));
+        riRepo.save(new RecipeIngredient(sandwich, i1, null, 80, Unit.GRAM));
+        riRepo.save(new RecipeIngredient(sandwich, i1, "a slice", 0, Unit.CUSTOM));
+
+        assertEquals(Map.of(i1.getId(), 2L, i3.getId(), 1L), controller.getUsage(null).getBody());
+        assertEquals(Map.of(i2.getId(), 0L, i3.getId(), 1L),
+                controller.getUsage(List.of(i2.getId(), i3.getId())).getBody());
+        assertEquals(1, riRepo.calledMethods.stream()
+                .filter("countRecipesPerIngredient"::equals).count());
+    }
+
+    @Test
+    void getUsage_negativeId() {
+        assertEquals(400, controller.getUsage(List.of(1L, -1L)).getStatusCode().value());
+    }
+}
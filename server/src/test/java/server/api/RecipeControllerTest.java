@@ -1,22 +1,47 @@
 package server.api;
 
+import commons.Allergen;
+import commons.CursorPage;
 import commons.Ingredient;
 import commons.Language;
 import commons.Recipe;
+import commons.RecipeDetail;
+import commons.RecipeIngredient;
+import commons.RecipeSummary;
+import commons.SyncEvent;
+import commons.Unit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionOperations;
+import server.catalog.AllergenRollup;
+import server.catalog.CatalogChange;
+import server.catalog.NutritionCache;
+import server.catalog.RecipeIngredientReplacer;
+import server.database.IngredientRepositoryTest;
+import server.database.RecipeIngredientRepositoryTest;
 import server.database.RecipeRepository;
 import server.database.RecipeRepositoryTest;
+import server.search.RecipeSearchIndex;
 import server.websocket.WebSocketHandler;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class RecipeControllerTest {
 
     private RecipeRepository repo;
+    private RecipeIngredientRepositoryTest riRepo;
+    private IngredientRepositoryTest ingredientRepo;
+    private RecipeSearchIndex index;
+    private NutritionCache nutrition;
+    private AllergenRollup allergenRollup;
     private RecipeController controller;
 
     private Recipe r1;
@@ -28,9 +53,11 @@ class RecipeControllerTest {
         // Setup: Add a specific recipe to search for
         Recipe applePie = new Recipe("Apple Pie", 4, List.of("Bake"), Language.English, true, false, true);
         repo.save(applePie);
+        index.rebuild();
 
         // Test: Search for "Apple"
-        ResponseEntity<List<Recipe>> result = controller.searchRecipes("Apple");
+        ResponseEntity<List<Recipe>> result =
+                controller.searchRecipes("Apple", null, null, "relevance", null);
 
         // Verify
         assertEquals(200, result.getStatusCodeValue());
@@ -41,7 +68,8 @@ class RecipeControllerTest {
     @Test
     void searchRecipes_EmptyQuery_ReturnsBadRequest() {
         // Test: Search with empty string or null
-        ResponseEntity<List<Recipe>> result = controller.searchRecipes("");
+        ResponseEntity<List<Recipe>> result =
+                controller.searchRecipes("", null, null, "relevance", null);
 
         assertEquals(400, result.getStatusCodeValue());
     }
@@ -49,8 +77,20 @@ class RecipeControllerTest {
     @BeforeEach
     void setUp() {
         repo = new RecipeRepositoryTest();
-        WebSocketHandler handler = new WebSocketHandler();
-        controller = new RecipeController(repo, handler);// uncommit this to test
+        WebSocketHandler handler = new WebSocketHandler(Runnable::run, 16, Duration.ofSeconds(10));
+        riRepo = new RecipeIngredientRepositoryTest();
+        ingredientRepo = new IngredientRepositoryTest();
+        index = new RecipeSearchIndex(repo, ingredientRepo, riRepo);
+        nutrition = new NutritionCache(riRepo);
+        allergenRollup = new AllergenRollup(repo, riRepo);
+        ApplicationEventPublisher events = event -> {
+            allergenRollup.onCatalogChange((CatalogChange) event);
+            index.onCatalogChange((CatalogChange) event);
+            nutrition.onCatalogChange((CatalogChange) event);
+        };
+        controller = new RecipeController(repo, handler, index, events,
+                new RecipeIngredientReplacer(riRepo, ingredientRepo, events), riRepo, nutrition,
+                TransactionOperations.withoutTransaction());
 
         r1 = new Recipe("Pancakes", 2, null, Language.English, true, true, false);
         r2 = new Recipe("Tomato Soup", 4, null, Language.English, true, true, true);
@@ -61,6 +101,12 @@ class RecipeControllerTest {
         repo.save(r3);
     }
 
+    private RecipeSummary summaryOf(Recipe recipe) {
+        RecipeSummary summary = RecipeSummary.of(recipe);
+        summary.setNutrition(nutrition.get(recipe.getId()));
+        return summary;
+    }
+
     @Test
     void getRecipeById_ValidId_ReturnsRecipe() {
         ResponseEntity<Recipe> result = controller.getById(r1.getId());
@@ -98,24 +144,51 @@ class RecipeControllerTest {
     @Test
     void updateRecipe_Valid() {
         Recipe updated = new Recipe("Better Pancakes", 2, List.of("", "here"), Language.English, true, true, false);
-        ResponseEntity<Recipe> result = controller.update(r1.getId(), updated);
+        ResponseEntity<Recipe> result = controller.update(r1.getId(), updated, null);
 
         assertEquals(200, result.getStatusCode().value());
         assertEquals(updated, repo.findById(r1.getId()).orElse(null));
     }
 
+    @Test
+    void updateRecipe_withExpectedVersion_onlyAppliesToTheCurrentVersion() {
+        r1.setVersion(3);
+        Recipe stale = new Recipe("Stale Pancakes", 2, List.of("x"), Language.English, false, false, false);
+        assertEquals(412, controller.update(r1.getId(), stale, "2").getStatusCode().value());
+        assertEquals("Pancakes", repo.findById(r1.getId()).get().getName());
+
+        Recipe current = new Recipe("Fresh Pancakes", 2, List.of("x"), Language.English, false, false, false);
+        ResponseEntity<Recipe> result = controller.update(r1.getId(), current, "3");
+        assertEquals(200, result.getStatusCode().value());
+        assertEquals("Fresh pancakes", result.getBody().getName());
+        assertEquals(3, result.getBody().getVersion());
+
+        Recipe any = new Recipe("Any Pancakes", 2, List.of("x"), Language.English, false, false, false);
+        assertEquals(200, controller.update(r1.getId(), any, null).getStatusCode().value());
+    }
+
+    @Test
+    void updateRecipe_withMalformedExpectedVersion_returnsBadRequest() {
+        r1.setVersion(3);
+        Recipe edit = new Recipe("Other Pancakes", 2, List.of("x"), Language.English, false, false, false);
+        assertEquals(400, controller.update(r1.getId(), edit, "\"3\"").getStatusCode().value());
+        assertEquals(400, controller.update(r1.getId(), edit, "abc").getStatusCode().value());
+        assertEquals(400, controller.update(999, edit, "abc").getStatusCode().value());
+        assertEquals("Pancakes", repo.findById(r1.getId()).get().getName());
+    }
+
     @Test
     void updateRecipe_InvalidId_ReturnsNotFound() {
         Recipe updated = new Recipe("X", 2, List.of("hre"), Language.English, false, false, false);
 
-        ResponseEntity<Recipe> result = controller.update(999, updated);
+        ResponseEntity<Recipe> result = controller.update(999, updated, null);
 
         assertEquals(404, result.getStatusCode().value());
     }
 
     @Test
     void updateRecipe_NullBody_ReturnsBadRequest() {
-        ResponseEntity<Recipe> result = controller.update(r1.getId(), null);
+        ResponseEntity<Recipe> result = controller.update(r1.getId(), null, null);
 
         assertEquals(400, result.getStatusCode().value());
     }
@@ -157,13 +230,444 @@ class RecipeControllerTest {
     @Test
     void updateRecipe_nameExists_BadRequest() {
         Recipe r = new Recipe("pancakes  ", 2, List.of("step1"), Language.English, true, true, false);
-        ResponseEntity<Recipe> result = controller.update(2,r);
+        ResponseEntity<Recipe> result = controller.update(2,r, null);
         assertEquals(400, result.getStatusCode().value());
     }
     @Test
     void updateRecipe_nameExists_OK() {
         Recipe r = new Recipe("pancakes  ", 2, List.of("step1"), Language.English, true, true, false);
-        ResponseEntity<Recipe> result = controller.update(1,r);
+        ResponseEntity<Recipe> result = controller.update(1,r, null);
         assertEquals(200, result.getStatusCode().value());
     }
+
+    @Test
+    void getPage_walksAllRecipesByName() {
+        ResponseEntity<CursorPage<Recipe>> first = controller.getPage(2, null, "name", null);
+        assertEquals(200, first.getStatusCode().value());
+        assertEquals(List.of(r3, r1), first.getBody().getItems());
+        assertNotNull(first.getBody().getNextCursor());
+
+        ResponseEntity<CursorPage<Recipe>> second =
+                controller.getPage(2, first.getBody().getNextCursor(), "name", null);
+        assertEquals(List.of(r2), second.getBody().getItems());
+        assertNull(second.getBody().getNextCursor());
+    }
+
+    @Test
+    void getPage_sortById() {
+        ResponseEntity<CursorPage<Recipe>> page = controller.getPage(10, null, "id", null);
+        assertEquals(List.of(r1, r2, r3), page.getBody().getItems());
+        assertFalse(page.getBody().hasNext());
+    }
+
+    @Test
+    void getPage_invalidParameters_ReturnsBadRequest() {
+        assertEquals(400, controller.getPage(0, null, "name", null).getStatusCode().value());
+        assertEquals(400, controller.getPage(5, null, "servings", null).getStatusCode().value());
+        assertEquals(400, controller.getPage(5, "abc:Soup", "name", null).getStatusCode().value());
+    }
+
+    @Test
+    void getSummaries_sortedByNameWithoutSteps() {
+        List<RecipeSummary> summaries = controller.getSummaries(null, "name", null).getBody();
+        assertEquals(List.of(summaryOf(r3), summaryOf(r1), summaryOf(r2)),
+                summaries);
+        assertTrue(summaries.get(1).isFast());
+        assertEquals(Language.English, summaries.get(1).getLanguage());
+    }
+
+    @Test
+    void getSummaryPage_walksAllRecipesByName() {
+        ResponseEntity<CursorPage<RecipeSummary>> first =
+                controller.getSummaryPage(2, null, "name", null, null);
+        assertEquals(200, first.getStatusCode().value());
+        assertEquals(List.of("Burrito", "Pancakes"),
+                first.getBody().getItems().stream().map(RecipeSummary::getName).toList());
+
+        ResponseEntity<CursorPage<RecipeSummary>> second =
+                controller.getSummaryPage(2, first.getBody().getNextCursor(), "name", null, null);
+        assertEquals(List.of(summaryOf(r2)), second.getBody().getItems());
+        assertFalse(second.getBody().hasNext());
+        assertEquals(400,
+                controller.getSummaryPage(0, null, "name", null, null).getStatusCode().value());
+    }
+
+    @Test
+    void listings_filterByLanguageAndSort() {
+        Recipe zurek = repo.save(new Recipe("Zurek", 4, null, Language.Polish, true, false, false));
+        Recipe appeltaart = repo.save(
+                new Recipe("Appeltaart", 8, null, Language.Dutch, false, false, true));
+        Set<Language> polishAndDutch = Set.of(Language.Polish, Language.Dutch);
+
+        assertEquals(List.of(appeltaart, zurek),
+                controller.getAll(polishAndDutch, "name").getBody());
+        assertEquals(List.of(zurek, appeltaart), controller.getAll(polishAndDutch, "id").getBody());
+        assertEquals(5, controller.getAll(null, "name").getBody().size());
+        assertEquals(400, controller.getAll(null, "servings").getStatusCode().value());
+
+        assertEquals(List.of(summaryOf(zurek)),
+                controller.getSummaries(Set.of(Language.Polish), "name", null).getBody());
+        assertEquals(List.of(appeltaart),
+                controller.getPage(5, null, "name", Set.of(Language.Dutch)).getBody().getItems());
+        assertEquals(List.of(summaryOf(r1), summaryOf(r2)),
+                controller.getSummaryPage(2, "-1:", "id", Set.of(Language.English), null)
+                        .getBody().getItems());
+    }
+
+    @Test
+    void searchRecipes_filtersByLanguageAndSorts() {
+        Recipe soupNl = repo.save(new Recipe("Erwtensoep", 4, List.of("Kook de soep"),
+                Language.Dutch, true, false, false));
+        Recipe soupPl = repo.save(new Recipe("Barszcz", 4, List.of("Gotuj soup"),
+                Language.Polish, true, false, true));
+        index.rebuild();
+
+        assertEquals(List.of(soupNl),
+                controller.searchRecipes("soep", null, Set.of(Language.Dutch), "relevance", null)
+                        .getBody());
+        assertEquals(List.of(r2, soupPl),
+                controller.searchRecipes("soup", null, null, "relevance", null).getBody());
+        assertEquals(List.of(soupPl),
+                controller.searchRecipes("soup", null, Set.of(Language.Polish), "relevance", null)
+                        .getBody());
+        assertEquals(List.of(soupPl, r2),
+                controller.searchRecipes("soup", null, null, "name", null).getBody());
+        assertEquals(400,
+                controller.searchRecipes("soup", null, null, "servings", null)
+                        .getStatusCode().value());
+    }
+
+    @Test
+    void addRecipe_concurrentDuplicate_ReturnsConflict() {
+        RecipeRepositoryTest racingRepo = new RecipeRepositoryTest() {
+            @Override
+            public <S extends Recipe> S save(S entity) {
+                throw new DataIntegrityViolationException("unique index violated");
+            }
+        };
+        RecipeController racingController =
+                new RecipeController(racingRepo,
+                        new WebSocketHandler(Runnable::run, 16, Duration.ofSeconds(10)),
+                        index, event -> {},
+                        new RecipeIngredientReplacer(riRepo, ingredientRepo, event -> {}), riRepo, nutrition,
+                        TransactionOperations.withoutTransaction());
+        Recipe r = new Recipe("Lasagne", 4, List.of("Bake"), Language.English, false, false, false);
+
+        assertEquals(409, racingController.add(r).getStatusCode().value());
+    }
+
+    @Test
+    void update_broadcastsTheStoredRecipe() {
+        // like a JPA merge, saving hands back another instance with the next version
+        RecipeRepositoryTest mergingRepo = new RecipeRepositoryTest() {
+            @Override
+            public <S extends Recipe> S saveAndFlush(S entity) {
+                Recipe stored = new Recipe(entity.getName(), entity.getServings(),
+                        entity.getPreparationSteps(), entity.getLanguage(),
+                        entity.isCheap(), entity.isFast(), entity.isVegan());
+                stored.setId(entity.getId());
+                stored.setVersion(entity.getVersion() + 1);
+                @SuppressWarnings("unchecked")
+                S saved = (S) save(stored);
+                return saved;
+            }
+        };
+        List<SyncEvent> broadcast = new ArrayList<>();
+        WebSocketHandler handler = new WebSocketHandler(Runnable::run, 16, Duration.ofSeconds(10)) {
+            @Override
+            public void broadcast(SyncEvent event) {
+                broadcast.add(event);
+            }
+        };
+        RecipeController mergingController = new RecipeController(mergingRepo, handler, index,
+                event -> {}, new RecipeIngredientReplacer(riRepo, ingredientRepo, event -> {}),
+                riRepo, nutrition, TransactionOperations.withoutTransaction());
+        Recipe stored = mergingRepo.save(new Recipe("Lasagne", 4, List.of("Bake"),
+                Language.English, false, false, false));
+
+        Recipe saved = mergingController.update(stored.getId(), new Recipe("Lasagne", 6,
+                List.of("Bake"), Language.English, false, false, false), "0").getBody();
+
+        assertEquals(1, saved.getVersion());
+        assertSame(saved, ((SyncEvent.RecipeContentUpdated) broadcast.get(0)).getRecipe());
+    }
+
+    @Test
+    void searchRecipes_followsCreateUpdateAndDelete() {
+        Recipe stew = controller.add(new Recipe("Lentil stew", 2, List.of("Simmer slowly"),
+                Language.English, true, false, true)).getBody();
+        assertEquals(List.of(stew),
+                controller.searchRecipes("lentil simmer", null, null, "relevance", null).getBody());
+
+        Recipe renamed = new Recipe("Bean stew", 2, List.of("Simmer slowly"),
+                Language.English, true, false, true);
+        controller.update(stew.getId(), renamed, null);
+        assertTrue(controller.searchRecipes("lentil", null, null, "relevance", null)
+                .getBody().isEmpty());
+        assertEquals(1, controller.searchRecipes("bean", null, null, "relevance", null)
+                .getBody().size());
+
+        controller.delete(stew.getId());
+        assertTrue(controller.searchRecipes("stew", null, null, "relevance", null)
+                .getBody().isEmpty());
+    }
+
+    @Test
+    void searchRecipes_ranksNameHitsFirstAndAppliesLimit() {
+        Recipe inStep = controller.add(new Recipe("Omelette", 1, List.of("Add some Basil"),
+                Language.English, false, true, false)).getBody();
+        Recipe inName = controller.add(new Recipe("Basil pesto", 2, List.of("Blend"),
+                Language.English, false, true, true)).getBody();
+
+        assertEquals(List.of(inName, inStep),
+                controller.searchRecipes("basil", null, null, "relevance", null).getBody());
+        assertEquals(List.of(inName),
+                controller.searchRecipes("basil", 1, null, "relevance", null).getBody());
+        assertEquals(400,
+                controller.searchRecipes("basil", 0, null, "relevance", null)
+                        .getStatusCode().value());
+    }
+
+    @Test
+    void replaceIngredients_updatesAddsAndRemovesInOneCall() {
+        Ingredient salt = new Ingredient("Salt", 0, 0, 0, Set.of());
+        ingredientRepo.save(salt);
+        Ingredient flour = new Ingredient("Flour", 1, 10, 70, Set.of());
+        ingredientRepo.save(flour);
+        RecipeIngredient kept = riRepo.save(new RecipeIngredient(r1, salt, null, 5, Unit.GRAM));
+        RecipeIngredient changed =
+                riRepo.save(new RecipeIngredient(r1, flour, null, 100, Unit.GRAM));
+        RecipeIngredient removed =
+                riRepo.save(new RecipeIngredient(r1, salt, "a pinch", 0, Unit.CUSTOM));
+        riRepo.calledMethods.clear();
+
+        RecipeIngredient newAmount = new RecipeIngredient(r1, flour, null, 250, Unit.GRAM);
+        newAmount.setId(changed.getId());
+        RecipeIngredient added = new RecipeIngredient(null, flour, null, 1, Unit.LITER);
+        ResponseEntity<List<RecipeIngredient>> response = controller.replaceIngredients(
+                r1.getId(), List.of(kept, newAmount, added));
+
+        assertEquals(200, response.getStatusCode().value());
+        List<RecipeIngredient> result = response.getBody();
+        assertEquals(3, result.size());
+        assertEquals(kept.getId(), result.get(0).getId());
+        assertEquals(250, result.get(1).getAmount());
+        assertEquals(r1, result.get(2).getRecipe());
+        assertTrue(riRepo.findById(removed.getId()).isEmpty());
+        assertEquals(3, riRepo.findByRecipeId(r1.getId()).size());
+        assertEquals(1, riRepo.calledMethods.stream().filter("saveAll"::equals).count());
+        assertEquals(2, riRepo.calledMethods.stream().filter("save"::equals).count());
+    }
+
+    @Test
+    void replaceIngredients_emptyList_removesAll() {
+        Ingredient salt = new Ingredient("Salt", 0, 0, 0, Set.of());
+        riRepo.save(new RecipeIngredient(r1, salt, null, 5, Unit.GRAM));
+
+        assertTrue(controller.replaceIngredients(r1.getId(), List.of()).getBody().isEmpty());
+        assertTrue(riRepo.findByRecipeId(r1.getId()).isEmpty());
+    }
+
+    @Test
+    void replaceIngredients_invalidInput_isRejected() {
+        RecipeIngredient noUnit = new RecipeIngredient(r1,
+                new Ingredient("Salt", 0, 0, 0, Set.of()), null, 5, null);
+
+        assertEquals(400, controller.replaceIngredients(-1, List.of()).getStatusCode().value());
+        assertEquals(400,
+                controller.replaceIngredients(r1.getId(), List.of(noUnit)).getStatusCode().value());
+        assertEquals(404, controller.replaceIngredients(999, List.of()).getStatusCode().value());
+    }
+
+    @Test
+    void replaceIngredients_unknownIngredient_isNotFoundAndChangesNothing() {
+        Ingredient salt = ingredientRepo.save(new Ingredient("Salt", 0, 0, 0, Set.of()));
+        RecipeIngredient kept = riRepo.save(new RecipeIngredient(r1, salt, null, 5, Unit.GRAM));
+        Ingredient unknown = new Ingredient("Saffron", 0, 0, 0, Set.of());
+        unknown.setId(42);
+        riRepo.calledMethods.clear();
+
+        ResponseEntity<List<RecipeIngredient>> response = controller.replaceIngredients(
+                r1.getId(), List.of(new RecipeIngredient(r1, unknown, null, 1, Unit.GRAM)));
+
+        assertEquals(404, response.getStatusCode().value());
+        assertEquals(List.of(kept), riRepo.findByRecipeId(r1.getId()));
+        assertFalse(riRepo.calledMethods.contains("saveAll"));
+        assertFalse(riRepo.calledMethods.contains("deleteAllInBatch"));
+    }
+
+    @Test
+    void replaceIngredients_returnsTheStoredIngredients() {
+        Ingredient flour = ingredientRepo.save(
+                new Ingredient("Flour", 1, 10, 70, Set.of(Allergen.GLUTEN)));
+        Ingredient sent = new Ingredient("Renamed by the client", 0, 0, 0, Set.of());
+        sent.setId(flour.getId());
+
+        List<RecipeIngredient> result = controller.replaceIngredients(r1.getId(),
+                List.of(new RecipeIngredient(r1, sent, null, 200, Unit.GRAM))).getBody();
+
+        assertSame(flour, result.get(0).getIngredient());
+        assertSame(flour, riRepo.findByRecipeId(r1.getId()).get(0).getIngredient());
+    }
+
+    @Test
+    void getDetail_returnsRecipeWithCompactIngredientLines() {
+        Ingredient flour = new Ingredient("Flour", 1, 10, 70, Set.of(Allergen.GLUTEN));
+        flour.setId(3);
+        riRepo.save(new RecipeIngredient(r1, flour, null, 200, Unit.GRAM));
+        riRepo.save(new RecipeIngredient(r2, flour, null, 50, Unit.GRAM));
+
+        ResponseEntity<RecipeDetail> response = controller.getDetail(r1.getId());
+
+        assertEquals(200, response.getStatusCode().value());
+        RecipeDetail detail = response.getBody();
+        assertEquals(r1, detail.getRecipe());
+        assertEquals(1, detail.getIngredients().size());
+        RecipeDetail.IngredientLine line = detail.getIngredients().get(0);
+        assertEquals(3, line.getIngredientId());
+        assertEquals("Flour", line.getName());
+        assertEquals(200, line.getAmount());
+        assertEquals(Set.of(Allergen.GLUTEN), line.getAllergens());
+    }
+
+    @Test
+    void getDetail_invalidOrMissingId() {
+        assertEquals(400, controller.getDetail(-1).getStatusCode().value());
+        assertEquals(404, controller.getDetail(999).getStatusCode().value());
+    }
+
+    @Test
+    void getSummaries_carryNutritionAndSortByKcal() {
+        Ingredient oil = new Ingredient("Oil", 100, 0, 0, Set.of());
+        oil.setId(1);
+        Ingredient flour = new Ingredient("Flour", 1, 10, 76, Set.of());
+        flour.setId(2);
+        riRepo.save(new RecipeIngredient(r1, oil, null, 100, Unit.GRAM));
+        riRepo.save(new RecipeIngredient(r2, flour, null, 400, Unit.GRAM));
+        riRepo.save(new RecipeIngredient(r2, flour, "a pinch", 0, Unit.CUSTOM));
+
+        List<RecipeSummary> summaries = controller.getSummaries(null, "kcal", null).getBody();
+
+        assertEquals(List.of("Burrito", "Tomato Soup", "Pancakes"),
+                summaries.stream().map(RecipeSummary::getName).toList());
+        assertEquals(0, summaries.get(0).getNutrition().getKcalPer100g(), 1e-9);
+        assertEquals(353, summaries.get(1).getNutrition().getKcalPer100g(), 1e-9);
+        assertEquals(100, summaries.get(1).getNutrition().getGramsPerServing(), 1e-9);
+        assertEquals(353, summaries.get(1).getNutrition().kcalPerServing(), 1e-9);
+        assertEquals(900, summaries.get(2).getNutrition().getKcalPer100g(), 1e-9);
+        assertEquals(1, riRepo.calledMethods.stream()
+                .filter("findWithIngredientByRecipeIdIn"::equals).count());
+    }
+
+    @Test
+    void getSummaries_nutritionFollowsIngredientChanges() {
+        Ingredient oil = new Ingredient("Oil", 100, 0, 0, Set.of());
+        ingredientRepo.save(oil);
+        RecipeIngredient kept = riRepo.save(new RecipeIngredient(r1, oil, null, 100, Unit.GRAM));
+        assertEquals(900, nutrition.get(r1.getId()).getKcalPer100g(), 1e-9);
+
+        Ingredient water = new Ingredient("Water", 0, 0, 0, Set.of());
+        ingredientRepo.save(water);
+        controller.replaceIngredients(r1.getId(),
+                List.of(kept, new RecipeIngredient(r1, water, null, 100, Unit.GRAM)));
+
+        RecipeSummary pancakes = controller.getSummaryPage(1, "-1:", "id", null, null)
+                .getBody().getItems().get(0);
+        assertEquals(450, pancakes.getNutrition().getKcalPer100g(), 1e-9);
+        assertEquals(100, pancakes.getNutrition().getGramsPerServing(), 1e-9);
+    }
+
+    @Test
+    void excludeAllergens_filtersByTheRolledUpMask() {
+        Ingredient flour = new Ingredient("Flour", 1, 10, 76, Set.of(Allergen.GLUTEN));
+        ingredientRepo.save(flour);
+        Ingredient peanuts = new Ingredient("Peanuts", 49, 26, 16, Set.of(Allergen.PEANUTS));
+        ingredientRepo.save(peanuts);
+        Ingredient tomato = new Ingredient("Tomato", 0, 1, 4, Set.of());
+        ingredientRepo.save(tomato);
+        controller.replaceIngredients(r1.getId(),
+                List.of(new RecipeIngredient(r1, flour, null, 200, Unit.GRAM)));
+        controller.replaceIngredients(r2.getId(),
+                List.of(new RecipeIngredient(r2, tomato, null, 500, Unit.GRAM)));
+        controller.replaceIngredients(r3.getId(), List.of(
+                new RecipeIngredient(r3, flour, null, 100, Unit.GRAM),
+                new RecipeIngredient(r3, peanuts, null, 30, Unit.GRAM)));
+
+        assertEquals(Allergen.GLUTEN.bit() | Allergen.PEANUTS.bit(), r3.getAllergenMask());
+        assertEquals(List.of(summaryOf(r2)), controller.getSummaries(null, "name",
+                Set.of(Allergen.GLUTEN, Allergen.PEANUTS)).getBody());
+        assertEquals(List.of(summaryOf(r1), summaryOf(r2)), controller.getSummaryPage(5, null,
+                "id", null, Set.of(Allergen.PEANUTS)).getBody().getItems());
+        assertEquals(3, controller.getSummaries(null, "name", Set.of()).getBody().size());
+    }
+
+    @Test
+    void excludeAllergens_followsIngredientAndRecipeChanges() {
+        Ingredient flour = new Ingredient("Flour", 1, 10, 76, Set.of(Allergen.GLUTEN));
+        ingredientRepo.save(flour);
+        RecipeIngredient ri = new RecipeIngredient(r1, flour, null, 200, Unit.GRAM);
+        controller.replaceIngredients(r1.getId(), List.of(ri));
+        assertEquals(Allergen.GLUTEN.bit(), r1.getAllergenMask());
+
+        // renaming the recipe keeps the mask
+        Recipe renamed = new Recipe("Crepes", 2, List.of("Fry"), Language.English,
+                true, true, false);
+        controller.update(r1.getId(), renamed, null);
+        assertEquals(Allergen.GLUTEN.bit(), repo.findById(r1.getId()).get().getAllergenMask());
+
+        flour.setAllergens(Set.of());
+        allergenRollup.onCatalogChange(new CatalogChange.IngredientSaved(flour));
+        assertEquals(0, repo.findById(r1.getId()).get().getAllergenMask());
+
+        flour.setAllergens(Set.of(Allergen.GLUTEN));
+        allergenRollup.onCatalogChange(new CatalogChange.IngredientSaved(flour));
+        controller.replaceIngredients(r1.getId(), List.of());
+        assertEquals(0, repo.findById(r1.getId()).get().getAllergenMask());
+    }
+
+    @Test
+    void excludeAllergens_ingredientRemovalOnlyRecomputesItsRecipes() {
+        Ingredient flour = new Ingredient("Flour", 1, 10, 76, Set.of(Allergen.GLUTEN));
+        ingredientRepo.save(flour);
+        RecipeIngredient ri = controller.replaceIngredients(r1.getId(),
+                List.of(new RecipeIngredient(r1, flour, null, 200, Unit.GRAM))).getBody().get(0);
+        // an outdated mask of a recipe that never used the flour
+        r2.setAllergenMask(Allergen.PEANUTS.bit());
+
+        riRepo.deleteById(ri.getId());
+        allergenRollup.onCatalogChange(
+                new CatalogChange.IngredientRemoved(flour.getId(), List.of(r1.getId())));
+
+        assertEquals(0, repo.findById(r1.getId()).get().getAllergenMask());
+        assertEquals(Allergen.PEANUTS.bit(), repo.findById(r2.getId()).get().getAllergenMask());
+    }
+
+    @Test
+    void searchRecipes_excludesAllergensBeforeApplyingTheLimit() {
+        Recipe breadSoup = repo.save(new Recipe("Bread soup", 2, List.of("Cook"),
+                Language.English, false, false, false));
+        breadSoup.setAllergenMask(Allergen.GLUTEN.bit());
+        index.rebuild();
+
+        assertEquals(List.of(r2), controller.searchRecipes("soup", 1, null, "relevance",
+                Set.of(Allergen.GLUTEN)).getBody());
+    }
+
+    @Test
+    void searchRecipes_excludedAllergensFollowIngredientChanges() {
+        index.rebuild();
+        Ingredient flour = new Ingredient("Flour", 1, 10, 76, Set.of(Allergen.GLUTEN));
+        ingredientRepo.save(flour);
+        controller.replaceIngredients(r2.getId(),
+                List.of(new RecipeIngredient(r2, flour, null, 50, Unit.GRAM)));
+
+        assertEquals(List.of(), controller.searchRecipes("soup", null, null, "relevance",
+                Set.of(Allergen.GLUTEN)).getBody());
+        assertEquals(List.of(r2), controller.searchRecipes("soup", null, null, "relevance",
+                Set.of(Allergen.PEANUTS)).getBody());
+
+        controller.replaceIngredients(r2.getId(), List.of());
+        assertEquals(List.of(r2), controller.searchRecipes("soup", null, null, "relevance",
+                Set.of(Allergen.GLUTEN)).getBody());
+    }
 }
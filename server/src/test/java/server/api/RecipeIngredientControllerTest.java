@@ -5,9 +5,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionOperations;
+import server.catalog.CatalogChange;
+import server.catalog.IngredientUsageCounter;
 import server.database.*;
 import server.websocket.WebSocketHandler;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Set;
 
@@ -32,8 +36,11 @@ class RecipeIngredientControllerTest {
     @BeforeEach
     void setup() {
         repo = new RecipeIngredientRepositoryTest();
-        WebSocketHandler handler = new WebSocketHandler();
-        controller  = new RecipeIngredientController(repo, handler);
+        WebSocketHandler handler = new WebSocketHandler(Runnable::run, 16, Duration.ofSeconds(10));
+        IngredientUsageCounter counter = new IngredientUsageCounter(repo);
+        controller  = new RecipeIngredientController(repo, handler,
+                event -> counter.onCatalogChange((CatalogChange) event), counter,
+                TransactionOperations.withoutTransaction());
         RecipeRepository recipeRepo = new RecipeRepositoryTest();
         IngredientRepository ingredientRepo = new IngredientRepositoryTest();
 
@@ -73,10 +80,26 @@ class RecipeIngredientControllerTest {
         assertEquals(400, response.getStatusCode().value());
     }
 
+    @Test
+    void update_withStaleVersion_returnsPreconditionFailed() {
+        ri1.setVersion(4);
+        RecipeIngredient changed = new RecipeIngredient(r1, ing1, null, 10, Unit.GRAM);
+        assertEquals(412, controller.update(ri1.getId(), changed, "3").getStatusCode().value());
+        assertEquals(200, controller.update(ri1.getId(), changed, "4").getStatusCode().value());
+    }
+
+    @Test
+    void update_withMalformedVersion_returnsBadRequest() {
+        ri1.setVersion(4);
+        RecipeIngredient changed = new RecipeIngredient(r1, ing1, null, 10, Unit.GRAM);
+        assertEquals(400, controller.update(ri1.getId(), changed, "W/\"4\"").getStatusCode().value());
+        assertEquals(400, controller.update(999, changed, "four").getStatusCode().value());
+    }
+
     @Test
     void update_validRecipeIngredient() {
         RecipeIngredient ri4 = new RecipeIngredient(r2, ing3, "a bit", 0, Unit.CUSTOM);
-        ResponseEntity<RecipeIngredient> response = controller.update(ri1.getId(),ri4);
+        ResponseEntity<RecipeIngredient> response = controller.update(ri1.getId(),ri4, null);
         assertEquals(200, response.getStatusCode().value());
 //        assertEquals(ri4,repo.findById(ri1.getId()).orElse(null));
     }
@@ -84,7 +107,7 @@ class RecipeIngredientControllerTest {
     @Test
     void update_invalidRecipeIngredient() {
         RecipeIngredient ri4 = new RecipeIngredient(r2, ing3, "a bit", -1, Unit.CUSTOM);
-        ResponseEntity<RecipeIngredient> response = controller.update(ri1.getId(),ri4);
+        ResponseEntity<RecipeIngredient> response = controller.update(ri1.getId(),ri4, null);
         assertEquals(400, response.getStatusCode().value());
         assertNotEquals(ri4,repo.findById(ri1.getId()).orElse(null));
     }
@@ -92,14 +115,14 @@ class RecipeIngredientControllerTest {
     @Test
     void update_invalidId() {
         RecipeIngredient ri4 = new RecipeIngredient(r2, ing3, "a bit", -1, Unit.CUSTOM);
-        ResponseEntity<RecipeIngredient> response = controller.update(-9, ri4);
+        ResponseEntity<RecipeIngredient> response = controller.update(-9, ri4, null);
         assertEquals(400, response.getStatusCode().value());
     }
 
     @Test
     void update_notfoundId() {
         RecipeIngredient ri4 = new RecipeIngredient(r2, ing3, "a bit", 0, Unit.CUSTOM);
-        ResponseEntity<RecipeIngredient> response = controller.update(999, ri4);
+        ResponseEntity<RecipeIngredient> response = controller.update(999, ri4, null);
         assertEquals(404, response.getStatusCode().value());
     }
 
@@ -136,4 +159,23 @@ class RecipeIngredientControllerTest {
 //        assertEquals(200, response.getStatusCode().value());
 //        assertEquals(2,response.getBody());
 //    }
-}
\ No newline at end of file
+
+    @Test
+    void recipeCount_countsDistinctRecipes() {
+        assertEquals(2, controller.getRecipeCount(ing2.getId()).getBody());
+        assertEquals(1, controller.getRecipeCount(ing3.getId()).getBody());
+        assertEquals(0, controller.getRecipeCount(999).getBody());
+        assertEquals(400, controller.getRecipeCount(-1).getStatusCode().value());
+    }
+
+    @Test
+    void recipeCount_followsChanges() {
+        assertEquals(1, controller.getRecipeCount(ing3.getId()).getBody());
+
+        controller.add(new RecipeIngredient(r2, ing3, null, 4, Unit.GRAM));
+        assertEquals(2, controller.getRecipeCount(ing3.getId()).getBody());
+
+        controller.delete(ri3.getId());
+        assertEquals(1, controller.getRecipeCount(ing3.getId()).getBody());
+    }
+}
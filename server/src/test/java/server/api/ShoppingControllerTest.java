@@ -0,0 +1,113 @@
+package server.api;
+
+import commons.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import server.database.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShoppingControllerTest {
+
+    private ShoppingController controller;
+    private RecipeIngredientRepositoryTest repo;
+
+    private Recipe pancakes;
+    private Recipe soup;
+
+    private Ingredient flour;
+    private Ingredient milk;
+    private Ingredient egg;
+    private Ingredient salt;
+
+    @BeforeEach
+    void setup() {
+        repo = new RecipeIngredientRepositoryTest();
+        controller = new ShoppingController(repo);
+        RecipeRepository recipeRepo = new RecipeRepositoryTest();
+        IngredientRepository ingredientRepo = new IngredientRepositoryTest();
+
+        pancakes = recipeRepo.save(new Recipe("Pancakes", 2, List.of(), Language.English, false, false, false));
+        soup = recipeRepo.save(new Recipe("Soup", 4, List.of(), Language.English, false, false, false));
+
+        flour = ingredientRepo.save(new Ingredient("Flour", 1, 10, 70, IngredientCategory.PANTRY, Set.of()));
+        milk = ingredientRepo.save(new Ingredient("Milk", 3, 3, 5, IngredientCategory.DAIRY, Set.of()));
+        egg = ingredientRepo.save(new Ingredient("Egg", 10, 13, 1, IngredientCategory.DAIRY, Set.of()));
+        salt = ingredientRepo.save(new Ingredient("Salt", 0, 0, 0, Set.of()));
+
+        repo.save(new RecipeIngredient(pancakes, flour, null, 200, Unit.GRAM));
+        repo.save(new RecipeIngredient(pancakes, milk, null, 0.5, Unit.LITER));
+        repo.save(new RecipeIngredient(pancakes, egg, null, 2, Unit.CUSTOM));
+        repo.save(new RecipeIngredient(pancakes, salt, "a pinch", 1, Unit.CUSTOM));
+        repo.save(new RecipeIngredient(soup, flour, null, 100, Unit.GRAM));
+        repo.save(new RecipeIngredient(soup, milk, null, 1, Unit.LITER));
+        repo.save(new RecipeIngredient(soup, salt, "a pinch", 1, Unit.CUSTOM));
+    }
+
+    @Test
+    void aggregate_mergesScaledAmountsPerIngredientAndCategory() {
+        repo.calledMethods.clear();
+        ResponseEntity<Map<IngredientCategory, List<ShoppingLine>>> response = controller.aggregate(
+                List.of(new PlannedRecipe(pancakes.getId(), 4), new PlannedRecipe(soup.getId(), 2)));
+
+        assertEquals(200, response.getStatusCode().value());
+        List<String> both = List.of("Pancakes", "Soup");
+        assertEquals(Map.of(
+                IngredientCategory.PANTRY, List.of(
+                        new ShoppingLine(flour.getId(), "Flour", null, 450, Unit.GRAM, both)),
+                IngredientCategory.DAIRY, List.of(
+                        new ShoppingLine(egg.getId(), "Egg", null, 4, Unit.CUSTOM, List.of("Pancakes")),
+                        new ShoppingLine(milk.getId(), "Milk", null, 1.5, Unit.LITER, both)),
+                IngredientCategory.UNCATEGORIZED, List.of(
+                        new ShoppingLine(salt.getId(), "Salt", "a pinch", 2, Unit.CUSTOM, both))),
+                response.getBody());
+        assertEquals(List.of(IngredientCategory.DAIRY, IngredientCategory.PANTRY,
+                IngredientCategory.UNCATEGORIZED), List.copyOf(response.getBody().keySet()));
+        assertEquals(List.of("findWithIngredientByRecipeIdIn"), repo.calledMethods);
+    }
+
+    @Test
+    void aggregate_combinesGramsAndLitersOfOneIngredientIntoGrams() {
+        repo.save(new RecipeIngredient(soup, milk, null, 200, Unit.GRAM));
+
+        List<ShoppingLine> dairy = controller.aggregate(
+                List.of(new PlannedRecipe(soup.getId(), 4))).getBody().get(IngredientCategory.DAIRY);
+
+        assertEquals(List.of(new ShoppingLine(milk.getId(), "Milk", null, 1200, Unit.GRAM,
+                List.of("Soup"))), dairy);
+    }
+
+    @Test
+    void aggregate_addsUpTheServingsOfARecipePlannedTwice() {
+        Map<IngredientCategory, List<ShoppingLine>> lines = controller.aggregate(List.of(
+                new PlannedRecipe(pancakes.getId(), 1),
+                new PlannedRecipe(pancakes.getId(), 3))).getBody();
+
+        assertEquals(400, lines.get(IngredientCategory.PANTRY).get(0).getAmount(), 1e-9);
+    }
+
+    @Test
+    void aggregate_unknownRecipesAddNothing() {
+        ResponseEntity<Map<IngredientCategory, List<ShoppingLine>>> response =
+                controller.aggregate(List.of(new PlannedRecipe(12345, 2)));
+        assertEquals(200, response.getStatusCode().value());
+        assertTrue(response.getBody().isEmpty());
+        assertTrue(controller.aggregate(List.of()).getBody().isEmpty());
+    }
+
+    @Test
+    void aggregate_rejectsInvalidInput() {
+        assertEquals(400, controller.aggregate(null).getStatusCode().value());
+        assertEquals(400, controller.aggregate(
+                List.of(new PlannedRecipe(pancakes.getId(), 0))).getStatusCode().value());
+        List<PlannedRecipe> tooMany = Collections.nCopies(
+                ShoppingController.MAX_RECIPES + 1, new PlannedRecipe(pancakes.getId(), 1));
+        assertEquals(400, controller.aggregate(tooMany).getStatusCode().value());
+    }
+}
@@ -0,0 +1,51 @@
+package server.api;
+
+import commons.Ingredient;
+import commons.Suggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import server.database.IngredientRepositoryTest;
+import server.database.RecipeRepositoryTest;
+import server.search.SuggestIndex;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestControllerTest {
+
+    private SuggestController controller;
+
+    @BeforeEach
+    void setUp() {
+        IngredientRepositoryTest ingredientRepo = new IngredientRepositoryTest();
+        for (int i = 0; i < 60; i++) {
+            ingredientRepo.save(new Ingredient("Salt " + i, 0, 0, 0, Set.of()));
+        }
+        SuggestIndex index = new SuggestIndex(new RecipeRepositoryTest(), ingredientRepo);
+        index.rebuild();
+        controller = new SuggestController(index);
+    }
+
+    @Test
+    void suggest_usesDefaultAndCappedLimit() {
+        ResponseEntity<List<Suggestion>> response = controller.suggest("sa", null, null);
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(SuggestController.DEFAULT_LIMIT, response.getBody().size());
+
+        assertEquals(SuggestController.MAX_LIMIT,
+                controller.suggest("sa", null, 1000).getBody().size());
+    }
+
+    @Test
+    void suggest_rejectsNonPositiveLimit() {
+        assertEquals(400, controller.suggest("sa", null, 0).getStatusCode().value());
+    }
+
+    @Test
+    void suggest_blankPrefix_returnsEmptyList() {
+        assertTrue(controller.suggest(" ", null, null).getBody().isEmpty());
+    }
+}
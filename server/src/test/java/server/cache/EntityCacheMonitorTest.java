@@ -0,0 +1,79 @@
+package server.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityCacheMonitorTest {
+
+    private CacheManager cacheManager;
+    private EntityCacheMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = EntityCacheConfig.createCacheManager(100, Duration.ofMinutes(5),
+                EntityCacheConfig.Expiry.WRITE);
+        monitor = new EntityCacheMonitor(cacheManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.close();
+    }
+
+    @Test
+    void createCacheManager_createsEveryRegion() {
+        for (String region : EntityCacheConfig.regions()) {
+            assertNotNull(cacheManager.getCache(region), region);
+        }
+        assertEquals(List.of("commons.Ingredient", "commons.Recipe", "commons.RecipeIngredient",
+                "commons.Ingredient.allergens", "commons.Recipe.preparationSteps",
+                "commons.Recipe.recipeIngredients"),
+                monitor.stats().stream().map(EntityCacheStats::getRegion).toList());
+    }
+
+    @Test
+    void createCacheManager_rejectsUnboundedRegions() {
+        assertThrows(IllegalArgumentException.class, () -> EntityCacheConfig.createCacheManager(
+                0, Duration.ZERO, EntityCacheConfig.Expiry.ACCESS));
+        assertThrows(IllegalArgumentException.class, () -> EntityCacheConfig.createCacheManager(
+                10, Duration.ofSeconds(-1), EntityCacheConfig.Expiry.WRITE));
+    }
+
+    @Test
+    void stats_countHitsMissesAndPuts() {
+        Cache<Object, Object> ingredients = cacheManager.getCache("commons.Ingredient");
+        ingredients.put(1L, "salt");
+        ingredients.get(1L);
+        ingredients.get(1L);
+        ingredients.get(2L);
+
+        EntityCacheStats stats = monitor.stats().get(0);
+        assertEquals("commons.Ingredient", stats.getRegion());
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getPuts());
+        assertEquals(0, monitor.stats().get(1).getHits());
+    }
+
+    @Test
+    void clear_emptiesTheRegionsAndResetsTheCounters() {
+        Cache<Object, Object> recipes = cacheManager.getCache("commons.Recipe");
+        recipes.put(1L, "soup");
+        recipes.get(1L);
+
+        monitor.clear();
+
+        assertFalse(recipes.containsKey(1L));
+        EntityCacheStats stats = monitor.stats().get(1);
+        assertEquals(0, stats.getHits());
+        assertEquals(0, stats.getPuts());
+    }
+}
@@ -0,0 +1,67 @@
+package server.catalog;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.event.TransactionalEventListener;
+import server.search.RecipeSearchIndex;
+import server.search.SuggestIndex;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogRevisionTest {
+
+    @Test
+    void derivedDataListeners_areOrderedBeforeTheRevision() throws Exception {
+        int revisionOrder = CatalogRevision.class
+                .getMethod("onCatalogChange", CatalogChange.class)
+                .getAnnotation(Order.class).value();
+        for (Class<?> listener : List.of(RecipeSearchIndex.class, SuggestIndex.class,
+                NutritionCache.class, IngredientUsageCounter.class)) {
+            Method method = listener.getMethod("onCatalogChange", CatalogChange.class);
+            Order order = method.getAnnotation(Order.class);
+            assertNotNull(order, listener.getSimpleName());
+            assertTrue(order.value() < revisionOrder, listener.getSimpleName());
+        }
+    }
+
+    @Test
+    void revision_movesOnAfterTheDerivedDataListeners() {
+        // the probe is registered first, so only the order makes it run before the revision
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(
+                Config.class, Probe.class, CatalogRevision.class)) {
+            context.publishEvent(new CatalogChange.RecipeRemoved(1L));
+
+            assertEquals(0, context.getBean(Probe.class).seen);
+            assertEquals(1, context.getBean(CatalogRevision.class).current());
+        }
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    static class Config {
+    }
+
+    /**
+     * Stands in for an index, remembering the revision it saw while applying a change.
+     */
+    static class Probe {
+        private final CatalogRevision revision;
+        private long seen = -1;
+
+        Probe(CatalogRevision revision) {
+            this.revision = revision;
+        }
+
+        @Order(CatalogRevision.BEFORE_REVISION)
+        @TransactionalEventListener(fallbackExecution = true)
+        public void onCatalogChange(CatalogChange change) {
+            seen = revision.current();
+        }
+    }
+}
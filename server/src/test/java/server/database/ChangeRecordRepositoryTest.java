@@ -0,0 +1,101 @@
+package server.database;
+
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery.FetchableFluentQuery;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+public class ChangeRecordRepositoryTest implements ChangeRecordRepository {
+
+    public final List<ChangeRecord> records = new ArrayList<>();
+    public final List<String> calledMethods = new ArrayList<>();
+    private long nextId = 1;
+
+    private void call(String name) {
+        calledMethods.add(name);
+    }
+
+    @Override
+    public <S extends ChangeRecord> S save(S entity) {
+        call("save");
+        entity.setId(nextId++);
+        records.add(entity);
+        return entity;
+    }
+
+    @Override
+    public List<ChangeRecord> findByIdGreaterThanOrderByIdAsc(long revision) {
+        call("findByIdGreaterThanOrderByIdAsc");
+        return records.stream()
+                .filter(r -> r.getId() > revision)
+                .sorted(Comparator.comparingLong(ChangeRecord::getId))
+                .toList();
+    }
+
+    @Override
+    public Long findLatestRevision() {
+        call("findLatestRevision");
+        return records.stream().map(ChangeRecord::getId).max(Long::compare).orElse(null);
+    }
+
+    @Override
+    public Long findOldestRevision() {
+        call("findOldestRevision");
+        return records.stream().map(ChangeRecord::getId).min(Long::compare).orElse(null);
+    }
+
+    @Override
+    public int deleteByIdLessThan(long revision) {
+        call("deleteByIdLessThan");
+        int before = records.size();
+        records.removeIf(r -> r.getId() < revision);
+        return before - records.size();
+    }
+
+    @Override
+    public List<ChangeRecord> findAll() {
+        call("findAll");
+        return records;
+    }
+
+    @Override
+    public long count() {
+        return records.size();
+    }
+
+    // --- Boilerplate ---
+    @Override public Optional<ChangeRecord> findById(Long id) { return records.stream().filter(r -> r.getId() == id).findFirst(); }
+    @Override public boolean existsById(Long id) { return findById(id).isPresent(); }
+    @Override public void deleteById(Long id) { records.removeIf(r -> r.getId() == id); }
+    @Override public List<ChangeRecord> findAll(Sort sort) { return null; }
+    @Override public List<ChangeRecord> findAllById(Iterable<Long> ids) { return null; }
+    @Override public <S extends ChangeRecord> List<S> saveAll(Iterable<S> entities) { return null; }
+    @Override public void flush() {}
+    @Override public <S extends ChangeRecord> S saveAndFlush(S entity) { return save(entity); }
+    @Override public <S extends ChangeRecord> List<S> saveAllAndFlush(Iterable<S> entities) { return null; }
+    @Override public void deleteAllInBatch(Iterable<ChangeRecord> entities) {}
+    @Override public void deleteAllByIdInBatch(Iterable<Long> ids) {}
+    @Override public void deleteAllInBatch() {}
+    @Override public ChangeRecord getOne(Long id) { return null; }
+    @Override public ChangeRecord getById(Long id) { return findById(id).orElse(null); }
+    @Override public ChangeRecord getReferenceById(Long id) { return getById(id); }
+    @Override public <S extends ChangeRecord> List<S> findAll(Example<S> example) { return null; }
+    @Override public <S extends ChangeRecord> List<S> findAll(Example<S> example, Sort sort) { return null; }
+    @Override public Page<ChangeRecord> findAll(Pageable pageable) { return null; }
+    @Override public void delete(ChangeRecord entity) { records.remove(entity); }
+    @Override public void deleteAllById(Iterable<? extends Long> ids) {}
+    @Override public void deleteAll(Iterable<? extends ChangeRecord> entities) {}
+    @Override public void deleteAll() { records.clear(); }
+    @Override public <S extends ChangeRecord> Optional<S> findOne(Example<S> example) { return Optional.empty(); }
+    @Override public <S extends ChangeRecord> Page<S> findAll(Example<S> example, Pageable pageable) { return null; }
+    @Override public <S extends ChangeRecord> long count(Example<S> example) { return 0; }
+    @Override public <S extends ChangeRecord> boolean exists(Example<S> example) { return false; }
+    @Override public <S extends ChangeRecord, R> R findBy(Example<S> example, Function<FetchableFluentQuery<S>, R> queryFunction) { return null; }
+}
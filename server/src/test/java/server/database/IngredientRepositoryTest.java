@@ -74,12 +74,19 @@ public class IngredientRepositoryTest implements IngredientRepository {
         ingredients.removeIf(i -> i.getId() == id);
     }
 
+    @Override
+    public List<Ingredient> findAllById(Iterable<Long> ids) {
+        call("findAllById");
+        List<Long> wanted = new ArrayList<>();
+        ids.forEach(wanted::add);
+        return ingredients.stream().filter(x -> wanted.contains(x.getId())).toList();
+    }
+
     // --- Boilerplate ---
     @Override public List<Ingredient> findAll(Sort sort) { return null; }
-    @Override public List<Ingredient> findAllById(Iterable<Long> ids) { return null; }
     @Override public <S extends Ingredient> List<S> saveAll(Iterable<S> entities) { return null; }
     @Override public void flush() {}
-    @Override public <S extends Ingredient> S saveAndFlush(S entity) { return null; }
+    @Override public <S extends Ingredient> S saveAndFlush(S entity) { return save(entity); }
     @Override public <S extends Ingredient> List<S> saveAllAndFlush(Iterable<S> entities) { return null; }
     @Override public void deleteAllInBatch(Iterable<Ingredient> entities) {}
     @Override public void deleteAllByIdInBatch(Iterable<Long> ids) {}
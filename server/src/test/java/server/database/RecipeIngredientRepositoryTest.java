@@ -1,5 +1,6 @@
 package server.database;
 
+import commons.Allergen;
 import commons.Ingredient;
 import commons.RecipeIngredient;
 import org.springframework.data.domain.Example;
@@ -9,8 +10,14 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.query.FluentQuery.FetchableFluentQuery;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
 public class RecipeIngredientRepositoryTest implements RecipeIngredientRepository {
@@ -73,6 +80,48 @@ public class RecipeIngredientRepositoryTest implements RecipeIngredientRepositor
                 .filter(x -> x.getRecipe().getId() == recipeId).toList();
     }
 
+    @Override
+    public List<RecipeIngredient> findDetailsByRecipeId(long recipeId) {
+        call("findDetailsByRecipeId");
+        return recipeIngredients.stream()
+                .filter(x -> x.getRecipe().getId() == recipeId)
+                .sorted(Comparator.comparingLong(RecipeIngredient::getId))
+                .toList();
+    }
+
+    @Override
+    public List<RecipeAllergen> findAllergensByRecipeIdIn(Collection<Long> recipeIds) {
+        call("findAllergensByRecipeIdIn");
+        Map<Long, Set<Allergen>> allergens = new LinkedHashMap<>();
+        for (RecipeIngredient ri : recipeIngredients) {
+            if (recipeIds.contains(ri.getRecipe().getId())) {
+                allergens.computeIfAbsent(ri.getRecipe().getId(), k -> new HashSet<>())
+                        .addAll(ri.getIngredient().getAllergens());
+            }
+        }
+        List<RecipeAllergen> result = new ArrayList<>();
+        allergens.forEach((recipeId, set) ->
+                set.forEach(allergen -> result.add(new RecipeAllergen(recipeId, allergen))));
+        return result;
+    }
+
+    @Override
+    public List<Long> findRecipeIdsByIngredientId(long ingredientId) {
+        call("findRecipeIdsByIngredientId");
+        return recipeIngredients.stream()
+                .filter(x -> x.getIngredient().getId() == ingredientId)
+                .map(x -> x.getRecipe().getId())
+                .distinct()
+                .toList();
+    }
+
+    @Override
+    public List<RecipeIngredient> findWithIngredientByRecipeIdIn(Collection<Long> recipeIds) {
+        call("findWithIngredientByRecipeIdIn");
+        return recipeIngredients.stream()
+                .filter(x -> recipeIds.contains(x.getRecipe().getId())).toList();
+    }
+
     @Override
     public List<RecipeIngredient> findByIngredientId(long ingredientId) {
         call("findByIngredientId");
@@ -81,14 +130,57 @@ public class RecipeIngredientRepositoryTest implements RecipeIngredientRepositor
                 .filter(x -> x.getIngredient().getId() == ingredientId).toList();
     }
 
+    @Override
+    public List<RecipeIngredientLink> findAllLinks() {
+        call("findAllLinks");
+        return recipeIngredients.stream()
+                .map(x -> new RecipeIngredientLink(x.getId(),
+                        x.getRecipe().getId(), x.getIngredient().getId()))
+                .toList();
+    }
+
+    @Override
+    public List<IngredientUsage> countRecipesPerIngredient() {
+        call("countRecipesPerIngredient");
+        Map<Long, Set<Long>> recipesPerIngredient = new LinkedHashMap<>();
+        for (RecipeIngredient ri : recipeIngredients) {
+            recipesPerIngredient.computeIfAbsent(ri.getIngredient().getId(), k -> new HashSet<>())
+                    .add(ri.getRecipe().getId());
+        }
+        return recipesPerIngredient.entrySet().stream()
+                .map(e -> new IngredientUsage(e.getKey(), e.getValue().size()))
+                .toList();
+    }
+
+    @Override
+    public List<RecipeIngredient> findAllById(Iterable<Long> ids) {
+        call("findAllById");
+        List<Long> wanted = new ArrayList<>();
+        ids.forEach(wanted::add);
+        return recipeIngredients.stream().filter(x -> wanted.contains(x.getId())).toList();
+    }
+
+    @Override
+    public <S extends RecipeIngredient> List<S> saveAll(Iterable<S> entities) {
+        call("saveAll");
+        List<S> saved = new ArrayList<>();
+        entities.forEach(e -> saved.add(save(e)));
+        return saved;
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<RecipeIngredient> entities) {
+        call("deleteAllInBatch");
+        List<Long> ids = new ArrayList<>();
+        entities.forEach(e -> ids.add(e.getId()));
+        recipeIngredients.removeIf(ri -> ids.contains(ri.getId()));
+    }
+
     // --- Boilerplate ---
     @Override public List<RecipeIngredient> findAll(Sort sort) { return null; }
-    @Override public List<RecipeIngredient> findAllById(Iterable<Long> ids) { return null; }
-    @Override public <S extends RecipeIngredient> List<S> saveAll(Iterable<S> entities) { return null; }
     @Override public void flush() {}
-    @Override public <S extends RecipeIngredient> S saveAndFlush(S entity) { return null; }
+    @Override public <S extends RecipeIngredient> S saveAndFlush(S entity) { return save(entity); }
     @Override public <S extends RecipeIngredient> List<S> saveAllAndFlush(Iterable<S> entities) { return null; }
-    @Override public void deleteAllInBatch(Iterable<RecipeIngredient> entities) {}
     @Override public void deleteAllByIdInBatch(Iterable<Long> ids) {}
     @Override public void deleteAllInBatch() {}
     @Override public RecipeIngredient getOne(Long id) { return null; }
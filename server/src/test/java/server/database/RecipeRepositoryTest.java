@@ -1,6 +1,8 @@
 package server.database;
 
+import commons.Language;
 import commons.Recipe;
+import commons.RecipeSummary;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -8,7 +10,10 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.query.FluentQuery.FetchableFluentQuery;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -44,6 +49,133 @@ public class RecipeRepositoryTest implements RecipeRepository {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public int updateAllergenMask(long id, int mask) {
+        call("updateAllergenMask");
+        recipes.stream().filter(r -> r.getId() == id).forEach(r -> r.setAllergenMask(mask));
+        return (int) recipes.stream().filter(r -> r.getId() == id).count();
+    }
+
+    @Override
+    public List<Recipe> findByLanguageIn(Collection<Language> languages, Sort sort) {
+        call("findByLanguageIn");
+        return recipes.stream()
+                .filter(r -> languages.contains(r.getLanguage()))
+                .sorted(comparator(sort))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Recipe> findPageByNameAfter(Collection<Language> languages, String name, long id,
+                                            Pageable pageable) {
+        call("findPageByNameAfter");
+        return recipes.stream()
+                .filter(r -> languages.contains(r.getLanguage()))
+                .filter(r -> r.getName().compareTo(name) > 0
+                        || (r.getName().equals(name) && r.getId() > id))
+                .sorted(Comparator.comparing(Recipe::getName).thenComparingLong(Recipe::getId))
+                .limit(pageable.getPageSize())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Recipe> findPageByIdAfter(Collection<Language> languages, long id,
+                                          Pageable pageable) {
+        call("findPageByIdAfter");
+        return recipes.stream()
+                .filter(r -> languages.contains(r.getLanguage()))
+                .filter(r -> r.getId() > id)
+                .sorted(Comparator.comparingLong(Recipe::getId))
+                .limit(pageable.getPageSize())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Builds a comparator for the {@code name} and {@code id} properties of a sort.
+     */
+    private static Comparator<Recipe> comparator(Sort sort) {
+        Comparator<Recipe> result = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<Recipe> next = "name".equals(order.getProperty())
+                    ? Comparator.comparing(Recipe::getName)
+                    : Comparator.comparingLong(Recipe::getId);
+            result = result.thenComparing(order.isAscending() ? next : next.reversed());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean existsByNormalizedName(String normalizedName) {
+        call("existsByNormalizedName");
+        return recipes.stream()
+                .anyMatch(r -> Objects.equals(r.getNormalizedName(), normalizedName));
+    }
+
+    @Override
+    public boolean existsByNormalizedNameAndIdNot(String normalizedName, long id) {
+        call("existsByNormalizedNameAndIdNot");
+        return recipes.stream()
+                .anyMatch(r -> r.getId() != id
+                        && Objects.equals(r.getNormalizedName(), normalizedName));
+    }
+
+    @Override
+    public List<Recipe> findByNormalizedNameIsNull() {
+        call("findByNormalizedNameIsNull");
+        return recipes.stream()
+                .filter(r -> r.getNormalizedName() == null)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<RecipeSummary> findAllSummaries() {
+        call("findAllSummaries");
+        return recipes.stream()
+                .sorted(Comparator.comparing(Recipe::getName).thenComparingLong(Recipe::getId))
+                .map(RecipeSummary::of)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<RecipeSummary> findSummariesByLanguageIn(Collection<Language> languages,
+                                                         int excluded, Sort sort) {
+        call("findSummariesByLanguageIn");
+        return findByLanguageIn(languages, sort).stream()
+                .filter(r -> (r.getAllergenMask() & excluded) == 0)
+                .map(RecipeSummary::of)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<RecipeSummary> findSummaryPageByNameAfter(Collection<Language> languages,
+                                                          int excluded, String name, long id,
+                                                          Pageable pageable) {
+        call("findSummaryPageByNameAfter");
+        return recipes.stream()
+                .filter(r -> (r.getAllergenMask() & excluded) == 0)
+                .filter(r -> languages.contains(r.getLanguage()))
+                .filter(r -> r.getName().compareTo(name) > 0
+                        || (r.getName().equals(name) && r.getId() > id))
+                .sorted(Comparator.comparing(Recipe::getName).thenComparingLong(Recipe::getId))
+                .limit(pageable.getPageSize())
+                .map(RecipeSummary::of)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<RecipeSummary> findSummaryPageByIdAfter(Collection<Language> languages,
+                                                        int excluded, long id,
+                                                        Pageable pageable) {
+        call("findSummaryPageByIdAfter");
+        return recipes.stream()
+                .filter(r -> (r.getAllergenMask() & excluded) == 0)
+                .filter(r -> languages.contains(r.getLanguage()) && r.getId() > id)
+                .sorted(Comparator.comparingLong(Recipe::getId))
+                .limit(pageable.getPageSize())
+                .map(RecipeSummary::of)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public List<Recipe> findAll() {
         call("findAll");
@@ -88,35 +220,40 @@ public class RecipeRepositoryTest implements RecipeRepository {
     }
 
     @Override
-    public List<Recipe> search(String query) {
-        call("search");
-        if (query == null) return new ArrayList<>();
-        String lowerQuery = query.toLowerCase();
+    public Optional<Recipe> findWithStepsById(long id) {
+        call("findWithStepsById");
+        return recipes.stream().filter(r -> r.getId() == id).findFirst();
+    }
 
-        return recipes.stream()
-                .filter(r ->
-                                // 1. Check Name
-                                (r.getName() != null && r.getName().toLowerCase().contains(lowerQuery)) ||
-
-                                        // 2. Check Preparation Steps
-                                        (r.getPreparationSteps() != null && r.getPreparationSteps().stream()
-                                                .anyMatch(step -> step != null && step.toLowerCase().contains(lowerQuery)))
-
-                        // 3. Ingredient check removed from Unit Test because Recipe
-                        // no longer owns the ingredients list (Circular dependency fix).
-                        // The real database query uses a subquery to handle this.
-                )
-                .distinct()
-                .collect(Collectors.toList());
+    @Override
+    public List<Recipe> findAllWithSteps() {
+        call("findAllWithSteps");
+        return recipes;
     }
 
     // --- Boilerplate methods required by interface (return null/do nothing) ---
 
     @Override public List<Recipe> findAll(Sort sort) { return null; }
-    @Override public List<Recipe> findAllById(Iterable<Long> ids) { return null; }
-    @Override public <S extends Recipe> List<S> saveAll(Iterable<S> entities) { return null; }
+    @Override
+    public List<Recipe> findAllById(Iterable<Long> ids) {
+        call("findAllById");
+        List<Recipe> found = new ArrayList<>();
+        for (Long id : ids) {
+            findById(id).ifPresent(found::add);
+        }
+        return found;
+    }
+    @Override
+    public <S extends Recipe> List<S> saveAll(Iterable<S> entities) {
+        call("saveAll");
+        List<S> saved = new ArrayList<>();
+        entities.forEach(e -> saved.add(save(e)));
+        return saved;
+    }
+
+
     @Override public void flush() {}
-    @Override public <S extends Recipe> S saveAndFlush(S entity) { return null; }
+    @Override public <S extends Recipe> S saveAndFlush(S entity) { return save(entity); }
     @Override public <S extends Recipe> List<S> saveAllAndFlush(Iterable<S> entities) { return null; }
     @Override public void deleteAllInBatch(Iterable<Recipe> entities) {}
     @Override public void deleteAllByIdInBatch(Iterable<Long> ids) {}
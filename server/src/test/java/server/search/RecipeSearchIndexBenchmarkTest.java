@@ -0,0 +1,77 @@
+package server.search;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Measures the latency of queries with 1 to 6 terms against synthetic catalogs of growing
+ * size and prints the median and 99th percentile per term count, both for all results and
+ * for the ten best ones.
+ * <p>
+ * Tagged as a benchmark, so it only runs with {@code mvn -Pbenchmark test}. The results are
+ * checked against a brute force scan in {@link RecipeSearchIndexTest}.
+ */
+@Tag("benchmark")
+class RecipeSearchIndexBenchmarkTest {
+
+    private static final int[] RECIPES = {10_000, 100_000};
+    private static final int INGREDIENTS = 500;
+    private static final int QUERIES_PER_SIZE = 1_000;
+
+    @Test
+    void queriesWithOneToSixTerms() {
+        for (int recipes : RECIPES) {
+            SyntheticCatalog catalog = new SyntheticCatalog(recipes, INGREDIENTS, 42);
+            RecipeSearchIndex index = catalog.index();
+            for (int size = 1; size <= 6; size++) {
+                List<List<String>> queries = new ArrayList<>();
+                for (int q = 0; q < QUERIES_PER_SIZE; q++) {
+                    queries.add(catalog.query(size));
+                }
+
+                long[] all = measure(queries, index::search);
+                long[] top = measure(queries, query -> index.search(query, 10));
+                long hits = 0;
+                for (List<String> query : queries) {
+                    hits += index.search(query).size();
+                }
+                System.out.printf("%d recipes, %d term(s): all p50 %d us, p99 %d us;"
+                        + " top 10 p50 %d us, p99 %d us; %d hits/query%n",
+                        recipes, size, percentile(all, 0.5), percentile(all, 0.99),
+                        percentile(top, 0.5), percentile(top, 0.99), hits / queries.size());
+            }
+        }
+    }
+
+    /**
+     * Runs every query once to warm up, then once more timing each run.
+     *
+     * @return the query times in microseconds, sorted ascending
+     */
+    private static long[] measure(List<List<String>> queries,
+                                  Function<List<String>, List<Long>> search) {
+        for (List<String> query : queries) {
+            search.apply(query);
+        }
+        long[] micros = new long[queries.size()];
+        for (int i = 0; i < micros.length; i++) {
+            long start = System.nanoTime();
+            search.apply(queries.get(i));
+            micros[i] = (System.nanoTime() - start) / 1_000;
+        }
+        Arrays.sort(micros);
+        return micros;
+    }
+
+    /**
+     * Picks a percentile from sorted samples using the nearest-rank method.
+     */
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.max(0, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,214 @@
+package server.search;
+
+import commons.Allergen;
+import commons.Ingredient;
+import commons.Language;
+import commons.Recipe;
+import commons.RecipeIngredient;
+import commons.Unit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import server.catalog.CatalogChange;
+import server.database.IngredientRepositoryTest;
+import server.database.RecipeIngredientRepositoryTest;
+import server.database.RecipeRepositoryTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeSearchIndexTest {
+
+    private RecipeRepositoryTest recipeRepo;
+    private IngredientRepositoryTest ingredientRepo;
+    private RecipeIngredientRepositoryTest recipeIngredientRepo;
+    private RecipeSearchIndex index;
+
+    private Recipe pancakes;
+    private Recipe soup;
+    private Ingredient flour;
+    private Ingredient tomato;
+    private RecipeIngredient pancakeFlour;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepo = new RecipeRepositoryTest();
+        ingredientRepo = new IngredientRepositoryTest();
+        recipeIngredientRepo = new RecipeIngredientRepositoryTest();
+        index = new RecipeSearchIndex(recipeRepo, ingredientRepo, recipeIngredientRepo);
+
+        pancakes = recipeRepo.save(new Recipe("Pancakes", 4, List.of("Mix the batter", "Fry"),
+                Language.English, true, true, false));
+        soup = recipeRepo.save(new Recipe("Tomato Soup", 2, List.of("Boil water"),
+                Language.English, true, false, true));
+        flour = ingredientRepo.save(new Ingredient("Wheat flour", 1, 10, 76, Set.of()));
+        tomato = ingredientRepo.save(new Ingredient("Tomato", 0.2, 0.9, 3.9, Set.of()));
+        pancakeFlour = recipeIngredientRepo.save(
+                new RecipeIngredient(pancakes, flour, null, 200, Unit.GRAM));
+        recipeIngredientRepo.save(new RecipeIngredient(soup, tomato, null, 500, Unit.GRAM));
+
+        index.rebuild();
+    }
+
+    @Test
+    void search_matchesSubstringsOfNameStepsAndIngredients() {
+        assertEquals(List.of(pancakes.getId()), index.search(List.of("cake")));
+        assertEquals(List.of(pancakes.getId()), index.search(List.of("BATTER")));
+        assertEquals(List.of(pancakes.getId()), index.search(List.of("flou")));
+        assertEquals(List.of(pancakes.getId(), soup.getId()), index.search(List.of("a")));
+    }
+
+    @Test
+    void search_matchesTagKeywords() {
+        assertEquals(List.of(soup.getId()), index.search(List.of("vegan")));
+        assertEquals(List.of(pancakes.getId(), soup.getId()), index.search(List.of("Cheap")));
+    }
+
+    @Test
+    void search_intersectsAllTerms() {
+        assertEquals(List.of(soup.getId()), index.search(List.of("tomato", "boil")));
+        assertEquals(List.of(pancakes.getId()), index.search(List.of("fast", "wheat")));
+        assertTrue(index.search(List.of("tomato", "fry")).isEmpty());
+        assertTrue(index.search(List.of()).isEmpty());
+    }
+
+    @Test
+    void search_ranksNameAboveStepAboveIngredient() {
+        Recipe tomatoStep = recipeRepo.save(new Recipe("Bruschetta", 2, List.of("Dice the tomato"),
+                Language.English, false, false, false));
+        index.onCatalogChange(new CatalogChange.RecipeSaved(tomatoStep));
+        RecipeIngredient pancakeTomato = recipeIngredientRepo.save(
+                new RecipeIngredient(pancakes, tomato, null, 1, Unit.GRAM));
+        index.onCatalogChange(new CatalogChange.RecipeIngredientSaved(pancakeTomato));
+
+        assertEquals(List.of(soup.getId(), tomatoStep.getId(), pancakes.getId()),
+                index.search(List.of("tomato")));
+        assertEquals(List.of(soup.getId(), tomatoStep.getId()),
+                index.search(List.of("tomato"), 2));
+        assertTrue(index.search(List.of("tomato"), 0).isEmpty());
+    }
+
+    @Test
+    void search_filtersByLanguage() {
+        Recipe zupa = recipeRepo.save(new Recipe("Zupa pomidorowa", 4, List.of("Boil tomato"),
+                Language.Polish, false, false, false));
+        index.onCatalogChange(new CatalogChange.RecipeSaved(zupa));
+
+        assertEquals(List.of(zupa.getId()),
+                index.search(List.of("boil"), 10, Set.of(Language.Polish)));
+        assertEquals(List.of(soup.getId()),
+                index.search(List.of("boil"), 10, Set.of(Language.English)));
+        assertEquals(2, index.search(List.of("boil")).size());
+    }
+
+    @Test
+    void changes_areAppliedIncrementally() {
+        Recipe renamed = new Recipe("Crepes", 4, List.of("Fry thin"),
+                Language.English, false, false, false);
+        renamed.setId(pancakes.getId());
+        index.onCatalogChange(new CatalogChange.RecipeSaved(renamed));
+        assertTrue(index.search(List.of("pancakes")).isEmpty());
+        assertEquals(List.of(pancakes.getId()), index.search(List.of("crepes", "flour")));
+
+        index.onCatalogChange(new CatalogChange.RecipeIngredientRemoved(
+                pancakeFlour.getId(), pancakes.getId()));
+        assertTrue(index.search(List.of("flour")).isEmpty());
+
+        index.onCatalogChange(new CatalogChange.IngredientRemoved(tomato.getId()));
+        assertEquals(List.of(soup.getId()), index.search(List.of("tomato")));
+
+        index.onCatalogChange(new CatalogChange.RecipeRemoved(soup.getId()));
+        assertTrue(index.search(List.of("soup")).isEmpty());
+    }
+
+    @Test
+    void ingredientRename_isVisibleThroughLinkedRecipes() {
+        Ingredient renamed = new Ingredient("Spelt", 1, 10, 76, Set.of());
+        renamed.setId(flour.getId());
+        index.onCatalogChange(new CatalogChange.IngredientSaved(renamed));
+
+        assertTrue(index.search(List.of("wheat")).isEmpty());
+        assertEquals(List.of(pancakes.getId()), index.search(List.of("spelt")));
+    }
+
+    @Test
+    void search_skipsExcludedAllergensBeforeApplyingTheLimit() {
+        flour.setAllergens(Set.of(Allergen.GLUTEN));
+        index.onCatalogChange(new CatalogChange.IngredientSaved(flour));
+
+        assertEquals(List.of(pancakes.getId()), index.search(List.of("a"), 1));
+        assertEquals(List.of(soup.getId()),
+                index.search(List.of("a"), 1, null, Allergen.GLUTEN.bit()));
+
+        recipeIngredientRepo.deleteById(pancakeFlour.getId());
+        index.onCatalogChange(new CatalogChange.RecipeIngredientRemoved(
+                pancakeFlour.getId(), pancakes.getId()));
+        assertEquals(List.of(pancakes.getId()),
+                index.search(List.of("a"), 1, null, Allergen.GLUTEN.bit()));
+    }
+
+    @Test
+    void rebuild_servesSearchesAndReplaysChangesMadeDuringTheLoad() {
+        AtomicReference<RecipeSearchIndex> racing = new AtomicReference<>();
+        List<Long> seenDuringLoad = new ArrayList<>();
+        Recipe omelette = new Recipe("Omelette", 1, List.of("Whisk the eggs"),
+                Language.English, false, true, false);
+        RecipeRepositoryTest racingRepo = new RecipeRepositoryTest() {
+            @Override
+            public List<Recipe> findAllWithSteps() {
+                List<Recipe> loaded = new ArrayList<>(super.findAllWithSteps());
+                if (racing.get() != null && omelette.getId() == 0) {
+                    seenDuringLoad.addAll(racing.get().search(List.of("crepes")));
+                    // committed after the recipes were read
+                    save(omelette);
+                    racing.get().onCatalogChange(new CatalogChange.RecipeSaved(omelette));
+                }
+                return loaded;
+            }
+        };
+        Recipe crepes = racingRepo.save(new Recipe("Crepes", 2, List.of("Fry thin"),
+                Language.English, false, false, false));
+        RecipeSearchIndex racingIndex = new RecipeSearchIndex(racingRepo,
+                new IngredientRepositoryTest(), new RecipeIngredientRepositoryTest());
+        racingIndex.rebuild();
+        racing.set(racingIndex);
+
+        racingIndex.rebuild();
+
+        assertEquals(List.of(crepes.getId()), seenDuringLoad);
+        assertEquals(List.of(omelette.getId()), racingIndex.search(List.of("omelette")));
+        assertEquals(List.of(crepes.getId()), racingIndex.search(List.of("crepes")));
+    }
+
+    @Test
+    void search_agreesWithABruteForceScan() {
+        SyntheticCatalog catalog = new SyntheticCatalog(2_000, 100, 42);
+        for (int size = 1; size <= 6; size++) {
+            for (int q = 0; q < 20; q++) {
+                List<String> query = catalog.query(size);
+                List<Long> all = catalog.index().search(query);
+                assertEquals(catalog.bruteForce(query), all.stream().sorted().toList(),
+                        "query " + query);
+                assertEquals(all.subList(0, Math.min(10, all.size())),
+                        catalog.index().search(query, 10), "top 10 of " + query);
+            }
+        }
+    }
+
+    @Test
+    void stats_reportIndexSize() {
+        SearchIndexStats stats = index.stats();
+        assertEquals(2, stats.getRecipes());
+        assertEquals(2, stats.getIngredients());
+        assertEquals(2, stats.getLinks());
+        assertTrue(stats.getTokens() > 0);
+        assertTrue(stats.getSuffixes() >= stats.getTokens());
+
+        index.onCatalogChange(new CatalogChange.RecipeRemoved(soup.getId()));
+        assertEquals(1, index.stats().getRecipes());
+        assertEquals(1, index.stats().getLinks());
+    }
+}
@@ -0,0 +1,89 @@
+package server.search;
+
+import commons.Ingredient;
+import commons.Language;
+import commons.Recipe;
+import commons.Suggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import server.catalog.CatalogChange;
+import server.database.IngredientRepositoryTest;
+import server.database.RecipeRepositoryTest;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestIndexTest {
+
+    private RecipeRepositoryTest recipeRepo;
+    private IngredientRepositoryTest ingredientRepo;
+    private SuggestIndex index;
+
+    private Recipe tomatoSoup;
+    private Recipe toast;
+    private Ingredient tomato;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepo = new RecipeRepositoryTest();
+        ingredientRepo = new IngredientRepositoryTest();
+        index = new SuggestIndex(recipeRepo, ingredientRepo);
+
+        tomatoSoup = recipeRepo.save(new Recipe("Tomato Soup", 2, List.of("Boil"),
+                Language.English, false, false, false));
+        toast = recipeRepo.save(new Recipe("Toast", 1, List.of("Toast the bread"),
+                Language.English, false, false, false));
+        tomato = ingredientRepo.save(new Ingredient("Tomato", 0.2, 0.9, 3.9, Set.of()));
+
+        index.rebuild();
+    }
+
+    @Test
+    void suggest_completesNamesAlphabetically() {
+        assertEquals(List.of(
+                new Suggestion(Suggestion.Kind.RECIPE, toast.getId(), "Toast"),
+                new Suggestion(Suggestion.Kind.INGREDIENT, tomato.getId(), "Tomato"),
+                new Suggestion(Suggestion.Kind.RECIPE, tomatoSoup.getId(), "Tomato Soup")),
+                index.suggest("TO", null, 10));
+    }
+
+    @Test
+    void suggest_putsWordMatchesAfterNameMatches() {
+        Recipe soupOfTheDay = recipeRepo.save(new Recipe("Soup of the day", 2, List.of(),
+                Language.English, false, false, false));
+        index.onCatalogChange(new CatalogChange.RecipeSaved(soupOfTheDay));
+
+        assertEquals(List.of(soupOfTheDay.getId(), tomatoSoup.getId()),
+                index.suggest("soup", null, 10).stream().map(Suggestion::getId).toList());
+        assertEquals(List.of(soupOfTheDay.getId()),
+                index.suggest("soup", null, 1).stream().map(Suggestion::getId).toList());
+    }
+
+    @Test
+    void suggest_filtersByKindAndLimit() {
+        assertEquals(List.of(new Suggestion(Suggestion.Kind.INGREDIENT, tomato.getId(), "Tomato")),
+                index.suggest("to", Suggestion.Kind.INGREDIENT, 10));
+        assertEquals(2, index.suggest("to", null, 2).size());
+        assertTrue(index.suggest("to", null, 0).isEmpty());
+        assertTrue(index.suggest("  ", null, 10).isEmpty());
+        assertTrue(index.suggest("xyz", null, 10).isEmpty());
+    }
+
+    @Test
+    void changes_areAppliedIncrementally() {
+        Recipe renamed = new Recipe("Bruschetta", 1, List.of(),
+                Language.English, false, false, false);
+        renamed.setId(toast.getId());
+        index.onCatalogChange(new CatalogChange.RecipeSaved(renamed));
+        assertTrue(index.suggest("toas", null, 10).isEmpty());
+        assertEquals(List.of(new Suggestion(Suggestion.Kind.RECIPE, toast.getId(), "Bruschetta")),
+                index.suggest("br", null, 10));
+
+        index.onCatalogChange(new CatalogChange.IngredientRemoved(tomato.getId()));
+        index.onCatalogChange(new CatalogChange.RecipeRemoved(tomatoSoup.getId()));
+        assertTrue(index.suggest("to", null, 10).isEmpty());
+        assertEquals(1, index.size());
+    }
+}
@@ -0,0 +1,138 @@
+package server.search;
+
+import commons.Ingredient;
+import commons.Language;
+import commons.Recipe;
+import commons.RecipeIngredient;
+import commons.Unit;
+import server.catalog.CatalogChange;
+import server.database.IngredientRepositoryTest;
+import server.database.RecipeIngredientRepositoryTest;
+import server.database.RecipeRepositoryTest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A randomly generated catalog loaded into a search index, together with a brute force
+ * scan over the same recipes to check the index against.
+ */
+class SyntheticCatalog {
+
+    private static final String[] WORDS = {
+        "bake", "boil", "fry", "stir", "chop", "mix", "roast", "grill", "simmer", "whisk",
+        "slice", "dice", "season", "serve", "cool", "melt", "pour", "knead", "fold", "toast",
+        "steam", "mash", "peel", "grate", "drain", "rinse", "cover", "heat", "blend", "press"
+    };
+
+    private final Random random;
+    private final RecipeSearchIndex index;
+    private final List<Recipe> recipes = new ArrayList<>();
+    private final Map<Long, List<Ingredient>> ingredientsOf = new HashMap<>();
+
+    /**
+     * Generates a catalog where every recipe has three random ingredients.
+     *
+     * @param recipeCount     the number of recipes
+     * @param ingredientCount the number of distinct ingredients
+     * @param seed            the seed of the generator, the same seed gives the same catalog
+     */
+    SyntheticCatalog(int recipeCount, int ingredientCount, long seed) {
+        random = new Random(seed);
+        index = new RecipeSearchIndex(new RecipeRepositoryTest(),
+                new IngredientRepositoryTest(), new RecipeIngredientRepositoryTest());
+
+        List<Ingredient> ingredients = new ArrayList<>();
+        for (int i = 1; i <= ingredientCount; i++) {
+            Ingredient ingredient = new Ingredient(word() + "ing" + i, 1, 1, 1, Set.of());
+            ingredient.setId(i);
+            ingredients.add(ingredient);
+            index.onCatalogChange(new CatalogChange.IngredientSaved(ingredient));
+        }
+
+        long linkId = 1;
+        for (int i = 1; i <= recipeCount; i++) {
+            List<String> steps = List.of(sentence(5), sentence(5), sentence(5));
+            Recipe recipe = new Recipe(word() + " " + word() + i, 2, steps, Language.English,
+                    random.nextBoolean(), random.nextBoolean(), random.nextBoolean());
+            recipe.setId((long) i);
+            recipes.add(recipe);
+            index.onCatalogChange(new CatalogChange.RecipeSaved(recipe));
+
+            List<Ingredient> used = new ArrayList<>();
+            for (int j = 0; j < 3; j++) {
+                Ingredient ingredient = ingredients.get(random.nextInt(ingredientCount));
+                RecipeIngredient ri = new RecipeIngredient(recipe, ingredient, null, 1, Unit.GRAM);
+                ri.setId(linkId++);
+                used.add(ingredient);
+                index.onCatalogChange(new CatalogChange.RecipeIngredientSaved(ri));
+            }
+            ingredientsOf.put(recipe.getId(), used);
+        }
+    }
+
+    RecipeSearchIndex index() {
+        return index;
+    }
+
+    /**
+     * Builds a query from words of a random recipe, so most queries have at least one hit.
+     */
+    List<String> query(int size) {
+        Recipe recipe = recipes.get(random.nextInt(recipes.size()));
+        String text = recipe.getName() + " " + String.join(" ", recipe.getPreparationSteps());
+        String[] words = text.split(" ");
+        List<String> terms = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String term = words[random.nextInt(words.length)];
+            terms.add(term.substring(0, Math.max(2, term.length() - 1)));
+        }
+        return terms;
+    }
+
+    /**
+     * Reference implementation scanning every recipe.
+     *
+     * @return the ids of the matching recipes in ascending order
+     */
+    List<Long> bruteForce(List<String> terms) {
+        List<Long> ids = new ArrayList<>();
+        for (Recipe recipe : recipes) {
+            if (terms.stream().allMatch(term -> matches(recipe, term.toLowerCase(Locale.ROOT)))) {
+                ids.add(recipe.getId());
+            }
+        }
+        return ids;
+    }
+
+    private boolean matches(Recipe recipe, String term) {
+        if ((term.equals("cheap") && recipe.isCheap()) || (term.equals("fast") && recipe.isFast())
+                || (term.equals("vegan") && recipe.isVegan())) {
+            return true;
+        }
+        if (recipe.getName().toLowerCase(Locale.ROOT).contains(term)
+                || recipe.getPreparationSteps().stream()
+                .anyMatch(step -> step.toLowerCase(Locale.ROOT).contains(term))) {
+            return true;
+        }
+        return ingredientsOf.get(recipe.getId()).stream()
+                .anyMatch(i -> i.getName().toLowerCase(Locale.ROOT).contains(term));
+    }
+
+    private String word() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private String sentence(int words) {
+        List<String> parts = new ArrayList<>();
+        for (int i = 0; i < words; i++) {
+            parts.add(word());
+        }
+        return String.join(" ", parts);
+    }
+}
@@ -0,0 +1,75 @@
+package server.web;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import server.catalog.CatalogChange;
+import server.catalog.CatalogRevision;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConditionalGetInterceptorTest {
+
+    private CatalogRevision revision;
+    private ConditionalGetInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        revision = new CatalogRevision(1000L);
+        interceptor = new ConditionalGetInterceptor(revision);
+    }
+
+    @Test
+    void get_withoutTag_isTaggedAndHandled() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(get(null), response, null));
+        assertEquals("\"1000-0\"", response.getHeader("ETag"));
+        assertEquals("no-cache", response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    void get_withCurrentTag_isNotModified() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(get("\"other\", \"1000-0\""), response, null));
+        assertEquals(304, response.getStatus());
+    }
+
+    @Test
+    void get_afterChange_isHandledAgain() {
+        revision.onCatalogChange(new CatalogChange.RecipeRemoved(1L));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(get("\"1000-0\""), response, null));
+        assertEquals("\"1000-1\"", response.getHeader("ETag"));
+        assertEquals(1, revision.current());
+    }
+
+    @Test
+    void tagOfEarlierRun_doesNotMatch() {
+        ConditionalGetInterceptor restarted =
+                new ConditionalGetInterceptor(new CatalogRevision(2000L));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(restarted.preHandle(get("\"1000-0\""), response, null));
+    }
+
+    @Test
+    void otherMethods_areNotTagged() {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api/recipes/1");
+        request.addHeader("If-None-Match", "*");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(request, response, null));
+        assertNull(response.getHeader("ETag"));
+    }
+
+    /**
+     * Builds a GET request on the recipe list with an optional If-None-Match header.
+     */
+    private static MockHttpServletRequest get(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/recipes/");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,171 @@
+package server.web;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import server.catalog.CatalogChange;
+import server.catalog.CatalogRevision;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheFilterTest {
+
+    private CatalogRevision revision;
+    private ConditionalGetInterceptor interceptor;
+    private ResponseCacheFilter filter;
+    private int rendered;
+    private int status;
+
+    @BeforeEach
+    void setUp() {
+        revision = new CatalogRevision(1000L);
+        interceptor = new ConditionalGetInterceptor(revision);
+        filter = new ResponseCacheFilter(revision, 2, true);
+        rendered = 0;
+        status = 200;
+    }
+
+    @Test
+    void repeatedRequests_areRenderedOnce() throws Exception {
+        MockHttpServletResponse first = send(get("/api/recipes/"));
+        MockHttpServletResponse second = send(get("/api/recipes/"));
+
+        assertEquals(1, rendered);
+        assertEquals("[\"body 1\"]", second.getContentAsString());
+        assertEquals(first.getContentAsString(), second.getContentAsString());
+        assertTrue(second.getContentType().startsWith("application/json"));
+        assertEquals("\"1000-0\"", second.getHeader("ETag"));
+        assertEquals("no-cache", second.getHeader("Cache-Control"));
+    }
+
+    @Test
+    void change_rendersAgain() throws Exception {
+        send(get("/api/ingredients/"));
+        revision.onCatalogChange(new CatalogChange.IngredientRemoved(1L));
+        filter.onCatalogChange(new CatalogChange.IngredientRemoved(1L));
+
+        MockHttpServletResponse response = send(get("/api/ingredients/"));
+
+        assertEquals(2, rendered);
+        assertEquals("[\"body 2\"]", response.getContentAsString());
+        assertEquals("\"1000-1\"", response.getHeader("ETag"));
+    }
+
+    @Test
+    void urlsAreCachedSeparately() throws Exception {
+        send(get("/api/ingredients/"));
+        send(get("/api/ingredients/sorted"));
+        MockHttpServletRequest english = get("/api/recipes/");
+        english.setQueryString("languages=English");
+        send(english);
+        send(get("/api/recipes/"));
+
+        assertEquals(4, rendered);
+    }
+
+    @Test
+    void leastRecentlyUsedUrl_isDropped() throws Exception {
+        send(get("/api/ingredients/"));
+        send(get("/api/ingredients/sorted"));
+        send(get("/api/ingredients/"));
+        send(get("/api/recipes/"));
+
+        send(get("/api/ingredients/"));
+        assertEquals(3, rendered);
+        send(get("/api/ingredients/sorted"));
+        assertEquals(4, rendered);
+    }
+
+    @Test
+    void gzipClients_getTheCompressedBody() throws Exception {
+        send(get("/api/recipes/"));
+        MockHttpServletRequest request = get("/api/recipes/");
+        request.addHeader("Accept-Encoding", "deflate, gzip;q=0.8");
+
+        MockHttpServletResponse response = send(request);
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        try (GZIPInputStream in = new GZIPInputStream(
+                new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertEquals("[\"body 1\"]", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(1, rendered);
+    }
+
+    @Test
+    void acceptsGzip_honoursQualityZero() {
+        MockHttpServletRequest request = get("/api/recipes/");
+        request.addHeader("Accept-Encoding", "gzip;q=0, br");
+        assertFalse(ResponseCacheFilter.acceptsGzip(request));
+    }
+
+    @Test
+    void hitWithCurrentTag_isNotModified() throws Exception {
+        send(get("/api/recipes/"));
+        MockHttpServletRequest request = get("/api/recipes/");
+        request.addHeader("If-None-Match", "\"1000-0\"");
+
+        MockHttpServletResponse response = send(request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void errors_areNotCached() throws Exception {
+        status = 500;
+        assertEquals(500, send(get("/api/recipes/")).getStatus());
+        status = 200;
+        assertEquals("[\"body 2\"]", send(get("/api/recipes/")).getContentAsString());
+    }
+
+    @Test
+    void otherEndpointsAndMethods_areNotCached() throws Exception {
+        send(get("/api/recipes/summaries"));
+        send(get("/api/recipes/summaries"));
+        send(new MockHttpServletRequest("POST", "/api/ingredients/"));
+        send(new MockHttpServletRequest("POST", "/api/ingredients/"));
+
+        assertEquals(4, rendered);
+    }
+
+    /**
+     * Builds a GET request on a path.
+     */
+    private static MockHttpServletRequest get(String path) {
+        return new MockHttpServletRequest("GET", path);
+    }
+
+    /**
+     * Sends a request through the filter to a controller stand-in that tags the response
+     * like the interceptor and writes a body numbered by how often it ran.
+     */
+    private MockHttpServletResponse send(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HttpServlet controller = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp)
+                    throws IOException {
+                if (!interceptor.preHandle(req, resp, null)) {
+                    return;
+                }
+                rendered++;
+                resp.setStatus(status);
+                resp.setContentType("application/json");
+                resp.getWriter().write("[\"body " + rendered + "\"]");
+            }
+        };
+        filter.doFilter(request, response, new MockFilterChain(controller));
+        return response;
+    }
+}
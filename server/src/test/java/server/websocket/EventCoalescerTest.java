@@ -0,0 +1,86 @@
+package server.websocket;
+
+import commons.Language;
+import commons.Recipe;
+import commons.RecipeIngredient;
+import commons.SyncEvent;
+import commons.Unit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventCoalescerTest {
+
+    private Recipe recipe;
+
+    @BeforeEach
+    void setUp() {
+        recipe = new Recipe("Pancakes", 2, List.of("Mix"), Language.English, false, false, false);
+        recipe.setId(5L);
+    }
+
+    private RecipeIngredient ri(long id) {
+        RecipeIngredient ri = new RecipeIngredient(recipe, null, null, 100, Unit.GRAM);
+        ri.setId(id);
+        return ri;
+    }
+
+    @Test
+    void keepsDistinctEventsInOrder() {
+        SyncEvent created = new SyncEvent.RecipeIngredientCreated(ri(1));
+        SyncEvent deleted = new SyncEvent.RecipeIngredientDeleted(2L, 5L);
+        SyncEvent updated = new SyncEvent.RecipeContentUpdated(recipe);
+
+        assertEquals(List.of(created, deleted, updated),
+                EventCoalescer.collapse(List.of(created, deleted, updated)));
+    }
+
+    @Test
+    void keepsOnlyTheLastUpdates() {
+        SyncEvent first = new SyncEvent.RecipeIngredientUpdated(ri(1));
+        SyncEvent content = new SyncEvent.RecipeContentUpdated(recipe);
+        SyncEvent second = new SyncEvent.RecipeIngredientUpdated(ri(1));
+        SyncEvent other = new SyncEvent.RecipeIngredientUpdated(ri(2));
+        SyncEvent lastContent = new SyncEvent.RecipeContentUpdated(recipe);
+
+        assertEquals(List.of(second, other, lastContent),
+                EventCoalescer.collapse(List.of(first, content, second, other, lastContent)));
+    }
+
+    @Test
+    void deletedIngredientDropsItsEarlierEvents() {
+        SyncEvent created = new SyncEvent.RecipeIngredientCreated(ri(1));
+        SyncEvent updated = new SyncEvent.RecipeIngredientUpdated(ri(1));
+        SyncEvent deleted = new SyncEvent.RecipeIngredientDeleted(1L, 5L);
+        SyncEvent deletedAgain = new SyncEvent.RecipeIngredientDeleted(1L, 5L);
+
+        assertEquals(List.of(deletedAgain),
+                EventCoalescer.collapse(List.of(created, updated, deleted, deletedAgain)));
+    }
+
+    @Test
+    void replacedListSupersedesEarlierIngredientEvents() {
+        SyncEvent deleted = new SyncEvent.RecipeIngredientDeleted(1L, 5L);
+        SyncEvent created = new SyncEvent.RecipeIngredientCreated(ri(2));
+        SyncEvent content = new SyncEvent.RecipeContentUpdated(recipe);
+        SyncEvent replaced = new SyncEvent.RecipeIngredientsReplaced(5L, List.of(ri(3)));
+        SyncEvent later = new SyncEvent.RecipeIngredientUpdated(ri(3));
+
+        assertEquals(List.of(content, replaced, later),
+                EventCoalescer.collapse(List.of(deleted, created, content, replaced, later)));
+    }
+
+    @Test
+    void deletedRecipeDropsEverythingBefore() {
+        SyncEvent created = new SyncEvent.RecipeCreated(recipe);
+        SyncEvent content = new SyncEvent.RecipeContentUpdated(recipe);
+        SyncEvent ingredient = new SyncEvent.RecipeIngredientDeleted(1L, 5L);
+        SyncEvent deleted = new SyncEvent.RecipeDeleted(5L);
+
+        assertEquals(List.of(deleted),
+                EventCoalescer.collapse(List.of(created, content, ingredient, deleted)));
+    }
+}
@@ -0,0 +1,60 @@
+package server.websocket;
+
+import commons.SyncEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventLogTest {
+
+    @Test
+    void appendNumbersEventsInOrder() {
+        EventLog log = new EventLog(4, 7L);
+        SyncEvent first = new SyncEvent.RecipeDeleted(1L);
+        SyncEvent second = new SyncEvent.RecipeDeleted(2L);
+
+        log.append(first);
+        log.append(second);
+
+        assertEquals(1L, first.getSeq());
+        assertEquals(2L, second.getSeq());
+        assertEquals(2L, log.getLastSeq());
+        assertEquals(7L, log.getEpoch());
+    }
+
+    @Test
+    void sinceReturnsTheLaterEvents() {
+        EventLog log = new EventLog(4, 7L);
+        SyncEvent first = new SyncEvent.RecipeDeleted(1L);
+        SyncEvent second = new SyncEvent.RecipeDeleted(2L);
+        log.append(first);
+        log.append(second);
+
+        assertEquals(List.of(first, second), log.since(0));
+        assertEquals(List.of(second), log.since(1));
+        assertEquals(List.of(), log.since(2));
+    }
+
+    @Test
+    void sinceIsNullOnceEventsWereDropped() {
+        EventLog log = new EventLog(2, 7L);
+        for (long id = 1; id <= 5; id++) {
+            log.append(new SyncEvent.RecipeDeleted(id));
+        }
+
+        assertNull(log.since(2));
+        assertEquals(2, log.since(3).size());
+        assertEquals(4L, log.since(3).get(0).getRecipeId());
+    }
+
+    @Test
+    void sinceIsNullForUnknownNumbers() {
+        EventLog log = new EventLog(2, 7L);
+        log.append(new SyncEvent.RecipeDeleted(1L));
+
+        assertNull(log.since(-1));
+        assertNull(log.since(5));
+    }
+}
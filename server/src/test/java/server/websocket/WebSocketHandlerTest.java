@@ -1,6 +1,9 @@
 package server.websocket;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import commons.Language;
+import commons.Recipe;
+import commons.Subscription;
 import commons.SyncEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,7 +12,12 @@ import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
-import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,12 +29,36 @@ public class WebSocketHandlerTest {
 
     @BeforeEach
     void setUp(){
-        handler = new WebSocketHandler();
+        handler = new WebSocketHandler(Runnable::run, 16, Duration.ofSeconds(10));
         mapper = new ObjectMapper();
     }
 
+    private void send(WebSocketSession session, Subscription frame) throws Exception {
+        handler.handleMessage(session, new TextMessage(mapper.writeValueAsString(frame)));
+    }
+
+    private void connect(WebSocketSession session, String... topics) throws Exception {
+        handler.afterConnectionEstablished(session);
+        for (String topic : topics) {
+            send(session, Subscription.subscribe(topic));
+        }
+        send(session, Subscription.resume(null, 0));
+        // forget the position sent in answer to the resume request
+        clearInvocations(session);
+    }
+
+    private List<SyncEvent> received(WebSocketSession session, int frames) throws Exception {
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(session, times(frames)).sendMessage(captor.capture());
+        List<SyncEvent> events = new ArrayList<>();
+        for (TextMessage message : captor.getAllValues()) {
+            events.add(mapper.readValue(message.getPayload(), SyncEvent.class));
+        }
+        return events;
+    }
+
     @Test
-    void testWebSocketSessionOpened() throws IOException {
+    void testWebSocketSessionOpened() throws Exception {
         WebSocketSession session = mock(WebSocketSession.class);
 
         SyncEvent testEvent = new SyncEvent.RecipeDeleted(1L);
@@ -36,7 +68,7 @@ public class WebSocketHandlerTest {
         verify(session, never()).sendMessage(any(TextMessage.class));
         // verify nothing has been sent to the session
 
-        handler.afterConnectionEstablished(session);
+        connect(session, Subscription.RECIPES);
         handler.broadcast(testEvent);
 
         verify(session, atLeastOnce()).sendMessage(any(TextMessage.class));
@@ -44,12 +76,12 @@ public class WebSocketHandlerTest {
     }
 
     @Test
-    void testWebSocketSessionClosed() throws IOException {
+    void testWebSocketSessionClosed() throws Exception {
         WebSocketSession session = mock(WebSocketSession.class);
 
         SyncEvent testEvent = new SyncEvent.RecipeDeleted(1L);
 
-        handler.afterConnectionEstablished(session);
+        connect(session, Subscription.RECIPES);
         session.close();
         handler.afterConnectionClosed(session, CloseStatus.NORMAL);
 
@@ -61,12 +93,12 @@ public class WebSocketHandlerTest {
     }
 
     @Test
-    void testSendMessageToAllSockets() throws IOException {
+    void testSendMessageToAllSockets() throws Exception {
         WebSocketSession session1 = mock(WebSocketSession.class);
         WebSocketSession session2 = mock(WebSocketSession.class);
 
-        handler.afterConnectionEstablished(session1);
-        handler.afterConnectionEstablished(session2);
+        connect(session1, Subscription.recipe(100L));
+        connect(session2, Subscription.recipe(100L));
 
         SyncEvent testEvent = new SyncEvent.RecipeIngredientDeleted(1L, 100L);
 
@@ -85,10 +117,10 @@ public class WebSocketHandlerTest {
     }
 
     @Test
-    void testMessageTypePersisted() throws IOException {
+    void testMessageTypePersisted() throws Exception {
         WebSocketSession session = mock(WebSocketSession.class);
 
-        handler.afterConnectionEstablished(session);
+        connect(session, Subscription.RECIPES, Subscription.recipe(100L));
 
         SyncEvent.RecipeIngredientDeleted riDeleteEvent = new SyncEvent.RecipeIngredientDeleted(1L, 100L);
         SyncEvent.RecipeDeleted recipeDeleteEvent = new SyncEvent.RecipeDeleted(10L);
@@ -115,4 +147,223 @@ public class WebSocketHandlerTest {
 
         assertEquals(receivedRecipeDeleteEvent.getRecipeId(), recipeDeleteEvent.getRecipeId());
     }
+
+    @Test
+    void testBroadcastDoesNotWaitForTheClient() throws Exception {
+        List<Runnable> tasks = new ArrayList<>();
+        handler = new WebSocketHandler(tasks::add, 16, Duration.ofSeconds(10));
+        WebSocketSession session = mock(WebSocketSession.class);
+        connect(session, Subscription.RECIPES);
+
+        handler.broadcast(new SyncEvent.RecipeDeleted(1L));
+        handler.broadcast(new SyncEvent.RecipeDeleted(2L));
+
+        verify(session, never()).sendMessage(any(TextMessage.class));
+        assertEquals(1, tasks.size());
+        // one task sends everything queued for the session
+
+        tasks.getFirst().run();
+        verify(session, times(3)).sendMessage(any(TextMessage.class));
+        // the answer to the resume request and both events
+    }
+
+    @Test
+    void testFullQueueDisconnectsSession() throws Exception {
+        List<Runnable> tasks = new ArrayList<>();
+        handler = new WebSocketHandler(tasks::add, 1, Duration.ofSeconds(10));
+        WebSocketSession slow = mock(WebSocketSession.class);
+        connect(slow, Subscription.RECIPES);
+
+        handler.broadcast(new SyncEvent.RecipeDeleted(1L));
+        handler.broadcast(new SyncEvent.RecipeDeleted(2L));
+        new ArrayList<>(tasks).forEach(Runnable::run);
+
+        verify(slow).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(slow, never()).sendMessage(any(TextMessage.class));
+        assertEquals(0, handler.getSessionCount());
+    }
+
+    @Test
+    void testStuckSendDisconnectsOnlyThatSession() throws Exception {
+        handler = new WebSocketHandler(task -> Thread.ofVirtual().start(task), 16,
+                Duration.ofMillis(50));
+        WebSocketSession stuck = mock(WebSocketSession.class);
+        WebSocketSession fast = mock(WebSocketSession.class);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await();
+            return null;
+        }).when(stuck).sendMessage(any(TextMessage.class));
+        connect(stuck, Subscription.RECIPES);
+        connect(fast, Subscription.RECIPES);
+
+        handler.broadcast(new SyncEvent.RecipeDeleted(1L));
+        sending.await();
+        Thread.sleep(100);
+        handler.broadcast(new SyncEvent.RecipeDeleted(2L));
+
+        verify(stuck, timeout(1000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(fast, timeout(1000).atLeast(2)).sendMessage(any(TextMessage.class));
+        assertEquals(1, handler.getSessionCount());
+        release.countDown();
+    }
+
+    @Test
+    void testEventsOnlyReachSubscribedSessions() throws Exception {
+        WebSocketSession list = mock(WebSocketSession.class);
+        WebSocketSession viewer = mock(WebSocketSession.class);
+        WebSocketSession other = mock(WebSocketSession.class);
+        connect(list, Subscription.RECIPES);
+        connect(viewer, Subscription.recipe(5L));
+        connect(other, Subscription.recipe(6L));
+
+        handler.broadcast(new SyncEvent.RecipeIngredientDeleted(1L, 5L));
+
+        verify(viewer, times(1)).sendMessage(any(TextMessage.class));
+        verify(list, never()).sendMessage(any(TextMessage.class));
+        verify(other, never()).sendMessage(any(TextMessage.class));
+    }
+
+    @Test
+    void testSessionOnSeveralTopicsReceivesEventOnce() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        connect(session, Subscription.RECIPES, Subscription.recipe(5L));
+
+        handler.broadcast(new SyncEvent.RecipeDeleted(5L));
+
+        verify(session, times(1)).sendMessage(any(TextMessage.class));
+    }
+
+    @Test
+    void testUnsubscribeStopsEvents() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        connect(session, Subscription.recipe(5L));
+        send(session, Subscription.unsubscribe(Subscription.recipe(5L)));
+
+        handler.broadcast(new SyncEvent.RecipeIngredientDeleted(1L, 5L));
+
+        verify(session, never()).sendMessage(any(TextMessage.class));
+    }
+
+    @Test
+    void testInvalidFramesAreIgnored() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        handler.afterConnectionEstablished(session);
+        handler.handleMessage(session, new TextMessage("not json"));
+        send(session, Subscription.subscribe("recipe:abc"));
+        send(session, Subscription.subscribe("everything"));
+        send(session, Subscription.resume(null, 0));
+        clearInvocations(session);
+
+        handler.broadcast(new SyncEvent.RecipeDeleted(1L));
+
+        verify(session, never()).sendMessage(any(TextMessage.class));
+        assertEquals(1, handler.getSessionCount());
+    }
+
+    @Test
+    void testEventsOfARecipeAreSentAsOneBatch() throws Exception {
+        ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        handler = new WebSocketHandler(Runnable::run, scheduler, 16, Duration.ofSeconds(10), 30,
+                WebSocketHandler.DEFAULT_REPLAY_CAPACITY);
+        WebSocketSession viewer = mock(WebSocketSession.class);
+        WebSocketSession list = mock(WebSocketSession.class);
+        connect(viewer, Subscription.recipe(5L));
+        connect(list, Subscription.RECIPES);
+        Recipe recipe = new Recipe("Pancakes", 2, List.of("Mix"), Language.English, false, false, false);
+        recipe.setId(5L);
+
+        handler.broadcast(new SyncEvent.RecipeIngredientDeleted(1L, 5L));
+        handler.broadcast(new SyncEvent.RecipeIngredientDeleted(2L, 5L));
+        handler.broadcast(new SyncEvent.RecipeIngredientDeleted(2L, 5L));
+        handler.broadcast(new SyncEvent.RecipeContentUpdated(recipe));
+
+        verify(viewer, never()).sendMessage(any(TextMessage.class));
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(flush.capture(), eq(30L), eq(TimeUnit.MILLISECONDS));
+        flush.getValue().run();
+
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(viewer, times(1)).sendMessage(captor.capture());
+        SyncEvent.Batch batch = (SyncEvent.Batch) mapper.readValue(
+                captor.getValue().getPayload(), SyncEvent.class);
+        assertEquals(5L, batch.getRecipeId());
+        assertEquals(List.of(SyncEvent.RecipeIngredientDeleted.class,
+                        SyncEvent.RecipeIngredientDeleted.class,
+                        SyncEvent.RecipeContentUpdated.class),
+                batch.getEvents().stream().map(Object::getClass).toList());
+
+        // the list only follows the content update, which is sent on its own
+        verify(list, times(1)).sendMessage(captor.capture());
+        assertInstanceOf(SyncEvent.RecipeContentUpdated.class,
+                mapper.readValue(captor.getValue().getPayload(), SyncEvent.class));
+    }
+
+    @Test
+    void testEventsAreNotSentBeforeResume() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        handler.afterConnectionEstablished(session);
+        send(session, Subscription.subscribe(Subscription.RECIPES));
+
+        handler.broadcast(new SyncEvent.RecipeDeleted(1L));
+
+        verify(session, never()).sendMessage(any(TextMessage.class));
+    }
+
+    @Test
+    void testResumeReplaysMissedEvents() throws Exception {
+        WebSocketSession first = mock(WebSocketSession.class);
+        handler.afterConnectionEstablished(first);
+        send(first, Subscription.subscribe(Subscription.RECIPES));
+        send(first, Subscription.resume(null, 0));
+        handler.broadcast(new SyncEvent.RecipeDeleted(1L));
+        List<SyncEvent> seen = received(first, 2);
+        long epoch = ((SyncEvent.Resumed) seen.get(0)).getEpoch();
+        long lastSeq = seen.get(1).getSeq();
+
+        // the connection drops and the client misses two events
+        handler.afterConnectionClosed(first, CloseStatus.GOING_AWAY);
+        handler.broadcast(new SyncEvent.RecipeDeleted(2L));
+        handler.broadcast(new SyncEvent.RecipeIngredientDeleted(4L, 3L));
+        handler.broadcast(new SyncEvent.RecipeDeleted(3L));
+
+        WebSocketSession second = mock(WebSocketSession.class);
+        handler.afterConnectionEstablished(second);
+        send(second, Subscription.subscribe(Subscription.RECIPES));
+        send(second, Subscription.resume(epoch, lastSeq));
+
+        List<SyncEvent> replayed = received(second, 3);
+        // the ingredient event is not sent, the client does not follow recipe 3
+        assertEquals(2L, replayed.get(0).getRecipeId());
+        assertEquals(3L, replayed.get(1).getRecipeId());
+        assertInstanceOf(SyncEvent.Resumed.class, replayed.get(2));
+        assertEquals(lastSeq + 3, replayed.get(2).getSeq());
+    }
+
+    @Test
+    void testResumeTooFarBackRequiresResync() throws Exception {
+        handler = new WebSocketHandler(Runnable::run, null, 16, Duration.ofSeconds(10), 0, 1);
+        WebSocketSession session = mock(WebSocketSession.class);
+        handler.afterConnectionEstablished(session);
+        send(session, Subscription.subscribe(Subscription.RECIPES));
+        send(session, Subscription.resume(null, 0));
+        long epoch = ((SyncEvent.Resumed) received(session, 1).get(0)).getEpoch();
+        handler.afterConnectionClosed(session, CloseStatus.GOING_AWAY);
+        handler.broadcast(new SyncEvent.RecipeDeleted(1L));
+        handler.broadcast(new SyncEvent.RecipeDeleted(2L));
+
+        WebSocketSession behind = mock(WebSocketSession.class);
+        handler.afterConnectionEstablished(behind);
+        send(behind, Subscription.resume(epoch, 0));
+        WebSocketSession restarted = mock(WebSocketSession.class);
+        handler.afterConnectionEstablished(restarted);
+        send(restarted, Subscription.resume(epoch + 1, 2));
+
+        SyncEvent answer = received(behind, 1).get(0);
+        assertInstanceOf(SyncEvent.ResyncRequired.class, answer);
+        assertEquals(2L, answer.getSeq());
+        assertInstanceOf(SyncEvent.ResyncRequired.class, received(restarted, 1).get(0));
+    }
 }